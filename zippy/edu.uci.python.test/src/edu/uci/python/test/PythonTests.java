@@ -251,9 +251,14 @@ public class PythonTests {
         return ret;
     }
 
+    /**
+     * Creates a context and enters it on the calling thread, for tests that create Python objects
+     * outside of a running script.
+     */
     public static PythonContext getContext() {
         PythonOptions opts = new PythonOptions();
         PythonContext context = new PythonContext(null, opts, new PythonDefaultBuiltinsLookup(), new PythonParserImpl());
+        context.enter();
         return context;
     }
 
@@ -340,6 +340,34 @@ public class BuiltinFunctionTests {
         assertPrints("[1, 2, 3, 4]\n", script);
     }
 
+    @Test
+    public void sortedWithKey() {
+        String source = "records = [('b', 2), ('a', 3), ('c', 1), ('d', 2)]\n" + //
+                        "print(sorted(records, key=lambda r: r[1]))\n" + //
+                        "print(sorted(records, key=lambda r: r[1], reverse=True))\n" + //
+                        "print(sorted([3, 1.5, 2, 1]), sorted('cab'))\n" + //
+                        "lst = [5, 3, 9, 1]\n" + //
+                        "lst.sort(reverse=True)\n" + //
+                        "print(lst)\n";
+        assertPrints("[('c', 1), ('b', 2), ('d', 2), ('a', 3)]\n" + //
+                        "[('a', 3), ('b', 2), ('d', 2), ('c', 1)]\n" + //
+                        "[1, 1.5, 2, 3] ['a', 'b', 'c']\n" + //
+                        "[9, 5, 3, 1]\n", source);
+    }
+
+    @Test
+    public void sortedPythonOrdering() {
+        String source = "print(sorted([0.0, -0.0, 1.5, -0.0, 0.0]))\n" + //
+                        "class V:\n" + //
+                        "    def __init__(self, v):\n" + //
+                        "        self.v = v\n" + //
+                        "    def __lt__(self, other):\n" + //
+                        "        return self.v > other.v\n" + //
+                        "print([x.v for x in sorted([V(1), V(3), V(2)])])\n";
+        assertPrints("[0.0, -0.0, -0.0, 0.0, 1.5]\n" + //
+                        "[3, 2, 1]\n", source);
+    }
+
     @Test
     public void printTest() {
         String source = "a = 1;print('a=',a)";
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2013, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met: 
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer. 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution. 
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.builtin;
+
+import static edu.uci.python.test.PythonTests.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+import org.junit.*;
+import org.python.core.*;
+
+import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.sequence.*;
+
+public class FileTests {
+
+    private Path file;
+
+    @Before
+    public void createFile() throws IOException {
+        file = Files.createTempFile("zippy", ".txt");
+    }
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private String path() {
+        return file.toString().replace("\\", "\\\\");
+    }
+
+    @Test
+    public void writeAndIterate() {
+        String source = "f = open('" + path() + "', 'w')\n" + //
+                        "for i in range(3):\n" + //
+                        "    f.write('line ' + str(i) + '\\n')\n" + //
+                        "f.close()\n" + //
+                        "with open('" + path() + "') as f:\n" + //
+                        "    for line in f:\n" + //
+                        "        print(line.strip())\n";
+
+        assertPrints("line 0\nline 1\nline 2\n", source);
+    }
+
+    @Test
+    public void readMethods() throws IOException {
+        Files.write(file, "a\u00e9\r\nbb\ncc".getBytes(StandardCharsets.UTF_8));
+        String source = "f = open('" + path() + "', encoding='utf-8')\n" + //
+                        "print(len(f.readline()))\n" + //
+                        "print(f.read(2))\n" + //
+                        "lines = f.readlines()\n" + //
+                        "print(len(lines), len(lines[0]), lines[1])\n" + //
+                        "print(len(f.readline()))\n" + //
+                        "f.close()\n";
+
+        assertPrints("3\nbb\n2 1 cc\n0\n", source);
+    }
+
+    @Test
+    public void readCountsTranslatedNewlines() throws IOException {
+        Files.write(file, "a\r\nb\r\r\nc\r".getBytes(StandardCharsets.UTF_8));
+        String source = "def show(s):\n" + //
+                        "    return s.replace('\\r', 'R').replace('\\n', 'N')\n" + //
+                        "f = open('" + path() + "')\n" + //
+                        "print(show(f.read(1)), show(f.read(2)), show(f.read(3)), show(f.read()))\n" + //
+                        "f.close()\n";
+
+        assertPrints("a Nb RNc R\n", source);
+    }
+
+    @Test
+    public void longLines() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 200000; i++) {
+            line.append('x');
+        }
+
+        Files.write(file, (line + "\n" + line + "\n").getBytes(StandardCharsets.UTF_8));
+        String source = "n = 0\n" + //
+                        "for line in open('" + path() + "'):\n" + //
+                        "    n += len(line)\n" + //
+                        "print(n)\n";
+
+        assertPrints("400002\n", source);
+    }
+
+    @Test
+    public void binaryMode() throws IOException {
+        String source = "with open('" + path() + "', 'wb') as f:\n" + //
+                        "    f.write(bytes('xy\\nz', 'ascii'))\n" + //
+                        "f = open('" + path() + "', 'rb')\n" + //
+                        "print(len(f.readline()))\n" + //
+                        "print(len(f.read()))\n" + //
+                        "f.close()\n";
+
+        assertPrints("3\n1\n", source);
+        assertArrayEquals("xy\nz".getBytes(StandardCharsets.UTF_8), Files.readAllBytes(file));
+    }
+
+    @Test
+    public void binaryModeRejectsStr() {
+        assertError("TypeError: a bytes-like object is required, not 'str'\n", "open('" + path() + "', 'wb').write('xy')\n");
+    }
+
+    @Test
+    public void modeMustBeStr() {
+        assertError("TypeError: open() argument 'mode' must be str, not None\n", "open('" + path() + "', mode=None)\n");
+    }
+
+    @Test
+    public void unclosedFileIsFlushed() throws IOException {
+        assertPrints("", "open('" + path() + "', 'w').write('kept')\n");
+        assertEquals("kept", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void memoryMapped() throws IOException {
+        Files.write(file, "one\ntwo ERROR\nthree".getBytes(StandardCharsets.UTF_8));
+        String source = "with open('" + path() + "', 'rb', mmap=True) as f:\n" + //
+                        "    data = f.read()\n" + //
+                        "print(len(data), data.find(b'ERROR'), data.find(b'ERROR', 9))\n" + //
+                        "print(data[0:3], data[4:7].decode(), data[0])\n" + //
+                        "n = 0\n" + //
+                        "for line in open('" + path() + "', 'rb', mmap=True):\n" + //
+                        "    n += len(line)\n" + //
+                        "print(n)\n" + //
+                        "for line in open('" + path() + "', mmap=True):\n" + //
+                        "    print(line.strip())\n";
+
+        assertPrints("19 8 -1\nb'one' two 111\n19\none\ntwo ERROR\nthree\n", source);
+    }
+
+    @Test
+    public void memoryMappedReadsAreViews() throws IOException {
+        Files.write(file, "one\ntwo".getBytes(StandardCharsets.UTF_8));
+        PythonContext context = getContext();
+
+        PFile mapped = PFile.open(context, file.toString(), "rb", null, true);
+        PBytes line = (PBytes) mapped.readLine();
+        PBytes rest = (PBytes) mapped.read(-1);
+        mapped.close();
+
+        assertTrue(line.getBuffer().isDirect());
+        assertTrue(rest.getBuffer().isDirect());
+        assertEquals(4, line.len());
+        assertEquals((int) 'o', rest.getItem(-1));
+    }
+
+    @Test
+    public void bytesIndexOutOfRange() {
+        assertError("IndexError: index out of range\n", "print(bytes('ab', 'ascii')[2])\n");
+        assertError("IndexError: index out of range\n", "print(bytes('ab', 'ascii')[-3])\n");
+    }
+
+    @Test(expected = PyException.class)
+    public void emptyBytesHasNoMax() {
+        new PBytes().getMax();
+    }
+
+    @Test
+    public void invalidBytesDoNotDecode() throws IOException {
+        Files.write(file, new byte[]{'a', (byte) 0xff, 'b'});
+        String source = "with open('" + path() + "', 'rb') as f:\n" + //
+                        "    data = f.read()\n" + //
+                        "try:\n" + //
+                        "    data.decode('utf-8')\n" + //
+                        "except UnicodeDecodeError:\n" + //
+                        "    print('rejected')\n" + //
+                        "print(data[0:1].decode('ascii'))\n";
+
+        assertPrints("rejected\na\n", source);
+    }
+
+}
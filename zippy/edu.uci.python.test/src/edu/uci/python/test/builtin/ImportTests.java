@@ -28,7 +28,10 @@ import java.nio.file.*;
 
 import org.junit.*;
 
+import edu.uci.python.parser.*;
+
 import static edu.uci.python.test.PythonTests.*;
+import static org.junit.Assert.*;
 
 public class ImportTests {
 
@@ -38,6 +41,17 @@ public class ImportTests {
         assertPrints("imported foo()\n" + "local foo()\n" + "local variable\n" + "imported variable\n", script);
     }
 
+    @Test
+    public void prefetchedImports() {
+        Path script = Paths.get("import-prefetch-test.py");
+        int taken = ImportPrefetcher.getTakenCount();
+        assertPrints("imported foo()\n" + "imported bar()\n" + "imported variable\n", script);
+
+        if (ImportPrefetcher.isEnabled()) {
+            assertTrue(ImportPrefetcher.getTakenCount() > taken);
+        }
+    }
+
     @Test
     public void importStandardLib() {
         String source = "import bisect\n" + //
@@ -46,6 +60,14 @@ public class ImportTests {
         assertPrints("42\n", source);
     }
 
+    @Test
+    public void lazyBuiltinModule() {
+        String source = "import math\n" + //
+                        "import math as m\n" + //
+                        "print(math is m, m.floor(2.5))\n";
+        assertPrints("True 2.0\n", source);
+    }
+
     @Test
     public void module__file__() {
         String source = "import bisect\n" + //
@@ -53,4 +53,32 @@ public class DictTests {
         assertPrints("{3: 4}\n", source);
     }
 
+    @Test
+    public void insertionOrder() {
+        String source = "dd = {3:'c', 1:'a'}\n" + //
+                        "dd[2] = 'b'\n" + //
+                        "print(list(dd.keys()))\n";
+
+        assertPrints("[3, 1, 2]\n", source);
+    }
+
+    @Test
+    public void reinsertAfterDel() {
+        String source = "dd = {1:2, 3:4}\n" + //
+                        "del dd[1]\n" + //
+                        "dd[1] = 5\n" + //
+                        "print(dd)\n";
+
+        assertPrints("{3: 4, 1: 5}\n", source);
+    }
+
+    @Test
+    public void tupleKeys() {
+        String source = "dd = {}\n" + //
+                        "dd[(1, 2)] = 'a'\n" + //
+                        "print(dd[(1, 2)])\n";
+
+        assertPrints("a\n", source);
+    }
+
 }
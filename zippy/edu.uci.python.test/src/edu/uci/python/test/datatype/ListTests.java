@@ -184,6 +184,46 @@ public class ListTests {
         assertError("IndexError: list assignment index out of range\n", source);
     }
 
+    @Test
+    public void appendMixedNumbers() {
+        String source = "lst = [1, 2]\n" + //
+                        "lst.append(1.5)\n" + //
+                        "lst.append(3)\n" + //
+                        "print(lst, lst[0], lst[2])\n";
+        assertPrints("[1, 2, 1.5, 3] 1 1.5\n", source);
+    }
+
+    @Test
+    public void allocationSiteProfile() {
+        String source = "def build(n, x):\n" + //
+                        "    lst = []\n" + //
+                        "    for i in range(n):\n" + //
+                        "        lst.append(i)\n" + //
+                        "    lst.append(x)\n" + //
+                        "    return lst\n" + //
+                        "for i in range(4):\n" + //
+                        "    build(20, 1)\n" + //
+                        "print(build(3, 0.5), build(2, 'a'), [j * x for j in range(2) for x in [1, 2.5]])\n";
+        assertPrints("[0, 1, 2, 0.5] [0, 1, 'a'] [0, 0.0, 1, 2.5]\n", source);
+    }
+
+    @Test
+    public void allocationSiteReprofiles() {
+        String source = "def build(n, x):\n" + //
+                        "    lst = []\n" + //
+                        "    for i in range(n):\n" + //
+                        "        lst.append(x)\n" + //
+                        "    return lst\n" + //
+                        "for i in range(4):\n" + //
+                        "    build(500, 1)\n" + //
+                        "total = 0\n" + //
+                        "for x in [1, 2 ** 40, 0.5, 'a', 1, 0.5]:\n" + //
+                        "    for i in range(4):\n" + //
+                        "        total += len(build(i, x))\n" + //
+                        "print(total, build(2, 2 ** 40), build(1, 'b'), build(0, 1))\n";
+        assertPrints("36 [1099511627776, 1099511627776] ['b'] []\n", source);
+    }
+
     // Disabled for now.
     public void moreSlice() {
         Path script = Paths.get("slice-test.py");
@@ -53,4 +53,35 @@ public class SetTests {
                         "print(s)";
         assertPrints("{1, 2, 3}\n{1, 2, 3, 4}\n", source);
     }
+
+    @Test
+    public void setContains() {
+        String source = "s = {1, 2, 3}\n" + //
+                        "print(2 in s, 5 in s, 2 not in s)\n";
+        assertPrints("True False False\n", source);
+    }
+
+    @Test
+    public void setGeneralize() {
+        String source = "s = {1, 2}\n" + //
+                        "s.add('a')\n" + //
+                        "print(len(s), 1 in s, 'a' in s)\n";
+        assertPrints("3 True True\n", source);
+    }
+
+    @Test
+    public void setWithIterator() {
+        String source = "a = {1, 2, 3}\n" + //
+                        "print(a.issubset(range(5)), a.issuperset(iter([1, 3])))\n";
+        assertPrints("True True\n", source);
+    }
+
+    @Test
+    public void setIntersection() {
+        String source = "a = {1, 2, 3, 4}\n" + //
+                        "b = {3, 4, 5}\n" + //
+                        "print(a & b)\n" + //
+                        "print(a - b)\n";
+        assertPrints("{3, 4}\n{1, 2}\n", source);
+    }
 }
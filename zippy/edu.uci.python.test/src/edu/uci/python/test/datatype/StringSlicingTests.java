@@ -72,4 +72,14 @@ public class StringSlicingTests {
         assertPrints("abcdefghi\n", source);
     }
 
+    @Test
+    public void sliceLongStringRepeatedly() {
+        String source = "text = \"abcdefghij\" * 30\n" + //
+                        "words = []\n" + //
+                        "for i in range(0, 300, 100):\n" + //
+                        "    words.append(text[i:i + 3] + text[i + 7:i + 10])\n" + //
+                        "print(words, text[295:] == 'fghij', len(text[10:]))\n";
+        assertPrints("['abchij', 'abchij', 'abchij'] True 290\n", source);
+    }
+
 }
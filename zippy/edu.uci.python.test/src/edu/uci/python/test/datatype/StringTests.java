@@ -81,4 +81,38 @@ public class StringTests {
         assertPrints("('0', '1', '2', '3', '4', '5', '6', '7', '8', '9')\n", source);
     }
 
+    @Test
+    public void concatInLoop() {
+        String source = "s = ''\n" + //
+                        "for i in range(100):\n" + //
+                        "    s += str(i % 10)\n" + //
+                        "d = {s : 1}\n" + //
+                        "print(len(s), s[0], s[99], s[:12], d['0123456789' * 10])\n" + //
+                        "print(s.upper() == s, s in {s}, str(s).endswith('789'))\n";
+        assertPrints("100 0 9 012345678901 1\nTrue True True\n", source);
+    }
+
+    @Test
+    public void concatEscapesIntoContainers() {
+        String source = "s = ''\n" + //
+                        "for i in range(100):\n" + //
+                        "    s += str(i % 10)\n" + //
+                        "plain = '0123456789' * 10\n" + //
+                        "l = [s]\n" + //
+                        "t = (1, s)\n" + //
+                        "print(l.index(plain), t.index(plain), plain in l, l == [plain], t == (1, plain))\n";
+        assertPrints("0 1 True True True\n", source);
+    }
+
+    @Test
+    public void iterateChars() {
+        String source = "n = 0\n" + //
+                        "for c in 'GATTACA\u00e9\u4e2d':\n" + //
+                        "    if c == 'A':\n" + //
+                        "        n += 1\n" + //
+                        "    last = c\n" + //
+                        "print(n, last, len(last), 'TACA'[1], 'TACA'[-1])\n";
+        assertPrints("3 \u4e2d 1 A A\n", source);
+    }
+
 }
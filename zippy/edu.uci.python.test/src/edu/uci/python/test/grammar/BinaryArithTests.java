@@ -133,4 +133,42 @@ public class BinaryArithTests {
         assertError("TypeError: unsupported operand type(s) for +: None + 1\n", source);
     }
 
+    @Test
+    public void longArithmetic() {
+        String source = "h = 2147483647\n" + //
+                        "for i in range(3):\n" + //
+                        "    h = h * 31 + i\n" + //
+                        "print(h, h // -7, h % 1000, h - h, -h >> 3, h << 2)\n" + //
+                        "print(h * h * h // (h * h), 3 ** 40, 2 ** -1)\n";
+        assertPrints("63975685327810 -9139383618259 810 0 -7996960665977 255902741311240\n" + //
+                        "63975685327810 12157665459056928801 0.5\n", source);
+    }
+
+    @Test
+    public void longAndFloatMixed() {
+        String source = "h = 2147483647 * 4\n" + //
+                        "print(h - 0.5, 0.5 - h, h * 0.5, 2.0 * h, h // 2.0, 9.0 // h)\n";
+        assertPrints("8589934587.5 -8589934587.5 4294967294.0 17179869176.0 4294967294.0 0.0\n", source);
+    }
+
+    @Test
+    public void floorDivByZero() {
+        String source = "for d in [0, 0.0, 2 ** 64 - 2 ** 64]:\n" + //
+                        "    try:\n" + //
+                        "        print(7 // d)\n" + //
+                        "    except ZeroDivisionError:\n" + //
+                        "        print('zero')\n";
+        assertPrints("zero\nzero\nzero\n", source);
+    }
+
+    @Test
+    public void moduloByZero() {
+        String source = "for n in [7, -7, 2147483647 * 4, 2 ** 70, 7.5]:\n" + //
+                        "    try:\n" + //
+                        "        print(n % 0)\n" + //
+                        "    except ZeroDivisionError:\n" + //
+                        "        print('zero')\n";
+        assertPrints("zero\nzero\nzero\nzero\nzero\n", source);
+    }
+
 }
@@ -87,4 +87,30 @@ public class ForTests {
         assertPrints("1 2 3 4\n5 6 7 8\n", source);
     }
 
+    @Test
+    public void nestedLoopsInFunction() {
+        String source = "def f(n):\n" + //
+                        "    total = 0\n" + //
+                        "    for i in range(n):\n" + //
+                        "        for c in 'ab':\n" + //
+                        "            for x in [1.5, 2.5]:\n" + //
+                        "                total += x\n" + //
+                        "    return total\n" + //
+                        "print(f(3), f(0), sum(x for x in [1, 2, 3]))\n";
+
+        assertPrints("24.0 0 6\n", source);
+    }
+
+    @Test
+    public void loopSeesSeveralIteratorKinds() {
+        String source = "def f(it):\n" + //
+                        "    out = []\n" + //
+                        "    for x in it:\n" + //
+                        "        out.append(sum(y for y in range(2)) + len(str(x)))\n" + //
+                        "    return out\n" + //
+                        "print(f(range(3)), f('ab'), f([1.5, 10]), f((i for i in [100])))\n";
+
+        assertPrints("[2, 2, 2] [2, 2] [4, 3] [4]\n", source);
+    }
+
 }
@@ -164,4 +164,17 @@ public class LocalFrameTests {
 
         assertPrints("20j\n", source);
     }
+
+    @Test
+    public void int2Long() {
+        String source = "def foo():\n" + //
+                        "    a = 1\n" + //
+                        "    for i in range(40):\n" + //
+                        "        a = a * 2\n" + //
+                        "    print(a, a // 1099511627776)\n" + //
+                        "\n" + //
+                        "foo()\n";
+
+        assertPrints("1099511627776 1\n", source);
+    }
 }
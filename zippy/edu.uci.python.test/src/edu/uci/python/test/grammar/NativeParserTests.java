@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.grammar;
+
+import static edu.uci.python.test.PythonTests.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+import org.junit.*;
+import org.python.antlr.ast.*;
+import org.python.antlr.base.*;
+import org.python.core.*;
+
+import edu.uci.python.parser.*;
+import edu.uci.python.runtime.*;
+
+public class NativeParserTests {
+
+    @Test
+    public void negativeLiteral() {
+        Module module = (Module) new NativePythonParser("a = -1\n").parseModule();
+        Assign assign = (Assign) module.getInternalBody().get(0);
+        Num num = (Num) assign.getInternalValue();
+        assertEquals(-1, ((PyInteger) num.getInternalN()).getValue());
+        assertEquals(expr_contextType.Store, ((Name) assign.getInternalTargets().get(0)).getInternalCtx());
+    }
+
+    @Test
+    public void mixedConstructs() {
+        String source = "def deco(f): return f\n" + //
+                        "@deco\n" + //
+                        "def ident(x): return x\n" + //
+                        "class Point(object):\n" + //
+                        "    def __init__(self, x, y=0, *rest, **kw):\n" + //
+                        "        self.x, self.y = x, y\n" + //
+                        "p = Point(ident(3), y=4)\n" + //
+                        "values = [i * i for i in range(10) if i % 2 == 0]\n" + //
+                        "print(values[1:4], values[::2], 'a' 'b', 0x1f)\n" + //
+                        "print(1 < p.x <= 3 and not p.y is None, (lambda a: a - 1)(p.y))\n" + //
+                        "print({k: v for k, v in [(1, 2)]}, sum(i for i in (1, 2, 3)))\n";
+
+        assertPrints("[4, 16, 36] [0, 16, 64] ab 31\n" + "True 3\n" + "{1: 2} 6\n", source);
+    }
+
+    @Test
+    public void astCodecRoundTrip() throws IOException {
+        String source = "def f(a, b=2, *args, **kw):\n" + //
+                        "    return [x for x in args if x > a], kw.get('k', -1.5)\n" + //
+                        "class C(object): pass\n" + //
+                        "r = f(1, 3, 4, k=99999999999999999999)\n";
+        Module original = (Module) new NativePythonParser(source).parseModule();
+        Module decoded = (Module) AstCodec.decode(AstCodec.encode(original));
+
+        assertEquals(original.getInternalBody().size(), decoded.getInternalBody().size());
+        FunctionDef def = (FunctionDef) decoded.getInternalBody().get(0);
+        assertEquals("f", def.getInternalName());
+        assertEquals("args", def.getInternalArgs().getInternalVararg());
+        Assign assign = (Assign) decoded.getInternalBody().get(3);
+        keyword k = ((Call) assign.getInternalValue()).getInternalKeywords().get(0);
+        assertTrue(((Num) k.getInternalValue()).getInternalN() instanceof PyLong);
+        assertEquals(original.getInternalBody().get(3).getCharStartIndex(), decoded.getInternalBody().get(3).getCharStartIndex());
+    }
+
+    @Test(expected = PySyntaxError.class)
+    public void leadingZeroDecimal() {
+        new NativePythonParser("a = 0777\n").parseModule();
+    }
+
+    @Test
+    public void syntaxErrorReportsFilename() {
+        try {
+            new NativePythonParser("a = 0777\n", "demo.py").parseModule();
+            fail();
+        } catch (PySyntaxError e) {
+            assertEquals("demo.py", e.value.__getitem__(1).__getitem__(0).toString());
+        }
+    }
+
+    @Test
+    public void zeroLiterals() {
+        Module module = (Module) new NativePythonParser("a = 00\nb = 010.5\n").parseModule();
+        assertEquals(0, ((PyInteger) ((Num) ((Assign) module.getInternalBody().get(0)).getInternalValue()).getInternalN()).getValue());
+        assertEquals(10.5, ((PyFloat) ((Num) ((Assign) module.getInternalBody().get(1)).getInternalValue()).getInternalN()).getValue(), 0);
+    }
+
+    @Test(expected = PythonTokenizer.SyntaxError.class)
+    public void dollarIsNotIdentifier() {
+        new NativePythonParser("a$b = 1\n").parseModule();
+    }
+
+    @Test
+    public void unicodeIdentifier() {
+        Module module = (Module) new NativePythonParser("\u00e9t\u00e9 = 1\n").parseModule();
+        assertEquals("\u00e9t\u00e9", ((Name) ((Assign) module.getInternalBody().get(0)).getInternalTargets().get(0)).getInternalId());
+    }
+
+    /**
+     * Parses every script of the test corpus with both parsers and compares the resulting trees.
+     * Scripts using syntax the native parser leaves to Jython are skipped.
+     */
+    @Test
+    public void matchesJythonOnTestCorpus() throws IOException {
+        Path dir = Paths.get(ZippyEnvVars.zippyHome(), "zippy", "edu.uci.python.test", "src", "tests");
+        CompilerFlags cflags = CompilerFlags.getCompilerFlags();
+        cflags.setFlag(CodeFlag.CO_FUTURE_ABSOLUTE_IMPORT);
+        cflags.setFlag(CodeFlag.CO_FUTURE_DIVISION);
+        cflags.setFlag(CodeFlag.CO_FUTURE_PRINT_FUNCTION);
+        cflags.setFlag(CodeFlag.CO_FUTURE_UNICODE_LITERALS);
+        cflags.setFlag(CodeFlag.CO_FUTURE_WITH_STATEMENT);
+        int compared = 0;
+
+        try (DirectoryStream<Path> scripts = Files.newDirectoryStream(dir, "*.py")) {
+            for (Path script : scripts) {
+                String code = new String(Files.readAllBytes(script), StandardCharsets.UTF_8);
+                mod expected = ParserFacade.parse(code, CompileMode.exec, script.toString(), cflags);
+                mod actual;
+
+                try {
+                    actual = new NativePythonParser(code).parseModule();
+                } catch (PythonTokenizer.SyntaxError e) {
+                    continue;
+                }
+
+                assertEquals(script.getFileName().toString(), expected.toStringTree(), actual.toStringTree());
+                compared++;
+            }
+        }
+
+        assertTrue(compared > 0);
+    }
+
+}
@@ -187,6 +187,61 @@ public class TryTests {
         assertPrints("", source);
     }
 
+    @Test
+    public void raiseUserSubclass() {
+        String source = "class NegativeError(ValueError):\n" + //
+                        "    pass\n" + //
+                        "\n" + //
+                        "def check(x):\n" + //
+                        "    if x < 0:\n" + //
+                        "        raise NegativeError(\"negative\", x)\n" + //
+                        "    return x\n" + //
+                        "\n" + //
+                        "total = 0\n" + //
+                        "for i in range(-3, 3):\n" + //
+                        "    try:\n" + //
+                        "        total += check(i)\n" + //
+                        "    except ValueError:\n" + //
+                        "        total += 100\n" + //
+                        "print(total)\n";
+
+        assertPrints("303\n", source);
+    }
+
+    @Test
+    public void exceptBaseClass() {
+        String source = "try:\n" + //
+                        "    raise KeyError(\"k\")\n" + //
+                        "except LookupError as e:\n" + //
+                        "    print(e)\n" + //
+                        "try:\n" + //
+                        "    [1][2]\n" + //
+                        "except LookupError:\n" + //
+                        "    print(\"list index\")\n" + //
+                        "try:\n" + //
+                        "    raise TypeError\n" + //
+                        "except Exception:\n" + //
+                        "    print(\"type error\")\n";
+
+        assertPrints("KeyError: k\n\n" + "list index\n" + "type error\n", source);
+    }
+
+    @Test
+    public void missingDictKey() {
+        String source = "d = {1: 'a', 'x': 'b', 2.5: 'c'}\n" + //
+                        "n = 0\n" + //
+                        "for k in [1, 3, 'x', 'y', 2.5, 3.5]:\n" + //
+                        "    try:\n" + //
+                        "        d[k]\n" + //
+                        "    except ValueError:\n" + //
+                        "        n += 100\n" + //
+                        "    except LookupError as e:\n" + //
+                        "        n += 1\n" + //
+                        "print(n)\n";
+
+        assertPrints("3\n", source);
+    }
+
     @Test
     public void scriptTryTest() {
         Path script = Paths.get("raise-try-test.py");
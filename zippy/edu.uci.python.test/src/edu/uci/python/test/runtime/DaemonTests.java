@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.runtime;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+import org.junit.*;
+import org.python.core.*;
+
+import edu.uci.python.runtime.*;
+import edu.uci.python.shell.*;
+
+public class DaemonTests {
+
+    private static ZipPyDaemon startDaemon() throws IOException {
+        final ZipPyDaemon daemon = new ZipPyDaemon(0);
+        Thread server = new Thread(new Runnable() {
+
+            public void run() {
+                daemon.acceptClients();
+            }
+
+        });
+        server.setDaemon(true);
+        server.start();
+        return daemon;
+    }
+
+    @Test
+    public void runScriptsOnDaemon() throws IOException {
+        ZipPyDaemon daemon = startDaemon();
+        Path script = Files.createTempFile("daemon", ".py");
+        try {
+            for (String word : new String[]{"first", "first", "second"}) {
+                Files.write(script, ("print('" + word + "')\n").getBytes(StandardCharsets.UTF_8));
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteArrayOutputStream err = new ByteArrayOutputStream();
+                InputStream in = new ByteArrayInputStream(new byte[0]);
+                int status = ZipPyClient.run(daemon.getPort(), daemon.getToken(), new String[]{script.toString()}, in, out, err);
+                assertEquals(err.toString(), 0, status);
+                assertEquals(word + "\n", out.toString().replaceAll("\r\n", "\n"));
+            }
+
+            Files.write(script, "1 / 0\n".getBytes(StandardCharsets.UTF_8));
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            int status = ZipPyClient.run(daemon.getPort(), daemon.getToken(), new String[]{script.toString()}, new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(), err);
+            assertEquals(1, status);
+            assertTrue(err.toString().contains("ZeroDivisionError"));
+
+            String[][] exits = {{"raise SystemExit(3)\n", "3"}, {"import sys\nsys.exit(0)\n", "0"}, {"import sys\nsys.exit(4)\n", "4"}};
+            for (String[] exit : exits) {
+                Files.write(script, exit[0].getBytes(StandardCharsets.UTF_8));
+                status = ZipPyClient.run(daemon.getPort(), daemon.getToken(), new String[]{script.toString()}, new ByteArrayInputStream(new byte[0]), new ByteArrayOutputStream(),
+                                new ByteArrayOutputStream());
+                assertEquals(exit[0], Integer.parseInt(exit[1]), status);
+            }
+        } finally {
+            Files.delete(script);
+            daemon.close();
+        }
+    }
+
+    @Test
+    public void argumentsAreRestoredAfterRuns() throws IOException {
+        ZipPyDaemon daemon = startDaemon();
+        Path script = Files.createTempFile("daemon", ".py");
+        try {
+            Files.write(script, "import sys\nprint(len(sys.argv))\n".getBytes(StandardCharsets.UTF_8));
+            String[][] runs = {{script.toString(), "a", "b"}, {script.toString()}};
+            for (String[] args : runs) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ByteArrayOutputStream err = new ByteArrayOutputStream();
+                int status = ZipPyClient.run(daemon.getPort(), daemon.getToken(), args, new ByteArrayInputStream(new byte[0]), out, err);
+                assertEquals(err.toString(), 0, status);
+                assertEquals(args.length + "\n", out.toString().replaceAll("\r\n", "\n"));
+            }
+
+            assertFalse(JythonRuntime.getSystemState().argv.__contains__(new PyString("a")));
+        } finally {
+            Files.delete(script);
+            daemon.close();
+        }
+    }
+
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.runtime;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import edu.uci.python.runtime.datatype.storage.*;
+
+public class DictStorageTests {
+
+    @Test
+    public void objectsSetAndGet() {
+        ObjectDictStorage store = new ObjectDictStorage();
+
+        for (int i = 0; i < 100; i++) {
+            store.setItem(i, i * 2);
+        }
+
+        assertEquals(100, store.length());
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 2, store.getItem(i));
+        }
+
+        assertNull(store.getItem(100));
+    }
+
+    @Test
+    public void objectsNumericKeysAreInterchangeable() {
+        ObjectDictStorage store = new ObjectDictStorage();
+        store.setItem(1, "a");
+        store.setItem(1L, "b");
+        store.setItem(1.0, "c");
+        assertEquals(1, store.length());
+        assertEquals("c", store.getItem(true));
+    }
+
+    @Test
+    public void objectsDelAndReinsertKeepsOrder() {
+        ObjectDictStorage store = new ObjectDictStorage();
+
+        for (int i = 0; i < 20; i++) {
+            store.setItem("k" + i, i);
+        }
+
+        for (int i = 0; i < 20; i += 2) {
+            assertEquals(i, store.delItem("k" + i));
+        }
+
+        store.setItem("k0", 42);
+        assertEquals(11, store.length());
+
+        int expected = 1;
+        int i = store.nextEntry(0);
+
+        for (int n = 0; n < 10; n++) {
+            assertEquals("k" + expected, store.getKeyAt(i));
+            expected += 2;
+            i = store.nextEntry(i + 1);
+        }
+
+        assertEquals("k0", store.getKeyAt(i));
+        assertEquals(-1, store.nextEntry(i + 1));
+    }
+
+    @Test
+    public void emptyGeneralizesByKeyType() {
+        assertTrue(EmptyDictStorage.INSTANCE.generalizeFor(1) instanceof IntDictStorage);
+        assertTrue(EmptyDictStorage.INSTANCE.generalizeFor("a") instanceof StringDictStorage);
+        assertTrue(EmptyDictStorage.INSTANCE.generalizeFor(1.5) instanceof ObjectDictStorage);
+    }
+
+    @Test
+    public void intsSetAndGet() throws DictStoreException {
+        IntDictStorage store = new IntDictStorage();
+
+        for (int i = -50; i < 50; i++) {
+            store.setItem(i, i * 2);
+        }
+
+        assertEquals(100, store.length());
+        assertEquals(-100, store.getIntItem(-50));
+        assertEquals(98, store.getItem(49L));
+        assertEquals(2, store.getItem(true));
+        assertNull(store.getItem("1"));
+    }
+
+    @Test(expected = DictStoreException.class)
+    public void intsRejectOtherKeys() throws DictStoreException {
+        new IntDictStorage().setItem("a", 1);
+    }
+
+    @Test
+    public void intsGeneralizeKeepsOrder() {
+        IntDictStorage store = new IntDictStorage();
+        store.setIntItem(3, "c");
+        store.setIntItem(1, "a");
+
+        DictStorage generalized = store.generalizeFor("b");
+        assertTrue(generalized instanceof ObjectDictStorage);
+        assertEquals(3, generalized.getKeyAt(generalized.nextEntry(0)));
+        assertEquals("a", generalized.getItem(1));
+    }
+
+    @Test
+    public void stringsSetDelAndGet() {
+        StringDictStorage store = new StringDictStorage();
+
+        for (int i = 0; i < 20; i++) {
+            store.setStringItem("k" + i, i);
+        }
+
+        assertEquals(5, store.delItem("k5"));
+        assertNull(store.getItem("k5"));
+        assertEquals(19, store.length());
+        assertEquals(7, store.getStringItem("k7"));
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.runtime;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+import edu.uci.python.runtime.*;
+import edu.uci.python.shell.*;
+
+public class EmbeddingTests {
+
+    @Test
+    public void compileOnceRunMany() throws InterruptedException {
+        PythonScript script = PythonScript.compile("y = x * 2\n", "(embedded)");
+        PythonContextPool pool = new PythonContextPool(2);
+        Map<String, Object> inputs = new HashMap<>();
+
+        for (int i = 0; i < 4; i++) {
+            inputs.put("x", i);
+            assertEquals(i * 2, pool.run(script, inputs, "y"));
+        }
+    }
+
+    @Test
+    public void globalsAreFreshPerRun() throws InterruptedException {
+        PythonScript script = PythonScript.compile("if x > 0:\n    kept = x\ny = kept\n", "(embedded)");
+        PythonContextPool pool = new PythonContextPool(1);
+
+        assertEquals(5, pool.run(script, Collections.<String, Object> singletonMap("x", 5), "y"));
+        try {
+            pool.run(script, Collections.<String, Object> singletonMap("x", 0), "y");
+            fail();
+        } catch (RuntimeException e) {
+            // expected, kept is unbound again
+        }
+    }
+
+    @Test
+    public void globalsPersistOnSameContext() throws InterruptedException {
+        PythonScript script = PythonScript.compile("if x > 0:\n    kept = x\ny = kept\n", "(embedded)").withPersistentGlobals();
+        PythonContextPool pool = new PythonContextPool(1);
+
+        assertEquals(5, pool.run(script, Collections.<String, Object> singletonMap("x", 5), "y"));
+        assertEquals(5, pool.run(script, Collections.<String, Object> singletonMap("x", 0), "y"));
+    }
+
+    @Test(timeout = 10000)
+    public void failedContextIsReplaced() throws InterruptedException {
+        PythonContext outer = PythonContext.getCurrent();
+        PythonScript script = PythonScript.compile("if x > 0:\n    kept = x\ny = kept\n", "(embedded)").withPersistentGlobals();
+        PythonContextPool pool = new PythonContextPool(1);
+        assertEquals(5, pool.run(script, Collections.<String, Object> singletonMap("x", 5), "y"));
+
+        PythonScript failing = PythonScript.compile("raise ValueError(x)\n", "(embedded)");
+        try {
+            pool.run(failing, Collections.<String, Object> singletonMap("x", 1), null);
+            fail();
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        // The replacement context has not run the first script, so kept is unbound.
+        try {
+            pool.run(script, Collections.<String, Object> singletonMap("x", 0), "y");
+            fail();
+        } catch (RuntimeException e) {
+            // expected
+        }
+
+        assertEquals(7, pool.run(script, Collections.<String, Object> singletonMap("x", 7), "y"));
+        assertSame(outer, PythonContext.getCurrent());
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.runtime;
+
+import static edu.uci.python.test.PythonTests.*;
+import static org.junit.Assert.*;
+
+import java.lang.reflect.*;
+
+import org.junit.*;
+import org.python.core.*;
+
+import edu.uci.python.runtime.*;
+
+public class JythonRuntimeTests {
+
+    /**
+     * Reads Jython's own flag rather than {@link JythonRuntime#isInitialized()}, so that a system
+     * state created behind ZipPy's back is noticed too.
+     */
+    private static boolean isJythonStarted() throws ReflectiveOperationException {
+        Field field = PySystemState.class.getDeclaredField("initialized");
+        field.setAccessible(true);
+        return field.getBoolean(null);
+    }
+
+    @Test
+    public void pureScriptDoesNotStartJython() throws ReflectiveOperationException {
+        // Jython's state is global to the JVM, another test may have started it already.
+        Assume.assumeFalse(isJythonStarted());
+        assertPrints("3\n", "print(1 + 2)\n");
+        assertFalse(isJythonStarted());
+        assertFalse(JythonRuntime.isInitialized());
+    }
+
+    @Test
+    public void fallbackImportStartsJython() {
+        assertPrints("ok\n", "import re\nprint('ok')\n");
+        assertTrue(JythonRuntime.isInitialized());
+        assertTrue(isJythonStarted());
+    }
+
+    @Test
+    public void reconfigureKeepsRunningJython() {
+        String dir = System.getProperty("java.io.tmpdir");
+        JythonRuntime.initialize();
+
+        try {
+            JythonRuntime.configure(new String[]{"script.py"}, dir);
+            JythonRuntime.configure(new String[]{"script.py"}, dir);
+
+            PySystemState systemState = JythonRuntime.getSystemState();
+            assertTrue(JythonRuntime.isInitialized());
+            assertEquals(1, systemState.path.count(new PyString(dir)));
+            assertEquals("script.py", systemState.argv.__getitem__(0).toString());
+        } finally {
+            JythonRuntime.configure(null, System.getProperty("user.dir"));
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.runtime;
+
+import static edu.uci.python.test.PythonTests.*;
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import com.oracle.truffle.api.nodes.*;
+
+import edu.uci.python.nodes.function.*;
+import edu.uci.python.runtime.*;
+
+public class LazyFunctionTranslationTests {
+
+    @Test
+    public void bodiesDeferredUntilFirstCall() {
+        String source = "def unused(a):\n" + //
+                        "  return a + 1\n" + //
+                        "def outer(x, y=2):\n" + //
+                        "  def inner(z):\n" + //
+                        "    return x + z\n" + //
+                        "  return inner(y)\n";
+        PythonParseResult result = getParseResult(source);
+
+        for (RootNode root : result.getFunctionRoots()) {
+            assertFalse(((FunctionRootNode) root).isBodyTranslated());
+        }
+    }
+
+    @Test
+    public void closuresAndMethods() {
+        String source = "def outer(x, y=2):\n" + //
+                        "  def inner(z):\n" + //
+                        "    return x + z\n" + //
+                        "  return inner(y)\n" + //
+                        "class Counter:\n" + //
+                        "  def __init__(self):\n" + //
+                        "    self.n = 0\n" + //
+                        "  def incr(self, by=1):\n" + //
+                        "    self.n += by\n" + //
+                        "    return self\n" + //
+                        "def fib(n):\n" + //
+                        "  return n if n < 2 else fib(n - 1) + fib(n - 2)\n" + //
+                        "print(outer(1), outer(1, 5), Counter().incr().incr(3).n, fib(10))\n";
+        assertPrints("3 6 4 55\n", source);
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.runtime;
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.file.*;
+
+import org.junit.*;
+
+import edu.uci.python.runtime.*;
+
+public class ModuleLocationIndexTests {
+
+    @Test
+    public void modulesPackagesAndInvalidation() throws IOException {
+        File dir = Files.createTempDirectory("zippy-index").toFile();
+        File module = new File(dir, "mod.py");
+        File pkg = new File(dir, "mod");
+        File init = new File(pkg, "__init__.py");
+        assertTrue(module.createNewFile());
+        assertTrue(pkg.mkdir());
+        assertTrue(init.createNewFile());
+
+        ModuleLocationIndex index = new ModuleLocationIndex();
+        assertEquals(module.getPath(), index.findModule(dir.getPath(), "mod", false));
+        assertEquals(init.getPath(), index.findModule(dir.getPath(), "mod", true));
+        assertNull(index.findModule(dir.getPath(), "other", true));
+
+        File other = new File(dir, "other.py");
+        assertTrue(other.createNewFile());
+        assertEquals(other.getPath(), index.findModule(dir.getPath(), "other", true));
+
+        assertTrue(other.delete() && init.delete() && pkg.delete() && module.delete() && dir.delete());
+    }
+
+    @Test
+    public void settledDirectoryInvalidation() throws IOException {
+        File dir = Files.createTempDirectory("zippy-index").toFile();
+        assertTrue(dir.setLastModified(System.currentTimeMillis() - 60000));
+
+        ModuleLocationIndex index = new ModuleLocationIndex();
+        assertNull(index.findModule(dir.getPath(), "late", false));
+
+        File late = new File(dir, "late.py");
+        assertTrue(late.createNewFile());
+        ModuleLocationIndex.invalidateCaches();
+        assertEquals(late.getPath(), index.findModule(dir.getPath(), "late", false));
+
+        assertTrue(late.delete() && dir.delete());
+    }
+
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.runtime;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import edu.uci.python.builtins.*;
+import edu.uci.python.parser.*;
+import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.sequence.*;
+
+public class MultiContextTests {
+
+    @Test
+    public void builtinTypesPerContext() {
+        PythonContext outer = PythonContext.getCurrent();
+        PythonContext first = new PythonContext(null, new PythonOptions(), new PythonDefaultBuiltinsLookup(), new PythonParserImpl());
+        PythonContext second = new PythonContext(null, new PythonOptions(), new PythonDefaultBuiltinsLookup(), new PythonParserImpl());
+        assertNotSame(first.getBuiltinType(PList.class), second.getBuiltinType(PList.class));
+        // Creating a context does not leave it entered.
+        assertSame(outer, PythonContext.getCurrent());
+
+        PythonContext previous = second.enter();
+        try {
+            assertSame(second.getBuiltinType(PList.class), new PList().__class__());
+
+            PythonContext nested = first.enter();
+            try {
+                assertSame(first.getBuiltinType(PList.class), new PList().__class__());
+            } finally {
+                first.leave(nested);
+            }
+
+            assertSame(second, PythonContext.getCurrent());
+        } finally {
+            second.leave(previous);
+        }
+
+        assertSame(outer, PythonContext.getCurrent());
+    }
+
+}
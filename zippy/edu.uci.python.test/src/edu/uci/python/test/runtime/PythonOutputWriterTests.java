@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.runtime;
+
+import static edu.uci.python.test.PythonTests.*;
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.nio.charset.*;
+
+import org.junit.*;
+
+import edu.uci.python.runtime.*;
+
+public class PythonOutputWriterTests {
+
+    @Test
+    public void encodesAcrossBuffers() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            text.append("a\u00e9\ud83d\ude00");
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PythonOutputWriter out = new PythonOutputWriter(bytes, StandardCharsets.UTF_8, false);
+        out.write("x");
+        out.write(new byte[]{'y'}, 0, 1);
+        out.write(text.toString());
+        out.flush();
+
+        assertEquals("xy" + text, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void buffersUntilFlush() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PythonOutputWriter out = new PythonOutputWriter(bytes, StandardCharsets.UTF_8, false);
+        out.write("line\n");
+        assertEquals(0, bytes.size());
+        out.flush();
+        assertEquals("line\n", bytes.toString());
+
+        PythonOutputWriter lines = new PythonOutputWriter(bytes, StandardCharsets.UTF_8, true);
+        lines.write("next\n");
+        assertEquals("line\nnext\n", bytes.toString());
+    }
+
+    @Test
+    public void sysStdoutInOrderWithPrint() {
+        String source = "import sys\n" + //
+                        "print('a')\n" + //
+                        "sys.stdout.write('b\\n')\n" + //
+                        "print('c')\n";
+
+        assertPrints("a\nb\nc\n", source);
+    }
+
+}
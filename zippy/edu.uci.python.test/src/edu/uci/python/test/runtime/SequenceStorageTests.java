@@ -213,4 +213,35 @@ public class SequenceStorageTests {
         assertEquals(12, store.length());
     }
 
+    @Test
+    public void intGeneralizeToLong() {
+        IntSequenceStorage store = new IntSequenceStorage(getIntValues());
+        SequenceStorage generalized = store.generalizeFor(1L << 40);
+        assertTrue(generalized instanceof LongSequenceStorage);
+        assertEquals(6L, generalized.getItemNormalized(5));
+    }
+
+    @Test
+    public void intGeneralizeToDouble() throws SequenceStoreException {
+        IntSequenceStorage store = new IntSequenceStorage(getIntValues());
+        SequenceStorage generalized = store.generalizeFor(4.2);
+        assertTrue(generalized instanceof DoubleSequenceStorage);
+        generalized.append(4.2);
+        assertEquals(3, generalized.getItemNormalized(2));
+        assertEquals(4.2, generalized.getItemNormalized(6));
+    }
+
+    @Test
+    public void boolPacked() throws SequenceStoreException {
+        BoolSequenceStorage store = new BoolSequenceStorage();
+
+        for (int i = 0; i < 100; i++) {
+            store.append(i % 3 == 0);
+        }
+
+        assertEquals(100, store.length());
+        assertEquals(true, store.getItemNormalized(99));
+        assertEquals(false, store.getItemNormalized(98));
+    }
+
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.test.runtime;
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+import edu.uci.python.runtime.datatype.storage.*;
+
+public class SetStorageTests {
+
+    @Test
+    public void emptyGeneralizesSmallIntsToBitSet() {
+        assertTrue(EmptySetStorage.INSTANCE.generalizeFor(3) instanceof BitSetStorage);
+        assertTrue(EmptySetStorage.INSTANCE.generalizeFor(-3) instanceof IntSetStorage);
+        assertTrue(EmptySetStorage.INSTANCE.generalizeFor(BitSetStorage.LIMIT) instanceof IntSetStorage);
+    }
+
+    @Test
+    public void bitsAlgebra() {
+        BitSetStorage left = new BitSetStorage();
+        BitSetStorage right = new BitSetStorage();
+
+        for (int i = 0; i < 200; i++) {
+            left.addInt(i);
+        }
+
+        for (int i = 100; i < 300; i++) {
+            right.addInt(i);
+        }
+
+        assertEquals(100, left.intersection(right).length());
+        assertEquals(100, left.difference(right).length());
+        assertFalse(left.isDisjointWith(right));
+        assertFalse(left.isSubsetOf(right));
+        assertTrue(left.intersection(right).isSubsetOf(right));
+        assertEquals(99, left.difference(right).getElementAt(left.difference(right).nextElement(99)));
+    }
+
+    @Test
+    public void bitsUnion() throws SetStoreException {
+        BitSetStorage left = new BitSetStorage();
+        BitSetStorage right = new BitSetStorage();
+        left.addInt(1);
+        right.addInt(1);
+        right.addInt(1000);
+
+        assertTrue(left.addAll(right));
+        assertEquals(2, left.length());
+        assertTrue(left.containsInt(1000));
+        assertFalse(left.addAll(right));
+    }
+
+    @Test
+    public void bitsNumericEquality() {
+        BitSetStorage bits = new BitSetStorage();
+        bits.addInt(1);
+
+        assertTrue(bits.contains(true));
+        assertTrue(bits.contains(1L));
+        assertTrue(bits.contains(1.0));
+        assertFalse(bits.contains(1.5));
+        assertTrue(bits.remove(1.0));
+        assertEquals(0, bits.length());
+    }
+
+    @Test
+    public void intsAndBitsMixed() throws SetStoreException {
+        IntSetStorage ints = new IntSetStorage();
+        BitSetStorage bits = new BitSetStorage();
+        ints.addInt(-1);
+        ints.addInt(5);
+        bits.addInt(5);
+        bits.addInt(6);
+
+        assertEquals(1, ints.intersection(bits).length());
+        assertEquals(1, bits.difference(ints).length());
+        assertTrue(ints.addAll(bits));
+        assertEquals(3, ints.length());
+    }
+
+    @Test
+    public void intsAddContainsRemove() throws SetStoreException {
+        IntSetStorage store = new IntSetStorage();
+
+        for (int i = -100; i < 100; i++) {
+            assertTrue(store.add(i));
+        }
+
+        assertFalse(store.add(5));
+        assertEquals(200, store.length());
+        assertTrue(store.containsInt(-100));
+        assertTrue(store.contains(99L));
+        assertTrue(store.contains(true));
+        assertFalse(store.contains("1"));
+
+        assertTrue(store.removeInt(7));
+        assertFalse(store.containsInt(7));
+        assertEquals(199, store.length());
+    }
+
+    @Test(expected = SetStoreException.class)
+    public void intsRejectOtherElements() throws SetStoreException {
+        new IntSetStorage().add("a");
+    }
+
+    @Test
+    public void intsGeneralize() {
+        IntSetStorage store = new IntSetStorage();
+        store.addInt(1);
+        store.addInt(2);
+
+        SetStorage generalized = store.generalizeFor("a");
+        assertTrue(generalized instanceof ObjectSetStorage);
+        assertTrue(generalized.contains(1));
+        assertEquals(2, generalized.length());
+    }
+
+    @Test
+    public void stringsAddAndRemove() {
+        StringSetStorage store = new StringSetStorage();
+
+        for (int i = 0; i < 50; i++) {
+            store.addString("s" + i);
+        }
+
+        assertTrue(store.remove("s10"));
+        assertFalse(store.containsString("s10"));
+        assertTrue(store.containsString("s11"));
+        assertEquals(49, store.length());
+    }
+
+    @Test
+    public void objectsNumericElementsAreInterchangeable() {
+        ObjectSetStorage store = new ObjectSetStorage();
+        store.add(1);
+        assertFalse(store.add(1.0));
+        assertTrue(store.contains(1L));
+        assertEquals(1, store.length());
+    }
+
+}
@@ -0,0 +1,8 @@
+import importme
+try:
+    import importme_too
+except ImportError:
+    importme_too = None
+
+importme_too.bar()
+print(importme.variable)
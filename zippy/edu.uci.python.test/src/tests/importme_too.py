@@ -0,0 +1,5 @@
+import importme
+
+def bar():
+    importme.foo()
+    print("imported bar()")
@@ -24,8 +24,6 @@
  */
 package edu.uci.python;
 
-import org.python.core.Py;
-
 import com.oracle.truffle.api.CallTarget;
 import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleLanguage;
@@ -40,6 +38,7 @@ import edu.uci.python.builtins.PythonDefaultBuiltinsLookup;
 import edu.uci.python.nodes.ModuleNode;
 import edu.uci.python.nodes.PNode;
 import edu.uci.python.parser.PythonParserImpl;
+import edu.uci.python.runtime.JythonRuntime;
 import edu.uci.python.runtime.PythonContext;
 import edu.uci.python.runtime.PythonOptions;
 import edu.uci.python.runtime.PythonParseResult;
@@ -54,6 +53,14 @@ public final class PythonLanguage extends TruffleLanguage<PythonContext> impleme
     public static final String MIME_TYPE = "application/x-python";
     public static final String EXTENSION = ".py";
 
+    /**
+     * Engine configuration keys, see {@link com.oracle.truffle.api.vm.PolyglotEngine.Builder#config}.
+     * The first enables the in-memory module cache for the engine's parser, the second sets the
+     * directory relative file names are resolved against.
+     */
+    public static final String CONFIG_MODULE_CACHE_IN_MEMORY = "ModuleCacheInMemory";
+    public static final String CONFIG_WORKING_DIRECTORY = "WorkingDirectory";
+
     public static PythonLanguage INSTANCE;
 
     private PythonParseResult parseResult;
@@ -68,14 +75,26 @@ public final class PythonLanguage extends TruffleLanguage<PythonContext> impleme
         PythonOptions opts = new PythonOptions();
         opts.setStandardOut(env.out());
         opts.setStandardErr(env.err());
-        return new PythonContext(env, opts, new PythonDefaultBuiltinsLookup(), new PythonParserImpl());
+
+        Object workingDirectory = env.getConfig().get(CONFIG_WORKING_DIRECTORY);
+        if (workingDirectory != null) {
+            opts.setWorkingDirectory(workingDirectory.toString());
+        }
+
+        boolean moduleCacheInMemory = PythonOptions.ModuleCacheInMemory || Boolean.TRUE.equals(env.getConfig().get(CONFIG_MODULE_CACHE_IN_MEMORY));
+        return new PythonContext(env, opts, new PythonDefaultBuiltinsLookup(), new PythonParserImpl(moduleCacheInMemory));
     }
 
     @Override
     protected CallTarget parse(ParsingRequest request) throws Exception {
         PythonContext context = this.getContextReference().get();
-        PythonModule module = context.createMainModule(request.getSource().getPath());
-        parseResult = context.getParser().parse(context, module, request.getSource());
+        PythonContext previous = context.enter();
+        try {
+            PythonModule module = context.createMainModule(request.getSource().getPath());
+            parseResult = context.getParser().parse(context, module, request.getSource());
+        } finally {
+            context.leave(previous);
+        }
 
         if (PythonOptions.PrintAST) {
             System.out.println("============= " + "Before Specialization" + " ============= ");
@@ -92,6 +111,9 @@ public final class PythonLanguage extends TruffleLanguage<PythonContext> impleme
 
     @Override
     protected void disposeContext(PythonContext context) {
+        context.getStandardOutput().flush();
+        context.closeOpenFiles();
+
         if (parseResult == null)
             return;
 
@@ -108,7 +130,7 @@ public final class PythonLanguage extends TruffleLanguage<PythonContext> impleme
             PythonObjectAllocationInstrumentor.getInstance().printAllocations();
         }
 
-        Py.flushLine();
+        JythonRuntime.flushLine();
 
     }
 
@@ -25,6 +25,7 @@
 package edu.uci.python.builtins;
 
 import java.math.*;
+import java.nio.charset.*;
 import java.util.*;
 
 import org.python.core.*;
@@ -107,6 +108,24 @@ public final class BuiltinConstructors extends PythonBuiltins {
         public PBytes bytes(PNone source, PNone encoding, PNone errors) {
             return new PBytes();
         }
+
+        @SuppressWarnings("unused")
+        @TruffleBoundary
+        @Specialization
+        public PBytes bytes(String source, String encoding, PNone errors) {
+            Charset charset;
+            try {
+                charset = Charset.forName(encoding);
+            } catch (IllegalArgumentException e) {
+                throw Py.LookupError("unknown encoding: " + encoding);
+            }
+
+            if (!charset.newEncoder().canEncode(source)) {
+                throw Py.UnicodeEncodeError(encoding, source, 0, source.length(), "character not encodable");
+            }
+
+            return new PBytes(source.getBytes(charset));
+        }
     }
 
     // complex([real[, imag]])
@@ -161,7 +180,7 @@ public final class BuiltinConstructors extends PythonBuiltins {
 
         @Specialization(guards = {"oneArgument(args)", "firstArgIsDict(args)"})
         public PDict dictFromDict(PTuple args) {
-            return new PDict(((PDict) args.getItem(0)).getMap());
+            return ((PDict) args.getItem(0)).copy();
         }
 
         @Specialization(guards = {"oneArgument(args)", "firstArgIsIterable(args)"})
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.builtins;
+
+import java.util.*;
+
+import com.oracle.truffle.api.*;
+import com.oracle.truffle.api.frame.*;
+import com.oracle.truffle.api.nodes.*;
+
+import edu.uci.python.*;
+import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.builtin.*;
+import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.exception.*;
+import edu.uci.python.runtime.function.*;
+import edu.uci.python.runtime.object.*;
+import edu.uci.python.runtime.sequence.*;
+import edu.uci.python.runtime.standardtype.*;
+
+/**
+ * The built-in exception class hierarchy. Each class is a {@link PythonBuiltinClass} whose
+ * <code>__init__</code> creates a {@link PBaseException}, so that raising and catching these
+ * exceptions does not go through Jython.
+ */
+public final class BuiltinExceptions {
+
+    /**
+     * Pairs of class name and base class name, parents first.
+     */
+    private static final String[][] HIERARCHY = {
+                    {"BaseException", null},
+                    {"SystemExit", "BaseException"},
+                    {"KeyboardInterrupt", "BaseException"},
+                    {"GeneratorExit", "BaseException"},
+                    {"Exception", "BaseException"},
+                    {"StopIteration", "Exception"},
+                    {"ArithmeticError", "Exception"},
+                    {"FloatingPointError", "ArithmeticError"},
+                    {"OverflowError", "ArithmeticError"},
+                    {"ZeroDivisionError", "ArithmeticError"},
+                    {"AssertionError", "Exception"},
+                    {"AttributeError", "Exception"},
+                    {"BufferError", "Exception"},
+                    {"EOFError", "Exception"},
+                    {"ImportError", "Exception"},
+                    {"LookupError", "Exception"},
+                    {"IndexError", "LookupError"},
+                    {"KeyError", "LookupError"},
+                    {"MemoryError", "Exception"},
+                    {"NameError", "Exception"},
+                    {"UnboundLocalError", "NameError"},
+                    {"OSError", "Exception"},
+                    {"ReferenceError", "Exception"},
+                    {"RuntimeError", "Exception"},
+                    {"NotImplementedError", "RuntimeError"},
+                    {"SyntaxError", "Exception"},
+                    {"SystemError", "Exception"},
+                    {"TypeError", "Exception"},
+                    {"ValueError", "Exception"},
+                    {"UnicodeError", "ValueError"}};
+
+    private BuiltinExceptions() {
+    }
+
+    public static void populate(PythonContext context, PythonModule builtinsModule) {
+        Map<String, PythonBuiltinClass> classes = new HashMap<>();
+
+        for (String[] entry : HIERARCHY) {
+            String name = entry[0];
+            PythonClass base = entry[1] == null ? context.getObjectClass() : classes.get(entry[1]);
+            PythonBuiltinClass clazz = new PythonBuiltinClass(context, name, base);
+
+            RootCallTarget callTarget = Truffle.getRuntime().createCallTarget(new ExceptionInitRootNode(clazz));
+            Arity arity = new Arity(name, 0, 0, false, false, true, false, false, Collections.<String> emptyList());
+            clazz.setAttributeUnsafe("__init__", new PBuiltinFunction(name, arity, callTarget));
+
+            classes.put(name, clazz);
+            builtinsModule.setAttribute(name, clazz);
+        }
+
+        builtinsModule.setAttribute("IOError", classes.get("OSError"));
+        builtinsModule.setAttribute("EnvironmentError", classes.get("OSError"));
+    }
+
+    /**
+     * <code>__init__</code> of a built-in exception class. Called directly it creates a new
+     * {@link PBaseException}. Called on behalf of a user defined subclass it receives the new
+     * instance as its first argument and stores the remaining ones as <code>args</code>.
+     */
+    private static final class ExceptionInitRootNode extends RootNode {
+
+        private final PythonBuiltinClass type;
+
+        public ExceptionInitRootNode(PythonBuiltinClass type) {
+            super(PythonLanguage.INSTANCE, null);
+            this.type = type;
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            Object[] arguments = frame.getArguments();
+            int length = arguments.length - PArguments.USER_ARGUMENTS_OFFSET;
+
+            if (length > 0 && isSubClassInstance(arguments[PArguments.USER_ARGUMENTS_OFFSET])) {
+                Object[] args = Arrays.copyOfRange(arguments, PArguments.USER_ARGUMENTS_OFFSET + 1, arguments.length);
+                setArgs((PythonObject) arguments[PArguments.USER_ARGUMENTS_OFFSET], new PTuple(args));
+                return PNone.NONE;
+            }
+
+            return new PBaseException(type, new PTuple(Arrays.copyOfRange(arguments, PArguments.USER_ARGUMENTS_OFFSET, arguments.length)));
+        }
+
+        private boolean isSubClassInstance(Object value) {
+            return value instanceof PythonObject && !(value instanceof PythonClass) && ((PythonObject) value).getPythonClass().isSubClassOf(type);
+        }
+
+        @CompilerDirectives.TruffleBoundary
+        private static void setArgs(PythonObject self, PTuple args) {
+            self.setAttribute("args", args);
+        }
+
+        @Override
+        public String toString() {
+            return "<builtin function " + type.getName() + ".__init__>";
+        }
+
+    }
+
+}
@@ -24,7 +24,6 @@
  */
 package edu.uci.python.builtins;
 
-import java.io.IOException;
 import java.math.*;
 import java.util.*;
 
@@ -413,7 +412,7 @@ public final class BuiltinFunctions extends PythonBuiltins {
         public Object doPythonBuiltinObject(PythonBuiltinObject obj, String attributeId, Object defaultValue) {
             CompilerAsserts.neverPartOfCompilation();
 
-            Object attribute = obj.__class__().getAttribute(attributeId);
+            Object attribute = obj.__class__(getContext()).getAttribute(attributeId);
             return attribute != null ? defaultValue : attribute;
         }
 
@@ -472,6 +471,9 @@ public final class BuiltinFunctions extends PythonBuiltins {
     @GenerateNodeFactory
     public abstract static class IsIntanceNode extends PythonBuiltinNode {
 
+        private final CachedBuiltinType intType = new CachedBuiltinType(PInt.class);
+        private final CachedBuiltinType strType = new CachedBuiltinType(PString.class);
+
         @SuppressWarnings("unused")
         @Specialization
         public boolean isinstance(String str, PythonClass clazz) {
@@ -518,13 +520,13 @@ public final class BuiltinFunctions extends PythonBuiltins {
 
         @Specialization(guards = "is2ndNotTuple(val,cls)")
         public boolean isinstance(@SuppressWarnings("unused") int val, Object cls) {
-            return PInt.__class__ == cls;
+            return intType.get(getContext()) == cls;
         }
 
         @Specialization
         public boolean isinstance(@SuppressWarnings("unused") int val, PTuple classTuple) {
             for (int i = 0; i < classTuple.len(); i++) {
-                if (PInt.__class__ == classTuple.getItem(i)) {
+                if (intType.get(getContext()) == classTuple.getItem(i)) {
                     return true;
                 }
             }
@@ -535,7 +537,7 @@ public final class BuiltinFunctions extends PythonBuiltins {
         @Specialization
         public boolean isinstance(@SuppressWarnings("unused") String val, PTuple classTuple) {
             for (int i = 0; i < classTuple.len(); i++) {
-                if (PString.__class__ == classTuple.getItem(i)) {
+                if (strType.get(getContext()) == classTuple.getItem(i)) {
                     return true;
                 }
             }
@@ -545,13 +547,13 @@ public final class BuiltinFunctions extends PythonBuiltins {
 
         @Specialization(guards = "is2ndNotTuple(obj,cls)")
         public boolean isinstance(PythonBuiltinObject obj, Object cls) {
-            return obj.__class__() == cls;
+            return obj.__class__(getContext()) == cls;
         }
 
         @Specialization
         public boolean isinstance(PythonBuiltinObject obj, PTuple classTuple) {
             for (int i = 0; i < classTuple.len(); i++) {
-                if (obj.__class__() == classTuple.getItem(i)) {
+                if (obj.__class__(getContext()) == classTuple.getItem(i)) {
                     return true;
                 }
             }
@@ -631,6 +633,12 @@ public final class BuiltinFunctions extends PythonBuiltins {
             return iterable.__iter__();
         }
 
+        @SuppressWarnings("unused")
+        @Specialization
+        public Object iter(PIterator iterator, PNone sentinel) {
+            return iterator;
+        }
+
         @Specialization
         public Object iter(Object object, Object sentinel) {
             throw new RuntimeException("Not supported sentinel case object " + object + " sentinel " + sentinel);
@@ -644,6 +652,11 @@ public final class BuiltinFunctions extends PythonBuiltins {
 
         @CompilationFinal @Child protected CallDispatchSpecialNode dispatch;
 
+        @Specialization
+        public int len(PStringRope arg) {
+            return arg.length();
+        }
+
         @Specialization
         public int len(String arg) {
             return arg.length();
@@ -936,6 +949,56 @@ public final class BuiltinFunctions extends PythonBuiltins {
         }
     }
 
+    // open(file, mode='r', encoding=None, mmap=False)
+    @Builtin(name = "open", minNumOfArguments = 1, maxNumOfArguments = 2, takesKeywordArguments = true, takesVariableKeywords = true, keywordNames = {"mode", "encoding", "mmap"}, requiresContext = true)
+    @GenerateNodeFactory
+    public abstract static class OpenNode extends PythonBuiltinNode {
+
+        @TruffleBoundary
+        @Specialization
+        public PFile open(String file, Object possibleMode, Object[] keywords) {
+            String mode = possibleMode == PNone.NONE ? "r" : toStr("mode", possibleMode);
+            String encoding = null;
+            boolean mmap = false;
+
+            if (keywords != null) {
+                for (int i = 0; i < keywords.length; i++) {
+                    PKeyword keyword = (PKeyword) keywords[i];
+                    if (keyword.getName().equals("mode")) {
+                        mode = toStr("mode", keyword.getValue());
+                    } else if (keyword.getName().equals("encoding")) {
+                        encoding = keyword.getValue() == PNone.NONE ? null : toStr("encoding", keyword.getValue());
+                    } else if (keyword.getName().equals("mmap")) {
+                        mmap = JavaTypeConversions.toBoolean(keyword.getValue());
+                    }
+                }
+            }
+
+            return PFile.open(getContext(), file, mode, encoding, mmap);
+        }
+
+        private static String toStr(String argument, Object value) {
+            if (value instanceof String) {
+                return (String) value;
+            } else if (value instanceof PString) {
+                return ((PString) value).getValue();
+            }
+
+            String type;
+            if (value == PNone.NONE) {
+                type = "None";
+            } else if (value instanceof PythonBuiltinObject) {
+                type = ((PythonBuiltinObject) value).__class__().getName();
+            } else if (value instanceof PythonObject) {
+                type = ((PythonObject) value).getPythonClass().getName();
+            } else {
+                type = value.getClass().getSimpleName();
+            }
+
+            throw Py.TypeError("open() argument '" + argument + "' must be str, not " + type);
+        }
+    }
+
     // ord(c)
     @Builtin(name = "ord", hasFixedNumOfArguments = true, fixedNumOfArguments = 1)
     @GenerateNodeFactory
@@ -982,28 +1045,27 @@ public final class BuiltinFunctions extends PythonBuiltins {
             String sep = possibleSep;
             String end = possibleEnd;
 
-            try {
-                if (values.len() == 0) {
-                    getContext().getStandardOut().write(System.getProperty("line.separator").getBytes());
-                } else {
-                    if (sep == null) {
-                        sep = "";
-                    }
+            PythonOutputWriter out = getContext().getStandardOutput();
 
-                    if (end == null) {
-                        end = System.getProperty("line.separator");
-                    }
+            if (values.len() == 0) {
+                out.write(PythonOutputWriter.LINE_SEPARATOR);
+            } else {
+                if (sep == null) {
+                    sep = "";
+                }
 
-                    StringBuilder sb = new StringBuilder();
-                    for (int i = 0; i < values.len() - 1; i++) {
-                        sb.append(stringifyElement(values.getItem(i)) + " ");
-                    }
+                if (end == null) {
+                    end = PythonOutputWriter.LINE_SEPARATOR;
+                }
 
-                    sb.append(stringifyElement(values.getItem(values.len() - 1)));
-                    getContext().getStandardOut().write((sb.toString() + sep + end).getBytes());
+                for (int i = 0; i < values.len() - 1; i++) {
+                    out.write(stringifyElement(values.getItem(i)));
+                    out.write(" ");
                 }
-            } catch (IOException e) {
-                // pass through
+
+                out.write(stringifyElement(values.getItem(values.len() - 1)));
+                out.write(sep);
+                out.write(end);
             }
 
             return PNone.NONE;
@@ -1208,6 +1270,43 @@ public final class BuiltinFunctions extends PythonBuiltins {
         }
     }
 
+    // sorted(iterable, key=None, reverse=False)
+    @Builtin(name = "sorted", fixedNumOfArguments = 1, hasFixedNumOfArguments = true, takesKeywordArguments = true, takesVariableKeywords = true, keywordNames = {"key", "reverse"})
+    @GenerateNodeFactory
+    public abstract static class SortedNode extends PythonBuiltinNode {
+
+        @Specialization
+        public PList sorted(PList list, Object[] keywords) {
+            return sort(new PList(list.getStorage().copy()), keywords);
+        }
+
+        @Specialization
+        public PList sorted(String string, Object[] keywords) {
+            final Object[] chars = new Object[string.length()];
+
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = PString.charToString(string.charAt(i));
+            }
+
+            return sort(new PList(SequenceStorageFactory.createStorage(chars)), keywords);
+        }
+
+        @Specialization
+        public PList sorted(PIterable iterable, Object[] keywords) {
+            return sort(new PList(iterable.__iter__()), keywords);
+        }
+
+        @Specialization
+        public PList sorted(PIterator iterator, Object[] keywords) {
+            return sort(new PList(iterator), keywords);
+        }
+
+        private static PList sort(PList list, Object[] keywords) {
+            SortUtil.sort(list, keywords);
+            return list;
+        }
+    }
+
     // super([type[, object-or-type]])
     @Builtin(name = "super", minNumOfArguments = 1, maxNumOfArguments = 2)
     @GenerateNodeFactory
@@ -1230,6 +1329,14 @@ public final class BuiltinFunctions extends PythonBuiltins {
     @GenerateNodeFactory
     public abstract static class TypeNode extends PythonBuiltinNode {
 
+        private final CachedBuiltinType intType = new CachedBuiltinType(PInt.class);
+        private final CachedBuiltinType floatType = new CachedBuiltinType(PFloat.class);
+        private final CachedBuiltinType strType = new CachedBuiltinType(PString.class);
+        private final CachedBuiltinType listType = new CachedBuiltinType(PList.class);
+        private final CachedBuiltinType tupleType = new CachedBuiltinType(PTuple.class);
+        private final CachedBuiltinType setType = new CachedBuiltinType(PSet.class);
+        private final CachedBuiltinType dictType = new CachedBuiltinType(PDict.class);
+
         @Specialization
         public Object type(PythonObject object) {
             return object.getPythonClass();
@@ -1238,43 +1345,43 @@ public final class BuiltinFunctions extends PythonBuiltins {
         @Specialization
         @SuppressWarnings("unused")
         public Object type(int value) {
-            return PInt.__class__;
+            return intType.get(getContext());
         }
 
         @Specialization
         @SuppressWarnings("unused")
         public Object type(double value) {
-            return PFloat.__class__;
+            return floatType.get(getContext());
         }
 
         @Specialization
         @SuppressWarnings("unused")
         public Object type(String value) {
-            return PString.__class__;
+            return strType.get(getContext());
         }
 
         @Specialization
         @SuppressWarnings("unused")
         public Object type(PList value) {
-            return PList.__class__;
+            return listType.get(getContext());
         }
 
         @Specialization
         @SuppressWarnings("unused")
         public Object type(PTuple value) {
-            return PTuple.__class__;
+            return tupleType.get(getContext());
         }
 
         @Specialization
         @SuppressWarnings("unused")
         public Object type(PSet value) {
-            return PSet.__class__;
+            return setType.get(getContext());
         }
 
         @Specialization
         @SuppressWarnings("unused")
         public Object type(PDict value) {
-            return PDict.__class__;
+            return dictType.get(getContext());
         }
 
         @Fallback
@@ -1300,6 +1407,32 @@ public final class BuiltinFunctions extends PythonBuiltins {
         }
     }
 
+    /**
+     * A builtin type looked up once per node and context. The lookup may create the type lazily, so
+     * it stays out of compiled code.
+     */
+    static final class CachedBuiltinType {
+
+        private final Class<? extends PythonBuiltinObject> javaClass;
+        @CompilationFinal private PythonContext context;
+        @CompilationFinal private PythonBuiltinClass type;
+
+        CachedBuiltinType(Class<? extends PythonBuiltinObject> javaClass) {
+            this.javaClass = javaClass;
+        }
+
+        PythonBuiltinClass get(PythonContext current) {
+            if (current != context) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                type = current.getBuiltinType(javaClass);
+                context = current;
+            }
+
+            return type;
+        }
+
+    }
+
     @TruffleBoundary
     private static void typeError(String message) {
         throw Py.TypeError(message);
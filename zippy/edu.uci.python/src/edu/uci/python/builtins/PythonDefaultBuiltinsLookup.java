@@ -31,7 +31,9 @@ import edu.uci.python.builtins.module.ArrayModuleBuiltins;
 import edu.uci.python.builtins.module.MathModuleBuiltins;
 import edu.uci.python.builtins.module.RandomModuleBuiltins;
 import edu.uci.python.builtins.module.TimeModuleBuiltins;
+import edu.uci.python.builtins.type.BytesBuiltins;
 import edu.uci.python.builtins.type.DictBuiltins;
+import edu.uci.python.builtins.type.FileBuiltins;
 import edu.uci.python.builtins.type.GeneratorBuiltins;
 import edu.uci.python.builtins.type.ListBuiltins;
 import edu.uci.python.builtins.type.ObjectBuiltins;
@@ -43,10 +45,12 @@ import edu.uci.python.runtime.PythonContext;
 import edu.uci.python.runtime.builtin.PythonBuiltinClass;
 import edu.uci.python.runtime.builtin.PythonBuiltinsLookup;
 import edu.uci.python.runtime.datatype.PDict;
+import edu.uci.python.runtime.datatype.PFile;
 import edu.uci.python.runtime.datatype.PFloat;
 import edu.uci.python.runtime.datatype.PGenerator;
 import edu.uci.python.runtime.datatype.PInt;
 import edu.uci.python.runtime.function.PBuiltinFunction;
+import edu.uci.python.runtime.sequence.PBytes;
 import edu.uci.python.runtime.sequence.PList;
 import edu.uci.python.runtime.sequence.PSet;
 import edu.uci.python.runtime.sequence.PString;
@@ -61,24 +65,53 @@ import edu.uci.python.runtime.standardtype.PythonModule;
 
 public final class PythonDefaultBuiltinsLookup implements PythonBuiltinsLookup {
 
+    /**
+     * A builtin type that is only reachable through {@link #lookupType}, so its method table can be
+     * populated on first lookup.
+     */
+    private static final class LazyType {
+
+        private final String name;
+        private final PythonBuiltins builtins;
+
+        private LazyType(String name, PythonBuiltins builtins) {
+            this.name = name;
+            this.builtins = builtins;
+        }
+
+    }
+
     private final Map<String, PythonModule> builtinModules;
     private final Map<Class<? extends PythonBuiltinObject>, PythonBuiltinClass> builtinTypes;
 
+    /**
+     * Name index of the builtin modules and types that have not been materialized yet.
+     */
+    private final Map<String, PythonBuiltins> lazyModules;
+    private final Map<Class<? extends PythonBuiltinObject>, LazyType> lazyTypes;
+    private PythonContext context;
+
     public PythonDefaultBuiltinsLookup() {
         builtinModules = new HashMap<>();
         builtinTypes = new HashMap<>();
+        lazyModules = new HashMap<>();
+        lazyTypes = new HashMap<>();
     }
 
     public PythonModule populateBuiltins(PythonContext context) {
+        this.context = context;
         PythonModule builtinsModule = createModule("builtins", context, new BuiltinFunctions(), new BuiltinConstructors(), new InteropNodes());
         builtinsModule.setAttribute("object", context.getObjectClass());
+        BuiltinExceptions.populate(context, builtinsModule);
         addModule("builtins", builtinsModule);
 
-        addModule("array", createModule("array", context, new ArrayModuleBuiltins()));
-        addModule("time", createModule("time", context, new TimeModuleBuiltins()));
-        addModule("math", createModule("math", context, new MathModuleBuiltins()));
-        addModule("random", createModule("random", context, new RandomModuleBuiltins()));
+        // Created on first import.
+        lazyModules.put("array", new ArrayModuleBuiltins());
+        lazyModules.put("time", new TimeModuleBuiltins());
+        lazyModules.put("math", new MathModuleBuiltins());
+        lazyModules.put("random", new RandomModuleBuiltins());
 
+        // Types reachable from the builtins module have to be complete when the module is.
         // Only populate builtins, no need to add it to the builtinTypes lookup.
         createType("object", context, builtinsModule, new ObjectBuiltins());
         addType(PInt.class, (PythonBuiltinClass) builtinsModule.getAttribute("int"));
@@ -89,8 +122,10 @@ public final class PythonDefaultBuiltinsLookup implements PythonBuiltinsLookup {
         addType(PString.class, createType("str", context, builtinsModule, new StringBuiltins()));
         addType(PDict.class, createType("dict", context, builtinsModule, new DictBuiltins()));
         addType(PSet.class, createType("set", context, builtinsModule, new SetBuiltins()));
+        addType(PBytes.class, createType("bytes", context, builtinsModule, new BytesBuiltins()));
 
-        addType(PGenerator.class, createType("generator", context, new GeneratorBuiltins()));
+        lazyTypes.put(PGenerator.class, new LazyType("generator", new GeneratorBuiltins()));
+        lazyTypes.put(PFile.class, new LazyType("file", new FileBuiltins()));
 
         return builtinsModule;
     }
@@ -170,13 +205,30 @@ public final class PythonDefaultBuiltinsLookup implements PythonBuiltinsLookup {
         }
     }
 
+    public boolean hasModule(String name) {
+        return builtinModules.containsKey(name) || lazyModules.containsKey(name);
+    }
+
     public PythonModule lookupModule(String name) {
         PythonModule module = builtinModules.get(name);
+
+        if (module == null && lazyModules.containsKey(name)) {
+            module = createModule(name, context, lazyModules.remove(name));
+            addModule(name, module);
+        }
+
         return module;
     }
 
     public PythonBuiltinClass lookupType(Class<? extends PythonBuiltinObject> clazz) {
         PythonBuiltinClass type = builtinTypes.get(clazz);
+
+        if (type == null && lazyTypes.containsKey(clazz)) {
+            LazyType lazy = lazyTypes.remove(clazz);
+            type = createType(lazy.name, context, lazy.builtins);
+            addType(clazz, type);
+        }
+
         return type;
     }
 
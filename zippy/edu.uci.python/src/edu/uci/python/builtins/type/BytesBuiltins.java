@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.builtins.type;
+
+import java.nio.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import org.python.core.*;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.dsl.*;
+
+import edu.uci.python.builtins.*;
+import edu.uci.python.nodes.function.*;
+import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.sequence.*;
+
+public class BytesBuiltins extends PythonBuiltins {
+
+    @Override
+    protected List<? extends NodeFactory<? extends PythonBuiltinNode>> getNodeFactories() {
+        return BytesBuiltinsFactory.getFactories();
+    }
+
+    /**
+     * Bytes literals translate to str, which stands for one byte per character here.
+     */
+    private static PBytes toBytes(Object sub) {
+        if (sub instanceof PBytes) {
+            return (PBytes) sub;
+        } else if (sub instanceof String) {
+            return new PBytes(((String) sub).getBytes(StandardCharsets.ISO_8859_1));
+        }
+
+        throw Py.TypeError("a bytes-like object is required");
+    }
+
+    // bytes.find(sub[, start[, end]])
+    @Builtin(name = "find", minNumOfArguments = 2, maxNumOfArguments = 4)
+    @GenerateNodeFactory
+    public abstract static class FindNode extends PythonBuiltinNode {
+
+        @SuppressWarnings("unused")
+        @Specialization
+        public int find(PBytes self, Object sub, PNone start, PNone end) {
+            return self.find(toBytes(sub), 0, self.len());
+        }
+
+        @SuppressWarnings("unused")
+        @Specialization
+        public int find(PBytes self, Object sub, int start, PNone end) {
+            return self.find(toBytes(sub), normalize(self, start), self.len());
+        }
+
+        @Specialization
+        public int find(PBytes self, Object sub, int start, int end) {
+            return self.find(toBytes(sub), normalize(self, start), normalize(self, end));
+        }
+
+        private static int normalize(PBytes self, int index) {
+            return index < 0 ? Math.max(index + self.len(), 0) : index;
+        }
+    }
+
+    // bytes.decode(encoding='utf-8')
+    @Builtin(name = "decode", minNumOfArguments = 1, maxNumOfArguments = 2)
+    @GenerateNodeFactory
+    public abstract static class DecodeNode extends PythonBuiltinNode {
+
+        @SuppressWarnings("unused")
+        @Specialization
+        public String decode(PBytes self, PNone encoding) {
+            return decode(self, "utf-8");
+        }
+
+        @TruffleBoundary
+        @Specialization
+        public String decode(PBytes self, String encoding) {
+            CharsetDecoder decoder;
+            try {
+                decoder = Charset.forName(encoding).newDecoder().onMalformedInput(CodingErrorAction.REPORT).onUnmappableCharacter(CodingErrorAction.REPORT);
+            } catch (IllegalArgumentException e) {
+                throw Py.LookupError("unknown encoding: " + encoding);
+            }
+
+            ByteBuffer bytes = self.getBuffer();
+            int start = bytes.position();
+            CharBuffer chars = CharBuffer.allocate((int) (bytes.remaining() * decoder.maxCharsPerByte()) + 1);
+            CoderResult result = decoder.decode(bytes, chars, true);
+            if (!result.isError()) {
+                result = decoder.flush(chars);
+            }
+
+            if (result.isError()) {
+                int position = bytes.position() - start;
+                String reason = result.isMalformed() ? "invalid data" : "character not decodable";
+                throw Py.UnicodeDecodeError(encoding, asLatin1(self), position, position + result.length(), reason);
+            }
+
+            chars.flip();
+            return chars.toString();
+        }
+
+        /**
+         * The bytes one character each, the way Jython's UnicodeDecodeError holds the object.
+         */
+        private static String asLatin1(PBytes self) {
+            ByteBuffer bytes = self.getBuffer();
+            byte[] array = new byte[bytes.remaining()];
+            bytes.get(array);
+            return new String(array, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+}
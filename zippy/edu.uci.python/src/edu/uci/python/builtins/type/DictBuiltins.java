@@ -34,6 +34,7 @@ import edu.uci.python.builtins.PythonBuiltins;
 import edu.uci.python.nodes.function.PythonBuiltinNode;
 import edu.uci.python.runtime.datatype.PDict;
 import edu.uci.python.runtime.datatype.PDictView;
+import edu.uci.python.runtime.datatype.storage.IntDictStorage;
 import edu.uci.python.runtime.sequence.PList;
 import edu.uci.python.runtime.sequence.PTuple;
 import edu.uci.python.runtime.sequence.storage.IntSequenceStorage;
@@ -57,10 +58,12 @@ public final class DictBuiltins extends PythonBuiltins {
 
         @Specialization
         public Object setDefault(PDict dict, Object arg0, Object arg1) {
-            if (dict.getMap().containsKey(arg0)) {
-                return dict.getMap().get(arg0);
+            final Object value = dict.getItem(arg0);
+
+            if (value != null) {
+                return value;
             } else {
-                dict.getMap().put(arg0, arg1);
+                dict.setItem(arg0, arg1);
                 return arg1;
             }
         }
@@ -73,9 +76,8 @@ public final class DictBuiltins extends PythonBuiltins {
 
         @Specialization
         public Object pop(PDict dict, Object arg0, Object arg1) {
-            Object retVal = dict.getMap().get(arg0);
+            Object retVal = dict.delItem(arg0);
             if (retVal != null) {
-                dict.getMap().remove(arg0);
                 return retVal;
             } else {
                 return arg1;
@@ -103,12 +105,13 @@ public final class DictBuiltins extends PythonBuiltins {
     @GenerateNodeFactory
     public abstract static class KeysNode extends PythonBuiltinNode {
 
-        @Specialization(rewriteOn = ClassCastException.class)
+        @Specialization(guards = "isIntDictStorage(self)")
         public PList keysPDictInt(PDict self) {
+            final IntDictStorage dictStore = (IntDictStorage) self.getStorage();
             IntSequenceStorage store = new IntSequenceStorage();
 
-            for (Object key : self.keys()) {
-                store.appendInt((int) key);
+            for (int i = dictStore.nextEntry(0); i >= 0; i = dictStore.nextEntry(i + 1)) {
+                store.appendInt(dictStore.getIntKeyAt(i));
             }
 
             return new PList(store);
@@ -138,7 +141,7 @@ public final class DictBuiltins extends PythonBuiltins {
 
         @Specialization
         public Object get(PDict dict, Object key, Object defaultValue) {
-            final Object value = dict.getMap().get(key);
+            final Object value = dict.getItem(key);
             return value != null ? value : defaultValue;
         }
     }
@@ -150,7 +153,7 @@ public final class DictBuiltins extends PythonBuiltins {
 
         @Specialization
         public PDict copy(PDict dict) {
-            return new PDict(dict.getMap());
+            return dict.copy();
         }
     }
 
@@ -161,7 +164,7 @@ public final class DictBuiltins extends PythonBuiltins {
 
         @Specialization
         public PDict copy(PDict dict) {
-            dict.getMap().clear();
+            dict.clear();
             return dict;
         }
     }
@@ -234,14 +234,19 @@ public class ListBuiltins extends PythonBuiltins {
         }
     }
 
-    // list.sort()
-    @Builtin(name = "sort", fixedNumOfArguments = 1, hasFixedNumOfArguments = true)
+    // list.sort(key=None, reverse=False)
+    @Builtin(name = "sort", fixedNumOfArguments = 1, hasFixedNumOfArguments = true, takesKeywordArguments = true, takesVariableKeywords = true, keywordNames = {"key", "reverse"})
     @GenerateNodeFactory
     public abstract static class ListSortNode extends PythonBuiltinNode {
 
         @Specialization
-        public PList sort(PList list) {
-            list.sort();
+        public PList sort(PList list, Object[] keywords) {
+            if (keywords == null || keywords.length == 0) {
+                list.sort();
+            } else {
+                SortUtil.sort(list, keywords);
+            }
+
             return list;
         }
     }
@@ -31,6 +31,7 @@ import com.oracle.truffle.api.dsl.*;
 import edu.uci.python.builtins.*;
 import edu.uci.python.nodes.function.*;
 import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.iterator.*;
 import edu.uci.python.runtime.sequence.*;
 
 /**
@@ -66,4 +67,124 @@ public final class SetBuiltins extends PythonBuiltins {
         }
     }
 
+    @Builtin(name = "union", fixedNumOfArguments = 2, hasFixedNumOfArguments = true)
+    @GenerateNodeFactory
+    public abstract static class UnionNode extends PythonBuiltinNode {
+
+        @Specialization
+        public PBaseSet union(PBaseSet self, PBaseSet other) {
+            return self.union(other);
+        }
+
+        @Specialization
+        public PBaseSet union(PBaseSet self, PIterator other) {
+            return self.union(other);
+        }
+
+        @Specialization
+        public PBaseSet union(PBaseSet self, PIterable other) {
+            return self.union(other.__iter__());
+        }
+    }
+
+    @Builtin(name = "intersection", fixedNumOfArguments = 2, hasFixedNumOfArguments = true)
+    @GenerateNodeFactory
+    public abstract static class IntersectionNode extends PythonBuiltinNode {
+
+        @Specialization
+        public PBaseSet intersection(PBaseSet self, PBaseSet other) {
+            return self.intersection(other);
+        }
+
+        @Specialization
+        public PBaseSet intersection(PBaseSet self, PIterator other) {
+            return self.intersection(other);
+        }
+
+        @Specialization
+        public PBaseSet intersection(PBaseSet self, PIterable other) {
+            return self.intersection(other.__iter__());
+        }
+    }
+
+    @Builtin(name = "difference", fixedNumOfArguments = 2, hasFixedNumOfArguments = true)
+    @GenerateNodeFactory
+    public abstract static class DifferenceNode extends PythonBuiltinNode {
+
+        @Specialization
+        public PBaseSet difference(PBaseSet self, PBaseSet other) {
+            return self.difference(other);
+        }
+
+        @Specialization
+        public PBaseSet difference(PBaseSet self, PIterator other) {
+            return self.difference(other);
+        }
+
+        @Specialization
+        public PBaseSet difference(PBaseSet self, PIterable other) {
+            return self.difference(other.__iter__());
+        }
+    }
+
+    @Builtin(name = "issubset", fixedNumOfArguments = 2, hasFixedNumOfArguments = true)
+    @GenerateNodeFactory
+    public abstract static class IsSubsetNode extends PythonBuiltinNode {
+
+        @Specialization
+        public boolean isSubset(PBaseSet self, PBaseSet other) {
+            return self.isSubset(other);
+        }
+
+        @Specialization
+        public boolean isSubset(PBaseSet self, PIterator other) {
+            return self.isSubset(other);
+        }
+
+        @Specialization
+        public boolean isSubset(PBaseSet self, PIterable other) {
+            return self.isSubset(other.__iter__());
+        }
+    }
+
+    @Builtin(name = "issuperset", fixedNumOfArguments = 2, hasFixedNumOfArguments = true)
+    @GenerateNodeFactory
+    public abstract static class IsSupersetNode extends PythonBuiltinNode {
+
+        @Specialization
+        public boolean isSuperset(PBaseSet self, PBaseSet other) {
+            return self.isSuperset(other);
+        }
+
+        @Specialization
+        public boolean isSuperset(PBaseSet self, PIterator other) {
+            return self.isSuperset(other);
+        }
+
+        @Specialization
+        public boolean isSuperset(PBaseSet self, PIterable other) {
+            return self.isSuperset(other.__iter__());
+        }
+    }
+
+    @Builtin(name = "isdisjoint", fixedNumOfArguments = 2, hasFixedNumOfArguments = true)
+    @GenerateNodeFactory
+    public abstract static class IsDisjointNode extends PythonBuiltinNode {
+
+        @Specialization
+        public boolean isDisjoint(PBaseSet self, PBaseSet other) {
+            return self.isDisjoint(other);
+        }
+
+        @Specialization
+        public boolean isDisjoint(PBaseSet self, PIterator other) {
+            return self.isDisjoint(other);
+        }
+
+        @Specialization
+        public boolean isDisjoint(PBaseSet self, PIterable other) {
+            return self.isDisjoint(other.__iter__());
+        }
+    }
+
 }
@@ -145,7 +145,7 @@ public final class StringBuiltins extends PythonBuiltins {
             }
 
             StringBuilder sb = new StringBuilder();
-            Object[] joinString = arg.getSet().toArray();
+            Object[] joinString = arg.toArray();
             for (int i = 0; i < joinString.length - 1; i++) {
                 sb.append(joinString[i]);
                 sb.append(string);
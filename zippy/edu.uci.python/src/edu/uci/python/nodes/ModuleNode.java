@@ -24,25 +24,48 @@
  */
 package edu.uci.python.nodes;
 
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.frame.*;
 import com.oracle.truffle.api.nodes.*;
 
 import edu.uci.python.*;
+import edu.uci.python.runtime.*;
 
+/**
+ * The root of a module body. Runs the body with the module's context entered on the current
+ * thread, and restores the previously entered context afterwards.
+ */
 public class ModuleNode extends RootNode {
 
+    private final PythonContext context;
     private final String name;
     @Child protected PNode body;
 
-    public ModuleNode(String name, PNode body, FrameDescriptor descriptor) {
+    public ModuleNode(PythonContext context, String name, PNode body, FrameDescriptor descriptor) {
         super(PythonLanguage.INSTANCE, descriptor);
+        this.context = context;
         this.name = name;
         this.body = body;
     }
 
     @Override
     public Object execute(VirtualFrame frame) {
-        return body.execute(frame);
+        PythonContext previous = enter(context);
+        try {
+            return body.execute(frame);
+        } finally {
+            leave(context, previous);
+        }
+    }
+
+    @TruffleBoundary
+    private static PythonContext enter(PythonContext context) {
+        return context.enter();
+    }
+
+    @TruffleBoundary
+    private static void leave(PythonContext context, PythonContext previous) {
+        context.leave(previous);
     }
 
     public PNode getBody() {
@@ -76,9 +76,9 @@ public class NodeFactory {
         return (T) NodeUtil.cloneNode(orig);
     }
 
-    public RootNode createModule(String name, List<PNode> body, FrameDescriptor fd) {
+    public RootNode createModule(PythonContext context, String name, List<PNode> body, FrameDescriptor fd) {
         PNode block = createBlock(body);
-        return new ModuleNode(name, block, fd);
+        return new ModuleNode(context, name, block, fd);
     }
 
     public FunctionRootNode createFunctionRoot(PythonContext context, SourceSection sourceSection, String functionName, boolean isGenerator, FrameDescriptor frameDescriptor, PNode body) {
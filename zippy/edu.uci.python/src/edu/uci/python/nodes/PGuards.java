@@ -3,6 +3,7 @@ package edu.uci.python.nodes;
 import com.oracle.truffle.api.frame.*;
 
 import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.datatype.storage.*;
 import edu.uci.python.runtime.function.*;
 import edu.uci.python.runtime.iterator.*;
 import edu.uci.python.runtime.object.*;
@@ -54,12 +55,16 @@ public abstract class PGuards {
         return first.getStorage() instanceof LongSequenceStorage && second.getStorage() instanceof LongSequenceStorage;
     }
 
+    /**
+     * Unboxed double access is only valid while no element stands in for an int.
+     */
     public static boolean isDoubleStorage(PList list) {
-        return list.getStorage() instanceof DoubleSequenceStorage;
+        SequenceStorage store = list.getStorage();
+        return store instanceof DoubleSequenceStorage && !((DoubleSequenceStorage) store).hasIntegralElements();
     }
 
     public static boolean is2ndDoubleStorage(@SuppressWarnings("unused") Object first, PList list) {
-        return list.getStorage() instanceof DoubleSequenceStorage;
+        return isDoubleStorage(list);
     }
 
     public static boolean isListStorage(PList list) {
@@ -101,6 +106,26 @@ public abstract class PGuards {
         return false;
     }
 
+    public static boolean isIntDictStorage(PDict dict) {
+        return dict.getStorage() instanceof IntDictStorage;
+    }
+
+    public static boolean isStringDictStorage(PDict dict) {
+        return dict.getStorage() instanceof StringDictStorage;
+    }
+
+    public static boolean is2ndBitSetStorage(@SuppressWarnings("unused") Object first, PBaseSet set) {
+        return set.getStorage() instanceof BitSetStorage;
+    }
+
+    public static boolean is2ndIntSetStorage(@SuppressWarnings("unused") Object first, PBaseSet set) {
+        return set.getStorage() instanceof IntSetStorage;
+    }
+
+    public static boolean is2ndStringSetStorage(@SuppressWarnings("unused") Object first, PBaseSet set) {
+        return set.getStorage() instanceof StringSetStorage;
+    }
+
     public static boolean isNotPythonObject(Object obj) {
         return !(obj instanceof PythonObject);
     }
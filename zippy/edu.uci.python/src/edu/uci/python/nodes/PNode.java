@@ -79,7 +79,7 @@ public abstract class PNode extends Node {
 
     public long executeLong(VirtualFrame frame) throws UnexpectedResultException {
         Object val = execute(frame);
-        Object value = (val instanceof Integer) ? BigInteger.valueOf((int) val).longValue() : val;
+        Object value = (val instanceof Integer) ? (long) (int) val : val;
 
         if (value instanceof Long) {
             return (long) value;
@@ -24,260 +24,389 @@
  */
 package edu.uci.python.nodes.control;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.dsl.GenerateNodeFactory;
 import com.oracle.truffle.api.dsl.NodeChild;
 import com.oracle.truffle.api.dsl.Specialization;
+import com.oracle.truffle.api.frame.FrameDescriptor;
+import com.oracle.truffle.api.frame.FrameSlot;
+import com.oracle.truffle.api.frame.FrameSlotKind;
+import com.oracle.truffle.api.frame.FrameUtil;
 import com.oracle.truffle.api.frame.VirtualFrame;
+import com.oracle.truffle.api.nodes.Node;
 import com.oracle.truffle.api.nodes.NodeInfo;
+import com.oracle.truffle.api.nodes.RepeatingNode;
 
 import edu.uci.python.ast.VisitorIF;
 import edu.uci.python.nodes.PNode;
 import edu.uci.python.nodes.frame.WriteNode;
-import edu.uci.python.runtime.PythonOptions;
-import edu.uci.python.runtime.datatype.PGenerator;
+import edu.uci.python.runtime.datatype.PFile;
 import edu.uci.python.runtime.datatype.PNone;
 import edu.uci.python.runtime.exception.StopIterationException;
 import edu.uci.python.runtime.iterator.PDoubleIterator;
 import edu.uci.python.runtime.iterator.PIntegerIterator;
-import edu.uci.python.runtime.iterator.PIntegerSequenceIterator;
 import edu.uci.python.runtime.iterator.PIterator;
 import edu.uci.python.runtime.iterator.PLongIterator;
-import edu.uci.python.runtime.iterator.PLongSequenceIterator;
-import edu.uci.python.runtime.iterator.PRangeIterator;
-import edu.uci.python.runtime.iterator.PSequenceIterator;
-import edu.uci.python.runtime.sequence.PList;
-import edu.uci.python.runtime.sequence.PSequence;
-import edu.uci.python.runtime.sequence.storage.IntSequenceStorage;
-import edu.uci.python.runtime.sequence.storage.LongSequenceStorage;
-import edu.uci.python.runtime.sequence.storage.ObjectSequenceStorage;
-
+import edu.uci.python.runtime.iterator.PStringIterator;
+
+/**
+ * The loop runs through a Truffle loop node so that it can be compiled by on-stack replacement.
+ * Each iteration is a separate call from the loop node, hence the iterator lives in a frame slot
+ * allocated by the translator instead of a Java local.
+ * <p>
+ * Every iterator type has its own specialization, which installs the matching
+ * {@link IterationNode} as the repeating node. A loop that sees a second kind of iterator falls
+ * back to {@link GenericIterationNode} for good.
+ */
 @NodeInfo(shortName = "for")
 @NodeChild(value = "iterator", type = GetIteratorNode.class)
 @GenerateNodeFactory
 public abstract class ForNode extends LoopNode {
 
-    @Child protected PNode target;
+    private static final String ITERATOR_SLOT_PREFIX = "<for_iterator";
+
+    @Child protected com.oracle.truffle.api.nodes.LoopNode loop;
+
+    private final FrameSlot iteratorSlot;
 
-    public ForNode(PNode body, PNode target) {
-        super(body);
-        this.target = target;
+    public ForNode(PNode body, PNode target, FrameSlot iteratorSlot) {
         assert target instanceof WriteNode;
+        this.iteratorSlot = iteratorSlot;
+        this.loop = Truffle.getRuntime().createLoopNode(new UninitializedIterationNode(target, body, iteratorSlot));
     }
 
     protected ForNode(ForNode prev) {
-        this(prev.body, prev.target);
+        this(prev.getBody(), prev.getTarget(), prev.iteratorSlot);
     }
 
     public PNode getTarget() {
-        return target;
+        return getIteration().target;
+    }
+
+    @Override
+    public PNode getBody() {
+        return getIteration().body;
+    }
+
+    public FrameSlot getIteratorSlot() {
+        return iteratorSlot;
+    }
+
+    /**
+     * A slot holding the iterator while the loop runs, allocated once when the loop is created.
+     */
+    public static FrameSlot createIteratorSlot(FrameDescriptor descriptor) {
+        return descriptor.addFrameSlot(ITERATOR_SLOT_PREFIX + descriptor.getSize() + ">", FrameSlotKind.Object);
+    }
+
+    public static boolean isIteratorSlot(FrameSlot slot) {
+        return slot.getIdentifier() instanceof String && ((String) slot.getIdentifier()).startsWith(ITERATOR_SLOT_PREFIX);
     }
 
     public abstract PNode getIterator();
 
-    @Specialization
-    public Object doPRange(VirtualFrame frame, PRangeIterator range) {
-        final int start = range.getStart();
-        final int stop = range.getStop();
-        final int step = range.getStep();
+    private IterationNode getIteration() {
+        return (IterationNode) loop.getRepeatingNode();
+    }
 
-        for (int i = start; i < stop; i += step) {
-            ((WriteNode) target).executeWrite(frame, i);
-            body.executeVoid(frame);
+    @Specialization
+    public Object doIntegerIterator(VirtualFrame frame, PIntegerIterator iterator) {
+        if (needsSpecialization(IntegerIterationNode.class)) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            getIteration().specialize(new IntegerIterationNode(getIteration()));
         }
 
-        return PNone.NONE;
+        return executeLoop(frame, iterator);
     }
 
     @Specialization
-    public Object doIntegerSequenceIterator(VirtualFrame frame, PIntegerSequenceIterator iterator) {
-        @SuppressWarnings("unused")
-        int count = 0;
-        IntSequenceStorage store = iterator.getSequenceStorage();
+    public Object doLongIterator(VirtualFrame frame, PLongIterator iterator) {
+        if (needsSpecialization(LongIterationNode.class)) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            getIteration().specialize(new LongIterationNode(getIteration()));
+        }
 
-        for (int index = 0; index < store.length(); index++) {
-            ((WriteNode) target).executeWrite(frame, store.getIntItemNormalized(index));
-            body.executeVoid(frame);
+        return executeLoop(frame, iterator);
+    }
 
-            if (CompilerDirectives.inInterpreter()) {
-                count++;
-            }
+    @Specialization
+    public Object doDoubleIterator(VirtualFrame frame, PDoubleIterator iterator) {
+        if (needsSpecialization(DoubleIterationNode.class)) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            getIteration().specialize(new DoubleIterationNode(getIteration()));
         }
 
-        return PNone.NONE;
+        return executeLoop(frame, iterator);
     }
 
     @Specialization
-    public Object doIntegerIterator(VirtualFrame frame, PIntegerIterator iterator) {
-        @SuppressWarnings("unused")
-        int count = 0;
-
-        try {
-            while (true) {
-                ((WriteNode) target).executeWrite(frame, iterator.__nextInt__());
-                body.executeVoid(frame);
+    public Object doStringIterator(VirtualFrame frame, PStringIterator iterator) {
+        if (needsSpecialization(StringIterationNode.class)) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            getIteration().specialize(new StringIterationNode(getIteration()));
+        }
 
-                if (CompilerDirectives.inInterpreter()) {
-                    count++;
-                }
-            }
-        } catch (StopIterationException e) {
+        return executeLoop(frame, iterator);
+    }
 
+    @Specialization
+    public Object doFileIterator(VirtualFrame frame, PFile file) {
+        if (needsSpecialization(FileIterationNode.class)) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            getIteration().specialize(new FileIterationNode(getIteration()));
         }
 
-        return PNone.NONE;
+        return executeLoop(frame, file);
     }
 
     @Specialization
-    public Object doLongSequenceIterator(VirtualFrame frame, PLongSequenceIterator iterator) {
-        @SuppressWarnings("unused")
-        int count = 0;
-        LongSequenceStorage store = iterator.getSequenceStorage();
+    public Object doIterator(VirtualFrame frame, PIterator iterator) {
+        if (needsSpecialization(ObjectIterationNode.class)) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            getIteration().specialize(new ObjectIterationNode(getIteration()));
+        }
 
-        for (int index = 0; index < store.length(); index++) {
-            ((WriteNode) target).executeWrite(frame, store.getLongItemNormalized(index));
-            body.executeVoid(frame);
+        return executeLoop(frame, iterator);
+    }
 
-            if (CompilerDirectives.inInterpreter()) {
-                count++;
-            }
+    private boolean needsSpecialization(Class<? extends IterationNode> kind) {
+        final IterationNode iteration = getIteration();
+        return iteration.getClass() != kind && !(iteration instanceof GenericIterationNode);
+    }
+
+    /**
+     * The slot is cleared when the loop ends, so an exhausted iterator, and the list or file behind
+     * it, does not stay reachable for the rest of the frame's lifetime.
+     */
+    private Object executeLoop(VirtualFrame frame, Object iterator) {
+        frame.setObject(iteratorSlot, iterator);
+
+        try {
+            loop.executeLoop(frame);
+        } finally {
+            frame.setObject(iteratorSlot, null);
         }
 
         return PNone.NONE;
     }
 
-    @Specialization
-    public Object doLongIterator(VirtualFrame frame, PLongIterator iterator) {
-        @SuppressWarnings("unused")
-        int count = 0;
+    @Override
+    public <R> R accept(VisitorIF<R> visitor) throws Exception {
+        return visitor.visitForNode(this);
+    }
 
-        try {
-            while (true) {
-                ((WriteNode) target).executeWrite(frame, iterator.__nextLong__());
-                body.executeVoid(frame);
+    /**
+     * Owns the loop target and body. Subclasses fetch the next value from the iterator in the
+     * frame slot without going through a type dispatch.
+     */
+    abstract static class IterationNode extends Node implements RepeatingNode {
 
-                if (CompilerDirectives.inInterpreter()) {
-                    count++;
-                }
-            }
-        } catch (StopIterationException e) {
+        @Child protected PNode target;
+        @Child protected PNode body;
 
+        protected final FrameSlot iteratorSlot;
+
+        IterationNode(PNode target, PNode body, FrameSlot iteratorSlot) {
+            this.target = target;
+            this.body = body;
+            this.iteratorSlot = iteratorSlot;
         }
 
-        return PNone.NONE;
+        IterationNode(IterationNode prev) {
+            this(prev.target, prev.body, prev.iteratorSlot);
+        }
+
+        protected final Object getIterator(VirtualFrame frame) {
+            return FrameUtil.getObjectSafe(frame, iteratorSlot);
+        }
+
+        protected final boolean executeBody(VirtualFrame frame, Object value) {
+            ((WriteNode) target).executeWrite(frame, value);
+            body.executeVoid(frame);
+            return true;
+        }
+
+        /**
+         * The first specialization takes over; a second kind of iterator makes the loop generic.
+         */
+        protected void specialize(@SuppressWarnings("unused") IterationNode next) {
+            replace(new GenericIterationNode(this));
+        }
     }
 
-    @Specialization
-    public Object doDoubleIterator(VirtualFrame frame, PDoubleIterator iterator) {
-        @SuppressWarnings("unused")
-        int count = 0;
+    static final class UninitializedIterationNode extends IterationNode {
 
-        try {
-            while (true) {
-                ((WriteNode) target).executeWrite(frame, iterator.__nextDouble__());
-                body.executeVoid(frame);
+        UninitializedIterationNode(PNode target, PNode body, FrameSlot iteratorSlot) {
+            super(target, body, iteratorSlot);
+        }
 
-                if (CompilerDirectives.inInterpreter()) {
-                    count++;
-                }
-            }
-        } catch (StopIterationException e) {
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            throw new IllegalStateException("for loop executed before specialization");
+        }
 
+        @Override
+        protected void specialize(IterationNode next) {
+            replace(next);
         }
+    }
 
-        return PNone.NONE;
+    /**
+     * Ranges and int lists.
+     */
+    static final class IntegerIterationNode extends IterationNode {
+
+        IntegerIterationNode(IterationNode prev) {
+            super(prev);
+        }
+
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            try {
+                return executeBody(frame, ((PIntegerIterator) getIterator(frame)).__nextInt__());
+            } catch (StopIterationException e) {
+                return false;
+            }
+        }
     }
 
-    @Specialization(guards = "isObjectStorageIterator(iterator)")
-    public Object doObjectStorageIterator(VirtualFrame frame, PSequenceIterator iterator) {
-        @SuppressWarnings("unused")
-        int count = 0;
-        PList list = (PList) iterator.getSeqence();
-        ObjectSequenceStorage store = (ObjectSequenceStorage) list.getStorage();
+    static final class LongIterationNode extends IterationNode {
 
-        for (int index = 0; index < store.length(); index++) {
-            ((WriteNode) target).executeWrite(frame, store.getItemNormalized(index));
-            body.executeVoid(frame);
+        LongIterationNode(IterationNode prev) {
+            super(prev);
+        }
 
-            if (CompilerDirectives.inInterpreter()) {
-                count++;
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            try {
+                return executeBody(frame, ((PLongIterator) getIterator(frame)).__nextLong__());
+            } catch (StopIterationException e) {
+                return false;
             }
         }
-        return PNone.NONE;
     }
 
-    @Specialization
-    public Object doIterator(VirtualFrame frame, PSequenceIterator iterator) {
-        @SuppressWarnings("unused")
-        int count = 0;
-        PSequence sequence = iterator.getSeqence();
+    static final class DoubleIterationNode extends IterationNode {
 
-        for (int index = 0; index < sequence.len(); index++) {
-            ((WriteNode) target).executeWrite(frame, sequence.getItem(index));
-            body.executeVoid(frame);
+        DoubleIterationNode(IterationNode prev) {
+            super(prev);
+        }
 
-            if (CompilerDirectives.inInterpreter()) {
-                count++;
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            try {
+                return executeBody(frame, ((PDoubleIterator) getIterator(frame)).__nextDouble__());
+            } catch (StopIterationException e) {
+                return false;
             }
         }
-        return PNone.NONE;
     }
 
-    @Specialization
-    public Object doGenerator(VirtualFrame frame, PGenerator generator) {
-        int count = 0;
+    /**
+     * Yields shared single character strings, iterating a Latin-1 string allocates nothing.
+     */
+    static final class StringIterationNode extends IterationNode {
 
-        try {
-            while (true) {
-                ((WriteNode) target).executeWrite(frame, generator.__next__());
-                body.executeVoid(frame);
+        StringIterationNode(IterationNode prev) {
+            super(prev);
+        }
 
-                if (CompilerDirectives.inInterpreter()) {
-                    count++;
-                }
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            final PStringIterator iterator = (PStringIterator) getIterator(frame);
+
+            if (!iterator.hasNext()) {
+                return false;
             }
-        } catch (StopIterationException e) {
 
+            return executeBody(frame, iterator.nextChar());
+        }
+    }
+
+    /**
+     * Reads lines straight from the file buffer; the end of the file ends the loop without raising
+     * StopIteration.
+     */
+    static final class FileIterationNode extends IterationNode {
+
+        FileIterationNode(IterationNode prev) {
+            super(prev);
         }
 
-        if (CompilerDirectives.inInterpreter()) {
-            if (count > 0 && PythonOptions.InlineGeneratorCalls) {
-                CompilerAsserts.neverPartOfCompilation();
-                /**
-                 * TODO zwei: This is probably a better place to peel generators than the
-                 * complicated logic we currently have in FunctionRootNode now.
-                 */
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            final Object line = ((PFile) getIterator(frame)).readLine();
+
+            if (line == null) {
+                return false;
             }
+
+            return executeBody(frame, line);
         }
+    }
 
-        return PNone.NONE;
+    /**
+     * Sequences, generators and every other iterator.
+     */
+    static final class ObjectIterationNode extends IterationNode {
+
+        ObjectIterationNode(IterationNode prev) {
+            super(prev);
+        }
+
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            try {
+                return executeBody(frame, ((PIterator) getIterator(frame)).__next__());
+            } catch (StopIterationException e) {
+                return false;
+            }
+        }
     }
 
-    @Specialization
-    public Object doIterator(VirtualFrame frame, PIterator iterator) {
-        @SuppressWarnings("unused")
-        int count = 0;
+    /**
+     * A loop that has seen more than one kind of iterator. Primitive iterators still skip boxing
+     * the next value, and files end the loop on a null line.
+     */
+    static final class GenericIterationNode extends IterationNode {
 
-        try {
-            while (true) {
-                ((WriteNode) target).executeWrite(frame, iterator.__next__());
-                body.executeVoid(frame);
+        GenericIterationNode(IterationNode prev) {
+            super(prev);
+        }
 
-                if (CompilerDirectives.inInterpreter()) {
-                    count++;
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            final Object iterator = getIterator(frame);
+            final Object value;
+
+            try {
+                if (iterator instanceof PIntegerIterator) {
+                    value = ((PIntegerIterator) iterator).__nextInt__();
+                } else if (iterator instanceof PLongIterator) {
+                    value = ((PLongIterator) iterator).__nextLong__();
+                } else if (iterator instanceof PDoubleIterator) {
+                    value = ((PDoubleIterator) iterator).__nextDouble__();
+                } else if (iterator instanceof PFile) {
+                    value = ((PFile) iterator).readLine();
+
+                    if (value == null) {
+                        return false;
+                    }
+                } else {
+                    value = ((PIterator) iterator).__next__();
                 }
+            } catch (StopIterationException e) {
+                return false;
             }
-        } catch (StopIterationException e) {
 
+            return executeBody(frame, value);
         }
 
-        return PNone.NONE;
-    }
-
-    @Override
-    public <R> R accept(VisitorIF<R> visitor) throws Exception {
-        return visitor.visitForNode(this);
+        @Override
+        protected void specialize(@SuppressWarnings("unused") IterationNode next) {
+            // already generic
+        }
     }
 
 }
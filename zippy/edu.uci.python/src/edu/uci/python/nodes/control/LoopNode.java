@@ -27,17 +27,15 @@ package edu.uci.python.nodes.control;
 import edu.uci.python.nodes.PNode;
 import edu.uci.python.nodes.statement.StatementNode;
 
+/**
+ * Loops that run through a Truffle {@link com.oracle.truffle.api.nodes.LoopNode} can be compiled
+ * by on-stack replacement, which is the only way a long loop at module level or in a function that
+ * is called once ever gets compiled. Their body then belongs to the repeating node of that loop
+ * node, hence {@link #getBody()} is left to the subclasses.
+ */
 public abstract class LoopNode extends StatementNode {
 
-    @Child protected PNode body;
-
-    public LoopNode(PNode body) {
-        this.body = body;
-    }
-
-    public PNode getBody() {
-        return body;
-    }
+    public abstract PNode getBody();
 
     protected int reportLoopCount(int count) {
         return count;
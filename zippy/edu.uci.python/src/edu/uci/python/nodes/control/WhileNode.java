@@ -36,35 +36,28 @@ import edu.uci.python.runtime.datatype.*;
 @NodeInfo(shortName = "while")
 public class WhileNode extends LoopNode {
 
-    @Child protected CastToBooleanNode condition;
+    @Child protected com.oracle.truffle.api.nodes.LoopNode loop;
 
     public WhileNode(CastToBooleanNode condition, PNode body) {
-        super(body);
-        this.condition = condition;
+        this.loop = Truffle.getRuntime().createLoopNode(new WhileRepeatingNode(condition, body));
+    }
+
+    private WhileRepeatingNode getRepeatingNode() {
+        return (WhileRepeatingNode) loop.getRepeatingNode();
     }
 
     public CastToBooleanNode getCondition() {
-        return condition;
+        return getRepeatingNode().condition;
     }
 
     @Override
-    public Object execute(VirtualFrame frame) {
-        int count = 0;
-
-        try {
-            while (condition.executeBoolean(frame)) {
-                body.execute(frame);
-
-                if (CompilerDirectives.inInterpreter()) {
-                    count++;
-                }
-            }
-        } finally {
-            if (CompilerDirectives.inInterpreter()) {
-                reportLoopCount(count);
-            }
-        }
+    public PNode getBody() {
+        return getRepeatingNode().body;
+    }
 
+    @Override
+    public Object execute(VirtualFrame frame) {
+        loop.executeLoop(frame);
         return PNone.NONE;
     }
 
@@ -73,4 +66,25 @@ public class WhileNode extends LoopNode {
         return visitor.visitWhileNode(this);
     }
 
+    private static final class WhileRepeatingNode extends Node implements RepeatingNode {
+
+        @Child protected CastToBooleanNode condition;
+        @Child protected PNode body;
+
+        WhileRepeatingNode(CastToBooleanNode condition, PNode body) {
+            this.condition = condition;
+            this.body = body;
+        }
+
+        @Override
+        public boolean executeRepeating(VirtualFrame frame) {
+            if (!condition.executeBoolean(frame)) {
+                return false;
+            }
+
+            body.execute(frame);
+            return true;
+        }
+    }
+
 }
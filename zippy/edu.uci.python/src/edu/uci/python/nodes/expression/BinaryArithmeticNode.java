@@ -37,6 +37,7 @@ import com.oracle.truffle.api.frame.*;
 import com.oracle.truffle.api.nodes.*;
 
 import edu.uci.python.ast.VisitorIF;
+import edu.uci.python.runtime.*;
 import edu.uci.python.runtime.array.*;
 import edu.uci.python.runtime.datatype.*;
 import edu.uci.python.runtime.misc.*;
@@ -66,14 +67,15 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
             return ExactMath.addExact(left, right);
         }
 
-        @Specialization
-        Long doLong(Long left, Long right) {
-            return left + right;
+        @Specialization(rewriteOn = ArithmeticException.class)
+        long doLong(long left, long right) {
+            return ExactMath.addExact(left, right);
         }
 
+        @TruffleBoundary
         @Specialization
-        BigInteger doBigInteger(BigInteger left, BigInteger right) {
-            return left.add(right);
+        Object doBigInteger(BigInteger left, BigInteger right) {
+            return ArithmeticUtil.demote(left.add(right));
         }
 
         @Specialization
@@ -134,8 +136,23 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
         }
 
         @Specialization
-        String doString(String left, String right) {
-            return left + right;
+        Object doPStringRope(PStringRope left, String right) {
+            return PStringRope.concat(left, right);
+        }
+
+        @Specialization
+        Object doPStringRope(String left, PStringRope right) {
+            return PStringRope.concat(left, right);
+        }
+
+        @Specialization
+        Object doPStringRope(PStringRope left, PStringRope right) {
+            return PStringRope.concat(left, right);
+        }
+
+        @Specialization
+        Object doString(String left, String right) {
+            return PStringRope.concat(left, right);
         }
 
         @Specialization(guards = "areBothIntStorage(left,right)")
@@ -197,14 +214,25 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
             return ExactMath.subtractExact(left, right);
         }
 
+        @Specialization(rewriteOn = ArithmeticException.class)
+        long doLong(long left, long right) {
+            return ExactMath.subtractExact(left, right);
+        }
+
+        @TruffleBoundary
+        @Specialization
+        Object doBigInteger(BigInteger left, BigInteger right) {
+            return ArithmeticUtil.demote(left.subtract(right));
+        }
+
         @Specialization
-        Long doLong(Long left, Long right) {
+        double doDoubleLong(double left, long right) {
             return left - right;
         }
 
         @Specialization
-        BigInteger doBigInteger(BigInteger left, BigInteger right) {
-            return left.subtract(right);
+        double doDoubleLong(long left, double right) {
+            return left - right;
         }
 
         @Specialization
@@ -249,25 +277,35 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
             return ExactMath.multiplyExact(left, right);
         }
 
-        @Specialization
-        Long doLong(Long left, Long right) {
-            return left * right;
+        @Specialization(rewriteOn = ArithmeticException.class)
+        long doLong(long left, long right) {
+            return ExactMath.multiplyExact(left, right);
         }
 
         @Specialization
-        BigInteger doIntegerBigInteger(int left, BigInteger right) {
+        Object doIntegerBigInteger(int left, BigInteger right) {
             return doBigInteger(BigInteger.valueOf(left), right);
         }
 
         @Specialization
-        BigInteger doIntegerBigInteger(BigInteger left, int right) {
+        Object doIntegerBigInteger(BigInteger left, int right) {
             return doBigInteger(left, BigInteger.valueOf(right));
         }
 
         @TruffleBoundary
         @Specialization
-        BigInteger doBigInteger(BigInteger left, BigInteger right) {
-            return left.multiply(right);
+        Object doBigInteger(BigInteger left, BigInteger right) {
+            return ArithmeticUtil.demote(left.multiply(right));
+        }
+
+        @Specialization
+        double doDoubleLong(double left, long right) {
+            return left * right;
+        }
+
+        @Specialization
+        double doDoubleLong(long left, double right) {
+            return left * right;
         }
 
         @Specialization
@@ -371,7 +409,7 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
         }
 
         @Specialization
-        double doLong(Long left, Long right) {
+        double doLong(long left, long right) {
             if (right == 0) {
                 CompilerDirectives.transferToInterpreterAndInvalidate();
                 throw new ArithmeticException("divide by zero");
@@ -381,12 +419,12 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
         }
 
         @Specialization
-        double doLong(Long left, double right) {
+        double doLong(long left, double right) {
             return (double) left / right;
         }
 
         @Specialization
-        double doLong(double left, Long right) {
+        double doLong(double left, long right) {
             return left / right;
         }
 
@@ -437,23 +475,51 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
     @GenerateNodeFactory
     public abstract static class FloorDivNode extends BinaryArithmeticNode {
 
-        @Specialization
+        /*
+         * A zero divisor raises ZeroDivisionError up front. ArithmeticException is reserved for
+         * overflow, which rewrites to a wider type.
+         */
+        @Specialization(rewriteOn = ArithmeticException.class)
         int doInteger(int left, int right) {
-            return left / right;
+            checkDivisor(right == 0);
+
+            if (left == Integer.MIN_VALUE && right == -1) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                throw new ArithmeticException("integer overflow");
+            }
+
+            return Math.floorDiv(left, right);
         }
 
-        @Specialization
+        @Specialization(rewriteOn = ArithmeticException.class)
         long doLong(long left, long right) {
-            return left / right;
+            checkDivisor(right == 0);
+            return ArithmeticUtil.floorDivExact(left, right);
         }
 
         @Specialization
-        BigInteger doBigInteger(BigInteger left, BigInteger right) {
-            return FastMathUtil.slowPathDivide(left, right);
+        Object doBigInteger(BigInteger left, BigInteger right) {
+            checkDivisor(right.signum() == 0);
+            return ArithmeticUtil.demote(FastMathUtil.slowPathFloorDivide(left, right));
+        }
+
+        @Specialization
+        double doDoubleLong(double left, long right) {
+            return doDouble(left, right);
+        }
+
+        @Specialization
+        double doDoubleLong(long left, double right) {
+            return doDouble(left, right);
         }
 
         @Specialization
         double doDouble(double left, double right) {
+            if (right == 0) {
+                CompilerDirectives.transferToInterpreter();
+                throw Py.ZeroDivisionError("float divmod()");
+            }
+
             return Math.floor(left / right);
         }
 
@@ -474,11 +540,13 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
 
         @Specialization(guards = "isLeftPositive(left)")
         int doInteger(int left, int right) {
+            checkDivisor(right == 0);
             return left % right;
         }
 
         @Specialization
         int doIntegerNegative(int left, int right) {
+            checkDivisor(right == 0);
             return (left + right) % right;
         }
 
@@ -490,38 +558,26 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
             return left < 0;
         }
 
-        @Specialization(guards = "isLeftPositive(left)")
-        long doLong(long left, int right) {
-            return left % right;
-        }
-
         @Specialization
-        long doLongNegative(long left, int right) {
-            return (left + right) % right;
-        }
-
-        @Specialization(guards = "isLeftPositive(left)")
         long doLong(long left, long right) {
-            return left % right;
-        }
-
-        @Specialization
-        long doLongNegative(long left, long right) {
-            return (left + right) % right;
-        }
-
-        protected static boolean isLeftPositive(long left) {
-            return left >= 0;
+            checkDivisor(right == 0);
+            return Math.floorMod(left, right);
         }
 
         @TruffleBoundary
         @Specialization
-        BigInteger doBigInteger(BigInteger left, BigInteger right) {
-            return left.mod(right);
+        Object doBigInteger(BigInteger left, BigInteger right) {
+            checkDivisor(right.signum() == 0);
+            return ArithmeticUtil.demote(left.mod(right));
         }
 
         @Specialization
         double doDouble(double left, double right) {
+            if (right == 0) {
+                CompilerDirectives.transferToInterpreter();
+                throw Py.ZeroDivisionError("float modulo");
+            }
+
             return left % right;
         }
 
@@ -550,28 +606,36 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
     @GenerateNodeFactory
     public abstract static class PowerNode extends BinaryArithmeticNode {
 
-        @TruffleBoundary
-        @Specialization
-        Object doInteger(int left, int right) {
-            BigInteger val = BigInteger.valueOf(left).pow(right);
-            return (val.longValue() <= Integer.MAX_VALUE) ? val.intValue() : val;
+        private static final BigInteger INT_MAX = BigInteger.valueOf(Integer.MAX_VALUE);
+
+        protected static boolean isNonNegative(long right) {
+            return right >= 0;
         }
 
-        @Specialization
-        long doLong(long left, int right) {
-            return BigInteger.valueOf(left).pow(right).longValue();
+        protected static boolean isNonNegative(BigInteger right) {
+            return right.signum() >= 0;
         }
 
-        @Specialization
+        @Specialization(guards = "isNonNegative(right)", rewriteOn = ArithmeticException.class)
+        int doInteger(int left, int right) {
+            return Math.toIntExact(ArithmeticUtil.powExact(left, right));
+        }
+
+        @Specialization(guards = "isNonNegative(right)", rewriteOn = ArithmeticException.class)
         long doLong(long left, long right) {
-            return BigInteger.valueOf(left).pow(Math.toIntExact(right)).longValue();
+            return ArithmeticUtil.powExact(left, right);
         }
 
+        /**
+         * Negative exponents fall through to {@link #doDouble}.
+         */
         @TruffleBoundary
-        @Specialization
-        BigInteger doBigInteger(BigInteger left, BigInteger right) {
-            if (right.longValue() <= Integer.MAX_VALUE)
-                return left.pow(right.intValue());
+        @Specialization(guards = "isNonNegative(right)")
+        Object doBigInteger(BigInteger left, BigInteger right) {
+            if (right.compareTo(INT_MAX) <= 0) {
+                return ArithmeticUtil.demote(left.pow(right.intValue()));
+            }
+
             double value = Math.pow(left.doubleValue(), right.doubleValue());
             return BigInteger.valueOf((long) value);
         }
@@ -587,6 +651,16 @@ public abstract class BinaryArithmeticNode extends BinaryOpNode {
         }
     }
 
+    /**
+     * Integer // and % raise ZeroDivisionError instead of letting ArithmeticException escape.
+     */
+    protected static void checkDivisor(boolean isZero) {
+        if (isZero) {
+            CompilerDirectives.transferToInterpreter();
+            throw Py.ZeroDivisionError("integer division or modulo by zero");
+        }
+    }
+
     @Override
     public <R> R accept(VisitorIF<R> visitor) throws Exception {
         return visitor.visitBinaryArithmeticNode(this);
@@ -44,6 +44,11 @@ public abstract class BinaryBitwiseNode extends BinaryOpNode {
             return ArithmeticUtil.leftShiftExact(left, right);
         }
 
+        @Specialization(rewriteOn = ArithmeticException.class)
+        long doLong(long left, int right) {
+            return ArithmeticUtil.leftShiftExact(left, right);
+        }
+
         @Specialization
         BigInteger doBigInteger(BigInteger left, int right) {
             return left.shiftLeft(right);
@@ -68,16 +73,21 @@ public abstract class BinaryBitwiseNode extends BinaryOpNode {
         }
 
         @Specialization
-        BigInteger doBigInteger(BigInteger left, int right) {
-            return left.shiftRight(right);
+        long doLong(long left, int right) {
+            return ArithmeticUtil.rightShift(left, right);
         }
 
         @Specialization
-        BigInteger doBigInteger(BigInteger left, BigInteger right) {
+        Object doBigInteger(BigInteger left, int right) {
+            return ArithmeticUtil.demote(left.shiftRight(right));
+        }
+
+        @Specialization
+        Object doBigInteger(BigInteger left, BigInteger right) {
             /**
              * Right operand may lose precision.
              */
-            return left.shiftRight(right.intValue());
+            return ArithmeticUtil.demote(left.shiftRight(right.intValue()));
         }
     }
 
@@ -91,8 +101,13 @@ public abstract class BinaryBitwiseNode extends BinaryOpNode {
         }
 
         @Specialization
-        BigInteger doBigInteger(BigInteger left, BigInteger right) {
-            return left.and(right);
+        long doLong(long left, long right) {
+            return left & right;
+        }
+
+        @Specialization
+        Object doBigInteger(BigInteger left, BigInteger right) {
+            return ArithmeticUtil.demote(left.and(right));
         }
 
         @Specialization
@@ -111,8 +126,13 @@ public abstract class BinaryBitwiseNode extends BinaryOpNode {
         }
 
         @Specialization
-        BigInteger doBigInteger(BigInteger left, BigInteger right) {
-            return left.xor(right);
+        long doLong(long left, long right) {
+            return left ^ right;
+        }
+
+        @Specialization
+        Object doBigInteger(BigInteger left, BigInteger right) {
+            return ArithmeticUtil.demote(left.xor(right));
         }
     }
 
@@ -126,8 +146,13 @@ public abstract class BinaryBitwiseNode extends BinaryOpNode {
         }
 
         @Specialization
-        BigInteger doBigInteger(BigInteger left, BigInteger right) {
-            return left.or(right);
+        long doLong(long left, long right) {
+            return left | right;
+        }
+
+        @Specialization
+        Object doBigInteger(BigInteger left, BigInteger right) {
+            return ArithmeticUtil.demote(left.or(right));
         }
     }
 
@@ -32,6 +32,7 @@ import com.oracle.truffle.api.nodes.*;
 
 import edu.uci.python.ast.VisitorIF;
 import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.datatype.storage.*;
 import edu.uci.python.runtime.object.*;
 import edu.uci.python.runtime.sequence.*;
 import edu.uci.python.runtime.sequence.storage.*;
@@ -54,6 +55,11 @@ public abstract class BinaryComparisonNode extends BinaryOpNode {
             return left == right;
         }
 
+        @Specialization
+        boolean doLong(long left, long right) {
+            return left == right;
+        }
+
         @Specialization
         boolean doBigInteger(BigInteger left, BigInteger right) {
             return left.equals(right);
@@ -160,6 +166,11 @@ public abstract class BinaryComparisonNode extends BinaryOpNode {
             return left != right;
         }
 
+        @Specialization
+        boolean doLong(long left, long right) {
+            return left != right;
+        }
+
         @Specialization
         boolean doBigInteger(BigInteger left, BigInteger right) {
             return !left.equals(right);
@@ -216,6 +227,11 @@ public abstract class BinaryComparisonNode extends BinaryOpNode {
             return left < right;
         }
 
+        @Specialization
+        boolean doLong(long left, long right) {
+            return left < right;
+        }
+
         @Specialization
         boolean doBigInteger(BigInteger left, BigInteger right) {
             return left.compareTo(right) < 0;
@@ -251,6 +267,11 @@ public abstract class BinaryComparisonNode extends BinaryOpNode {
             return left <= right;
         }
 
+        @Specialization
+        boolean doLong(long left, long right) {
+            return left <= right;
+        }
+
         @Specialization
         boolean doBigInteger(BigInteger left, BigInteger right) {
             return left.compareTo(right) <= 0;
@@ -287,6 +308,11 @@ public abstract class BinaryComparisonNode extends BinaryOpNode {
             return left > right;
         }
 
+        @Specialization
+        boolean doLong(long left, long right) {
+            return left > right;
+        }
+
         @Specialization()
         boolean doBigInteger(BigInteger left, BigInteger right) {
             return left.compareTo(right) > 0;
@@ -327,6 +353,11 @@ public abstract class BinaryComparisonNode extends BinaryOpNode {
             return left >= right;
         }
 
+        @Specialization
+        boolean doLong(long left, long right) {
+            return left >= right;
+        }
+
         @Specialization()
         boolean doBigInteger(BigInteger left, BigInteger right) {
             return left.compareTo(right) >= 0;
@@ -453,6 +484,21 @@ public abstract class BinaryComparisonNode extends BinaryOpNode {
             return right.contains(left);
         }
 
+        @Specialization(guards = "is2ndBitSetStorage(left,right)")
+        public boolean doBitSet(int left, PBaseSet right) {
+            return ((BitSetStorage) right.getStorage()).containsInt(left);
+        }
+
+        @Specialization(guards = "is2ndIntSetStorage(left,right)")
+        public boolean doIntSet(int left, PBaseSet right) {
+            return ((IntSetStorage) right.getStorage()).containsInt(left);
+        }
+
+        @Specialization(guards = "is2ndStringSetStorage(left,right)")
+        public boolean doStringSet(String left, PBaseSet right) {
+            return ((StringSetStorage) right.getStorage()).containsString(left);
+        }
+
         @Specialization
         public boolean doBaseSet(Object left, PBaseSet right) {
             return right.contains(left);
@@ -483,6 +529,21 @@ public abstract class BinaryComparisonNode extends BinaryOpNode {
     @GenerateNodeFactory
     public abstract static class NotInNode extends BinaryComparisonNode {
 
+        @Specialization(guards = "is2ndBitSetStorage(left,right)")
+        public boolean doBitSet(int left, PBaseSet right) {
+            return !((BitSetStorage) right.getStorage()).containsInt(left);
+        }
+
+        @Specialization(guards = "is2ndIntSetStorage(left,right)")
+        public boolean doIntSet(int left, PBaseSet right) {
+            return !((IntSetStorage) right.getStorage()).containsInt(left);
+        }
+
+        @Specialization(guards = "is2ndStringSetStorage(left,right)")
+        public boolean doStringSet(String left, PBaseSet right) {
+            return !((StringSetStorage) right.getStorage()).containsString(left);
+        }
+
         @Specialization
         public boolean doBaseSet(Object left, PBaseSet right) {
             return !right.contains(left);
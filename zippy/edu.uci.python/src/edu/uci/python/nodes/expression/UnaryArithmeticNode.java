@@ -30,6 +30,7 @@ import com.oracle.truffle.api.dsl.*;
 import com.oracle.truffle.api.nodes.*;
 
 import edu.uci.python.ast.VisitorIF;
+import edu.uci.python.runtime.*;
 
 @GenerateNodeFactory
 public abstract class UnaryArithmeticNode extends UnaryOpNode {
@@ -43,6 +44,11 @@ public abstract class UnaryArithmeticNode extends UnaryOpNode {
             return operand;
         }
 
+        @Specialization
+        long doLong(long operand) {
+            return operand;
+        }
+
         @Specialization
         BigInteger doBigInteger(BigInteger operand) {
             return operand;
@@ -58,14 +64,19 @@ public abstract class UnaryArithmeticNode extends UnaryOpNode {
     @GenerateNodeFactory
     public abstract static class MinusNode extends UnaryArithmeticNode {
 
-        @Specialization
+        @Specialization(rewriteOn = ArithmeticException.class)
         int doInteger(int operand) {
-            return -operand;
+            return Math.negateExact(operand);
+        }
+
+        @Specialization(rewriteOn = ArithmeticException.class)
+        long doLong(long operand) {
+            return Math.negateExact(operand);
         }
 
         @Specialization
-        BigInteger doBigInteger(BigInteger operand) {
-            return operand.negate();
+        Object doBigInteger(BigInteger operand) {
+            return ArithmeticUtil.demote(operand.negate());
         }
 
         @Specialization
@@ -82,6 +93,11 @@ public abstract class UnaryArithmeticNode extends UnaryOpNode {
             return ~operand;
         }
 
+        @Specialization
+        long doLong(long operand) {
+            return ~operand;
+        }
+
         @Specialization
         BigInteger doBigInteger(BigInteger operand) {
             return operand.not();
@@ -215,7 +215,7 @@ public abstract class ReadGlobalNode extends PNode implements ReadNode, HasPrima
 
         @TruffleBoundary
         protected Object slowPathLookup() {
-            Object value = PySystemState.getDefaultBuiltins().__finditem__(attributeId);
+            Object value = JythonRuntime.getDefaultBuiltins().__finditem__(attributeId);
 
             if (value == null) {
                 throw Py.NameError("name \'" + attributeId + "\' is not defined");
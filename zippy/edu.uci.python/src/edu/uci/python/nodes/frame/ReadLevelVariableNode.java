@@ -68,6 +68,11 @@ public abstract class ReadLevelVariableNode extends ReadVariableNode {
         return new ReadLevelVariableIntNode((ReadLevelVariableNode) prev);
     }
 
+    @Override
+    protected final ReadVariableNode createReadLong(ReadVariableNode prev) {
+        return new ReadLevelVariableLongNode((ReadLevelVariableNode) prev);
+    }
+
     @Override
     protected final ReadVariableNode createReadDouble(ReadVariableNode prev) {
         return new ReadLevelVariableDoubleNode((ReadLevelVariableNode) prev);
@@ -132,6 +137,26 @@ public abstract class ReadLevelVariableNode extends ReadVariableNode {
         }
     }
 
+    @NodeInfo(cost = NodeCost.MONOMORPHIC)
+    private static final class ReadLevelVariableLongNode extends ReadLevelVariableNode {
+
+        ReadLevelVariableLongNode(ReadLevelVariableNode copy) {
+            super(copy);
+        }
+
+        @Override
+        public long executeLong(VirtualFrame frame) throws UnexpectedResultException {
+            MaterializedFrame parent = FrameUtil.getParentFrame(frame, level);
+            return doLongUnboxed(frame, parent);
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            MaterializedFrame parent = FrameUtil.getParentFrame(frame, level);
+            return doLongBoxed(frame, parent);
+        }
+    }
+
     @NodeInfo(cost = NodeCost.MONOMORPHIC)
     private static final class ReadLevelVariableDoubleNode extends ReadLevelVariableNode {
 
@@ -131,14 +131,42 @@ public final class FunctionRootNode extends RootNode {
         return uninitializedBody;
     }
 
+    public boolean isBodyTranslated() {
+        return !(body instanceof LazyFunctionBodyNode);
+    }
+
+    /**
+     * Translates a lazily translated body in place. Does nothing if the body is already translated.
+     */
+    public void translateBody() {
+        CompilerAsserts.neverPartOfCompilation();
+
+        if (isBodyTranslated()) {
+            return;
+        }
+
+        PNode translated = ((LazyFunctionBodyNode) body).translate();
+        uninitializedBody = NodeUtil.cloneNode(translated);
+        body.replace(NodeUtil.cloneNode(translated));
+
+        if (PythonOptions.OptimizeGeneratorExpressions) {
+            new GeneratorExpressionOptimizer(this).optimize();
+        }
+    }
+
     @Override
     public FunctionRootNode copy() {
+        translateBody();
         return new FunctionRootNode(context, getSourceSection(), functionName, isGenerator, getFrameDescriptor().shallowCopy(), uninitializedBody);
     }
 
     @Override
     public Object execute(VirtualFrame frame) {
         if (CompilerDirectives.inInterpreter()) {
+            if (!isBodyTranslated()) {
+                translateBody();
+            }
+
             if (hasGeneratorExpression || peelingTrialCounter++ < 5) {
                 optimizeHelper();
             }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.nodes.function;
+
+import com.oracle.truffle.api.*;
+import com.oracle.truffle.api.frame.*;
+
+import edu.uci.python.nodes.*;
+
+/**
+ * Placeholder body of a {@link FunctionRootNode} whose statements have not been translated yet.
+ * {@link FunctionRootNode} replaces it with the real body before the first execution.
+ * <p>
+ * Clones made by splitting or {@link FunctionRootNode#copy()} share the same {@link Translation},
+ * so a function body is translated at most once.
+ */
+public final class LazyFunctionBodyNode extends PNode {
+
+    public abstract static class Translation {
+
+        private PNode translated;
+
+        protected abstract PNode translate();
+
+        /**
+         * Drops whatever {@link #translate()} needed, once the body is translated.
+         */
+        protected abstract void release();
+
+        public final synchronized PNode get() {
+            if (translated == null) {
+                translated = translate();
+                release();
+            }
+
+            return translated;
+        }
+
+    }
+
+    private final Translation translation;
+
+    public LazyFunctionBodyNode(Translation translation) {
+        this.translation = translation;
+    }
+
+    public PNode translate() {
+        return translation.get();
+    }
+
+    @Override
+    public Object execute(VirtualFrame frame) {
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        FunctionRootNode root = (FunctionRootNode) getRootNode();
+        root.translateBody();
+        return root.getBody().execute(frame);
+    }
+
+}
@@ -41,13 +41,14 @@ public abstract class GeneratorForNode extends LoopNode implements GeneratorCont
 
     @Child protected WriteGeneratorFrameVariableNode target;
     @Child protected GetIteratorNode getIterator;
+    @Child protected PNode body;
 
     private final int iteratorSlot;
     private int count;
 
     public GeneratorForNode(WriteGeneratorFrameVariableNode target, GetIteratorNode getIterator, PNode body, int iteratorSlot) {
-        super(body);
         this.target = target;
+        this.body = body;
         this.getIterator = getIterator;
         this.iteratorSlot = iteratorSlot;
     }
@@ -56,6 +57,11 @@ public abstract class GeneratorForNode extends LoopNode implements GeneratorCont
         return new UninitializedGeneratorForNode(target, getIterator, body, iteratorSlot);
     }
 
+    @Override
+    public PNode getBody() {
+        return body;
+    }
+
     public final int getIteratorSlot() {
         return iteratorSlot;
     }
@@ -75,9 +75,9 @@ public final class GeneratorWhileNode extends WhileNode implements GeneratorCont
     @Override
     public Object execute(VirtualFrame frame) {
         try {
-            while (isActive(frame) || condition.executeBoolean(frame)) {
+            while (isActive(frame) || getCondition().executeBoolean(frame)) {
                 setActive(frame, true);
-                body.executeVoid(frame);
+                getBody().executeVoid(frame);
                 setActive(frame, false);
                 incrementCounter();
             }
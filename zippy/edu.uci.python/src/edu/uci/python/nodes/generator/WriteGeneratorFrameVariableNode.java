@@ -87,6 +87,13 @@ public abstract class WriteGeneratorFrameVariableNode extends FrameSlotNode impl
         return value;
     }
 
+    @Specialization(guards = "isLongKind(frame)")
+    public long write(VirtualFrame frame, long value) {
+        MaterializedFrame mframe = PArguments.getGeneratorFrame(frame);
+        mframe.setLong(frameSlot, value);
+        return value;
+    }
+
     @Specialization(guards = "isIntOrObjectKind(frame)")
     public BigInteger write(VirtualFrame frame, BigInteger value) {
         MaterializedFrame mframe = PArguments.getGeneratorFrame(frame);
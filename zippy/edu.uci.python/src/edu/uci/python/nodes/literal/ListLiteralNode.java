@@ -100,44 +100,132 @@ public abstract class ListLiteralNode extends LiteralNode {
     }
 
     /**
-     * One shot profiling node. It uses the first list to profile its actually storage type, and use
-     * that type info to re-specialize itself to a properly typed literal node.
-     *
+     * Allocation site profiling for empty list literals, which includes the lists created by list
+     * comprehensions. It observes the lists allocated by the first few executions of this site and
+     * records the most general storage kind they ended up with and the shortest length they grew
+     * to. It then re-specializes itself to a {@link PresizedListLiteralNode}, so that later lists
+     * start out with that storage and capacity instead of generalizing and growing while items are
+     * appended. Taking the shortest length keeps one large early list from oversizing the rest.
      */
     public static final class ProfilingEmptyListLiteralNode extends ListLiteralNode {
 
-        private final PList profilingList;
+        private static final int PROFILED_ALLOCATIONS = 3;
+        private static final int MAX_PRESIZED_CAPACITY = 1024;
+
+        private PList profilingList;
+        private Class<? extends SequenceStorage> profiledKind;
+        private int profiledLength;
+        private int allocations;
 
         public ProfilingEmptyListLiteralNode(PList profilingList, PNode[] values) {
+            this(profilingList, values, null);
+        }
+
+        /**
+         * @param profiledKind a kind an earlier profile of this site settled on, the new profile
+         *            only generalizes it
+         */
+        public ProfilingEmptyListLiteralNode(PList profilingList, PNode[] values, Class<? extends SequenceStorage> profiledKind) {
             super(values);
             this.profilingList = profilingList;
+            this.profiledKind = profiledKind;
+            this.profiledLength = Integer.MAX_VALUE;
+            this.allocations = 1;
             assert values.length == 0;
         }
 
         @Override
         public Object execute(VirtualFrame frame) {
             transferToInterpreterAndInvalidate();
+            profile(profilingList.getStorage());
 
-            SequenceStorage store = profilingList.getStorage();
-            PList newList;
+            if (allocations < PROFILED_ALLOCATIONS) {
+                allocations++;
+                profilingList = new PList(SequenceStorageFactory.createStorage(new Object[0]));
+                return profilingList;
+            }
 
-            if (store instanceof EmptySequenceStorage) {
-                newList = (PList) replace(new ObjectListLiteralNode(values)).execute(frame);
-            } else if (store instanceof IntSequenceStorage) {
-                newList = (PList) replace(new IntListLiteralNode(values)).execute(frame);
-            } else if (store instanceof LongSequenceStorage) {
-                newList = (PList) replace(new LongListLiteralNode(values)).execute(frame);
-            } else if (store instanceof DoubleSequenceStorage) {
-                newList = (PList) replace(new DoubleListLiteralNode(values)).execute(frame);
-            } else if (store instanceof ListSequenceStorage) {
-                newList = (PList) replace(new ListListLiteralNode(values)).execute(frame);
-            } else if (store instanceof TupleSequenceStorage) {
-                newList = (PList) replace(new TupleListLiteralNode(values)).execute(frame);
+            final Class<? extends SequenceStorage> kind = profiledKind;
+            profilingList = null;
+
+            if (numericRank(kind) >= 0 || kind == ObjectSequenceStorage.class) {
+                return replace(new PresizedListLiteralNode(values, kind, Math.min(profiledLength, MAX_PRESIZED_CAPACITY))).execute(frame);
+            } else if (kind == ListSequenceStorage.class) {
+                return replace(new ListListLiteralNode(values)).execute(frame);
+            } else if (kind == TupleSequenceStorage.class) {
+                return replace(new TupleListLiteralNode(values)).execute(frame);
+            } else {
+                return replace(new ObjectListLiteralNode(values)).execute(frame);
+            }
+        }
+
+        private void profile(SequenceStorage store) {
+            profiledLength = Math.min(profiledLength, store.length());
+
+            if (!(store instanceof EmptySequenceStorage)) {
+                profiledKind = generalize(profiledKind, store.getClass());
+            }
+        }
+
+        static Class<? extends SequenceStorage> generalize(Class<? extends SequenceStorage> profiled, Class<? extends SequenceStorage> kind) {
+            if (profiled == null || profiled == kind) {
+                return kind;
+            } else if (numericRank(profiled) >= 0 && numericRank(kind) >= 0) {
+                return numericRank(profiled) > numericRank(kind) ? profiled : kind;
             } else {
-                newList = (PList) replace(new ObjectListLiteralNode(values)).execute(frame);
+                return ObjectSequenceStorage.class;
+            }
+        }
+
+        /**
+         * Position in the int -> long -> double widening order, or -1 for non numeric storages.
+         */
+        private static int numericRank(Class<? extends SequenceStorage> kind) {
+            if (kind == IntSequenceStorage.class) {
+                return 0;
+            } else if (kind == LongSequenceStorage.class) {
+                return 1;
+            } else if (kind == DoubleSequenceStorage.class) {
+                return 2;
+            }
+
+            return -1;
+        }
+    }
+
+    /**
+     * Allocates empty lists with the storage kind and capacity profiled at this site. It watches the
+     * last list it allocated; once that list had to generalize its storage, the site goes back to
+     * profiling, starting from the more general kind.
+     */
+    public static final class PresizedListLiteralNode extends ListLiteralNode {
+
+        private final Class<? extends SequenceStorage> kind;
+        private final int capacity;
+        private PList lastList;
+
+        public PresizedListLiteralNode(PNode[] values, Class<? extends SequenceStorage> kind, int capacity) {
+            super(values);
+            this.kind = kind;
+            this.capacity = capacity;
+            assert values.length == 0;
+        }
+
+        @Override
+        public Object execute(VirtualFrame frame) {
+            if (lastList != null) {
+                final SequenceStorage last = lastList.getStorage();
+
+                if (last.getClass() != kind && !(last instanceof EmptySequenceStorage)) {
+                    transferToInterpreterAndInvalidate();
+                    final PList list = new PList(SequenceStorageFactory.createStorage(new Object[0]));
+                    replace(new ProfilingEmptyListLiteralNode(list, values, ProfilingEmptyListLiteralNode.generalize(kind, last.getClass())));
+                    return list;
+                }
             }
 
-            return newList;
+            lastList = new PList(SequenceStorageFactory.createEmptyStorage(kind, capacity));
+            return lastList;
         }
     }
 
@@ -35,6 +35,8 @@ import edu.uci.python.nodes.ModuleNode;
 import edu.uci.python.nodes.PNode;
 import edu.uci.python.nodes.call.PythonCallNode;
 import edu.uci.python.nodes.control.ForNode;
+import edu.uci.python.nodes.control.ForNodeFactory;
+import edu.uci.python.nodes.control.GetIteratorNode;
 import edu.uci.python.nodes.control.ReturnTargetNode;
 import edu.uci.python.nodes.frame.ReadLevelVariableNode;
 import edu.uci.python.nodes.frame.ReadLocalVariableNode;
@@ -119,7 +121,7 @@ public class BuiltinIntrinsifier {
         genexpBody = NodeUtil.findFirstNodeInstance(genexpBody, ForNode.class);
 
         for (FrameSlot genexpSlot : genexpFrame.getSlots()) {
-            if (genexpSlot.getIdentifier().equals("<return_val>")) {
+            if (genexpSlot.getIdentifier().equals("<return_val>") || ForNode.isIteratorSlot(genexpSlot)) {
                 continue;
             }
 
@@ -132,6 +134,7 @@ public class BuiltinIntrinsifier {
         }
 
         redirectLevelRead(genexpBody);
+        genexpBody = redirectIteratorSlots(enclosingFrame, genexpBody);
 
         FrameSlot listCompSlot = enclosingFrame.addFrameSlot("<" + target.getName() + "_comp_val" + genexp.hashCode() + ">");
         YieldNode yield = NodeUtil.findFirstNodeInstance(genexpBody, YieldNode.class);
@@ -161,6 +164,25 @@ public class BuiltinIntrinsifier {
         }
     }
 
+    /**
+     * Loops of the generator expression get fresh iterator slots, so they never share one with a
+     * loop of the enclosing frame. Returns the new root, which is a loop itself.
+     */
+    private static PNode redirectIteratorSlots(FrameDescriptor enclosingFrame, PNode root) {
+        PNode newRoot = root;
+
+        for (ForNode loop : NodeUtil.findAllNodeInstances(root, ForNode.class)) {
+            FrameSlot iteratorSlot = ForNode.createIteratorSlot(enclosingFrame);
+            ForNode redirected = loop.replace(ForNodeFactory.create(loop.getBody(), loop.getTarget(), iteratorSlot, (GetIteratorNode) loop.getIterator()));
+
+            if (loop == root) {
+                newRoot = redirected;
+            }
+        }
+
+        return newRoot;
+    }
+
     private static void redirectLevelRead(PNode root) {
         for (ReadLevelVariableNode read : NodeUtil.findAllNodeInstances(root, ReadLevelVariableNode.class)) {
             read.replace(ReadLocalVariableNode.create(read.getSlot()));
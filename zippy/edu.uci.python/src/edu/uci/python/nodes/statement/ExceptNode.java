@@ -24,10 +24,13 @@
  */
 package edu.uci.python.nodes.statement;
 
+import java.util.*;
+
 import org.python.core.*;
 
-import com.oracle.truffle.api.CompilerAsserts;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.frame.*;
 import com.oracle.truffle.api.nodes.*;
 
@@ -35,6 +38,9 @@ import edu.uci.python.ast.VisitorIF;
 import edu.uci.python.nodes.*;
 import edu.uci.python.nodes.frame.*;
 import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.builtin.*;
+import edu.uci.python.runtime.exception.*;
+import edu.uci.python.runtime.standardtype.*;
 
 /**
  * @author Gulfem
@@ -46,7 +52,19 @@ public class ExceptNode extends StatementNode {
     @Children private final PNode[] exceptType;
     @Child protected PNode exceptName;
 
+    /**
+     * Inline caches for the built-in classes looked up by name and for the outcome of matching a
+     * handler class against a raised class. Both stay small, a handler rarely sees more than a
+     * couple of exception classes; misses beyond the limit take the slow path.
+     */
+    private static final int CACHE_LIMIT = 4;
+
     private final PythonContext context;
+    @CompilationFinal(dimensions = 1) private String[] cachedTypeNames = new String[0];
+    @CompilationFinal(dimensions = 1) private PythonClass[] cachedTypes = new PythonClass[0];
+    @CompilationFinal(dimensions = 1) private PythonClass[] cachedHandlerTypes = new PythonClass[0];
+    @CompilationFinal(dimensions = 1) private PythonClass[] cachedRaisedTypes = new PythonClass[0];
+    @CompilationFinal(dimensions = 1) private boolean[] cachedMatches = new boolean[0];
 
     public ExceptNode(PythonContext context, PNode body, PNode[] exceptType, PNode exceptName) {
         this.body = body;
@@ -56,34 +74,32 @@ public class ExceptNode extends StatementNode {
     }
 
     protected Object executeExcept(VirtualFrame frame, RuntimeException excep) {
-        CompilerDirectives.transferToInterpreterAndInvalidate();
-        CompilerAsserts.neverPartOfCompilation();
-        PyException e = null;
-        if (excep instanceof PyException) {
-            e = (PyException) excep;
-        } else if (excep instanceof ArithmeticException && excep.getMessage().endsWith("divide by zero")) {
-            e = Py.ZeroDivisionError("divide by zero");
+        RuntimeException e;
+        PythonClass excType;
+
+        if (excep instanceof PException) {
+            e = excep;
+            excType = ((PException) excep).getType();
+        } else if (excep instanceof PyException) {
+            e = excep;
+            excType = lookupJythonType((PyException) excep);
+        } else if (excep instanceof StopIterationException) {
+            excType = getBuiltinClass("StopIteration");
+            e = new PException(new PBaseException((PythonBuiltinClass) excType), this);
+        } else if (excep instanceof ArithmeticException && isDivideByZero((ArithmeticException) excep)) {
+            excType = getBuiltinClass("ZeroDivisionError");
+            e = new PException(new PBaseException((PythonBuiltinClass) excType, "divide by zero"), this);
         } else {
             throw excep;
         }
 
         context.setCurrentException(e);
 
-        /**
-         * TODO: need to support exceptType instance of type e.g. 'divide by zero' instance of
-         * 'Exception'
-         *
-         * TODO: need to make exception messages consistent with Python 3.3 e.g. 'division by zero'
-         */
         if (exceptType != null) {
-            PyObject type = null;
-            for (int i = 0; i < exceptType.length && type != e.type; i++) {
-                type = (PyObject) exceptType[i].execute(frame);
-            }
-
-            if (e.type == type) {
+            if (matches(frame, e, excType)) {
                 if (exceptName != null) {
-                    ((WriteNode) exceptName).executeWrite(frame, e);
+                    Object value = e instanceof PException ? ((PException) e).getExceptionObject() : e;
+                    ((WriteNode) exceptName).executeWrite(frame, value);
                 }
             } else {
                 throw excep;
@@ -97,6 +113,100 @@ public class ExceptNode extends StatementNode {
         throw new ControlFlowException();
     }
 
+    @ExplodeLoop
+    private boolean matches(VirtualFrame frame, RuntimeException e, PythonClass excType) {
+        for (int i = 0; i < exceptType.length; i++) {
+            Object type = exceptType[i].execute(frame);
+
+            if (type instanceof PythonClass) {
+                if (excType != null && isSubClass(excType, (PythonClass) type)) {
+                    return true;
+                }
+            } else if (e instanceof PyException && matchesJythonType((PyException) e, type)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @ExplodeLoop
+    private boolean isSubClass(PythonClass raised, PythonClass handler) {
+        for (int i = 0; i < cachedRaisedTypes.length; i++) {
+            if (cachedRaisedTypes[i] == raised && cachedHandlerTypes[i] == handler) {
+                return cachedMatches[i];
+            }
+        }
+
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        final boolean result = raised.isSubClassOf(handler);
+
+        if (cachedRaisedTypes.length < CACHE_LIMIT) {
+            final int length = cachedRaisedTypes.length;
+            cachedRaisedTypes = Arrays.copyOf(cachedRaisedTypes, length + 1);
+            cachedHandlerTypes = Arrays.copyOf(cachedHandlerTypes, length + 1);
+            cachedMatches = Arrays.copyOf(cachedMatches, length + 1);
+            cachedRaisedTypes[length] = raised;
+            cachedHandlerTypes[length] = handler;
+            cachedMatches[length] = result;
+        }
+
+        return result;
+    }
+
+    @ExplodeLoop
+    private PythonClass getBuiltinClass(String name) {
+        for (int i = 0; i < cachedTypeNames.length; i++) {
+            if (cachedTypeNames[i].equals(name)) {
+                return cachedTypes[i];
+            }
+        }
+
+        CompilerDirectives.transferToInterpreterAndInvalidate();
+        final PythonClass type = lookupBuiltinClass(context, name);
+
+        if (cachedTypeNames.length < CACHE_LIMIT) {
+            final int length = cachedTypeNames.length;
+            cachedTypeNames = Arrays.copyOf(cachedTypeNames, length + 1);
+            cachedTypes = Arrays.copyOf(cachedTypes, length + 1);
+            cachedTypeNames[length] = name;
+            cachedTypes[length] = type;
+        }
+
+        return type;
+    }
+
+    /**
+     * Exceptions raised by the runtime are still Jython PyExceptions. They are mapped onto the
+     * built-in exception class of the same name, so that e.g. <code>except LookupError</code> also
+     * catches an IndexError thrown from a list access.
+     */
+    private PythonClass lookupJythonType(PyException e) {
+        String name = getJythonTypeName(e);
+        return name == null ? null : getBuiltinClass(name);
+    }
+
+    @TruffleBoundary
+    private static PythonClass lookupBuiltinClass(PythonContext context, String name) {
+        Object type = context.getBuiltins().getAttribute(name);
+        return type instanceof PythonClass ? (PythonClass) type : null;
+    }
+
+    @TruffleBoundary
+    private static String getJythonTypeName(PyException e) {
+        return e.type instanceof PyType ? ((PyType) e.type).getName() : null;
+    }
+
+    @TruffleBoundary
+    private static boolean matchesJythonType(PyException e, Object type) {
+        return type instanceof PyObject && e.match((PyObject) type);
+    }
+
+    @TruffleBoundary
+    private static boolean isDivideByZero(ArithmeticException e) {
+        return e.getMessage() != null && e.getMessage().endsWith("divide by zero");
+    }
+
     @Override
     public Object execute(VirtualFrame frame) {
         // TODO Auto-generated method stub
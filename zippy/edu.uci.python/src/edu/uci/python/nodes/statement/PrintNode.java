@@ -24,8 +24,6 @@
  */
 package edu.uci.python.nodes.statement;
 
-import java.io.IOException;
-
 import com.oracle.truffle.api.frame.*;
 import com.oracle.truffle.api.nodes.*;
 
@@ -50,27 +48,20 @@ public class PrintNode extends StatementNode {
     @ExplodeLoop
     @Override
     public Object execute(VirtualFrame frame) {
-        StringBuilder sb = new StringBuilder();
+        PythonOutputWriter out = context.getStandardOutput();
 
         for (int i = 0; i < values.length; i++) {
-            PNode e = values[i];
-
-            if (i == values.length - 1) {
-                sb.append(executeToString(frame, e));
-            } else {
-                sb.append(executeToString(frame, e) + " ");
+            if (i > 0) {
+                out.write(" ");
             }
+
+            out.write(executeToString(frame, values[i]));
         }
 
         if (nl) {
-            sb.append(System.getProperty("line.separator"));
+            out.write(PythonOutputWriter.LINE_SEPARATOR);
         }
 
-        try {
-            context.getStandardOut().write(sb.toString().getBytes());
-        } catch (IOException e) {
-            // pass through
-        }
         return PNone.NONE;
     }
 
@@ -27,19 +27,26 @@ package edu.uci.python.nodes.statement;
 import org.python.core.*;
 
 import com.oracle.truffle.api.*;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.frame.*;
 
 import edu.uci.python.ast.VisitorIF;
 import edu.uci.python.nodes.*;
 import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.builtin.*;
 import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.exception.*;
+import edu.uci.python.runtime.function.*;
+import edu.uci.python.runtime.object.*;
+import edu.uci.python.runtime.standardtype.*;
 
 public class RaiseNode extends StatementNode {
 
     @Child protected PNode type;
     @Child protected PNode inst;
     private final PythonContext context;
+    @CompilationFinal private PythonClass baseException;
 
     public RaiseNode(PythonContext context, PNode type, PNode inst) {
         this.context = context;
@@ -49,14 +56,8 @@ public class RaiseNode extends StatementNode {
 
     @Override
     public Object execute(VirtualFrame frame) {
-        CompilerDirectives.transferToInterpreterAndInvalidate();
-
         Object t = (type == null) ? null : type.execute(frame);
         Object i = (inst == null) ? null : inst.execute(frame);
-        /**
-         * TODO: need to support trace back.
-         */
-        // Object b = (tback == null) ? null : tback.execute(frame);
 
         if (t == null) {
             if (context.getCurrentException() == null) {
@@ -65,10 +66,42 @@ public class RaiseNode extends StatementNode {
             throw context.getCurrentException();
         }
 
-        doRaise(t, i);
+        if (t instanceof PBaseException) {
+            throw new PException(t, this);
+        } else if (t instanceof PythonBuiltinClass && isExceptionClass((PythonClass) t)) {
+            throw new PException(new PBaseException((PythonBuiltinClass) t), this);
+        } else if (t instanceof PythonClass && isExceptionClass((PythonClass) t)) {
+            throw new PException(instantiate((PythonClass) t), this);
+        } else if (t instanceof PythonObject && isExceptionClass(((PythonObject) t).getPythonClass())) {
+            throw new PException(t, this);
+        } else if (t instanceof PyObject) {
+            doRaise(t, i);
+        } else {
+            throw typeError();
+        }
+
         return PNone.NONE;
     }
 
+    private boolean isExceptionClass(PythonClass clazz) {
+        if (baseException == null) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            baseException = (PythonClass) context.getBuiltins().getAttribute("BaseException");
+        }
+
+        return clazz.isSubClassOf(baseException);
+    }
+
+    @TruffleBoundary
+    private static Object instantiate(PythonClass clazz) {
+        return clazz.call(PArguments.createWithUserArguments());
+    }
+
+    @TruffleBoundary
+    private static PyException typeError() {
+        return Py.TypeError("exceptions must derive from BaseException");
+    }
+
     @TruffleBoundary
     private static void doRaise(Object t, Object i) {
         throw PyException.doRaise((PyObject) t, (PyObject) i, null);
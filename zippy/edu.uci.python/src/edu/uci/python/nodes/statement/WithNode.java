@@ -31,9 +31,12 @@ import com.oracle.truffle.api.frame.*;
 import edu.uci.python.ast.VisitorIF;
 import edu.uci.python.nodes.*;
 import edu.uci.python.nodes.frame.*;
+import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.exception.*;
 import edu.uci.python.runtime.function.*;
 import edu.uci.python.runtime.object.*;
 import edu.uci.python.runtime.sequence.*;
+import edu.uci.python.runtime.standardtype.*;
 
 /**
  * @author Qunaibit
@@ -92,8 +95,8 @@ public class WithNode extends StatementNode {
     @Override
     public Object execute(VirtualFrame frame) {
         RuntimeException exception = null;
-        PythonObject pythonObj = (PythonObject) this.withContext.execute(frame);
-        PythonCallable enterCall = (PythonCallable) pythonObj.getAttribute("__enter__");
+        Object pythonObj = this.withContext.execute(frame);
+        PythonCallable enterCall = (PythonCallable) getSpecialMethod(pythonObj, "__enter__");
         Object asNameValue = enterCall.call(PArguments.createWithUserArguments(pythonObj));
         applyValues(frame, asNameValue);
 
@@ -102,7 +105,7 @@ public class WithNode extends StatementNode {
         } catch (RuntimeException e) {
             exception = e;
         } finally {
-            PythonCallable exitCall = (PythonCallable) pythonObj.getAttribute("__exit__");
+            PythonCallable exitCall = (PythonCallable) getSpecialMethod(pythonObj, "__exit__");
 
             if (exception instanceof ArithmeticException && exception.getMessage().endsWith("divide by zero")) {
                 exception = Py.ZeroDivisionError("divide by zero");
@@ -110,7 +113,11 @@ public class WithNode extends StatementNode {
 
             Object returnValue = null;
 
-            if (exception instanceof PyException) {
+            if (exception instanceof PException) {
+                Object type = ((PException) exception).getType();
+                Object value = ((PException) exception).getExceptionObject();
+                returnValue = exitCall.call(PArguments.createWithUserArguments(pythonObj, type, value, PNone.NONE));
+            } else if (exception instanceof PyException) {
                 Object type = ((PyException) exception).type;
                 Object value = ((PyException) exception).value;
                 Object trace = ((PyException) exception).traceback;
@@ -139,6 +146,17 @@ public class WithNode extends StatementNode {
         return null;
     }
 
+    /**
+     * Built-in context managers such as files keep their methods in their built-in class.
+     */
+    private static Object getSpecialMethod(Object pythonObj, String name) {
+        if (pythonObj instanceof PythonBuiltinObject) {
+            return ((PythonBuiltinObject) pythonObj).__getattribute__(name);
+        }
+
+        return ((PythonObject) pythonObj).getAttribute(name);
+    }
+
     @Override
     public <R> R accept(VisitorIF<R> visitor) throws Exception {
         return visitor.visitWithNode(this);
@@ -27,6 +27,7 @@ package edu.uci.python.nodes.subscript;
 import org.python.core.*;
 
 import com.oracle.truffle.api.*;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 import com.oracle.truffle.api.dsl.*;
 import com.oracle.truffle.api.frame.*;
 import com.oracle.truffle.api.nodes.*;
@@ -34,8 +35,12 @@ import com.oracle.truffle.api.nodes.*;
 import edu.uci.python.ast.VisitorIF;
 import edu.uci.python.nodes.*;
 import edu.uci.python.nodes.truffle.*;
+import edu.uci.python.runtime.*;
 import edu.uci.python.runtime.array.*;
+import edu.uci.python.runtime.builtin.*;
 import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.datatype.storage.*;
+import edu.uci.python.runtime.exception.*;
 import edu.uci.python.runtime.object.*;
 import edu.uci.python.runtime.sequence.*;
 import edu.uci.python.runtime.sequence.storage.*;
@@ -48,6 +53,11 @@ public abstract class SubscriptLoadIndexNode extends SubscriptLoadNode {
         return SubscriptStoreIndexNodeFactory.create(getPrimary(), getSlice(), rhs);
     }
 
+    @Specialization
+    public Object doPString(PString primary, int idx) {
+        return primary.getItem(SequenceUtil.normalizeIndex(idx, primary.len()));
+    }
+
     @Specialization
     public String doString(String primary, int idx) {
         int index = idx;
@@ -60,8 +70,7 @@ public abstract class SubscriptLoadIndexNode extends SubscriptLoadNode {
     }
 
     private static String charAtToString(String primary, int index) {
-        char charactor = primary.charAt(index);
-        return new String(new char[]{charactor});
+        return PString.charToString(primary.charAt(index));
     }
 
     @Specialization(guards = {"isIntStorage(primary)", "isIndexPositive(primary,idx)"})
@@ -233,10 +242,41 @@ public abstract class SubscriptLoadIndexNode extends SubscriptLoadNode {
     /**
      * PDict lookup using key.
      */
+    @Specialization(guards = "isIntDictStorage(primary)")
+    public Object doPDictInt(PDict primary, int key) {
+        final IntDictStorage store = (IntDictStorage) primary.getStorage();
+        final Object result = store.getIntItem(key);
+
+        if (result == null) {
+            CompilerDirectives.transferToInterpreter();
+            throw raiseKeyError(key);
+        }
+
+        return result;
+    }
+
+    @Specialization(guards = "isStringDictStorage(primary)")
+    public Object doPDictString(PDict primary, String key) {
+        final StringDictStorage store = (StringDictStorage) primary.getStorage();
+        final Object result = store.getStringItem(key);
+
+        if (result == null) {
+            CompilerDirectives.transferToInterpreter();
+            throw raiseKeyError(key);
+        }
+
+        return result;
+    }
+
     @Specialization
     public Object doPDict(PDict primary, Object key) {
         final Object result = primary.getItem(key);
-        assert result != null;
+
+        if (result == null) {
+            CompilerDirectives.transferToInterpreter();
+            throw raiseKeyError(key);
+        }
+
         return result;
     }
 
@@ -333,6 +373,11 @@ public abstract class SubscriptLoadIndexNode extends SubscriptLoadNode {
         return primary.getItem(Math.toIntExact(idx));
     }
 
+    @Specialization
+    public int doPBytes(PBytes primary, int idx) {
+        return primary.getItemNormalized(SequenceUtil.normalizeIndex(idx, primary.len()));
+    }
+
     /**
      * zwei: PythonTypesUtil does not unbox PyList. Instead we perform inplace update on PyList.
      * This avoid unwated data strcture duplication and actually updates a PyList imported from
@@ -376,6 +421,12 @@ public abstract class SubscriptLoadIndexNode extends SubscriptLoadNode {
         return doSpecialMethodCall(frame, "__getitem__", primary, index);
     }
 
+    @TruffleBoundary
+    private PException raiseKeyError(Object key) {
+        final PythonBuiltinClass keyError = (PythonBuiltinClass) PythonContext.getCurrent().getBuiltins().getAttribute("KeyError");
+        return new PException(new PBaseException(keyError, key), this);
+    }
+
     @Override
     public <R> R accept(VisitorIF<R> visitor) throws Exception {
         return visitor.visitSubscriptLoadIndexNode(this);
@@ -44,6 +44,14 @@ public abstract class SubscriptLoadSliceNode extends SubscriptLoadNode {
         return SubscriptStoreSliceNodeFactory.create(getPrimary(), getSlice(), rhs);
     }
 
+    /**
+     * Contiguous slices of a {@link PString} share its storage.
+     */
+    @Specialization
+    public Object doPString(PString primary, PSlice slice) {
+        return primary.getSlice(slice);
+    }
+
 // @ExplodeLoop
     @Specialization
     public String doString(String primary, PSlice slice) {
@@ -95,6 +103,14 @@ public abstract class SubscriptLoadSliceNode extends SubscriptLoadNode {
         return range.getSlice(slice);
     }
 
+    /**
+     * Contiguous slices of bytes are views, see {@link PBytes}.
+     */
+    @Specialization
+    public Object doPBytes(PBytes primary, PSlice slice) {
+        return primary.getSlice(slice);
+    }
+
     /**
      * Unboxed array reads.
      */
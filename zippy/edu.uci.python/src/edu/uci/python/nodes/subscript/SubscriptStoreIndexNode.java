@@ -31,6 +31,7 @@ import edu.uci.python.ast.VisitorIF;
 import edu.uci.python.nodes.*;
 import edu.uci.python.runtime.array.*;
 import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.datatype.storage.*;
 import edu.uci.python.runtime.sequence.*;
 import edu.uci.python.runtime.sequence.storage.*;
 
@@ -94,6 +95,20 @@ public abstract class SubscriptStoreIndexNode extends SubscriptStoreNode {
     /**
      * PDict key & value store.
      */
+    @Specialization(guards = "isIntDictStorage(primary)")
+    public Object doPDictInt(PDict primary, int key, Object value) {
+        final IntDictStorage store = (IntDictStorage) primary.getStorage();
+        store.setIntItem(key, value);
+        return PNone.NONE;
+    }
+
+    @Specialization(guards = "isStringDictStorage(primary)")
+    public Object doPDictString(PDict primary, String key, Object value) {
+        final StringDictStorage store = (StringDictStorage) primary.getStorage();
+        store.setStringItem(key, value);
+        return PNone.NONE;
+    }
+
     @Specialization
     public Object doPDict(PDict primary, Object key, Object value) {
         primary.setItem(key, value);
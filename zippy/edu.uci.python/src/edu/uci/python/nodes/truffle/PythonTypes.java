@@ -49,6 +49,7 @@ import edu.uci.python.runtime.standardtype.*;
                 PComplex.class, //
                 char.class, //
                 String.class, //
+                PStringRope.class, //
                 PyObject.class, //
                 PString.class, //
                 PythonBuiltinClass.class, //
@@ -98,6 +99,11 @@ public class PythonTypes {
         return value ? 1 : 0;
     }
 
+    @ImplicitCast
+    public static long intToLong(int value) {
+        return value;
+    }
+
     @ImplicitCast
     public static BigInteger intToBigInteger(int value) {
         return BigInteger.valueOf(value);
@@ -123,4 +129,12 @@ public class PythonTypes {
         return value.getValue();
     }
 
+    /**
+     * Flattens lazily concatenated strings wherever a {@link String} is expected.
+     */
+    @ImplicitCast
+    public static String flattenPStringRope(PStringRope value) {
+        return value.toString();
+    }
+
 }
@@ -58,6 +58,7 @@ import edu.uci.python.runtime.function.PFunction;
 import edu.uci.python.runtime.object.PythonObject;
 import edu.uci.python.runtime.sequence.PList;
 import edu.uci.python.runtime.sequence.PSet;
+import edu.uci.python.runtime.sequence.PStringRope;
 import edu.uci.python.runtime.sequence.PTuple;
 
 public class PythonTypesUtil {
@@ -80,6 +81,10 @@ public class PythonTypesUtil {
             return (PyObject) value;
         }
 
+        if (value instanceof PStringRope) {
+            return adaptToPyObject(value.toString());
+        }
+
         if (value instanceof Boolean) {
             return Py.newBoolean((boolean) value);
         } else if (value instanceof Integer) {
@@ -116,10 +121,10 @@ public class PythonTypesUtil {
             return new PyList(pyObjs);
         } else if (value instanceof PSet) {
             PSet set = (PSet) value;
-            return new PySet(adaptToPyObjects(set.getSet().toArray()));
+            return new PySet(adaptToPyObjects(set.toArray()));
         } else if (value instanceof PFrozenSet) {
             PFrozenSet set = (PFrozenSet) value;
-            return new PySet(adaptToPyObjects(set.getSet().toArray()));
+            return new PySet(adaptToPyObjects(set.toArray()));
         } else if (value instanceof PDict) {
             PDict dict = (PDict) value;
             ConcurrentHashMap<PyObject, PyObject> map = new ConcurrentHashMap<>();
@@ -212,13 +217,13 @@ public class PythonTypesUtil {
     public static String getPythonTypeName(Object object) {
         CompilerAsserts.neverPartOfCompilation();
 
-        if (object instanceof Integer || object instanceof BigInteger) {
+        if (object instanceof Integer || object instanceof Long || object instanceof BigInteger) {
             return "int";
         } else if (object instanceof Double) {
             return "float";
         } else if (object instanceof PComplex) {
             return "complex";
-        } else if (object instanceof String) {
+        } else if (object instanceof String || object instanceof PStringRope) {
             return "str";
         } else if (object instanceof PList) {
             return "list";
@@ -0,0 +1,820 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.parser;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+import java.util.List;
+
+import org.antlr.runtime.*;
+import org.python.antlr.*;
+import org.python.antlr.ast.*;
+import org.python.antlr.base.*;
+import org.python.core.*;
+
+/**
+ * Compact binary encoding of a parsed module AST, used by {@link ModuleCache}. Nodes are written in
+ * prefix order as a tag byte, their source position and their fields. Decoding rebuilds the tree
+ * with the same constructors {@link NativePythonParser} uses.
+ * <p>
+ * Nodes only Jython's parser produces (Print, Exec, Repr...) are not encoded; modules containing
+ * them are simply not cached.
+ */
+public final class AstCodec {
+
+    public static final class UnsupportedNodeException extends RuntimeException {
+
+        private static final long serialVersionUID = 2375470829913641307L;
+
+        public UnsupportedNodeException(PythonTree node) {
+            super("cannot encode " + node.getClass().getSimpleName());
+        }
+
+    }
+
+    private static final int NULL = 0;
+    private static final int MODULE = 1;
+    private static final int EXPRESSION = 2;
+    private static final int FUNCTION_DEF = 3;
+    private static final int CLASS_DEF = 4;
+    private static final int RETURN = 5;
+    private static final int DELETE = 6;
+    private static final int ASSIGN = 7;
+    private static final int AUG_ASSIGN = 8;
+    private static final int FOR = 9;
+    private static final int WHILE = 10;
+    private static final int IF = 11;
+    private static final int WITH = 12;
+    private static final int RAISE = 13;
+    private static final int TRY_EXCEPT = 14;
+    private static final int TRY_FINALLY = 15;
+    private static final int ASSERT = 16;
+    private static final int IMPORT = 17;
+    private static final int IMPORT_FROM = 18;
+    private static final int GLOBAL = 19;
+    private static final int EXPR = 20;
+    private static final int PASS = 21;
+    private static final int BREAK = 22;
+    private static final int CONTINUE = 23;
+    private static final int BOOL_OP = 24;
+    private static final int BIN_OP = 25;
+    private static final int UNARY_OP = 26;
+    private static final int LAMBDA = 27;
+    private static final int IF_EXP = 28;
+    private static final int DICT = 29;
+    private static final int SET = 30;
+    private static final int LIST_COMP = 31;
+    private static final int SET_COMP = 32;
+    private static final int DICT_COMP = 33;
+    private static final int GENERATOR_EXP = 34;
+    private static final int YIELD = 35;
+    private static final int COMPARE = 36;
+    private static final int CALL = 37;
+    private static final int NUM = 38;
+    private static final int STR = 39;
+    private static final int ATTRIBUTE = 40;
+    private static final int SUBSCRIPT = 41;
+    private static final int NAME = 42;
+    private static final int LIST = 43;
+    private static final int TUPLE = 44;
+    private static final int SLICE = 45;
+    private static final int EXT_SLICE = 46;
+    private static final int INDEX = 47;
+    private static final int EXCEPT_HANDLER = 48;
+    private static final int ARGUMENTS = 49;
+    private static final int KEYWORD = 50;
+    private static final int ALIAS = 51;
+    private static final int COMPREHENSION = 52;
+
+    private static final int INT_VALUE = 0;
+    private static final int LONG_VALUE = 1;
+    private static final int FLOAT_VALUE = 2;
+    private static final int COMPLEX_VALUE = 3;
+
+    private AstCodec() {
+    }
+
+    public static byte[] encode(mod tree) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        write(out, tree);
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public static mod decode(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        return (mod) read(in);
+    }
+
+    // Encoding
+
+    private static void write(DataOutputStream out, PythonTree node) throws IOException {
+        if (node == null) {
+            out.writeByte(NULL);
+            return;
+        }
+
+        int tag = tagOf(node);
+        out.writeByte(tag);
+        out.writeInt(node.getCharStartIndex());
+        out.writeInt(node.getCharStopIndex());
+        out.writeInt(node.getLine());
+        out.writeInt(node.getCharPositionInLine());
+
+        switch (tag) {
+            case MODULE:
+                writeList(out, ((Module) node).getInternalBody());
+                break;
+            case EXPRESSION:
+                write(out, ((Expression) node).getInternalBody());
+                break;
+            case FUNCTION_DEF: {
+                FunctionDef n = (FunctionDef) node;
+                if (n.getInternalNameNode() == null) {
+                    throw new UnsupportedNodeException(node);
+                }
+                write(out, n.getInternalNameNode());
+                write(out, n.getInternalArgs());
+                writeList(out, n.getInternalBody());
+                writeList(out, n.getInternalDecorator_list());
+                break;
+            }
+            case CLASS_DEF: {
+                ClassDef n = (ClassDef) node;
+                if (n.getInternalNameNode() == null) {
+                    throw new UnsupportedNodeException(node);
+                }
+                write(out, n.getInternalNameNode());
+                writeList(out, n.getInternalBases());
+                writeList(out, n.getInternalBody());
+                writeList(out, n.getInternalDecorator_list());
+                break;
+            }
+            case RETURN:
+                write(out, ((Return) node).getInternalValue());
+                break;
+            case DELETE:
+                writeList(out, ((Delete) node).getInternalTargets());
+                break;
+            case ASSIGN:
+                writeList(out, ((Assign) node).getInternalTargets());
+                write(out, ((Assign) node).getInternalValue());
+                break;
+            case AUG_ASSIGN:
+                write(out, ((AugAssign) node).getInternalTarget());
+                out.writeByte(((AugAssign) node).getInternalOp().ordinal());
+                write(out, ((AugAssign) node).getInternalValue());
+                break;
+            case FOR: {
+                For n = (For) node;
+                write(out, n.getInternalTarget());
+                write(out, n.getInternalIter());
+                writeList(out, n.getInternalBody());
+                writeList(out, n.getInternalOrelse());
+                break;
+            }
+            case WHILE:
+                write(out, ((While) node).getInternalTest());
+                writeList(out, ((While) node).getInternalBody());
+                writeList(out, ((While) node).getInternalOrelse());
+                break;
+            case IF:
+                write(out, ((If) node).getInternalTest());
+                writeList(out, ((If) node).getInternalBody());
+                writeList(out, ((If) node).getInternalOrelse());
+                break;
+            case WITH:
+                write(out, ((With) node).getInternalContext_expr());
+                write(out, ((With) node).getInternalOptional_vars());
+                writeList(out, ((With) node).getInternalBody());
+                break;
+            case RAISE:
+                write(out, ((Raise) node).getInternalType());
+                write(out, ((Raise) node).getInternalInst());
+                write(out, ((Raise) node).getInternalTback());
+                break;
+            case TRY_EXCEPT:
+                writeList(out, ((TryExcept) node).getInternalBody());
+                writeList(out, ((TryExcept) node).getInternalHandlers());
+                writeList(out, ((TryExcept) node).getInternalOrelse());
+                break;
+            case TRY_FINALLY:
+                writeList(out, ((TryFinally) node).getInternalBody());
+                writeList(out, ((TryFinally) node).getInternalFinalbody());
+                break;
+            case ASSERT:
+                write(out, ((Assert) node).getInternalTest());
+                write(out, ((Assert) node).getInternalMsg());
+                break;
+            case IMPORT:
+                writeList(out, ((Import) node).getInternalNames());
+                break;
+            case IMPORT_FROM:
+                writeString(out, ((ImportFrom) node).getInternalModule());
+                writeList(out, ((ImportFrom) node).getInternalNames());
+                out.writeInt(((ImportFrom) node).getInternalLevel());
+                break;
+            case GLOBAL:
+                writeStrings(out, ((Global) node).getInternalNames());
+                break;
+            case EXPR:
+                write(out, ((Expr) node).getInternalValue());
+                break;
+            case PASS:
+            case BREAK:
+            case CONTINUE:
+                break;
+            case BOOL_OP:
+                out.writeByte(((BoolOp) node).getInternalOp().ordinal());
+                writeList(out, ((BoolOp) node).getInternalValues());
+                break;
+            case BIN_OP:
+                write(out, ((BinOp) node).getInternalLeft());
+                out.writeByte(((BinOp) node).getInternalOp().ordinal());
+                write(out, ((BinOp) node).getInternalRight());
+                break;
+            case UNARY_OP:
+                out.writeByte(((UnaryOp) node).getInternalOp().ordinal());
+                write(out, ((UnaryOp) node).getInternalOperand());
+                break;
+            case LAMBDA:
+                write(out, ((Lambda) node).getInternalArgs());
+                write(out, ((Lambda) node).getInternalBody());
+                break;
+            case IF_EXP:
+                write(out, ((IfExp) node).getInternalTest());
+                write(out, ((IfExp) node).getInternalBody());
+                write(out, ((IfExp) node).getInternalOrelse());
+                break;
+            case DICT:
+                writeList(out, ((Dict) node).getInternalKeys());
+                writeList(out, ((Dict) node).getInternalValues());
+                break;
+            case SET:
+                writeList(out, ((org.python.antlr.ast.Set) node).getInternalElts());
+                break;
+            case LIST_COMP:
+                write(out, ((ListComp) node).getInternalElt());
+                writeList(out, ((ListComp) node).getInternalGenerators());
+                break;
+            case SET_COMP:
+                write(out, ((SetComp) node).getInternalElt());
+                writeList(out, ((SetComp) node).getInternalGenerators());
+                break;
+            case DICT_COMP:
+                write(out, ((DictComp) node).getInternalKey());
+                write(out, ((DictComp) node).getInternalValue());
+                writeList(out, ((DictComp) node).getInternalGenerators());
+                break;
+            case GENERATOR_EXP:
+                write(out, ((GeneratorExp) node).getInternalElt());
+                writeList(out, ((GeneratorExp) node).getInternalGenerators());
+                break;
+            case YIELD:
+                write(out, ((Yield) node).getInternalValue());
+                break;
+            case COMPARE: {
+                Compare n = (Compare) node;
+                write(out, n.getInternalLeft());
+                out.writeInt(n.getInternalOps().size());
+                for (cmpopType op : n.getInternalOps()) {
+                    out.writeByte(op.ordinal());
+                }
+                writeList(out, n.getInternalComparators());
+                break;
+            }
+            case CALL: {
+                Call n = (Call) node;
+                write(out, n.getInternalFunc());
+                writeList(out, n.getInternalArgs());
+                writeList(out, n.getInternalKeywords());
+                write(out, n.getInternalStarargs());
+                write(out, n.getInternalKwargs());
+                break;
+            }
+            case NUM:
+                writeNumber(out, node);
+                break;
+            case STR: {
+                Object s = ((Str) node).getInternalS();
+                out.writeBoolean(s instanceof PyUnicode);
+                writeString(out, ((PyString) s).getString());
+                break;
+            }
+            case ATTRIBUTE: {
+                Attribute n = (Attribute) node;
+                if (n.getInternalAttrName() == null) {
+                    throw new UnsupportedNodeException(node);
+                }
+                write(out, n.getInternalValue());
+                write(out, n.getInternalAttrName());
+                out.writeByte(n.getInternalCtx().ordinal());
+                break;
+            }
+            case SUBSCRIPT:
+                write(out, ((Subscript) node).getInternalValue());
+                write(out, ((Subscript) node).getInternalSlice());
+                out.writeByte(((Subscript) node).getInternalCtx().ordinal());
+                break;
+            case NAME:
+                writeString(out, ((Name) node).getInternalId());
+                out.writeByte(((Name) node).getInternalCtx().ordinal());
+                break;
+            case LIST:
+                writeList(out, ((org.python.antlr.ast.List) node).getInternalElts());
+                out.writeByte(((org.python.antlr.ast.List) node).getInternalCtx().ordinal());
+                break;
+            case TUPLE:
+                writeList(out, ((Tuple) node).getInternalElts());
+                out.writeByte(((Tuple) node).getInternalCtx().ordinal());
+                break;
+            case SLICE:
+                write(out, ((Slice) node).getInternalLower());
+                write(out, ((Slice) node).getInternalUpper());
+                write(out, ((Slice) node).getInternalStep());
+                break;
+            case EXT_SLICE:
+                writeList(out, ((ExtSlice) node).getInternalDims());
+                break;
+            case INDEX:
+                write(out, ((Index) node).getInternalValue());
+                break;
+            case EXCEPT_HANDLER:
+                write(out, ((ExceptHandler) node).getInternalType());
+                write(out, ((ExceptHandler) node).getInternalName());
+                writeList(out, ((ExceptHandler) node).getInternalBody());
+                break;
+            case ARGUMENTS: {
+                arguments n = (arguments) node;
+                writeList(out, n.getInternalArgs());
+                writeString(out, n.getInternalVararg());
+                writeString(out, n.getInternalKwarg());
+                writeList(out, n.getInternalDefaults());
+                break;
+            }
+            case KEYWORD:
+                writeString(out, ((keyword) node).getInternalArg());
+                write(out, ((keyword) node).getInternalValue());
+                break;
+            case ALIAS:
+                writeString(out, ((alias) node).getInternalName());
+                writeString(out, ((alias) node).getInternalAsname());
+                break;
+            case COMPREHENSION:
+                write(out, ((comprehension) node).getInternalTarget());
+                write(out, ((comprehension) node).getInternalIter());
+                writeList(out, ((comprehension) node).getInternalIfs());
+                break;
+            default:
+                throw new UnsupportedNodeException(node);
+        }
+    }
+
+    private static int tagOf(PythonTree node) {
+        switch (node.getClass().getSimpleName()) {
+            case "Module":
+                return MODULE;
+            case "Expression":
+                return EXPRESSION;
+            case "FunctionDef":
+                return FUNCTION_DEF;
+            case "ClassDef":
+                return CLASS_DEF;
+            case "Return":
+                return RETURN;
+            case "Delete":
+                return DELETE;
+            case "Assign":
+                return ASSIGN;
+            case "AugAssign":
+                return AUG_ASSIGN;
+            case "For":
+                return FOR;
+            case "While":
+                return WHILE;
+            case "If":
+                return IF;
+            case "With":
+                return WITH;
+            case "Raise":
+                return RAISE;
+            case "TryExcept":
+                return TRY_EXCEPT;
+            case "TryFinally":
+                return TRY_FINALLY;
+            case "Assert":
+                return ASSERT;
+            case "Import":
+                return IMPORT;
+            case "ImportFrom":
+                return IMPORT_FROM;
+            case "Global":
+                return GLOBAL;
+            case "Expr":
+                return EXPR;
+            case "Pass":
+                return PASS;
+            case "Break":
+                return BREAK;
+            case "Continue":
+                return CONTINUE;
+            case "BoolOp":
+                return BOOL_OP;
+            case "BinOp":
+                return BIN_OP;
+            case "UnaryOp":
+                return UNARY_OP;
+            case "Lambda":
+                return LAMBDA;
+            case "IfExp":
+                return IF_EXP;
+            case "Dict":
+                return DICT;
+            case "Set":
+                return SET;
+            case "ListComp":
+                return LIST_COMP;
+            case "SetComp":
+                return SET_COMP;
+            case "DictComp":
+                return DICT_COMP;
+            case "GeneratorExp":
+                return GENERATOR_EXP;
+            case "Yield":
+                return YIELD;
+            case "Compare":
+                return COMPARE;
+            case "Call":
+                return CALL;
+            case "Num":
+                return NUM;
+            case "Str":
+                return STR;
+            case "Attribute":
+                return ATTRIBUTE;
+            case "Subscript":
+                return SUBSCRIPT;
+            case "Name":
+                return NAME;
+            case "List":
+                return LIST;
+            case "Tuple":
+                return TUPLE;
+            case "Slice":
+                return SLICE;
+            case "ExtSlice":
+                return EXT_SLICE;
+            case "Index":
+                return INDEX;
+            case "ExceptHandler":
+                return EXCEPT_HANDLER;
+            case "arguments":
+                return ARGUMENTS;
+            case "keyword":
+                return KEYWORD;
+            case "alias":
+                return ALIAS;
+            case "comprehension":
+                return COMPREHENSION;
+            default:
+                throw new UnsupportedNodeException(node);
+        }
+    }
+
+    private static void writeList(DataOutputStream out, List<? extends PythonTree> nodes) throws IOException {
+        if (nodes == null) {
+            out.writeInt(0);
+            return;
+        }
+
+        out.writeInt(nodes.size());
+        for (PythonTree node : nodes) {
+            write(out, node);
+        }
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        out.writeInt(strings.size());
+        for (String s : strings) {
+            writeString(out, s);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+
+        // UTF-16 code units, so that lone surrogates survive the round trip
+        out.writeInt(s.length());
+        out.writeChars(s);
+    }
+
+    private static void writeNumber(DataOutputStream out, PythonTree node) throws IOException {
+        Object n = ((Num) node).getInternalN();
+
+        if (n instanceof PyInteger) {
+            out.writeByte(INT_VALUE);
+            out.writeInt(((PyInteger) n).getValue());
+        } else if (n instanceof PyLong) {
+            out.writeByte(LONG_VALUE);
+            byte[] bytes = ((PyLong) n).getValue().toByteArray();
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        } else if (n instanceof PyFloat) {
+            out.writeByte(FLOAT_VALUE);
+            out.writeDouble(((PyFloat) n).getValue());
+        } else if (n instanceof PyComplex) {
+            out.writeByte(COMPLEX_VALUE);
+            out.writeDouble(((PyComplex) n).real);
+            out.writeDouble(((PyComplex) n).imag);
+        } else {
+            throw new UnsupportedNodeException(node);
+        }
+    }
+
+    // Decoding
+
+    private static PythonTree read(DataInputStream in) throws IOException {
+        int tag = in.readUnsignedByte();
+        if (tag == NULL) {
+            return null;
+        }
+
+        int start = in.readInt();
+        int stop = in.readInt();
+        int line = in.readInt();
+        int column = in.readInt();
+        CommonToken t = new CommonToken(Token.INVALID_TOKEN_TYPE, null);
+        t.setLine(line);
+        t.setCharPositionInLine(column);
+        t.setStartIndex(start);
+        t.setStopIndex(stop - 1);
+
+        PythonTree node;
+        switch (tag) {
+            case MODULE:
+                node = new Module(t, readList(in, stmt.class));
+                break;
+            case EXPRESSION:
+                node = new Expression(t, (expr) read(in));
+                break;
+            case FUNCTION_DEF:
+                node = new FunctionDef(t, (Name) read(in), (arguments) read(in), readList(in, stmt.class), readList(in, expr.class));
+                break;
+            case CLASS_DEF:
+                node = new ClassDef(t, (Name) read(in), readList(in, expr.class), readList(in, stmt.class), readList(in, expr.class));
+                break;
+            case RETURN:
+                node = new Return(t, (expr) read(in));
+                break;
+            case DELETE:
+                node = new Delete(t, readList(in, expr.class));
+                break;
+            case ASSIGN:
+                node = new Assign(t, readList(in, expr.class), (expr) read(in));
+                break;
+            case AUG_ASSIGN:
+                node = new AugAssign(t, (expr) read(in), operatorType.values()[in.readUnsignedByte()], (expr) read(in));
+                break;
+            case FOR:
+                node = new For(t, (expr) read(in), (expr) read(in), readList(in, stmt.class), readList(in, stmt.class));
+                break;
+            case WHILE:
+                node = new While(t, (expr) read(in), readList(in, stmt.class), readList(in, stmt.class));
+                break;
+            case IF:
+                node = new If(t, (expr) read(in), readList(in, stmt.class), readList(in, stmt.class));
+                break;
+            case WITH:
+                node = new With(t, (expr) read(in), (expr) read(in), readList(in, stmt.class));
+                break;
+            case RAISE:
+                node = new Raise(t, (expr) read(in), (expr) read(in), (expr) read(in));
+                break;
+            case TRY_EXCEPT:
+                node = new TryExcept(t, readList(in, stmt.class), readList(in, excepthandler.class), readList(in, stmt.class));
+                break;
+            case TRY_FINALLY:
+                node = new TryFinally(t, readList(in, stmt.class), readList(in, stmt.class));
+                break;
+            case ASSERT:
+                node = new Assert(t, (expr) read(in), (expr) read(in));
+                break;
+            case IMPORT:
+                node = new Import(t, readList(in, alias.class));
+                break;
+            case IMPORT_FROM:
+                node = new ImportFrom(t, readString(in), readList(in, alias.class), in.readInt());
+                break;
+            case GLOBAL:
+                node = new Global(t, readStrings(in));
+                break;
+            case EXPR:
+                node = new Expr(t, (expr) read(in));
+                break;
+            case PASS:
+                node = new Pass(t);
+                break;
+            case BREAK:
+                node = new Break(t);
+                break;
+            case CONTINUE:
+                node = new Continue(t);
+                break;
+            case BOOL_OP:
+                node = new BoolOp(t, boolopType.values()[in.readUnsignedByte()], readList(in, expr.class));
+                break;
+            case BIN_OP:
+                node = new BinOp(t, (expr) read(in), operatorType.values()[in.readUnsignedByte()], (expr) read(in));
+                break;
+            case UNARY_OP:
+                node = new UnaryOp(t, unaryopType.values()[in.readUnsignedByte()], (expr) read(in));
+                break;
+            case LAMBDA:
+                node = new Lambda(t, (arguments) read(in), (expr) read(in));
+                break;
+            case IF_EXP:
+                node = new IfExp(t, (expr) read(in), (expr) read(in), (expr) read(in));
+                break;
+            case DICT:
+                node = new Dict(t, readList(in, expr.class), readList(in, expr.class));
+                break;
+            case SET:
+                node = new org.python.antlr.ast.Set(t, readList(in, expr.class));
+                break;
+            case LIST_COMP:
+                node = new ListComp(t, (expr) read(in), readList(in, comprehension.class));
+                break;
+            case SET_COMP:
+                node = new SetComp(t, (expr) read(in), readList(in, comprehension.class));
+                break;
+            case DICT_COMP:
+                node = new DictComp(t, (expr) read(in), (expr) read(in), readList(in, comprehension.class));
+                break;
+            case GENERATOR_EXP:
+                node = new GeneratorExp(t, (expr) read(in), readList(in, comprehension.class));
+                break;
+            case YIELD:
+                node = new Yield(t, (expr) read(in));
+                break;
+            case COMPARE: {
+                expr left = (expr) read(in);
+                int size = in.readInt();
+                List<cmpopType> ops = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    ops.add(cmpopType.values()[in.readUnsignedByte()]);
+                }
+                node = new Compare(t, left, ops, readList(in, expr.class));
+                break;
+            }
+            case CALL:
+                node = new Call(t, (expr) read(in), readList(in, expr.class), readList(in, keyword.class), (expr) read(in), (expr) read(in));
+                break;
+            case NUM:
+                node = new Num(t, readNumber(in));
+                break;
+            case STR: {
+                boolean unicode = in.readBoolean();
+                String s = readString(in);
+                node = new Str(t, unicode ? new PyUnicode(s) : new PyString(s));
+                break;
+            }
+            case ATTRIBUTE:
+                node = new Attribute(t, (expr) read(in), (Name) read(in), expr_contextType.values()[in.readUnsignedByte()]);
+                break;
+            case SUBSCRIPT:
+                node = new Subscript(t, (expr) read(in), (slice) read(in), expr_contextType.values()[in.readUnsignedByte()]);
+                break;
+            case NAME: {
+                String id = readString(in);
+                t.setText(id);
+                node = new Name(t, id, expr_contextType.values()[in.readUnsignedByte()]);
+                break;
+            }
+            case LIST:
+                node = new org.python.antlr.ast.List(t, readList(in, expr.class), expr_contextType.values()[in.readUnsignedByte()]);
+                break;
+            case TUPLE:
+                node = new Tuple(t, readList(in, expr.class), expr_contextType.values()[in.readUnsignedByte()]);
+                break;
+            case SLICE:
+                node = new Slice(t, (expr) read(in), (expr) read(in), (expr) read(in));
+                break;
+            case EXT_SLICE:
+                node = new ExtSlice(t, readList(in, slice.class));
+                break;
+            case INDEX:
+                node = new Index(t, (expr) read(in));
+                break;
+            case EXCEPT_HANDLER:
+                node = new ExceptHandler(t, (expr) read(in), (expr) read(in), readList(in, stmt.class));
+                break;
+            case ARGUMENTS: {
+                List<expr> args = readList(in, expr.class);
+                String vararg = readString(in);
+                String kwarg = readString(in);
+                node = new arguments(t, args, vararg, kwarg, readList(in, expr.class));
+                break;
+            }
+            case KEYWORD:
+                node = new keyword(t, readString(in), (expr) read(in));
+                break;
+            case ALIAS: {
+                String name = readString(in);
+                String asname = readString(in);
+                node = new alias(t, name, asname);
+                break;
+            }
+            case COMPREHENSION:
+                node = new comprehension(t, (expr) read(in), (expr) read(in), readList(in, expr.class));
+                break;
+            default:
+                throw new IOException("corrupt AST cache entry, unknown tag " + tag);
+        }
+
+        node.setCharStartIndex(start);
+        node.setCharStopIndex(stop);
+        return node;
+    }
+
+    private static <T extends PythonTree> List<T> readList(DataInputStream in, Class<T> type) throws IOException {
+        int size = in.readInt();
+        List<T> nodes = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            nodes.add(type.cast(read(in)));
+        }
+
+        return nodes;
+    }
+
+    private static List<String> readStrings(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        List<String> strings = new ArrayList<>(size);
+
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(in));
+        }
+
+        return strings;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = in.readChar();
+        }
+
+        return new String(chars);
+    }
+
+    private static Object readNumber(DataInputStream in) throws IOException {
+        switch (in.readUnsignedByte()) {
+            case INT_VALUE:
+                return new PyInteger(in.readInt());
+            case LONG_VALUE: {
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                return new PyLong(new BigInteger(bytes));
+            }
+            case FLOAT_VALUE:
+                return new PyFloat(in.readDouble());
+            case COMPLEX_VALUE:
+                return new PyComplex(in.readDouble(), in.readDouble());
+            default:
+                throw new IOException("corrupt AST cache entry, unknown number kind");
+        }
+    }
+
+}
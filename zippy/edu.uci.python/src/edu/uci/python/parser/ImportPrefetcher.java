@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.parser;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+import org.python.antlr.ast.*;
+import org.python.antlr.base.*;
+
+import com.oracle.truffle.api.source.*;
+
+import edu.uci.python.PythonLanguage;
+import edu.uci.python.runtime.*;
+
+/**
+ * Parses the modules a freshly parsed module imports on a pool of worker threads, so that their
+ * ASTs are ready by the time execution reaches the import statements.
+ * <p>
+ * Only top level imports are considered, including those nested in top level try statements.
+ * The importing thread filters out builtin and Jython modules and resolves the paths through
+ * {@link ImportManager}, which only consults the cached {@link ModuleLocationIndex}; workers parse
+ * the source files with {@link NativePythonParser} (or load them from {@link ModuleCache}). A
+ * module that is taken therefore only waits for its own parse. Each file is prefetched at most
+ * once, and results nobody takes, e.g. of modules that were already imported, are evicted beyond
+ * {@link #PENDING_ENTRIES}. Modules the native parser rejects are left to the regular synchronous
+ * path. When a prefetched module is taken, its own imports are scheduled in turn.
+ */
+public final class ImportPrefetcher {
+
+    private static final class Prefetched {
+
+        private final String code;
+        private final mod tree;
+
+        private Prefetched(String code, mod tree) {
+            this.code = code;
+            this.tree = tree;
+        }
+
+    }
+
+    private static final int PENDING_ENTRIES = 256;
+
+    private static ExecutorService workers;
+    private static final AtomicInteger taken = new AtomicInteger();
+
+    private final boolean moduleCacheInMemory;
+
+    @SuppressWarnings("serial") private final Map<String, Future<Prefetched>> pending = new LinkedHashMap<String, Future<Prefetched>>() {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Future<Prefetched>> eldest) {
+            return size() > PENDING_ENTRIES;
+        }
+
+    };
+
+    // guarded by pending
+    private final Set<String> prefetched = new HashSet<>();
+
+    public ImportPrefetcher(boolean moduleCacheInMemory) {
+        this.moduleCacheInMemory = moduleCacheInMemory;
+    }
+
+    public static boolean isEnabled() {
+        return PythonOptions.PrefetchImports && PythonOptions.NativeParser && Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    private static synchronized ExecutorService getWorkers() {
+        if (workers == null) {
+            int count = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            workers = Executors.newFixedThreadPool(count, new ThreadFactory() {
+
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "zippy-import-prefetcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+
+            });
+        }
+
+        return workers;
+    }
+
+    /**
+     * Number of modules whose prefetched AST was used, for tests.
+     */
+    public static int getTakenCount() {
+        return taken.get();
+    }
+
+    /**
+     * Returns the prefetched AST of the given module source, or null if it was not prefetched or
+     * could not be parsed in the background. Waits only if the module is still being parsed.
+     */
+    public mod take(Source source) {
+        if (source.getPath() == null) {
+            return null;
+        }
+
+        Future<Prefetched> future;
+        try {
+            synchronized (pending) {
+                future = pending.remove(source.getPath());
+            }
+
+            if (future == null) {
+                return null;
+            }
+
+            Prefetched prefetchedModule = future.get();
+            if (prefetchedModule == null || !prefetchedModule.code.equals(source.getCode())) {
+                return null;
+            }
+
+            taken.incrementAndGet();
+            return prefetchedModule.tree;
+        } catch (InterruptedException | ExecutionException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Schedules the top level imports of a parsed module. Must be called before
+     * {@link ScopeTranslator} rewrites the tree.
+     */
+    public void prefetchImports(PythonContext context, Source source, mod tree) {
+        if (source.getPath() == null || !(tree instanceof Module)) {
+            return;
+        }
+
+        ImportManager importManager = context.getImportManager();
+        List<String> searchPaths = null;
+
+        for (String moduleName : collectImports(((Module) tree).getInternalBody(), new ArrayList<String>())) {
+            if (!importManager.mayImportFromSource(moduleName)) {
+                continue;
+            }
+
+            if (searchPaths == null) {
+                searchPaths = importManager.getSearchPaths();
+            }
+
+            String path = importManager.findModuleSource(source.getPath(), moduleName, searchPaths);
+            FutureTask<Prefetched> parse = null;
+
+            synchronized (pending) {
+                if (path != null && prefetched.add(path)) {
+                    parse = new FutureTask<>(new ParseTask(path, moduleCacheInMemory));
+                    pending.put(path, parse);
+                }
+            }
+
+            if (parse != null) {
+                getWorkers().execute(parse);
+            }
+        }
+    }
+
+    private static List<String> collectImports(List<stmt> statements, List<String> moduleNames) {
+        for (stmt statement : statements) {
+            if (statement instanceof Import) {
+                for (alias name : ((Import) statement).getInternalNames()) {
+                    moduleNames.add(name.getInternalName());
+                }
+            } else if (statement instanceof ImportFrom) {
+                String moduleName = ((ImportFrom) statement).getInternalModule();
+
+                if (moduleName != null && !moduleName.isEmpty()) {
+                    moduleNames.add(moduleName);
+                }
+            } else if (statement instanceof TryExcept) {
+                collectImports(((TryExcept) statement).getInternalBody(), moduleNames);
+            } else if (statement instanceof TryFinally) {
+                collectImports(((TryFinally) statement).getInternalBody(), moduleNames);
+            }
+        }
+
+        return moduleNames;
+    }
+
+    private static final class ParseTask implements Callable<Prefetched> {
+
+        private final String path;
+        private final boolean inMemory;
+
+        private ParseTask(String path, boolean inMemory) {
+            this.path = path;
+            this.inMemory = inMemory;
+        }
+
+        public Prefetched call() throws IOException {
+            Source source = Source.newBuilder(new File(path)).mimeType(PythonLanguage.MIME_TYPE).build();
+            mod tree = ModuleCache.isCacheable(source, inMemory) ? ModuleCache.load(source, inMemory) : null;
+
+            if (tree == null) {
+                try {
+                    tree = new NativePythonParser(source.getCode(), source.getName()).parseModule();
+                } catch (PythonTokenizer.SyntaxError e) {
+                    return null;
+                }
+
+                if (ModuleCache.isCacheable(source, inMemory)) {
+                    ModuleCache.store(source, tree, inMemory);
+                }
+            }
+
+            if (PythonOptions.TraceImports) {
+                // CheckStyle: stop system..print check
+                System.out.println("[ZipPy] prefetched module " + path);
+                // CheckStyle: resume system..print check
+            }
+
+            return new Prefetched(source.getCode(), tree);
+        }
+
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.parser;
+
+/**
+ * Decides whether the body of a function can be translated on its first call rather than with its
+ * module. Translating a body may mark the function as a generator or as needing its declaration
+ * frame, both of which {@link PythonTreeTranslator} has to know when it creates the definition
+ * node. Bodies that could do either are translated eagerly.
+ * <p>
+ * Works from the names and yields {@link ScopeTranslator} recorded in the function's scope, so the
+ * body is not walked again.
+ */
+public final class LazyTranslationFilter {
+
+    private LazyTranslationFilter() {
+    }
+
+    /**
+     * Must be called inside the function's own scope.
+     */
+    public static boolean canTranslateLazily(TranslationEnvironment environment) {
+        ScopeInfo scope = environment.getCurrentScope();
+
+        if (scope.containsYield()) {
+            return false;
+        }
+
+        for (String name : scope.getReferencedNames()) {
+            if (environment.isDefinedInEnclosingScopes(name)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+}
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.parser;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+
+import org.python.antlr.base.*;
+
+import com.oracle.truffle.api.source.*;
+
+import edu.uci.python.runtime.*;
+
+/**
+ * Persistent on-disk cache of parsed modules. Truffle trees hold runtime state and cannot be
+ * serialized, so the cache stores the parsed AST encoded by {@link AstCodec}; scope analysis and
+ * tree translation still run on every load, but tokenizing and parsing are skipped.
+ * <p>
+ * The cache is opt-in ({@link PythonOptions#CacheParsedModules}). Entries are keyed by the source
+ * path, a SHA-1 of its content, the cache format version and a stamp of the ZipPy build (size and
+ * modification time of the jar or class files holding the parser). An edited file or a rebuilt
+ * parser therefore misses the old entries; a build that reproduces those attributes exactly is not
+ * detected, clear the cache directory in that case. The directory is trimmed to
+ * {@link #DISK_ENTRIES} entries, the least recently written ones first, whenever this process has
+ * added {@link #EVICTION_SLACK} entries beyond that; the count is kept in memory, so only the
+ * trimming lists the directory.
+ * <p>
+ * Callers can also keep recently used entries in memory, either on top of the disk cache or on
+ * their own. A long-running process such as the {@link edu.uci.python.shell.ZipPyDaemon} uses this
+ * through its parsers, see {@link PythonParserImpl#PythonParserImpl(boolean)}.
+ */
+public final class ModuleCache {
+
+    private static final int MAGIC = 0x5a505943; // ZPYC
+    private static final int FORMAT_VERSION = 2;
+    private static final String SUFFIX = ".zpc";
+    private static final int MEMORY_ENTRIES = 512;
+    private static final int DISK_ENTRIES = 4096;
+    private static final int EVICTION_SLACK = DISK_ENTRIES / 8;
+
+    private static String buildStamp;
+
+    /**
+     * Number of entries in {@link #countedDir}, counted once and then updated by this process.
+     */
+    private static Path countedDir;
+    private static int diskEntries;
+
+    @SuppressWarnings("serial") private static final Map<Path, byte[]> memory = Collections.synchronizedMap(new LinkedHashMap<Path, byte[]>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, byte[]> eldest) {
+            return size() > MEMORY_ENTRIES;
+        }
+
+    });
+
+    private ModuleCache() {
+    }
+
+    public static boolean isCacheable(Source source, boolean inMemory) {
+        return (PythonOptions.CacheParsedModules || inMemory) && source.getPath() != null;
+    }
+
+    /**
+     * Returns the cached AST of the given source, or null on a miss or an unreadable entry.
+     */
+    public static mod load(Source source, boolean inMemory) {
+        Path entry = entryFor(source);
+        if (entry == null) {
+            return null;
+        }
+
+        byte[] data = inMemory ? memory.get(entry) : null;
+
+        try {
+            if (data == null) {
+                data = PythonOptions.CacheParsedModules ? readEntry(entry) : null;
+                if (data == null) {
+                    return null;
+                }
+
+                if (inMemory) {
+                    memory.put(entry, data);
+                }
+            }
+
+            mod tree = AstCodec.decode(data);
+            trace("hit", source);
+            return tree;
+        } catch (IOException | RuntimeException e) {
+            trace("unreadable entry for", source);
+            return null;
+        }
+    }
+
+    private static byte[] readEntry(Path entry) throws IOException {
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+            return data;
+        }
+    }
+
+    /**
+     * Stores a freshly parsed AST. Must be called before {@link ScopeTranslator} mutates the tree.
+     * Failures are ignored, the cache is only an optimization.
+     */
+    public static void store(Source source, mod tree, boolean inMemory) {
+        Path entry = entryFor(source);
+        if (entry == null) {
+            return;
+        }
+
+        try {
+            byte[] data = AstCodec.encode(tree);
+            if (inMemory) {
+                memory.put(entry, data);
+            }
+
+            if (!PythonOptions.CacheParsedModules) {
+                return;
+            }
+
+            Files.createDirectories(entry.getParent());
+            Path temp = Files.createTempFile(entry.getParent(), "module", ".tmp");
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(data.length);
+                out.write(data);
+            }
+
+            boolean added = !Files.exists(entry);
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            trace("stored", source);
+            countStored(entry.getParent(), added);
+        } catch (AstCodec.UnsupportedNodeException e) {
+            trace("cannot cache (" + e.getMessage() + ")", source);
+        } catch (IOException e) {
+            trace("cannot write entry for", source);
+        }
+    }
+
+    private static Path entryFor(Source source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(new File(source.getPath()).getAbsolutePath().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source.getCode().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(Integer.toString(FORMAT_VERSION).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(getBuildStamp().getBytes(StandardCharsets.UTF_8));
+
+            StringBuilder name = new StringBuilder();
+            for (byte b : digest.digest()) {
+                name.append(String.format("%02x", b & 0xff));
+            }
+
+            return Paths.get(PythonOptions.ModuleCacheDir, name.append(SUFFIX).toString());
+        } catch (NoSuchAlgorithmException | InvalidPathException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Identifies the ZipPy build by the size and modification time of the jar the parser was loaded
+     * from, or of the parser class files when running from a class directory.
+     */
+    private static synchronized String getBuildStamp() {
+        if (buildStamp == null) {
+            StringBuilder stamp = new StringBuilder();
+
+            try {
+                Path location = Paths.get(ModuleCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+                if (Files.isDirectory(location)) {
+                    for (Class<?> clazz : new Class<?>[]{NativePythonParser.class, PythonTokenizer.class, AstCodec.class}) {
+                        appendFileStamp(stamp, location.resolve(clazz.getName().replace('.', File.separatorChar) + ".class"));
+                    }
+                } else {
+                    appendFileStamp(stamp, location);
+                }
+            } catch (Exception e) {
+                // unknown origin, only the format version distinguishes builds
+                stamp.setLength(0);
+            }
+
+            buildStamp = stamp.toString();
+        }
+
+        return buildStamp;
+    }
+
+    private static void appendFileStamp(StringBuilder stamp, Path file) throws IOException {
+        stamp.append(Files.size(file)).append(':').append(Files.getLastModifiedTime(file).toMillis()).append(';');
+    }
+
+    private static synchronized void countStored(Path dir, boolean added) {
+        if (!dir.equals(countedDir)) {
+            countedDir = dir;
+            diskEntries = evict(dir);
+        } else if (added) {
+            diskEntries++;
+        }
+
+        if (diskEntries > DISK_ENTRIES + EVICTION_SLACK) {
+            diskEntries = evict(dir);
+        }
+    }
+
+    /**
+     * Bounds the cache directory by deleting the oldest entries once it holds more than
+     * {@link #DISK_ENTRIES}.
+     *
+     * @return the number of entries left
+     */
+    private static int evict(Path dir) {
+        final List<Path> entries = new ArrayList<>();
+        final Map<Path, Long> modified = new HashMap<>();
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+            for (Path entry : stream) {
+                entries.add(entry);
+            }
+
+            if (entries.size() <= DISK_ENTRIES) {
+                return entries.size();
+            }
+
+            for (Path entry : entries) {
+                modified.put(entry, Files.getLastModifiedTime(entry).toMillis());
+            }
+        } catch (IOException e) {
+            return entries.size();
+        }
+
+        Collections.sort(entries, new Comparator<Path>() {
+
+            public int compare(Path a, Path b) {
+                return Long.compare(modified.get(a), modified.get(b));
+            }
+
+        });
+
+        for (Path entry : entries.subList(0, entries.size() - DISK_ENTRIES)) {
+            try {
+                Files.deleteIfExists(entry);
+                memory.remove(entry);
+            } catch (IOException e) {
+                // another process may hold or have removed it
+            }
+        }
+
+        return DISK_ENTRIES;
+    }
+
+    private static void trace(String event, Source source) {
+        if (PythonOptions.TraceModuleCache) {
+            // CheckStyle: stop system..print check
+            System.out.println("[ZipPy] module cache " + event + " " + source.getPath());
+            // CheckStyle: resume system..print check
+        }
+    }
+
+}
@@ -0,0 +1,1465 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.parser;
+
+import java.math.*;
+import java.util.*;
+import java.util.List;
+import java.util.Set;
+
+import org.antlr.runtime.*;
+import org.python.antlr.*;
+import org.python.antlr.ast.*;
+import org.python.antlr.base.*;
+import org.python.core.*;
+
+import edu.uci.python.parser.PythonTokenizer.Kind;
+import edu.uci.python.parser.PythonTokenizer.SyntaxError;
+
+/**
+ * Recursive descent parser for Python 3 that builds the same AST as Jython's ANTLR front end
+ * (including character offsets, source lines and the future flags ZipPy always enables), so the
+ * result feeds {@link ScopeTranslator} and {@link PythonTreeTranslator} unchanged.
+ * <p>
+ * Constructs the Jython AST cannot represent (keyword-only parameters, annotations, starred
+ * targets, <code>nonlocal</code>, <code>yield from</code>...) raise a {@link SyntaxError}, in which
+ * case {@link PythonParserImpl} falls back to Jython's parser.
+ */
+public final class NativePythonParser {
+
+    private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList("and", "as", "assert", "break", "class", "continue", "def", "del", "elif", "else", "except", "finally", "for",
+                    "from", "global", "if", "import", "in", "is", "lambda", "nonlocal", "not", "or", "pass", "raise", "return", "try", "while", "with", "yield"));
+
+    private final String source;
+    private final String filename;
+    private final List<PythonTokenizer.Token> tokens;
+    private int index;
+    private PythonTokenizer.Token last;
+
+    public NativePythonParser(String source) {
+        this(source, "<string>");
+    }
+
+    /**
+     * @param filename reported by syntax errors
+     */
+    public NativePythonParser(String source, String filename) {
+        this.source = source;
+        this.filename = filename;
+        this.tokens = new PythonTokenizer(source).tokenize();
+    }
+
+    /**
+     * file_input: (NEWLINE | stmt)* ENDMARKER
+     */
+    public mod parseModule() {
+        index = 0;
+        PythonTokenizer.Token first = peek();
+        List<stmt> body = new ArrayList<>();
+
+        while (peek().getKind() != Kind.ENDMARKER) {
+            if (!accept(Kind.NEWLINE)) {
+                body.addAll(parseStatement());
+            }
+        }
+
+        Module module = new Module(antlrToken(first), body);
+        module.setCharStartIndex(0);
+        module.setCharStopIndex(source.length());
+        return module;
+    }
+
+    /**
+     * Parses <code>source</code> as an expression if possible, otherwise as a module.
+     */
+    public mod parseExpressionOrModule() {
+        try {
+            index = 0;
+            PythonTokenizer.Token first = peek();
+            expr body = parseTestList();
+
+            while (accept(Kind.NEWLINE)) {
+                // trailing newlines
+            }
+
+            if (peek().getKind() == Kind.ENDMARKER) {
+                return at(new Expression(antlrToken(first), body), first);
+            }
+        } catch (SyntaxError e) {
+            // not an expression
+        }
+
+        return parseModule();
+    }
+
+    // Statements
+
+    private List<stmt> parseStatement() {
+        PythonTokenizer.Token t = peek();
+
+        if (t.getKind() == Kind.NAME) {
+            switch (t.getText()) {
+                case "if":
+                    return single(parseIf());
+                case "while":
+                    return single(parseWhile());
+                case "for":
+                    return single(parseFor());
+                case "try":
+                    return single(parseTry());
+                case "with":
+                    return single(parseWith());
+                case "def":
+                    return single(parseFunctionDef(new ArrayList<expr>()));
+                case "class":
+                    return single(parseClassDef(new ArrayList<expr>()));
+                default:
+                    break;
+            }
+        } else if (t.is(Kind.OP, "@")) {
+            return single(parseDecorated());
+        }
+
+        return parseSimpleStatement();
+    }
+
+    private static List<stmt> single(stmt s) {
+        List<stmt> result = new ArrayList<>(1);
+        result.add(s);
+        return result;
+    }
+
+    /**
+     * simple_stmt: small_stmt (';' small_stmt)* [';'] NEWLINE
+     */
+    private List<stmt> parseSimpleStatement() {
+        List<stmt> result = new ArrayList<>();
+        result.add(parseSmallStatement());
+
+        while (acceptOp(";")) {
+            if (peek().getKind() == Kind.NEWLINE || peek().getKind() == Kind.ENDMARKER) {
+                break;
+            }
+            result.add(parseSmallStatement());
+        }
+
+        if (!accept(Kind.NEWLINE) && peek().getKind() != Kind.ENDMARKER) {
+            throw error("invalid syntax");
+        }
+
+        return result;
+    }
+
+    private stmt parseSmallStatement() {
+        PythonTokenizer.Token t = peek();
+
+        if (t.getKind() == Kind.NAME) {
+            switch (t.getText()) {
+                case "pass":
+                    next();
+                    return at(new Pass(antlrToken(t)), t);
+                case "break":
+                    next();
+                    return at(new Break(antlrToken(t)), t);
+                case "continue":
+                    next();
+                    return at(new Continue(antlrToken(t)), t);
+                case "return":
+                    next();
+                    expr value = startsTest() ? parseTestList() : null;
+                    return at(new Return(antlrToken(t), value), t);
+                case "raise":
+                    return parseRaise();
+                case "global":
+                    return parseGlobal();
+                case "del":
+                    return parseDelete();
+                case "assert":
+                    return parseAssert();
+                case "import":
+                    return parseImport();
+                case "from":
+                    return parseImportFrom();
+                case "nonlocal":
+                    throw error("nonlocal is not supported");
+                default:
+                    break;
+            }
+        }
+
+        return parseExpressionStatement();
+    }
+
+    /**
+     * expr_stmt: testlist (augassign (yield_expr|testlist) | ('=' (yield_expr|testlist))*)
+     */
+    private stmt parseExpressionStatement() {
+        PythonTokenizer.Token t = peek();
+        expr first = isKeyword("yield") ? parseYield() : parseTestList();
+
+        operatorType augmented = augmentedOperator(peek());
+        if (augmented != null) {
+            next();
+            expr value = isKeyword("yield") ? parseYield() : parseTestList();
+            expr target = toContext(first, expr_contextType.Store);
+            if (!(target instanceof Name || target instanceof Attribute || target instanceof Subscript)) {
+                throw error("illegal expression for augmented assignment");
+            }
+            return at(new AugAssign(antlrToken(t), target, augmented, value), t);
+        }
+
+        if (isOp("=")) {
+            List<expr> targets = new ArrayList<>();
+            expr value = first;
+
+            while (acceptOp("=")) {
+                targets.add(toContext(value, expr_contextType.Store));
+                value = isKeyword("yield") ? parseYield() : parseTestList();
+            }
+
+            return at(new Assign(antlrToken(t), targets, value), t);
+        }
+
+        return at(new Expr(antlrToken(t), first), t);
+    }
+
+    private static operatorType augmentedOperator(PythonTokenizer.Token t) {
+        if (t.getKind() != Kind.OP || !t.getText().endsWith("=") || t.getText().length() < 2) {
+            return null;
+        }
+
+        switch (t.getText()) {
+            case "+=":
+                return operatorType.Add;
+            case "-=":
+                return operatorType.Sub;
+            case "*=":
+                return operatorType.Mult;
+            case "/=":
+                return operatorType.Div;
+            case "%=":
+                return operatorType.Mod;
+            case "**=":
+                return operatorType.Pow;
+            case "//=":
+                return operatorType.FloorDiv;
+            case "<<=":
+                return operatorType.LShift;
+            case ">>=":
+                return operatorType.RShift;
+            case "&=":
+                return operatorType.BitAnd;
+            case "|=":
+                return operatorType.BitOr;
+            case "^=":
+                return operatorType.BitXor;
+            default:
+                return null;
+        }
+    }
+
+    private stmt parseRaise() {
+        PythonTokenizer.Token t = next();
+        expr type = null;
+
+        if (startsTest()) {
+            type = parseTest();
+            if (isKeyword("from")) {
+                throw error("raise ... from is not supported");
+            }
+        }
+
+        return at(new Raise(antlrToken(t), type, null, null), t);
+    }
+
+    private stmt parseGlobal() {
+        PythonTokenizer.Token t = next();
+        List<String> names = new ArrayList<>();
+
+        do {
+            names.add(expectName().getText());
+        } while (acceptOp(","));
+
+        return at(new Global(antlrToken(t), names), t);
+    }
+
+    private stmt parseDelete() {
+        PythonTokenizer.Token t = next();
+        List<expr> targets = new ArrayList<>();
+
+        do {
+            targets.add(toContext(parseExpr(), expr_contextType.Del));
+        } while (acceptOp(",") && startsTest());
+
+        return at(new Delete(antlrToken(t), targets), t);
+    }
+
+    private stmt parseAssert() {
+        PythonTokenizer.Token t = next();
+        expr test = parseTest();
+        expr msg = acceptOp(",") ? parseTest() : null;
+        return at(new Assert(antlrToken(t), test, msg), t);
+    }
+
+    /**
+     * import_name: 'import' dotted_as_name (',' dotted_as_name)*
+     */
+    private stmt parseImport() {
+        PythonTokenizer.Token t = next();
+        List<alias> names = new ArrayList<>();
+
+        do {
+            PythonTokenizer.Token start = peek();
+            String name = parseDottedName();
+            String asname = acceptKeyword("as") ? expectName().getText() : null;
+            names.add(at(new alias(antlrToken(start), name, asname), start));
+        } while (acceptOp(","));
+
+        return at(new Import(antlrToken(t), names), t);
+    }
+
+    /**
+     * import_from: 'from' ('.'* dotted_name | '.'+) 'import' ('*' | '(' import_as_names ')' |
+     * import_as_names)
+     */
+    private stmt parseImportFrom() {
+        PythonTokenizer.Token t = next();
+        int level = 0;
+
+        while (isOp(".") || isOp("...")) {
+            level += next().getText().length();
+        }
+
+        String module = isKeyword("import") ? "" : parseDottedName();
+        expectKeyword("import");
+
+        List<alias> names = new ArrayList<>();
+        if (isOp("*")) {
+            PythonTokenizer.Token star = next();
+            String asname = null;
+            names.add(at(new alias(antlrToken(star), "*", asname), star));
+        } else {
+            boolean parenthesized = acceptOp("(");
+
+            do {
+                if (parenthesized && isOp(")")) {
+                    break;
+                }
+                PythonTokenizer.Token start = expectName();
+                String asname = acceptKeyword("as") ? expectName().getText() : null;
+                names.add(at(new alias(antlrToken(start), start.getText(), asname), start));
+            } while (acceptOp(","));
+
+            if (parenthesized) {
+                expectOp(")");
+            }
+        }
+
+        return at(new ImportFrom(antlrToken(t), module, names, level), t);
+    }
+
+    private String parseDottedName() {
+        StringBuilder sb = new StringBuilder(expectName().getText());
+
+        while (acceptOp(".")) {
+            sb.append('.').append(expectName().getText());
+        }
+
+        return sb.toString();
+    }
+
+    /**
+     * if_stmt: 'if' test ':' suite ('elif' test ':' suite)* ['else' ':' suite]
+     */
+    private stmt parseIf() {
+        PythonTokenizer.Token t = next();
+        expr test = parseTest();
+        expectOp(":");
+        List<stmt> body = parseSuite();
+        List<stmt> orelse = new ArrayList<>();
+
+        if (isKeyword("elif")) {
+            orelse.add(parseIf());
+        } else if (acceptKeyword("else")) {
+            expectOp(":");
+            orelse = parseSuite();
+        }
+
+        return at(new If(antlrToken(t), test, body, orelse), t);
+    }
+
+    private stmt parseWhile() {
+        PythonTokenizer.Token t = next();
+        expr test = parseTest();
+        expectOp(":");
+        List<stmt> body = parseSuite();
+        List<stmt> orelse = parseElse();
+        return at(new While(antlrToken(t), test, body, orelse), t);
+    }
+
+    private stmt parseFor() {
+        PythonTokenizer.Token t = next();
+        expr target = toContext(parseExprList(), expr_contextType.Store);
+        expectKeyword("in");
+        expr iter = parseTestList();
+        expectOp(":");
+        List<stmt> body = parseSuite();
+        List<stmt> orelse = parseElse();
+        return at(new For(antlrToken(t), target, iter, body, orelse), t);
+    }
+
+    private List<stmt> parseElse() {
+        if (acceptKeyword("else")) {
+            expectOp(":");
+            return parseSuite();
+        }
+
+        return new ArrayList<>();
+    }
+
+    /**
+     * try_stmt: 'try' ':' suite ((except_clause ':' suite)+ ['else' ':' suite] ['finally' ':'
+     * suite] | 'finally' ':' suite)
+     */
+    private stmt parseTry() {
+        PythonTokenizer.Token t = next();
+        expectOp(":");
+        List<stmt> body = parseSuite();
+        List<excepthandler> handlers = new ArrayList<>();
+
+        while (isKeyword("except")) {
+            PythonTokenizer.Token e = next();
+            expr type = null;
+            expr name = null;
+
+            if (!isOp(":")) {
+                type = parseTest();
+                if (acceptKeyword("as")) {
+                    PythonTokenizer.Token n = expectName();
+                    name = at(new Name(antlrToken(n), n.getText(), expr_contextType.Store), n);
+                }
+            }
+
+            expectOp(":");
+            List<stmt> handlerBody = parseSuite();
+            handlers.add(at(new ExceptHandler(antlrToken(e), type, name, handlerBody), e));
+        }
+
+        List<stmt> orelse = handlers.isEmpty() ? new ArrayList<stmt>() : parseElse();
+        List<stmt> finalbody = null;
+
+        if (acceptKeyword("finally")) {
+            expectOp(":");
+            finalbody = parseSuite();
+        }
+
+        if (handlers.isEmpty() && finalbody == null) {
+            throw error("expected 'except' or 'finally' block");
+        }
+
+        if (handlers.isEmpty()) {
+            return at(new TryFinally(antlrToken(t), body, finalbody), t);
+        }
+
+        stmt tryExcept = at(new TryExcept(antlrToken(t), body, handlers, orelse), t);
+        return finalbody == null ? tryExcept : at(new TryFinally(antlrToken(t), single(tryExcept), finalbody), t);
+    }
+
+    /**
+     * with_stmt: 'with' with_item (',' with_item)* ':' suite. Several items are nested the way
+     * Jython does it.
+     */
+    private stmt parseWith() {
+        PythonTokenizer.Token t = next();
+        return parseWithItems(t);
+    }
+
+    private stmt parseWithItems(PythonTokenizer.Token t) {
+        expr context = parseTest();
+        expr vars = acceptKeyword("as") ? toContext(parseExpr(), expr_contextType.Store) : null;
+        List<stmt> body;
+
+        if (acceptOp(",")) {
+            body = single(parseWithItems(t));
+        } else {
+            expectOp(":");
+            body = parseSuite();
+        }
+
+        return at(new With(antlrToken(t), context, vars, body), t);
+    }
+
+    private stmt parseDecorated() {
+        List<expr> decorators = new ArrayList<>();
+
+        while (acceptOp("@")) {
+            decorators.add(parseTest());
+            expect(Kind.NEWLINE);
+        }
+
+        if (isKeyword("def")) {
+            return parseFunctionDef(decorators);
+        } else if (isKeyword("class")) {
+            return parseClassDef(decorators);
+        }
+
+        throw error("expected function or class definition after decorator");
+    }
+
+    /**
+     * funcdef: 'def' NAME parameters ':' suite
+     */
+    private stmt parseFunctionDef(List<expr> decorators) {
+        PythonTokenizer.Token t = next();
+        PythonTokenizer.Token n = expectName();
+        Name name = at(new Name(antlrToken(n), n.getText(), expr_contextType.Load), n);
+        expectOp("(");
+        arguments args = parseArguments(")");
+        expectOp(")");
+
+        if (isOp("->")) {
+            throw error("annotations are not supported");
+        }
+
+        expectOp(":");
+        List<stmt> body = parseSuite();
+        return at(new FunctionDef(antlrToken(t), name, args, body, decorators), t);
+    }
+
+    /**
+     * classdef: 'class' NAME ['(' [arglist] ')'] ':' suite
+     */
+    private stmt parseClassDef(List<expr> decorators) {
+        PythonTokenizer.Token t = next();
+        PythonTokenizer.Token n = expectName();
+        Name name = at(new Name(antlrToken(n), n.getText(), expr_contextType.Load), n);
+        List<expr> bases = new ArrayList<>();
+
+        if (acceptOp("(")) {
+            while (!isOp(")")) {
+                bases.add(parseTest());
+                if (isOp("=")) {
+                    throw error("class keyword arguments are not supported");
+                }
+                if (!acceptOp(",")) {
+                    break;
+                }
+            }
+            expectOp(")");
+        }
+
+        expectOp(":");
+        List<stmt> body = parseSuite();
+        return at(new ClassDef(antlrToken(t), name, bases, body, decorators), t);
+    }
+
+    /**
+     * Parameter list of a def (terminated by ')') or a lambda (terminated by ':').
+     */
+    private arguments parseArguments(String terminator) {
+        PythonTokenizer.Token t = peek();
+        List<expr> args = new ArrayList<>();
+        List<expr> defaults = new ArrayList<>();
+        String vararg = null;
+        String kwarg = null;
+
+        while (!isOp(terminator)) {
+            if (acceptOp("**")) {
+                kwarg = expectName().getText();
+            } else if (acceptOp("*")) {
+                if (!startsName() || vararg != null) {
+                    throw error("keyword-only arguments are not supported");
+                }
+                vararg = expectName().getText();
+            } else {
+                if (vararg != null || kwarg != null) {
+                    throw error("keyword-only arguments are not supported");
+                }
+
+                PythonTokenizer.Token n = expectName();
+                args.add(at(new Name(antlrToken(n), n.getText(), expr_contextType.Param), n));
+
+                if (isOp(":") && terminator.equals(")")) {
+                    throw error("annotations are not supported");
+                }
+
+                if (acceptOp("=")) {
+                    defaults.add(parseTest());
+                } else if (!defaults.isEmpty()) {
+                    throw error("non-default argument follows default argument");
+                }
+            }
+
+            if (!acceptOp(",")) {
+                break;
+            }
+        }
+
+        arguments result = new arguments(antlrToken(t), args, vararg, kwarg, defaults);
+        result.setCharStartIndex(t.getStart());
+        result.setCharStopIndex(last == null || last.getStop() < t.getStart() ? t.getStart() : last.getStop());
+        return result;
+    }
+
+    /**
+     * suite: simple_stmt | NEWLINE INDENT stmt+ DEDENT
+     */
+    private List<stmt> parseSuite() {
+        if (!accept(Kind.NEWLINE)) {
+            return parseSimpleStatement();
+        }
+
+        expect(Kind.INDENT);
+        List<stmt> body = new ArrayList<>();
+
+        while (!accept(Kind.DEDENT)) {
+            if (peek().getKind() == Kind.ENDMARKER) {
+                throw error("unexpected end of file");
+            }
+            body.addAll(parseStatement());
+        }
+
+        return body;
+    }
+
+    // Expressions
+
+    /**
+     * testlist: test (',' test)* [',']
+     */
+    private expr parseTestList() {
+        PythonTokenizer.Token t = peek();
+        expr first = parseTest();
+
+        if (!isOp(",")) {
+            return first;
+        }
+
+        List<expr> elts = new ArrayList<>();
+        elts.add(first);
+
+        while (acceptOp(",") && startsTest()) {
+            elts.add(parseTest());
+        }
+
+        return at(new Tuple(antlrToken(t), elts, expr_contextType.Load), t);
+    }
+
+    /**
+     * exprlist: expr (',' expr)* [',']
+     */
+    private expr parseExprList() {
+        PythonTokenizer.Token t = peek();
+        expr first = parseExpr();
+
+        if (!isOp(",")) {
+            return first;
+        }
+
+        List<expr> elts = new ArrayList<>();
+        elts.add(first);
+
+        while (acceptOp(",") && startsTest()) {
+            elts.add(parseExpr());
+        }
+
+        return at(new Tuple(antlrToken(t), elts, expr_contextType.Load), t);
+    }
+
+    /**
+     * test: or_test ['if' or_test 'else' test] | lambdef
+     */
+    private expr parseTest() {
+        if (isKeyword("lambda")) {
+            return parseLambda(false);
+        }
+
+        PythonTokenizer.Token t = peek();
+        expr body = parseOrTest();
+
+        if (acceptKeyword("if")) {
+            expr test = parseOrTest();
+            expectKeyword("else");
+            expr orelse = parseTest();
+            return at(new IfExp(antlrToken(t), test, body, orelse), t);
+        }
+
+        return body;
+    }
+
+    /**
+     * test_nocond: or_test | lambdef_nocond
+     */
+    private expr parseTestNoCond() {
+        return isKeyword("lambda") ? parseLambda(true) : parseOrTest();
+    }
+
+    private expr parseLambda(boolean noCond) {
+        PythonTokenizer.Token t = next();
+        arguments args = parseArguments(":");
+        expectOp(":");
+        expr body = noCond ? parseTestNoCond() : parseTest();
+        return at(new Lambda(antlrToken(t), args, body), t);
+    }
+
+    private expr parseOrTest() {
+        PythonTokenizer.Token t = peek();
+        expr first = parseAndTest();
+
+        if (!isKeyword("or")) {
+            return first;
+        }
+
+        List<expr> values = new ArrayList<>();
+        values.add(first);
+
+        while (acceptKeyword("or")) {
+            values.add(parseAndTest());
+        }
+
+        return at(new BoolOp(antlrToken(t), boolopType.Or, values), t);
+    }
+
+    private expr parseAndTest() {
+        PythonTokenizer.Token t = peek();
+        expr first = parseNotTest();
+
+        if (!isKeyword("and")) {
+            return first;
+        }
+
+        List<expr> values = new ArrayList<>();
+        values.add(first);
+
+        while (acceptKeyword("and")) {
+            values.add(parseNotTest());
+        }
+
+        return at(new BoolOp(antlrToken(t), boolopType.And, values), t);
+    }
+
+    private expr parseNotTest() {
+        PythonTokenizer.Token t = peek();
+
+        if (acceptKeyword("not")) {
+            expr operand = parseNotTest();
+            return at(new UnaryOp(antlrToken(t), unaryopType.Not, operand), t);
+        }
+
+        return parseComparison();
+    }
+
+    /**
+     * comparison: expr (comp_op expr)*
+     */
+    private expr parseComparison() {
+        PythonTokenizer.Token t = peek();
+        expr left = parseExpr();
+        List<cmpopType> ops = new ArrayList<>();
+        List<expr> comparators = new ArrayList<>();
+
+        cmpopType op;
+        while ((op = parseComparisonOperator()) != null) {
+            ops.add(op);
+            comparators.add(parseExpr());
+        }
+
+        if (ops.isEmpty()) {
+            return left;
+        }
+
+        return at(new Compare(antlrToken(t), left, ops, comparators), t);
+    }
+
+    private cmpopType parseComparisonOperator() {
+        PythonTokenizer.Token t = peek();
+
+        if (t.getKind() == Kind.OP) {
+            cmpopType op;
+            switch (t.getText()) {
+                case "<":
+                    op = cmpopType.Lt;
+                    break;
+                case ">":
+                    op = cmpopType.Gt;
+                    break;
+                case "==":
+                    op = cmpopType.Eq;
+                    break;
+                case ">=":
+                    op = cmpopType.GtE;
+                    break;
+                case "<=":
+                    op = cmpopType.LtE;
+                    break;
+                case "!=":
+                    op = cmpopType.NotEq;
+                    break;
+                default:
+                    return null;
+            }
+            next();
+            return op;
+        } else if (t.is(Kind.NAME, "in")) {
+            next();
+            return cmpopType.In;
+        } else if (t.is(Kind.NAME, "not") && peek(1).is(Kind.NAME, "in")) {
+            next();
+            next();
+            return cmpopType.NotIn;
+        } else if (t.is(Kind.NAME, "is")) {
+            next();
+            return acceptKeyword("not") ? cmpopType.IsNot : cmpopType.Is;
+        }
+
+        return null;
+    }
+
+    /**
+     * expr: xor_expr ('|' xor_expr)* and the binary operator levels below it, from lowest to
+     * highest precedence.
+     */
+    private expr parseExpr() {
+        return parseBinary(0);
+    }
+
+    private static final String[][] BINARY_LEVELS = {{"|"}, {"^"}, {"&"}, {"<<", ">>"}, {"+", "-"}, {"*", "/", "%", "//"}};
+
+    private static final operatorType[][] BINARY_OPERATORS = {{operatorType.BitOr}, {operatorType.BitXor}, {operatorType.BitAnd}, {operatorType.LShift, operatorType.RShift},
+                    {operatorType.Add, operatorType.Sub}, {operatorType.Mult, operatorType.Div, operatorType.Mod, operatorType.FloorDiv}};
+
+    private expr parseBinary(int level) {
+        if (level == BINARY_LEVELS.length) {
+            return parseFactor();
+        }
+
+        PythonTokenizer.Token t = peek();
+        expr left = parseBinary(level + 1);
+
+        while (true) {
+            operatorType op = binaryOperator(level, peek());
+            if (op == null) {
+                return left;
+            }
+
+            next();
+            expr right = parseBinary(level + 1);
+            left = at(new BinOp(antlrToken(t), left, op, right), t);
+        }
+    }
+
+    private static operatorType binaryOperator(int level, PythonTokenizer.Token t) {
+        if (t.getKind() == Kind.OP) {
+            String[] ops = BINARY_LEVELS[level];
+            for (int i = 0; i < ops.length; i++) {
+                if (ops[i].equals(t.getText())) {
+                    return BINARY_OPERATORS[level][i];
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * factor: ('+'|'-'|'~') factor | power. Negative number literals are folded the way Jython's
+     * GrammarActions.negate does.
+     */
+    private expr parseFactor() {
+        PythonTokenizer.Token t = peek();
+
+        if (acceptOp("+")) {
+            return at(new UnaryOp(antlrToken(t), unaryopType.UAdd, parseFactor()), t);
+        } else if (acceptOp("~")) {
+            return at(new UnaryOp(antlrToken(t), unaryopType.Invert, parseFactor()), t);
+        } else if (acceptOp("-")) {
+            expr operand = parseFactor();
+
+            if (operand instanceof Num) {
+                Object negated = negate(((Num) operand).getInternalN());
+                if (negated != null) {
+                    return at(new Num(antlrToken(t), negated), t);
+                }
+            }
+
+            return at(new UnaryOp(antlrToken(t), unaryopType.USub, operand), t);
+        }
+
+        return parsePower();
+    }
+
+    private static Object negate(Object n) {
+        if (n instanceof PyInteger && ((PyInteger) n).getValue() >= 0) {
+            return new PyInteger(-((PyInteger) n).getValue());
+        } else if (n instanceof PyLong && ((PyLong) n).getValue().signum() > 0) {
+            return new PyLong(((PyLong) n).getValue().negate());
+        } else if (n instanceof PyFloat && ((PyFloat) n).getValue() >= 0) {
+            return new PyFloat(-((PyFloat) n).getValue());
+        } else if (n instanceof PyComplex && ((PyComplex) n).imag >= 0) {
+            return new PyComplex(0, -((PyComplex) n).imag);
+        }
+
+        return null;
+    }
+
+    /**
+     * power: atom trailer* ['**' factor]
+     */
+    private expr parsePower() {
+        PythonTokenizer.Token t = peek();
+        expr value = parseAtom();
+
+        while (true) {
+            if (acceptOp("(")) {
+                value = parseCall(t, value);
+            } else if (acceptOp("[")) {
+                slice s = parseSubscriptList();
+                expectOp("]");
+                value = at(new Subscript(antlrToken(t), value, s, expr_contextType.Load), t);
+            } else if (acceptOp(".")) {
+                PythonTokenizer.Token n = expectName();
+                Name attr = at(new Name(antlrToken(n), n.getText(), expr_contextType.Load), n);
+                value = at(new Attribute(antlrToken(t), value, attr, expr_contextType.Load), t);
+            } else {
+                break;
+            }
+        }
+
+        if (acceptOp("**")) {
+            expr exponent = parseFactor();
+            return at(new BinOp(antlrToken(t), value, operatorType.Pow, exponent), t);
+        }
+
+        return value;
+    }
+
+    /**
+     * arglist: (argument ',')* (argument [','] | '*' test (',' argument)* [',' '**' test] | '**'
+     * test)
+     */
+    private expr parseCall(PythonTokenizer.Token t, expr func) {
+        List<expr> args = new ArrayList<>();
+        List<keyword> keywords = new ArrayList<>();
+        expr starargs = null;
+        expr kwargs = null;
+
+        while (!isOp(")")) {
+            PythonTokenizer.Token a = peek();
+
+            if (acceptOp("**")) {
+                kwargs = parseTest();
+            } else if (acceptOp("*")) {
+                starargs = parseTest();
+            } else {
+                expr arg = parseTest();
+
+                if (acceptOp("=")) {
+                    if (!(arg instanceof Name)) {
+                        throw error("keyword can't be an expression");
+                    }
+                    expr value = parseTest();
+                    keywords.add(at(new keyword(antlrToken(a), ((Name) arg).getInternalId(), value), a));
+                } else if (isKeyword("for")) {
+                    List<comprehension> generators = parseCompFor();
+                    args.add(at(new GeneratorExp(antlrToken(a), arg, generators), a));
+                } else {
+                    if (!keywords.isEmpty() || starargs != null || kwargs != null) {
+                        throw error("non-keyword arg after keyword arg");
+                    }
+                    args.add(arg);
+                }
+            }
+
+            if (!acceptOp(",")) {
+                break;
+            }
+        }
+
+        expectOp(")");
+        return at(new Call(antlrToken(t), func, args, keywords, starargs, kwargs), t);
+    }
+
+    /**
+     * subscriptlist: subscript (',' subscript)* [',']
+     */
+    private slice parseSubscriptList() {
+        PythonTokenizer.Token t = peek();
+        slice first = parseSubscript();
+
+        if (!isOp(",")) {
+            return first;
+        }
+
+        List<slice> dims = new ArrayList<>();
+        dims.add(first);
+        boolean extended = first instanceof Slice;
+
+        while (acceptOp(",") && !isOp("]")) {
+            slice s = parseSubscript();
+            extended |= s instanceof Slice;
+            dims.add(s);
+        }
+
+        if (extended) {
+            return at(new ExtSlice(antlrToken(t), dims), t);
+        }
+
+        List<expr> elts = new ArrayList<>();
+        for (slice s : dims) {
+            elts.add(((Index) s).getInternalValue());
+        }
+
+        Tuple tuple = at(new Tuple(antlrToken(t), elts, expr_contextType.Load), t);
+        return at(new Index(antlrToken(t), tuple), t);
+    }
+
+    /**
+     * subscript: test | [test] ':' [test] [sliceop]
+     */
+    private slice parseSubscript() {
+        PythonTokenizer.Token t = peek();
+        expr lower = isOp(":") ? null : parseTest();
+
+        if (!acceptOp(":")) {
+            return at(new Index(antlrToken(t), lower), t);
+        }
+
+        expr upper = startsTest() ? parseTest() : null;
+        expr step = null;
+
+        if (isOp(":")) {
+            PythonTokenizer.Token colon = next();
+            if (startsTest()) {
+                step = parseTest();
+            } else {
+                step = at(new Name(antlrToken(colon), "None", expr_contextType.Load), colon);
+            }
+        }
+
+        return at(new Slice(antlrToken(t), lower, upper, step), t);
+    }
+
+    private expr parseAtom() {
+        PythonTokenizer.Token t = peek();
+
+        switch (t.getKind()) {
+            case NAME:
+                if (KEYWORDS.contains(t.getText())) {
+                    throw error("invalid syntax");
+                }
+                next();
+                return at(new Name(antlrToken(t), t.getText(), expr_contextType.Load), t);
+            case NUMBER:
+                next();
+                return at(new Num(antlrToken(t), parseNumber(t)), t);
+            case STRING:
+            case BYTES:
+                return parseStrings();
+            case OP:
+                break;
+            default:
+                throw error("invalid syntax");
+        }
+
+        if (acceptOp("(")) {
+            return parseParenthesized(t);
+        } else if (acceptOp("[")) {
+            return parseListDisplay(t);
+        } else if (acceptOp("{")) {
+            return parseDictOrSetDisplay(t);
+        }
+
+        throw error("invalid syntax");
+    }
+
+    private expr parseParenthesized(PythonTokenizer.Token t) {
+        if (acceptOp(")")) {
+            return at(new Tuple(antlrToken(t), new ArrayList<expr>(), expr_contextType.Load), t);
+        }
+
+        if (isKeyword("yield")) {
+            expr yield = parseYield();
+            expectOp(")");
+            return yield;
+        }
+
+        expr first = parseTest();
+
+        if (isKeyword("for")) {
+            List<comprehension> generators = parseCompFor();
+            expectOp(")");
+            return at(new GeneratorExp(antlrToken(t), first, generators), t);
+        }
+
+        if (acceptOp(")")) {
+            return first;
+        }
+
+        List<expr> elts = new ArrayList<>();
+        elts.add(first);
+
+        while (acceptOp(",") && !isOp(")")) {
+            elts.add(parseTest());
+        }
+
+        expectOp(")");
+        return at(new Tuple(antlrToken(t), elts, expr_contextType.Load), t);
+    }
+
+    private expr parseListDisplay(PythonTokenizer.Token t) {
+        List<expr> elts = new ArrayList<>();
+
+        if (!isOp("]")) {
+            expr first = parseTest();
+
+            if (isKeyword("for")) {
+                List<comprehension> generators = parseCompFor();
+                expectOp("]");
+                return at(new ListComp(antlrToken(t), first, generators), t);
+            }
+
+            elts.add(first);
+            while (acceptOp(",") && !isOp("]")) {
+                elts.add(parseTest());
+            }
+        }
+
+        expectOp("]");
+        return at(new org.python.antlr.ast.List(antlrToken(t), elts, expr_contextType.Load), t);
+    }
+
+    private expr parseDictOrSetDisplay(PythonTokenizer.Token t) {
+        if (acceptOp("}")) {
+            return at(new Dict(antlrToken(t), new ArrayList<expr>(), new ArrayList<expr>()), t);
+        }
+
+        expr first = parseTest();
+
+        if (acceptOp(":")) {
+            expr value = parseTest();
+
+            if (isKeyword("for")) {
+                List<comprehension> generators = parseCompFor();
+                expectOp("}");
+                return at(new DictComp(antlrToken(t), first, value, generators), t);
+            }
+
+            List<expr> keys = new ArrayList<>();
+            List<expr> values = new ArrayList<>();
+            keys.add(first);
+            values.add(value);
+
+            while (acceptOp(",") && !isOp("}")) {
+                keys.add(parseTest());
+                expectOp(":");
+                values.add(parseTest());
+            }
+
+            expectOp("}");
+            return at(new Dict(antlrToken(t), keys, values), t);
+        }
+
+        if (isKeyword("for")) {
+            List<comprehension> generators = parseCompFor();
+            expectOp("}");
+            return at(new SetComp(antlrToken(t), first, generators), t);
+        }
+
+        List<expr> elts = new ArrayList<>();
+        elts.add(first);
+
+        while (acceptOp(",") && !isOp("}")) {
+            elts.add(parseTest());
+        }
+
+        expectOp("}");
+        return at(new org.python.antlr.ast.Set(antlrToken(t), elts), t);
+    }
+
+    /**
+     * comp_for: 'for' exprlist 'in' or_test [comp_iter]; comp_if: 'if' test_nocond [comp_iter]
+     */
+    private List<comprehension> parseCompFor() {
+        List<comprehension> generators = new ArrayList<>();
+
+        while (isKeyword("for")) {
+            PythonTokenizer.Token t = next();
+            expr target = toContext(parseExprList(), expr_contextType.Store);
+            expectKeyword("in");
+            expr iter = parseOrTest();
+            List<expr> ifs = new ArrayList<>();
+
+            while (acceptKeyword("if")) {
+                ifs.add(parseTestNoCond());
+            }
+
+            generators.add(at(new comprehension(antlrToken(t), target, iter, ifs), t));
+        }
+
+        return generators;
+    }
+
+    private expr parseYield() {
+        PythonTokenizer.Token t = next();
+
+        if (isKeyword("from")) {
+            throw error("yield from is not supported");
+        }
+
+        expr value = startsTest() ? parseTestList() : null;
+        return at(new Yield(antlrToken(t), value), t);
+    }
+
+    /**
+     * Adjacent string literals are concatenated into one Str. Text literals become unicode, as with
+     * the unicode_literals future flag.
+     */
+    private expr parseStrings() {
+        PythonTokenizer.Token t = peek();
+        Kind kind = t.getKind();
+        StringBuilder sb = new StringBuilder();
+
+        while (peek().getKind() == Kind.STRING || peek().getKind() == Kind.BYTES) {
+            if (peek().getKind() != kind) {
+                throw error("cannot mix bytes and nonbytes literals");
+            }
+            sb.append(next().getText());
+        }
+
+        PyString value = kind == Kind.BYTES ? new PyString(sb.toString()) : new PyUnicode(sb.toString());
+        return at(new Str(antlrToken(t), value), t);
+    }
+
+    private Object parseNumber(PythonTokenizer.Token t) {
+        String text = t.getText().replace("_", "");
+        char last = text.charAt(text.length() - 1);
+
+        try {
+            if (last == 'j' || last == 'J') {
+                return new PyComplex(0, Double.parseDouble(text.substring(0, text.length() - 1)));
+            }
+
+            BigInteger value;
+            if (text.length() > 2 && text.charAt(0) == '0' && Character.isLetter(text.charAt(1))) {
+                char radix = Character.toLowerCase(text.charAt(1));
+                value = new BigInteger(text.substring(2), radix == 'x' ? 16 : radix == 'o' ? 8 : 2);
+            } else if (text.indexOf('.') >= 0 || text.indexOf('e') >= 0 || text.indexOf('E') >= 0) {
+                return new PyFloat(Double.parseDouble(text));
+            } else {
+                value = new BigInteger(text);
+                if (text.charAt(0) == '0' && value.signum() != 0) {
+                    /*
+                     * A genuine Python 3 syntax error rather than unsupported syntax, so it is not
+                     * left to Jython's parser (which would read the literal as octal).
+                     */
+                    throw new PySyntaxError("invalid token", t.getLine(), t.getColumn(), t.getText(), filename);
+                }
+            }
+
+            return value.bitLength() < 32 ? new PyInteger(value.intValue()) : new PyLong(value);
+        } catch (NumberFormatException e) {
+            throw error("invalid number literal " + t.getText());
+        }
+    }
+
+    /**
+     * Rebuilds an assignment target with the given expression context.
+     */
+    private expr toContext(expr e, expr_contextType ctx) {
+        expr result;
+
+        if (e instanceof Name) {
+            result = new Name(e.getToken(), ((Name) e).getInternalId(), ctx);
+        } else if (e instanceof Attribute) {
+            Attribute a = (Attribute) e;
+            result = new Attribute(a.getToken(), a.getInternalValue(), a.getInternalAttrName(), ctx);
+        } else if (e instanceof Subscript) {
+            Subscript s = (Subscript) e;
+            result = new Subscript(s.getToken(), s.getInternalValue(), s.getInternalSlice(), ctx);
+        } else if (e instanceof Tuple) {
+            result = new Tuple(e.getToken(), toContext(((Tuple) e).getInternalElts(), ctx), ctx);
+        } else if (e instanceof org.python.antlr.ast.List) {
+            result = new org.python.antlr.ast.List(e.getToken(), toContext(((org.python.antlr.ast.List) e).getInternalElts(), ctx), ctx);
+        } else {
+            throw error("can't assign to " + e.getClass().getSimpleName());
+        }
+
+        result.setCharStartIndex(e.getCharStartIndex());
+        result.setCharStopIndex(e.getCharStopIndex());
+        return result;
+    }
+
+    private List<expr> toContext(List<expr> elts, expr_contextType ctx) {
+        List<expr> result = new ArrayList<>(elts.size());
+
+        for (expr e : elts) {
+            result.add(toContext(e, ctx));
+        }
+
+        return result;
+    }
+
+    // Token helpers
+
+    private PythonTokenizer.Token peek() {
+        return tokens.get(index);
+    }
+
+    private PythonTokenizer.Token peek(int ahead) {
+        return tokens.get(Math.min(index + ahead, tokens.size() - 1));
+    }
+
+    private PythonTokenizer.Token next() {
+        PythonTokenizer.Token t = tokens.get(index);
+        if (t.getKind() != Kind.ENDMARKER) {
+            index++;
+        }
+
+        if (t.getKind() != Kind.NEWLINE && t.getKind() != Kind.INDENT && t.getKind() != Kind.DEDENT) {
+            last = t;
+        }
+
+        return t;
+    }
+
+    private boolean accept(Kind kind) {
+        if (peek().getKind() == kind) {
+            next();
+            return true;
+        }
+
+        return false;
+    }
+
+    private void expect(Kind kind) {
+        if (!accept(kind)) {
+            throw error("expected " + kind);
+        }
+    }
+
+    private boolean isOp(String op) {
+        return peek().is(Kind.OP, op);
+    }
+
+    private boolean acceptOp(String op) {
+        if (isOp(op)) {
+            next();
+            return true;
+        }
+
+        return false;
+    }
+
+    private void expectOp(String op) {
+        if (!acceptOp(op)) {
+            throw error("expected '" + op + "'");
+        }
+    }
+
+    private boolean isKeyword(String keyword) {
+        return peek().is(Kind.NAME, keyword);
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        if (isKeyword(keyword)) {
+            next();
+            return true;
+        }
+
+        return false;
+    }
+
+    private void expectKeyword(String keyword) {
+        if (!acceptKeyword(keyword)) {
+            throw error("expected '" + keyword + "'");
+        }
+    }
+
+    private boolean startsName() {
+        return peek().getKind() == Kind.NAME && !KEYWORDS.contains(peek().getText());
+    }
+
+    private PythonTokenizer.Token expectName() {
+        if (!startsName()) {
+            throw error("expected a name");
+        }
+
+        return next();
+    }
+
+    /**
+     * Whether the next token can start a test. Used for optional expressions and trailing commas.
+     */
+    private boolean startsTest() {
+        PythonTokenizer.Token t = peek();
+
+        switch (t.getKind()) {
+            case NAME:
+                return !KEYWORDS.contains(t.getText()) || t.getText().equals("not") || t.getText().equals("lambda");
+            case NUMBER:
+            case STRING:
+            case BYTES:
+                return true;
+            case OP:
+                switch (t.getText()) {
+                    case "(":
+                    case "[":
+                    case "{":
+                    case "-":
+                    case "+":
+                    case "~":
+                        return true;
+                    default:
+                        return false;
+                }
+            default:
+                return false;
+        }
+    }
+
+    private static CommonToken antlrToken(PythonTokenizer.Token t) {
+        CommonToken token = new CommonToken(Token.INVALID_TOKEN_TYPE, t.getKind() == Kind.STRING || t.getKind() == Kind.BYTES ? null : t.getText());
+        token.setLine(t.getLine());
+        token.setCharPositionInLine(t.getColumn());
+        token.setStartIndex(t.getStart());
+        token.setStopIndex(t.getStop() - 1);
+        return token;
+    }
+
+    /**
+     * Sets the character range of a node from its first token to the last consumed token.
+     */
+    private <T extends PythonTree> T at(T node, PythonTokenizer.Token start) {
+        node.setCharStartIndex(start.getStart());
+        node.setCharStopIndex(Math.max(start.getStop(), last == null ? 0 : last.getStop()));
+        return node;
+    }
+
+    private SyntaxError error(String message) {
+        PythonTokenizer.Token t = peek();
+        return new SyntaxError(message + " near '" + t.getText() + "'", t.getLine(), t.getColumn());
+    }
+
+}
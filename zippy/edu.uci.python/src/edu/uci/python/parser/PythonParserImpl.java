@@ -41,25 +41,79 @@ import edu.uci.python.runtime.standardtype.*;
 
 public class PythonParserImpl implements PythonParser {
 
+    private final boolean moduleCacheInMemory;
+    private final ImportPrefetcher prefetcher;
+
+    public PythonParserImpl() {
+        this(PythonOptions.ModuleCacheInMemory);
+    }
+
+    /**
+     * @param moduleCacheInMemory keep parsed modules in the process wide memory cache of
+     *            {@link ModuleCache}, for long-running processes that parse the same files again
+     */
+    public PythonParserImpl(boolean moduleCacheInMemory) {
+        this.moduleCacheInMemory = moduleCacheInMemory;
+        this.prefetcher = ImportPrefetcher.isEnabled() ? new ImportPrefetcher(moduleCacheInMemory) : null;
+    }
+
     /**
      * Parse input program to AST that is ready to interpret.
      */
 
     @Override
     public PythonParseResult parse(PythonContext context, PythonModule module, Source source) {
-        InputStream istream = new ByteArrayInputStream(source.getCode().getBytes());
-        String filename = source.getPath();
-        org.python.antlr.base.mod node = ParserFacade.parse(istream, CompileMode.exec, filename, cookCompilerFlags());
+        mod node = parseTree(source);
+
+        if (prefetcher != null) {
+            prefetcher.prefetchImports(context, source, node);
+        }
+
+        return translate(context, module, source, node);
+    }
+
+    /**
+     * Parses a module to its Jython AST, from the prefetcher or the module cache when possible.
+     */
+    public mod parseTree(Source source) {
+        boolean cacheable = ModuleCache.isCacheable(source, moduleCacheInMemory);
+        mod node = prefetcher != null ? prefetcher.take(source) : null;
+
+        if (node == null && cacheable) {
+            node = ModuleCache.load(source, moduleCacheInMemory);
+        }
+
+        if (node == null) {
+            node = PythonOptions.NativeParser ? parseNative(source.getCode(), source.getName(), false) : null;
+
+            if (node == null) {
+                InputStream istream = new ByteArrayInputStream(source.getCode().getBytes());
+                String filename = source.getPath();
+                node = ParserFacade.parse(istream, CompileMode.exec, filename, cookCompilerFlags());
+            }
 
+            if (cacheable) {
+                ModuleCache.store(source, node, moduleCacheInMemory);
+            }
+        }
+
+        return node;
+    }
+
+    /**
+     * Translates a parsed module to Truffle nodes for the given context. The tree is rewritten in
+     * the process and cannot be translated again.
+     */
+    public PythonParseResult translate(PythonContext context, PythonModule module, Source source, mod tree) {
         TranslationEnvironment environment = new TranslationEnvironment(context, module);
         ScopeTranslator ptp = new ScopeTranslator(environment);
-        node = ptp.process(node);
+        mod node = ptp.process(tree);
         PythonTreeTranslator ptt = new PythonTreeTranslator(context, node, environment, module, source);
         PythonParseResult result = ptt.getTranslationResult();
 
         if (PythonOptions.OptimizeGeneratorExpressions) {
             for (RootNode functionRoot : result.getFunctionRoots()) {
-                if (functionRoot instanceof FunctionRootNode) {
+                if (functionRoot instanceof FunctionRootNode && ((FunctionRootNode) functionRoot).isBodyTranslated()) {
                     new GeneratorExpressionOptimizer((FunctionRootNode) functionRoot).optimize();
                 }
             }
@@ -70,7 +124,11 @@ public class PythonParserImpl implements PythonParser {
 
     @Override
     public PythonParseResult parse(PythonContext context, PythonModule module, String expression) {
-        mod node = ParserFacade.parseExpressionOrModule(new StringReader(expression), "<eval>", CompilerFlags.getCompilerFlags());
+        mod node = PythonOptions.NativeParser ? parseNative(expression, "<eval>", true) : null;
+
+        if (node == null) {
+            node = ParserFacade.parseExpressionOrModule(new StringReader(expression), "<eval>", CompilerFlags.getCompilerFlags());
+        }
 
         TranslationEnvironment environment = new TranslationEnvironment(context, module);
         ScopeTranslator ptp = new ScopeTranslator(environment);
@@ -90,6 +148,22 @@ public class PythonParserImpl implements PythonParser {
         return ptt.getTranslationResult();
     }
 
+    /**
+     * Parses with {@link NativePythonParser}. Returns null if the source uses syntax it does not
+     * cover, so that Jython's parser can handle it and report proper syntax errors.
+     */
+    private static mod parseNative(String code, String filename, boolean expressionOrModule) {
+        try {
+            NativePythonParser parser = new NativePythonParser(code, filename);
+            return expressionOrModule ? parser.parseExpressionOrModule() : parser.parseModule();
+        } catch (PythonTokenizer.SyntaxError e) {
+            if (PythonOptions.TraceNativeParser) {
+                System.out.println("[ZipPy] native parser falls back to Jython: " + e.getMessage());
+            }
+            return null;
+        }
+    }
+
     private static CompilerFlags cookCompilerFlags() {
         CompilerFlags cflags = CompilerFlags.getCompilerFlags();
         cflags.setFlag(CodeFlag.CO_FUTURE_ABSOLUTE_IMPORT);
@@ -0,0 +1,518 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.parser;
+
+import java.util.*;
+
+/**
+ * Hand written Python 3 tokenizer used by {@link NativePythonParser}. Produces the complete token
+ * list of a source in one scan, including NEWLINE, INDENT and DEDENT tokens. String tokens carry
+ * their decoded value.
+ */
+public final class PythonTokenizer {
+
+    public enum Kind {
+        NAME,
+        NUMBER,
+        STRING,
+        BYTES,
+        OP,
+        NEWLINE,
+        INDENT,
+        DEDENT,
+        ENDMARKER
+    }
+
+    public static final class Token {
+
+        private final Kind kind;
+        private final String text;
+        private final int start;
+        private final int stop;
+        private final int line;
+        private final int column;
+
+        Token(Kind kind, String text, int start, int stop, int line, int column) {
+            this.kind = kind;
+            this.text = text;
+            this.start = start;
+            this.stop = stop;
+            this.line = line;
+            this.column = column;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        /**
+         * The source text of the token, or the decoded value of a string literal.
+         */
+        public String getText() {
+            return text;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getStop() {
+            return stop;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        public boolean is(Kind k, String t) {
+            return kind == k && text.equals(t);
+        }
+
+        @Override
+        public String toString() {
+            return kind + "(" + text + ")@" + line + ":" + column;
+        }
+
+    }
+
+    public static final class SyntaxError extends RuntimeException {
+
+        private static final long serialVersionUID = -2916218245817104318L;
+
+        public SyntaxError(String message, int line, int column) {
+            super(message + " at line " + line + ", column " + column);
+        }
+
+    }
+
+    private static final String[] OPERATORS = {"**=", "//=", ">>=", "<<=", "...", "->", "**", "//", "<<", ">>", "<=", ">=", "==", "!=", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "@=", "+",
+                    "-", "*", "/", "%", "&", "|", "^", "~", "<", ">", "(", ")", "[", "]", "{", "}", ",", ":", ".", ";", "@", "="};
+
+    private final String source;
+    private final List<Token> tokens = new ArrayList<>();
+    private final Deque<Integer> indents = new ArrayDeque<>();
+
+    private int pos;
+    private int line = 1;
+    private int lineStart;
+    private int parenDepth;
+
+    public PythonTokenizer(String source) {
+        this.source = source;
+    }
+
+    public List<Token> tokenize() {
+        indents.push(0);
+        boolean atLineStart = true;
+
+        while (true) {
+            if (atLineStart && parenDepth == 0) {
+                atLineStart = false;
+                if (!scanIndentation()) {
+                    break;
+                }
+            }
+
+            if (pos >= source.length()) {
+                break;
+            }
+
+            char c = source.charAt(pos);
+
+            if (c == ' ' || c == '\t' || c == '\f') {
+                pos++;
+            } else if (c == '#') {
+                skipComment();
+            } else if (c == '\\' && isNewline(pos + 1)) {
+                pos++;
+                consumeNewline();
+            } else if (c == '\n' || c == '\r') {
+                if (parenDepth == 0) {
+                    add(Kind.NEWLINE, "\n", pos, pos + 1);
+                    consumeNewline();
+                    atLineStart = true;
+                } else {
+                    consumeNewline();
+                }
+            } else if (c == '"' || c == '\'') {
+                scanString(pos, "");
+            } else if (isIdentifierStart(c)) {
+                scanName();
+            } else if (Character.isDigit(c) || (c == '.' && pos + 1 < source.length() && Character.isDigit(source.charAt(pos + 1)))) {
+                scanNumber();
+            } else {
+                scanOperator();
+            }
+        }
+
+        int end = source.length();
+        if (!tokens.isEmpty() && tokens.get(tokens.size() - 1).getKind() != Kind.NEWLINE) {
+            add(Kind.NEWLINE, "\n", end, end);
+        }
+
+        while (indents.peek() > 0) {
+            indents.pop();
+            add(Kind.DEDENT, "", end, end);
+        }
+
+        add(Kind.ENDMARKER, "", end, end);
+        return tokens;
+    }
+
+    /**
+     * Measures the indentation of a logical line and emits INDENT/DEDENT tokens. Blank and comment
+     * only lines are skipped. Returns false at the end of the source.
+     */
+    private boolean scanIndentation() {
+        while (true) {
+            int column = 0;
+            while (pos < source.length()) {
+                char c = source.charAt(pos);
+                if (c == ' ') {
+                    column++;
+                } else if (c == '\t') {
+                    column = (column / 8 + 1) * 8;
+                } else if (c == '\f') {
+                    column = 0;
+                } else {
+                    break;
+                }
+                pos++;
+            }
+
+            if (pos >= source.length()) {
+                return false;
+            }
+
+            char c = source.charAt(pos);
+            if (c == '#') {
+                skipComment();
+                if (pos >= source.length()) {
+                    return false;
+                }
+                consumeNewline();
+                continue;
+            } else if (c == '\n' || c == '\r') {
+                consumeNewline();
+                continue;
+            }
+
+            if (column > indents.peek()) {
+                indents.push(column);
+                add(Kind.INDENT, "", pos, pos);
+            } else {
+                while (column < indents.peek()) {
+                    indents.pop();
+                    add(Kind.DEDENT, "", pos, pos);
+                }
+
+                if (column != indents.peek()) {
+                    throw error("unindent does not match any outer indentation level");
+                }
+            }
+
+            return true;
+        }
+    }
+
+    private void scanName() {
+        int start = pos;
+        while (pos < source.length() && isIdentifierPart(source.charAt(pos))) {
+            pos++;
+        }
+
+        String name = source.substring(start, pos);
+        if (pos < source.length() && (source.charAt(pos) == '"' || source.charAt(pos) == '\'') && isStringPrefix(name)) {
+            scanString(start, name.toLowerCase());
+        } else {
+            add(Kind.NAME, name, start, pos);
+        }
+    }
+
+    /**
+     * Python identifiers start with a letter (categories Lu, Ll, Lt, Lm, Lo, Nl) or an underscore.
+     * Unlike Java identifiers, '$' and other currency symbols are not allowed.
+     */
+    static boolean isIdentifierStart(char c) {
+        return c == '_' || Character.isUnicodeIdentifierStart(c);
+    }
+
+    /**
+     * Identifier continuation characters additionally include digits (Nd), combining marks (Mn, Mc)
+     * and connector punctuation (Pc), but not the ignorable control characters Java accepts.
+     */
+    static boolean isIdentifierPart(char c) {
+        return Character.isUnicodeIdentifierPart(c) && !Character.isIdentifierIgnorable(c);
+    }
+
+    private static boolean isStringPrefix(String name) {
+        switch (name.toLowerCase()) {
+            case "r":
+            case "u":
+            case "b":
+            case "br":
+            case "rb":
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void scanNumber() {
+        int start = pos;
+
+        if (source.charAt(pos) == '0' && pos + 1 < source.length() && "xXoObB".indexOf(source.charAt(pos + 1)) >= 0) {
+            pos += 2;
+            while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+                pos++;
+            }
+        } else {
+            scanDigits();
+            if (pos < source.length() && source.charAt(pos) == '.') {
+                pos++;
+                scanDigits();
+            }
+
+            if (pos < source.length() && (source.charAt(pos) == 'e' || source.charAt(pos) == 'E')) {
+                int mark = pos++;
+                if (pos < source.length() && (source.charAt(pos) == '+' || source.charAt(pos) == '-')) {
+                    pos++;
+                }
+
+                if (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                    scanDigits();
+                } else {
+                    pos = mark;
+                }
+            }
+
+            if (pos < source.length() && (source.charAt(pos) == 'j' || source.charAt(pos) == 'J')) {
+                pos++;
+            }
+        }
+
+        if (pos < source.length() && isIdentifierPart(source.charAt(pos))) {
+            throw error("invalid number literal");
+        }
+
+        add(Kind.NUMBER, source.substring(start, pos), start, pos);
+    }
+
+    private void scanDigits() {
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+            pos++;
+        }
+    }
+
+    private void scanString(int start, String prefix) {
+        boolean raw = prefix.indexOf('r') >= 0;
+        boolean bytes = prefix.indexOf('b') >= 0;
+        char quote = source.charAt(pos);
+        boolean triple = source.startsWith(new String(new char[]{quote, quote, quote}), pos);
+        int startLine = line;
+        int startColumn = start - lineStart;
+
+        pos += triple ? 3 : 1;
+        int contentStart = pos;
+
+        while (true) {
+            if (pos >= source.length()) {
+                throw new SyntaxError("EOF while scanning string literal", startLine, startColumn);
+            }
+
+            char c = source.charAt(pos);
+            if (c == '\\') {
+                pos++;
+                if (isNewline(pos)) {
+                    consumeNewline();
+                } else {
+                    pos++;
+                }
+            } else if (c == quote && (!triple || source.startsWith(new String(new char[]{quote, quote, quote}), pos))) {
+                break;
+            } else if (c == '\n' || c == '\r') {
+                if (!triple) {
+                    throw new SyntaxError("EOL while scanning string literal", startLine, startColumn);
+                }
+                consumeNewline();
+            } else {
+                pos++;
+            }
+        }
+
+        String content = source.substring(contentStart, pos);
+        pos += triple ? 3 : 1;
+
+        String value = raw ? content : decodeEscapes(content, bytes);
+        tokens.add(new Token(bytes ? Kind.BYTES : Kind.STRING, value, start, pos, startLine, startColumn));
+    }
+
+    private String decodeEscapes(String content, boolean bytes) {
+        if (content.indexOf('\\') < 0) {
+            return content;
+        }
+
+        StringBuilder sb = new StringBuilder(content.length());
+        int i = 0;
+        while (i < content.length()) {
+            char c = content.charAt(i++);
+            if (c != '\\' || i >= content.length()) {
+                sb.append(c);
+                continue;
+            }
+
+            char e = content.charAt(i++);
+            switch (e) {
+                case '\n':
+                    break;
+                case '\r':
+                    if (i < content.length() && content.charAt(i) == '\n') {
+                        i++;
+                    }
+                    break;
+                case '\\':
+                case '\'':
+                case '"':
+                    sb.append(e);
+                    break;
+                case 'a':
+                    sb.append('\u0007');
+                    break;
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'v':
+                    sb.append('\u000b');
+                    break;
+                case 'x':
+                    sb.append((char) parseHex(content, i, 2));
+                    i += 2;
+                    break;
+                case 'u':
+                case 'U':
+                    if (bytes) {
+                        sb.append('\\').append(e);
+                        break;
+                    }
+                    int length = e == 'u' ? 4 : 8;
+                    sb.appendCodePoint(parseHex(content, i, length));
+                    i += length;
+                    break;
+                case 'N':
+                    throw error("\\N{...} escapes are not supported");
+                default:
+                    if (e >= '0' && e <= '7') {
+                        int value = e - '0';
+                        for (int n = 0; n < 2 && i < content.length() && content.charAt(i) >= '0' && content.charAt(i) <= '7'; n++) {
+                            value = value * 8 + content.charAt(i++) - '0';
+                        }
+                        sb.append((char) value);
+                    } else {
+                        sb.append('\\').append(e);
+                    }
+            }
+        }
+
+        return sb.toString();
+    }
+
+    private int parseHex(String content, int index, int length) {
+        if (index + length > content.length()) {
+            throw error("truncated escape sequence");
+        }
+
+        try {
+            return Integer.parseInt(content.substring(index, index + length), 16);
+        } catch (NumberFormatException e) {
+            throw error("invalid escape sequence");
+        }
+    }
+
+    private void scanOperator() {
+        for (String op : OPERATORS) {
+            if (source.startsWith(op, pos)) {
+                char c = op.charAt(0);
+                if (op.length() == 1) {
+                    if (c == '(' || c == '[' || c == '{') {
+                        parenDepth++;
+                    } else if (c == ')' || c == ']' || c == '}') {
+                        parenDepth = Math.max(0, parenDepth - 1);
+                    }
+                }
+
+                add(Kind.OP, op, pos, pos + op.length());
+                pos += op.length();
+                return;
+            }
+        }
+
+        throw error("invalid character '" + source.charAt(pos) + "'");
+    }
+
+    private void skipComment() {
+        while (pos < source.length() && !isNewline(pos)) {
+            pos++;
+        }
+    }
+
+    private boolean isNewline(int index) {
+        return index < source.length() && (source.charAt(index) == '\n' || source.charAt(index) == '\r');
+    }
+
+    private void consumeNewline() {
+        if (source.charAt(pos) == '\r' && pos + 1 < source.length() && source.charAt(pos + 1) == '\n') {
+            pos++;
+        }
+
+        pos++;
+        line++;
+        lineStart = pos;
+    }
+
+    private void add(Kind kind, String text, int start, int stop) {
+        tokens.add(new Token(kind, text, start, stop, line, start - lineStart));
+    }
+
+    private SyntaxError error(String message) {
+        return new SyntaxError(message, line, pos - lineStart);
+    }
+
+}
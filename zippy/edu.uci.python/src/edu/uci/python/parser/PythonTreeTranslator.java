@@ -84,7 +84,7 @@ public class PythonTreeTranslator extends Visitor {
             moduleNode = (ModuleNode) visit(root);
         } catch (Throwable t) {
             t.printStackTrace();
-            throw new RuntimeException("Failed in " + this + " with error " + t);
+            throw new RuntimeException("Failed in " + this + " with error " + t, t);
         }
         this.result = new PythonParseResult(environment.getModule(), moduleNode, context, functions);
     }
@@ -107,7 +107,7 @@ public class PythonTreeTranslator extends Visitor {
         List<PNode> body = visitStatements(node.getInternalBody());
         FrameDescriptor fd = environment.getCurrentFrame();
         environment.endScope(node);
-        RootNode newNode = factory.createModule(module.getModuleName(), body, fd);
+        RootNode newNode = factory.createModule(context, module.getModuleName(), body, fd);
         return newNode;
     }
 
@@ -138,7 +138,7 @@ public class PythonTreeTranslator extends Visitor {
         PNode body = (PNode) visit(node.getInternalBody());
         FrameDescriptor fd = environment.getCurrentFrame();
         environment.endScope(node);
-        return new ModuleNode("<expression>", body, fd);
+        return new ModuleNode(context, "<expression>", body, fd);
     }
 
     @Override
@@ -194,11 +194,12 @@ public class PythonTreeTranslator extends Visitor {
         /**
          * Function body
          */
-        List<PNode> statements = visitStatements(node.getInternalBody());
-        PNode body = factory.createBlock(statements);
-        body = factory.createBlock(argumentLoads, body);
-        body = new ReturnTargetNode(body, factory.createReadLocal(environment.getReturnSlot()));
-        assignSourceFromNode(node, body);
+        PNode body;
+        if (PythonOptions.LazyFunctionTranslation && !PythonOptions.CatchZippyExceptionForUnitTesting && LazyTranslationFilter.canTranslateLazily(environment)) {
+            body = createLazyFunctionBody(node, argumentLoads);
+        } else {
+            body = visitFunctionBody(node, argumentLoads);
+        }
 
         /**
          * Defaults
@@ -241,6 +242,72 @@ public class PythonTreeTranslator extends Visitor {
         return assignSourceFromNode(nameNode, functionNameWriteNode);
     }
 
+    private PNode visitFunctionBody(FunctionDef node, PNode argumentLoads) throws Exception {
+        List<PNode> statements = visitStatements(node.getInternalBody());
+        PNode body = factory.createBlock(statements);
+        body = factory.createBlock(argumentLoads, body);
+        body = new ReturnTargetNode(body, factory.createReadLocal(environment.getReturnSlot()));
+        assignSourceFromNode(node, body);
+        return body;
+    }
+
+    /**
+     * Defers the translation of the body to the first call of the function.
+     */
+    private PNode createLazyFunctionBody(FunctionDef node, PNode argumentLoads) {
+        return new LazyFunctionBodyNode(new DeferredFunctionBody(this, node, argumentLoads));
+    }
+
+    /**
+     * Captures the function's scope and nesting level and restores them when the body is
+     * translated. Drops the translator and the Jython AST afterwards, so a translated function does
+     * not keep them alive.
+     */
+    private static final class DeferredFunctionBody extends LazyFunctionBodyNode.Translation {
+
+        private PythonTreeTranslator translator;
+        private FunctionDef node;
+        private PNode argumentLoads;
+        private ScopeInfo scope;
+        private final int scopeLevel;
+
+        DeferredFunctionBody(PythonTreeTranslator translator, FunctionDef node, PNode argumentLoads) {
+            this.translator = translator;
+            this.node = node;
+            this.argumentLoads = argumentLoads;
+            this.scope = translator.environment.getCurrentScope();
+            this.scopeLevel = translator.environment.getScopeLevel();
+        }
+
+        @Override
+        protected PNode translate() {
+            final TranslationEnvironment environment = translator.environment;
+
+            synchronized (environment) {
+                ScopeInfo previousScope = environment.getCurrentScope();
+                int previousLevel = environment.getScopeLevel();
+                environment.resumeScope(scope, scopeLevel);
+
+                try {
+                    return translator.visitFunctionBody(node, argumentLoads);
+                } catch (Exception e) {
+                    throw new RuntimeException("Failed in " + translator + " with error " + e, e);
+                } finally {
+                    environment.resumeScope(previousScope, previousLevel);
+                }
+            }
+        }
+
+        @Override
+        protected void release() {
+            translator = null;
+            node = null;
+            argumentLoads = null;
+            scope = null;
+        }
+
+    }
+
     @Override
     public Object visitLambda(Lambda node) throws Exception {
         /**
@@ -875,7 +942,7 @@ public class PythonTreeTranslator extends Visitor {
     private LoopNode createForInScope(PNode target, PNode iterator, PNode body) {
         GetIteratorNode getIterator = factory.createGetIterator(iterator);
         getIterator.assignSourceSection(iterator.getSourceSection());
-        return ForNodeFactory.create(body, target, getIterator);
+        return ForNodeFactory.create(body, target, environment.makeIteratorSlot(), getIterator);
     }
 
     @Override
@@ -60,6 +60,13 @@ public class ScopeInfo {
     private List<PNode> defaultArgumentNodes;
     private ReadDefaultArgumentNode[] defaultArgumentReads;
 
+    /**
+     * Names used in this scope and the scopes nested in it, and whether any of them yields. Both
+     * are collected by {@link ScopeTranslator} for {@link LazyTranslationFilter}.
+     */
+    private Set<String> referencedNames;
+    private boolean containsYield;
+
     public ScopeInfo(String scopeId, ScopeKind kind, FrameDescriptor frameDescriptor, ScopeInfo parent) {
         this.scopeId = scopeId;
         this.scopeKind = kind;
@@ -125,6 +132,39 @@ public class ScopeInfo {
         return this.defaultArgumentReads;
     }
 
+    public void addReferencedName(String identifier) {
+        if (referencedNames == null) {
+            referencedNames = new HashSet<>();
+        }
+
+        referencedNames.add(identifier);
+    }
+
+    public Set<String> getReferencedNames() {
+        return referencedNames != null ? referencedNames : Collections.<String> emptySet();
+    }
+
+    public void setContainsYield() {
+        containsYield = true;
+    }
+
+    public boolean containsYield() {
+        return containsYield;
+    }
+
+    /**
+     * Adds what a nested scope references to this one.
+     */
+    public void addReferencesOf(ScopeInfo nested) {
+        if (nested.referencedNames != null) {
+            for (String identifier : nested.referencedNames) {
+                addReferencedName(identifier);
+            }
+        }
+
+        containsYield |= nested.containsYield;
+    }
+
     @Override
     public String toString() {
         return scopeKind.toString() + " " + scopeId;
@@ -59,6 +59,20 @@ public class ScopeTranslator extends Visitor {
         return node;
     }
 
+    /**
+     * Nested scopes hand the names they reference up to their enclosing function or class, so
+     * {@link LazyTranslationFilter} does not have to walk the body again.
+     */
+    private void endScope(PythonTree node) throws Exception {
+        ScopeInfo scope = environment.getCurrentScope();
+        environment.endScope(node);
+        ScopeInfo enclosing = scope.getParent();
+
+        if (enclosing != null && enclosing.getScopeKind() != ScopeInfo.ScopeKind.Module) {
+            enclosing.addReferencesOf(scope);
+        }
+    }
+
     public void visitStatements(List<stmt> stmts) throws Exception {
         for (int i = 0; i < stmts.size(); i++) {
             visit(stmts.get(i));
@@ -95,7 +109,7 @@ public class ScopeTranslator extends Visitor {
         node.getInternalBody().addAll(0, ac.init_code);
 
         visitStatements(node.getInternalBody());
-        environment.endScope(node);
+        endScope(node);
         return null;
     }
 
@@ -138,7 +152,7 @@ public class ScopeTranslator extends Visitor {
         }
 
         visit(node.getInternalBody());
-        environment.endScope(node);
+        endScope(node);
         return null;
     }
 
@@ -205,15 +219,25 @@ public class ScopeTranslator extends Visitor {
             visit(node.getInternalBases().get(i));
         }
 
+        List<expr> decs = node.getInternalDecorator_list();
+        for (int i = 0; i < decs.size(); i++) {
+            visit(decs.get(i));
+        }
+
         environment.beginScope(node, ScopeInfo.ScopeKind.Class);
         visitStatements(node.getInternalBody());
-        environment.endScope(node);
+        endScope(node);
         return null;
     }
 
     @Override
     public Object visitName(Name node) throws Exception {
         String name = node.getInternalId();
+
+        if (environment.getScopeLevel() > 1 && node.getInternalCtx() != expr_contextType.Param) {
+            environment.getCurrentScope().addReferencedName(name);
+        }
+
         if (!isLoad(node)) {
             if (environment.atModuleLevel()) {
                 // Module/global scope. No frame info needed.
@@ -226,6 +250,16 @@ public class ScopeTranslator extends Visitor {
         return null;
     }
 
+    @Override
+    public Object visitYield(Yield node) throws Exception {
+        if (environment.getScopeLevel() > 1) {
+            environment.getCurrentScope().setContainsYield();
+        }
+
+        traverse(node);
+        return null;
+    }
+
     @Override
     public Object visitListComp(ListComp node) throws Exception {
         String tmp = "_[" + node.getLine() + "_" + node.getCharPositionInLine() + "]";
@@ -302,7 +336,7 @@ public class ScopeTranslator extends Visitor {
             visit(node.getInternalElt());
         }
 
-        environment.endScope(node);
+        endScope(node);
         return null;
     }
 
@@ -32,6 +32,7 @@ import com.oracle.truffle.api.frame.*;
 
 import edu.uci.python.nodes.*;
 import edu.uci.python.nodes.argument.*;
+import edu.uci.python.nodes.control.*;
 import edu.uci.python.nodes.frame.*;
 import edu.uci.python.parser.ScopeInfo.ScopeKind;
 import edu.uci.python.runtime.*;
@@ -88,6 +89,22 @@ public class TranslationEnvironment {
         currentScope = currentScope.getParent();
     }
 
+    public ScopeInfo getCurrentScope() {
+        return currentScope;
+    }
+
+    public int getScopeLevel() {
+        return scopeLevel;
+    }
+
+    /**
+     * Re-enters a scope whose translation was deferred, see {@link PythonTreeTranslator}.
+     */
+    public void resumeScope(ScopeInfo scope, int level) {
+        currentScope = scope;
+        scopeLevel = level;
+    }
+
     public boolean atModuleLevel() {
         assert scopeLevel > 0;
         return scopeLevel == 1;
@@ -211,6 +228,10 @@ public class TranslationEnvironment {
         return frameDescriptor.findOrAddFrameSlot(tempName);
     }
 
+    public FrameSlot makeIteratorSlot() {
+        return ForNode.createIteratorSlot(currentScope.getFrameDescriptor());
+    }
+
     public List<PNode> makeTempLocalVariables(List<PNode> rights) {
         List<PNode> tempWrites = new ArrayList<>();
 
@@ -265,6 +286,23 @@ public class TranslationEnvironment {
         return null;
     }
 
+    /**
+     * Returns true if a variable of this name lives in a non-global scope enclosing the current one.
+     */
+    public boolean isDefinedInEnclosingScopes(String name) {
+        ScopeInfo current = currentScope.getParent();
+
+        while (current != null && current != globalScope) {
+            if (current.getFrameDescriptor().findFrameSlot(name) != null) {
+                return true;
+            }
+
+            current = current.getParent();
+        }
+
+        return false;
+    }
+
     public int getCurrentFrameSize() {
         return currentScope.getFrameDescriptor().getSize();
     }
@@ -62,6 +62,82 @@ public class ArithmeticUtil {
         return result;
     }
 
+    public static long leftShiftExact(long left, int right) {
+        if (right >= Long.SIZE || right < 0) {
+            shiftError(right);
+        }
+
+        long result = left << right;
+
+        if (left != result >> right) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            throw new ArithmeticException("integer overflow");
+        }
+
+        return result;
+    }
+
+    public static long rightShift(long left, int right) {
+        if (right < 0) {
+            shiftError(right);
+        }
+
+        return left >> Math.min(right, Long.SIZE - 1);
+    }
+
+    /**
+     * Python floor division. Only {@code Long.MIN_VALUE // -1} overflows.
+     */
+    public static long floorDivExact(long left, long right) {
+        if (left == Long.MIN_VALUE && right == -1) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            throw new ArithmeticException("integer overflow");
+        }
+
+        return Math.floorDiv(left, right);
+    }
+
+    /**
+     * Exponentiation by squaring, throws on overflow.
+     */
+    public static long powExact(long base, long exponent) {
+        if (exponent < 0) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            throw new ArithmeticException("negative exponent");
+        }
+
+        long result = 1;
+        long b = base;
+        long e = exponent;
+
+        while (e != 0) {
+            if ((e & 1) != 0) {
+                result = Math.multiplyExact(result, b);
+            }
+
+            e >>= 1;
+
+            if (e != 0) {
+                b = Math.multiplyExact(b, b);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Demotes a {@link BigInteger} result back to the smallest primitive that holds it.
+     */
+    public static Object demote(BigInteger value) {
+        if (value.bitLength() < Integer.SIZE) {
+            return value.intValue();
+        } else if (value.bitLength() < Long.SIZE) {
+            return value.longValue();
+        }
+
+        return value;
+    }
+
     private static void shiftError(int shiftCount) {
         CompilerDirectives.transferToInterpreterAndInvalidate();
 
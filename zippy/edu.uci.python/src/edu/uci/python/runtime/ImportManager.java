@@ -57,6 +57,9 @@ public class ImportManager {
     private final Map<String, Boolean> unsupportedImports;
     private final Map<String, Map<String, PyObject>> jythonImports;
 
+    private final ModuleLocationIndex locations;
+    private final Set<String> checkedSystemPaths;
+
     private static String getPythonLibraryPath() {
         String librayPath = ZippyEnvVars.zippyHome() + File.separatorChar + "zippy" + File.separatorChar + "lib-python" + File.separatorChar + "3";
         return librayPath;
@@ -73,6 +76,8 @@ public class ImportManager {
         this.importedModules = new HashMap<>();
         this.unsupportedImports = new HashMap<>();
         this.jythonImports = new HashMap<>();
+        this.locations = new ModuleLocationIndex();
+        this.checkedSystemPaths = new HashSet<>();
         this.paths.add(getPythonLibraryPath());
         this.paths.add(getPythonLibraryExtrasPath());
 
@@ -146,7 +151,7 @@ public class ImportManager {
                 }
                 try {
                     String dirPath = new File(path).getCanonicalFile().getParent();
-                    Py.getSystemState().path.append(new PyString(dirPath));
+                    JythonRuntime.getSystemState().path.append(new PyString(dirPath));
                 } catch (Exception e1) {
                 }
             }
@@ -159,7 +164,44 @@ public class ImportManager {
         return importFromJython(path, moduleName);
     }
 
+    /**
+     * Returns false for imports that never parse a source file: builtin modules and modules left
+     * to Jython. Only map lookups, called on the importing thread by the import prefetcher.
+     */
+    public boolean mayImportFromSource(String module) {
+        String moduleName = getModuleName(module);
+        return !context.getPythonBuiltinsLookup().hasModule(moduleName) && !unsupportedImports.containsKey(moduleName) && !jythonImports.containsKey(moduleName);
+    }
+
+    /**
+     * Returns a snapshot of the library search paths, for resolving several imports ahead of time.
+     */
+    public List<String> getSearchPaths() {
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * Resolves the source file an import of the given module from importerPath would parse, or
+     * null if there is none. Only consults the cached {@link ModuleLocationIndex}, so the import
+     * prefetcher calls it on the importing thread.
+     */
+    public String findModuleSource(String importerPath, String module, List<String> searchPaths) {
+        String moduleName = getModuleName(module);
+        String path = getPathFromImporterPath(moduleName, importerPath);
+
+        for (int i = 0; path == null && i < searchPaths.size(); i++) {
+            path = getPathFromLibrary(searchPaths.get(i), moduleName);
+        }
+
+        return path;
+    }
+
     private void updateSystemPathFromJython() {
+        if (!JythonRuntime.isInitialized()) {
+            // Nothing can have changed Jython's sys.path yet.
+            return;
+        }
+
         PyList jythonSystemPaths = Py.getSystemState().path;
 
         for (Object path : jythonSystemPaths) {
@@ -168,6 +210,10 @@ public class ImportManager {
             }
 
             String stringPath = (String) path;
+            if (!checkedSystemPaths.add(stringPath)) {
+                continue;
+            }
+
             if (stringPath.contains("zippy/lib") || stringPath.contains("jython")) {
                 continue;
             }
@@ -189,6 +235,7 @@ public class ImportManager {
             System.out.println("[ZipPy] importing from jython runtime " + moduleName);
             // CheckStyle: resume system..print check
         }
+        JythonRuntime.initialize();
         PyObject module = __builtin__.__import__(moduleName);
         if (path != null) {
             if (!jythonImports.containsKey(moduleName))
@@ -209,75 +256,24 @@ public class ImportManager {
         return name;
     }
 
-    private static String getPathFromImporterPath(String moduleName, String basePath) {
-        String importingModulePath = basePath;
-        String filename = moduleName + ".py";
-        String path = null;
-
-        try {
-            path = new File(importingModulePath).getCanonicalFile().getParent();
-        } catch (IOException ioe) {
-            path = new File(importingModulePath).getAbsoluteFile().getParent();
-        }
+    private String getPathFromImporterPath(String moduleName, String basePath) {
+        String path = locations.getImporterDirectory(basePath);
 
         if (path == null) {
             return null;
         }
 
-        String importedModulePath = path + File.separatorChar + filename;
-        File importingFile = new File(importedModulePath);
-
-        if (importingFile.exists()) {
-            return importedModulePath;
-        }
-
-        importedModulePath = path + File.separatorChar + moduleName;
-        File importingDirectory = new File(importedModulePath);
-        importingFile = new File(importingDirectory, "__init__.py");
-        if (importingDirectory.isDirectory()) {
-            if (importingFile.exists())
-                return importingFile.toString();
-        }
-
-        return null;
+        return locations.findModule(path, moduleName, false);
     }
 
-    private static String getPathFromLibrary(String directoryPath, String moduleName) {
+    private String getPathFromLibrary(String directoryPath, String moduleName) {
         if (moduleName.equals("unittest")) {
             String casePath = getPythonLibraryPath() + File.separatorChar + "unittest" + File.separatorChar + "__init__zippy.py";
             return casePath;
         }
 
-        String sourceName = "__init__.py";
-
-        // First check for packages
-        File dir = new File(directoryPath, moduleName);
-        File sourceFile = new File(dir, sourceName);
-
-        boolean isPackage = false;
-        try {
-            isPackage = dir.isDirectory() && sourceFile.isFile();
-        } catch (SecurityException e) {
-            // ok
-        }
-
-        if (!isPackage) {
-            sourceName = moduleName + ".py";
-            sourceFile = new File(directoryPath, sourceName);
-            if (sourceFile.isFile()) {
-                String path = sourceFile.getPath();
-                return path;
-            }
-        } else {
-            sourceFile = new File(dir, sourceName);
-
-            if (sourceFile.isFile()) {
-                String path = sourceFile.getPath();
-                return path;
-            }
-        }
-
-        return null;
+        // Packages take precedence over plain modules
+        return locations.findModule(directoryPath, moduleName, true);
     }
 
     @TruffleBoundary
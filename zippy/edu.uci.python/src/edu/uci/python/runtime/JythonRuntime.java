@@ -0,0 +1,296 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime;
+
+import java.io.*;
+import java.lang.reflect.*;
+
+import org.python.core.*;
+
+/**
+ * Lazy holder of the Jython runtime, which ZipPy only needs for fallback imports, builtins it does
+ * not implement and interaction with {@link PyObject}s. The shell records the command line
+ * arguments and working directory with {@link #configure}; the Jython system state is created
+ * from them the first time one of the accessors below is used.
+ * <p>
+ * Every access to Jython's global state should go through this class, so that scripts that never
+ * fall back to Jython do not pay for its startup.
+ * <p>
+ * A process that runs scripts for several callers, like the daemon, brackets each run with
+ * {@link #enterRun} and {@link #leaveRun} instead, so that sys.argv, sys.path and the working
+ * directory of one run do not stay behind for the next.
+ */
+public final class JythonRuntime {
+
+    private static String[] arguments = new String[0];
+    private static String workingDirectory;
+    private static volatile boolean initialized;
+
+    private static int activeRuns;
+
+    /**
+     * What the last run that leaves restores, null while no run is active.
+     */
+    private static Configuration beforeRuns;
+
+    private JythonRuntime() {
+    }
+
+    /**
+     * Records the arguments and working directory for the system state. If Jython is already
+     * running, its existing system state is updated in place.
+     */
+    public static synchronized void configure(String[] args, String workingDir) {
+        arguments = args == null ? new String[0] : args;
+        workingDirectory = workingDir;
+
+        if (initialized) {
+            apply(Py.getSystemState(), arguments, workingDir);
+        }
+    }
+
+    /**
+     * Configures the runtime for one run like {@link #configure}. The configuration before the
+     * first active run, including Jython's sys.argv, sys.path and working directory, is restored
+     * when the last active run calls {@link #leaveRun}; while runs overlap, they share the
+     * configuration of the one that entered last.
+     */
+    public static synchronized void enterRun(String[] args, String workingDir) {
+        if (activeRuns++ == 0) {
+            beforeRuns = new Configuration(arguments, workingDirectory, initialized ? Py.getSystemState() : null);
+        }
+
+        configure(args, workingDir);
+    }
+
+    public static synchronized void leaveRun() {
+        if (--activeRuns > 0) {
+            return;
+        }
+
+        Configuration previous = beforeRuns;
+        beforeRuns = null;
+        arguments = previous.arguments;
+        workingDirectory = previous.workingDirectory;
+
+        if (previous.path != null) {
+            PySystemState systemState = Py.getSystemState();
+            systemState.argv = previous.argv;
+            systemState.path.clear();
+            systemState.path.extend(previous.path);
+            systemState.setCurrentWorkingDir(previous.currentWorkingDir);
+        }
+    }
+
+    public static boolean isInitialized() {
+        return initialized;
+    }
+
+    public static synchronized void initialize() {
+        if (initialized) {
+            return;
+        }
+
+        if (PythonOptions.TraceJythonRuntime) {
+            // CheckStyle: stop system..print check
+            System.out.println("[ZipPy] initializing jython runtime");
+            // CheckStyle: resume system..print check
+        }
+
+        if (beforeRuns == null) {
+            start(arguments, workingDirectory);
+        } else {
+            // Start in the configuration the runs restore, then switch to the current run's.
+            start(beforeRuns.arguments, beforeRuns.workingDirectory);
+            beforeRuns = new Configuration(beforeRuns.arguments, beforeRuns.workingDirectory, Py.getSystemState());
+            apply(Py.getSystemState(), arguments, workingDirectory);
+        }
+    }
+
+    private static void start(String[] args, String workingDir) {
+        PySystemState systemState = createPySystemState(args);
+        setPySystemState(systemState, workingDir);
+        // Unbuffered, so that sys.stdout.write stays in order with print.
+        systemState.stdout = new PyFile(new ContextStandardOut(), "w", 0);
+        initialized = true;
+    }
+
+    private static void apply(PySystemState systemState, String[] args, String workingDir) {
+        systemState.argv = passArgs(args);
+        if (workingDir != null) {
+            setWorkingDirectory(systemState, workingDir);
+        }
+    }
+
+    public static PySystemState getSystemState() {
+        initialize();
+        return Py.getSystemState();
+    }
+
+    public static PyObject getDefaultBuiltins() {
+        initialize();
+        return PySystemState.getDefaultBuiltins();
+    }
+
+    /**
+     * Flushes Jython's stdout if the runtime was ever started.
+     */
+    public static void flushLine() {
+        if (initialized) {
+            Py.flushLine();
+        }
+    }
+
+    /**
+     * Runs exit functions and flushes Jython's streams if the runtime was ever started.
+     */
+    public static void cleanup() {
+        if (!initialized) {
+            return;
+        }
+
+        PySystemState systemState = Py.getSystemState();
+        systemState.callExitFunc();
+
+        try {
+            systemState.stdout.invoke("flush");
+        } catch (PyException e) {
+            // nothing to do
+        }
+
+        try {
+            systemState.stderr.invoke("flush");
+        } catch (PyException e) {
+            // nothing to do
+        }
+    }
+
+    private static PyList passArgs(String[] args) {
+        PyList argv = new PyList();
+        for (String arg : args) {
+            argv.append(Py.newStringOrUnicode(arg));
+        }
+        return argv;
+    }
+
+    private static PySystemState createPySystemState(String[] args) {
+        // Setup the basic python system state from these options
+        if (args.length > 0) {
+            Py.setSystemState(new PySystemState()).argv = passArgs(args);
+            Py.getSystemState().argv = passArgs(args);
+        } else {
+            PySystemState.initialize(PySystemState.getBaseProperties(), PySystemState.getBaseProperties(), args);
+        }
+
+        return Py.getSystemState();
+    }
+
+    private static void setPySystemState(PySystemState systemState, String workingDir) {
+        try {
+            // Modify verion info in Jython runtime
+            Field field = PySystemState.class.getField("version_info");
+            field.setAccessible(true);
+
+            Field modifiersField = Field.class.getDeclaredField("modifiers");
+            modifiersField.setAccessible(true);
+            modifiersField.setInt(field, field.getModifiers() & ~Modifier.FINAL);
+
+            field.set(null, new PyTuple(Py.newInteger(3), Py.newInteger(5), Py.newInteger(0), Py.newString("zippy"), Py.newInteger(0)));
+            modifiersField.setInt(field, field.getModifiers() & Modifier.FINAL);
+        } catch (Exception e) {
+            // pass through
+        }
+
+        setWorkingDirectory(systemState, System.getProperty("user.dir"));
+        if (workingDir != null) {
+            setWorkingDirectory(systemState, workingDir);
+        }
+    }
+
+    private static void setWorkingDirectory(PySystemState systemState, String workingPath) {
+        PyString entry = new PyString(workingPath);
+        if (!systemState.path.__contains__(entry)) {
+            systemState.path.insert(0, entry);
+        }
+
+        systemState.setCurrentWorkingDir(workingPath);
+    }
+
+    private static final class Configuration {
+
+        private final String[] arguments;
+        private final String workingDirectory;
+
+        /**
+         * Copies of Jython's sys.argv and sys.path and its working directory, null if Jython was
+         * not running.
+         */
+        private final PyList argv;
+        private final PyList path;
+        private final String currentWorkingDir;
+
+        private Configuration(String[] arguments, String workingDirectory, PySystemState systemState) {
+            this.arguments = arguments;
+            this.workingDirectory = workingDirectory;
+            this.argv = systemState == null ? null : new PyList((PyObject) systemState.argv);
+            this.path = systemState == null ? null : new PyList((PyObject) systemState.path);
+            this.currentWorkingDir = systemState == null ? null : systemState.getCurrentWorkingDir();
+        }
+
+    }
+
+    /**
+     * Sends Jython's sys.stdout to the buffered output of the context the writing thread runs.
+     */
+    private static final class ContextStandardOut extends OutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            PythonContext context = PythonContext.getCurrent();
+            if (context != null) {
+                context.getStandardOutput().write(b, off, len);
+            } else {
+                System.out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            PythonContext context = PythonContext.getCurrent();
+            if (context != null) {
+                context.getStandardOutput().flush();
+            } else {
+                System.out.flush();
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Answers "where is module X in directory D" from cached directory listings instead of probing the
+ * file system for every candidate file. Misses are answered from the listing as well.
+ * <p>
+ * A listing is revalidated against the directory's modification time at most once per
+ * {@link #REVALIDATE_INTERVAL}, so most lookups cost no system call at all. A listing read within
+ * {@link #MTIME_GRANULARITY} of the directory's modification time is not trusted: a file created in
+ * the same timestamp tick would not change the modification time, so such a listing is read again
+ * on every lookup until the directory has settled. Files written through ZipPy invalidate all
+ * listings immediately via {@link #invalidateCaches()}; changes by other processes to a settled
+ * directory are seen after at most {@link #REVALIDATE_INTERVAL}.
+ */
+public final class ModuleLocationIndex {
+
+    private static final String PACKAGE_INIT = "__init__.py";
+
+    /**
+     * Coarsest modification time resolution of common file systems (FAT), in milliseconds.
+     */
+    private static final long MTIME_GRANULARITY = 2000;
+
+    private static final long REVALIDATE_INTERVAL = 1000;
+
+    private static final AtomicLong generation = new AtomicLong();
+
+    private static final class Listing {
+
+        private final long lastModified;
+        private final Set<String> names;
+        private final boolean settled;
+        private long checkedAt;
+        private long checkedGeneration;
+
+        private Listing(long lastModified, Set<String> names, long now) {
+            this.lastModified = lastModified;
+            this.names = names;
+            this.settled = lastModified == 0L || now - lastModified >= MTIME_GRANULARITY;
+            this.checkedAt = now;
+            this.checkedGeneration = generation.get();
+        }
+
+        private boolean isFresh(long now) {
+            return settled && checkedGeneration == generation.get() && now - checkedAt < REVALIDATE_INTERVAL;
+        }
+
+    }
+
+    /**
+     * Forces every index to revalidate its listings on the next lookup, like Python's
+     * importlib.invalidate_caches().
+     */
+    public static void invalidateCaches() {
+        generation.incrementAndGet();
+    }
+
+    private final Map<String, Listing> listings = new HashMap<>();
+    private final Map<String, String> importerDirectories = new HashMap<>();
+
+    /**
+     * Returns the source file of the module in the given directory, either moduleName.py or the
+     * __init__.py of a package, or null if there is none.
+     */
+    public synchronized String findModule(String directory, String moduleName, boolean packagesFirst) {
+        Listing listing = getListing(directory);
+        if (listing == null) {
+            return null;
+        }
+
+        String path = null;
+        if (packagesFirst) {
+            path = findPackage(directory, moduleName, listing);
+        }
+
+        if (path == null && listing.names.contains(moduleName + ".py")) {
+            path = new File(directory, moduleName + ".py").getPath();
+        }
+
+        if (path == null && !packagesFirst) {
+            path = findPackage(directory, moduleName, listing);
+        }
+
+        return path;
+    }
+
+    /**
+     * Returns the canonical directory of an importing module, resolved once per module path.
+     */
+    public synchronized String getImporterDirectory(String importerPath) {
+        String directory = importerDirectories.get(importerPath);
+
+        if (directory == null && !importerDirectories.containsKey(importerPath)) {
+            try {
+                directory = new File(importerPath).getCanonicalFile().getParent();
+            } catch (IOException ioe) {
+                directory = new File(importerPath).getAbsoluteFile().getParent();
+            }
+
+            importerDirectories.put(importerPath, directory);
+        }
+
+        return directory;
+    }
+
+    private String findPackage(String directory, String moduleName, Listing listing) {
+        if (!listing.names.contains(moduleName)) {
+            return null;
+        }
+
+        String packageDirectory = new File(directory, moduleName).getPath();
+        Listing packageListing = getListing(packageDirectory);
+
+        if (packageListing != null && packageListing.names.contains(PACKAGE_INIT)) {
+            return new File(packageDirectory, PACKAGE_INIT).getPath();
+        }
+
+        return null;
+    }
+
+    private Listing getListing(String directory) {
+        long now = System.currentTimeMillis();
+        Listing listing = listings.get(directory);
+
+        if (listing != null && listing.isFresh(now)) {
+            return listing.names == null ? null : listing;
+        }
+
+        File dir = new File(directory);
+        long lastModified = dir.lastModified();
+
+        if (listing != null && listing.settled && listing.lastModified == lastModified) {
+            listing.checkedAt = now;
+            listing.checkedGeneration = generation.get();
+            return listing.names == null ? null : listing;
+        }
+
+        String[] names = lastModified == 0L ? null : dir.list();
+        listing = new Listing(lastModified, names == null ? null : new HashSet<>(Arrays.asList(names)), now);
+        listings.put(directory, listing);
+
+        if (PythonOptions.TraceImports) {
+            // CheckStyle: stop system..print check
+            System.out.println("[ZipPy] indexed directory " + directory);
+            // CheckStyle: resume system..print check
+        }
+
+        return listing.names == null ? null : listing;
+    }
+
+}
@@ -29,18 +29,30 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.math.BigInteger;
-
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+import com.oracle.truffle.api.Assumption;
 import com.oracle.truffle.api.CompilerDirectives;
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.Truffle;
 import com.oracle.truffle.api.TruffleLanguage;
 import com.oracle.truffle.api.nodes.UnexpectedResultException;
 
 import edu.uci.python.runtime.builtin.PythonBuiltinClass;
 import edu.uci.python.runtime.builtin.PythonBuiltinsLookup;
+import edu.uci.python.runtime.datatype.PFile;
 import edu.uci.python.runtime.datatype.PFloat;
 import edu.uci.python.runtime.datatype.PInt;
 import edu.uci.python.runtime.object.FixedPythonObjectStorage;
 import edu.uci.python.runtime.object.PythonObject;
 import edu.uci.python.runtime.sequence.PString;
+import edu.uci.python.runtime.sequence.PStringRope;
 import edu.uci.python.runtime.standardtype.PythonBuiltinObject;
 import edu.uci.python.runtime.standardtype.PythonClass;
 import edu.uci.python.runtime.standardtype.PythonModule;
@@ -51,6 +63,7 @@ public class PythonContext {
     private PythonModule mainModule;
     private final PythonModule builtinsModule;
     private final PythonOptions options;
+    private final PythonOutputWriter standardOutput;
     private final PythonBuiltinsLookup lookup;
 
     private final PythonBuiltinClass typeClass;
@@ -63,12 +76,35 @@ public class PythonContext {
 
     private final TruffleLanguage.Env env;
 
-    private static PythonContext currentContext;
+    /**
+     * Open files, closed with the context so buffered writes and channels are not leaked.
+     */
+    private final Set<PFile> openFiles = new LinkedHashSet<>();
+
+    /**
+     * The context the current thread runs. Several contexts can coexist in one VM, each thread
+     * enters the one it executes.
+     */
+    private static final ThreadLocal<PythonContext> currentContext = new ThreadLocal<>();
+
+    /**
+     * The context builtin objects resolve their types in while it is the only one created, so the
+     * common single context case needs no thread local lookup.
+     */
+    @CompilationFinal private static PythonContext singleContext;
+    private static final Assumption singleContextAssumption = Truffle.getRuntime().createAssumption("single PythonContext");
+
+    /**
+     * State embedders keep per context, such as the translation of a compiled script. Weak keys, so
+     * that dropping the owner releases its state; values must not refer back to their key.
+     */
+    private final Map<Object, Object> embedderState = new WeakHashMap<>();
 
     private RuntimeException currentException;
 
     public PythonContext(TruffleLanguage.Env env, PythonOptions opts, PythonBuiltinsLookup lookup, PythonParser parser) {
         this.options = opts;
+        this.standardOutput = new PythonOutputWriter(opts.getStandardOut(), Charset.defaultCharset(), PythonOptions.LineBufferedOutput);
         this.lookup = lookup;
         this.typeClass = new PythonBuiltinClass(this, "type", null);
         this.objectClass = new PythonObjectClass(this);
@@ -84,10 +120,15 @@ public class PythonContext {
         this.parser = parser;
         this.importManager = new ImportManager(this);
 
-        // The order matters.
-        currentContext = this;
+        register(this);
 
-        this.builtinsModule = this.lookup.populateBuiltins(this);
+        // Builtins look their types up in the current context while being populated.
+        PythonContext previous = enter();
+        try {
+            this.builtinsModule = this.lookup.populateBuiltins(this);
+        } finally {
+            leave(previous);
+        }
     }
 
     public PythonModule createMainModule(String path) {
@@ -116,14 +157,101 @@ public class PythonContext {
         return lookup;
     }
 
+    /**
+     * Makes this the context of the current thread and returns the one it replaces, which should be
+     * passed to {@link #leave} afterwards.
+     */
+    public PythonContext enter() {
+        PythonContext previous = currentContext.get();
+        currentContext.set(this);
+        return previous;
+    }
+
+    public void leave(PythonContext previous) {
+        if (previous == null) {
+            currentContext.remove();
+        } else {
+            currentContext.set(previous);
+        }
+    }
+
+    @TruffleBoundary
+    public static PythonContext getCurrent() {
+        return currentContext.get();
+    }
+
+    private static synchronized void register(PythonContext context) {
+        if (singleContextAssumption.isValid() && singleContext == null) {
+            singleContext = context;
+        } else {
+            singleContextAssumption.invalidate();
+            singleContext = null;
+        }
+    }
+
+    /**
+     * The context a builtin object without a node at hand resolves its type in: the only context
+     * while there is just one, otherwise the context of the current thread.
+     */
+    public static PythonContext getTypeContext() {
+        PythonContext single = singleContext;
+        if (singleContextAssumption.isValid() && single != null) {
+            return single;
+        }
+        return getCurrent();
+    }
+
+    @TruffleBoundary
+    public PythonBuiltinClass getBuiltinType(Class<? extends PythonBuiltinObject> javaClass) {
+        return lookup.lookupType(javaClass);
+    }
+
+    /**
+     * Looks the type up in {@link #getTypeContext()}. Nodes should prefer {@link #getBuiltinType}
+     * on the context they were created for.
+     */
     public static PythonBuiltinClass getBuiltinTypeFor(Class<? extends PythonBuiltinObject> javaClass) {
-        return currentContext.lookup.lookupType(javaClass);
+        return getTypeContext().getBuiltinType(javaClass);
     }
 
     public OutputStream getStandardOut() {
         return options.getStandardOut();
     }
 
+    /**
+     * The buffered writer print and sys.stdout go through. Whoever ends a run flushes it.
+     */
+    public PythonOutputWriter getStandardOutput() {
+        return standardOutput;
+    }
+
+    public synchronized Object getEmbedderState(Object owner) {
+        return embedderState.get(owner);
+    }
+
+    public synchronized void setEmbedderState(Object owner, Object state) {
+        embedderState.put(owner, state);
+    }
+
+    public synchronized void registerOpenFile(PFile file) {
+        openFiles.add(file);
+    }
+
+    public synchronized void unregisterOpenFile(PFile file) {
+        openFiles.remove(file);
+    }
+
+    public void closeOpenFiles() {
+        ArrayList<PFile> files;
+        synchronized (this) {
+            files = new ArrayList<>(openFiles);
+        }
+
+        for (PFile file : files) {
+            file.close();
+        }
+    }
+
     public PythonBuiltinClass getTypeClass() {
         return typeClass;
     }
@@ -154,6 +282,8 @@ public class PythonContext {
             return new PFloat((double) obj);
         } else if (obj instanceof String) {
             return new PString((String) obj);
+        } else if (obj instanceof PStringRope) {
+            return new PString(obj.toString());
         }
 
         throw new UnexpectedResultException(obj);
@@ -26,6 +26,8 @@ package edu.uci.python.runtime;
 
 import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
@@ -47,6 +49,10 @@ public class PythonOptions {
 
     public static boolean TraceSequenceStorageGeneralization = Boolean.getBoolean(propPkgName + ".TraceSequenceStorageGeneralization"); // false
 
+    public static boolean TraceDictStorageGeneralization = Boolean.getBoolean(propPkgName + ".TraceDictStorageGeneralization"); // false
+
+    public static boolean TraceSetStorageGeneralization = Boolean.getBoolean(propPkgName + ".TraceSetStorageGeneralization"); // false
+
     public static boolean TraceObjectLayoutCreation = Boolean.getBoolean(propPkgName + ".TraceObjectLayoutCreation"); // false
 
     // Object storage allocation
@@ -55,6 +61,22 @@ public class PythonOptions {
     // Translation flags
     public static boolean UsePrintFunction = Boolean.getBoolean(propPkgName + ".UsePrintFunction"); // false
 
+    public static boolean NativeParser = !Boolean.getBoolean(propPkgName + ".disableNativeParser"); // true
+
+    public static boolean TraceNativeParser = Boolean.getBoolean(propPkgName + ".TraceNativeParser"); // false
+
+    public static boolean CacheParsedModules = Boolean.getBoolean(propPkgName + ".CacheParsedModules"); // false
+
+    public static String ModuleCacheDir = System.getProperty(propPkgName + ".ModuleCacheDir", System.getProperty("user.home") + "/.zippy/cache"); // ~/.zippy/cache
+
+    public static boolean ModuleCacheInMemory = Boolean.getBoolean(propPkgName + ".ModuleCacheInMemory"); // false
+
+    public static boolean TraceModuleCache = Boolean.getBoolean(propPkgName + ".TraceModuleCache"); // false
+
+    public static boolean LazyFunctionTranslation = !Boolean.getBoolean(propPkgName + ".disableLazyFunctionTranslation"); // true
+
+    public static boolean PrefetchImports = !Boolean.getBoolean(propPkgName + ".disablePrefetchImports"); // true
+
     // Runtime flags
     public static boolean UnboxSequenceStorage = !Boolean.getBoolean(propPkgName + ".disableUnboxSequenceStorage"); // true
 
@@ -81,6 +103,8 @@ public class PythonOptions {
 
     public static boolean TraceNodesUsingExistingProbe = Boolean.getBoolean(propPkgName + ".TraceNodesUsingExistingProbe"); // false
 
+    public static boolean LineBufferedOutput = System.console() != null || Boolean.getBoolean(propPkgName + ".LineBufferedOutput"); // true on a terminal
+
     public static boolean CatchZippyExceptionForUnitTesting = Boolean.getBoolean(propPkgName + ".CatchZippyExceptionForUnitTesting"); // false
 
     public static boolean forceLongType = Boolean.getBoolean(propPkgName + ".forceLongType"); // false
@@ -89,6 +113,8 @@ public class PythonOptions {
 
     private OutputStream standardErr = System.err;
 
+    private String workingDirectory;
+
     public PythonOptions() {
         standardOut = System.out;
         standardErr = System.err;
@@ -115,6 +141,25 @@ public class PythonOptions {
         standardErr = stderr;
     }
 
+    /**
+     * Sets the directory relative file names are resolved against, null for the process' own.
+     */
+    public void setWorkingDirectory(String workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    public String getWorkingDirectory() {
+        return workingDirectory;
+    }
+
+    /**
+     * Resolves a file name a script passes, relative ones against the working directory.
+     */
+    public Path resolvePath(String name) {
+        Path path = Paths.get(name);
+        return workingDirectory == null || path.isAbsolute() ? path : Paths.get(workingDirectory).resolve(path);
+    }
+
     public OutputStream getStandardErr() {
         return standardErr;
     }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Buffered text writer in front of a context's standard output. Text is collected in a char buffer
+ * and encoded with one reusable {@link CharsetEncoder} into a byte buffer, so a print costs no
+ * intermediate strings or byte arrays and the stream only sees writes of full buffers.
+ * <p>
+ * The writer flushes when it is full, on {@link #flush()} at exit, and after every line when
+ * output is line buffered, which is the default on a terminal.
+ */
+public final class PythonOutputWriter {
+
+    public static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final OutputStream out;
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    private final boolean lineBuffered;
+
+    public PythonOutputWriter(OutputStream out, Charset charset, boolean lineBuffered) {
+        this.out = out;
+        this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.lineBuffered = lineBuffered;
+    }
+
+    @TruffleBoundary
+    public synchronized void write(String s) {
+        int length = s.length();
+        int offset = 0;
+
+        while (offset < length) {
+            if (!chars.hasRemaining()) {
+                encodeChars();
+            }
+
+            int n = Math.min(chars.remaining(), length - offset);
+            chars.put(s, offset, offset + n);
+            offset += n;
+        }
+
+        if (lineBuffered && s.indexOf('\n') >= 0) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes already encoded bytes, for Jython's sys.stdout, keeping them in order with text.
+     */
+    @TruffleBoundary
+    public synchronized void write(byte[] b, int off, int len) {
+        encodeChars();
+
+        if (len > bytes.remaining()) {
+            writeBytes();
+        }
+
+        if (len >= bytes.capacity()) {
+            writeThrough(b, off, len);
+        } else {
+            bytes.put(b, off, len);
+        }
+
+        if (lineBuffered) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    flush();
+                    break;
+                }
+            }
+        }
+    }
+
+    @TruffleBoundary
+    public synchronized void flush() {
+        encodeChars();
+        writeBytes();
+
+        try {
+            out.flush();
+        } catch (IOException e) {
+            // pass through
+        }
+    }
+
+    /**
+     * Encodes the pending chars. A trailing high surrogate stays in the char buffer until its pair
+     * arrives.
+     */
+    private void encodeChars() {
+        chars.flip();
+
+        while (encoder.encode(chars, bytes, false).isOverflow()) {
+            writeBytes();
+        }
+
+        chars.compact();
+    }
+
+    private void writeBytes() {
+        bytes.flip();
+        writeThrough(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        bytes.clear();
+    }
+
+    private void writeThrough(byte[] b, int off, int len) {
+        if (len == 0) {
+            return;
+        }
+
+        try {
+            out.write(b, off, len);
+        } catch (IOException e) {
+            // pass through
+        }
+    }
+
+}
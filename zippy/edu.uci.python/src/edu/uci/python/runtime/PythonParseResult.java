@@ -29,6 +29,7 @@ import java.util.*;
 import com.oracle.truffle.api.nodes.*;
 
 import edu.uci.python.nodes.ModuleNode;
+import edu.uci.python.nodes.function.*;
 import edu.uci.python.runtime.standardtype.*;
 
 public class PythonParseResult {
@@ -61,6 +62,11 @@ public class PythonParseResult {
     public RootNode getFunctionRoot(String functionName) {
         RootNode root = functions.get(functionName);
         assert root != null;
+
+        if (root instanceof FunctionRootNode) {
+            ((FunctionRootNode) root).translateBody();
+        }
+
         return root;
     }
 
@@ -82,7 +88,7 @@ public class PythonParseResult {
             }
 
             printSeparationLine(functionName);
-            RootNode root = functions.get(functionName);
+            RootNode root = getFunctionRoot(functionName);
             NodeUtil.printCompactTree(System.out, root);
         }
     }
@@ -97,7 +103,7 @@ public class PythonParseResult {
         new GraphPrintVisitor().beginGraph("module").visit(rootNode).printToNetwork(true);
 
         for (String functionName : functions.keySet()) {
-            RootNode root = functions.get(functionName);
+            RootNode root = getFunctionRoot(functionName);
             new GraphPrintVisitor().beginGraph(functionName).visit(root).printToNetwork(true);
         }
     }
@@ -37,6 +37,11 @@ public interface PythonBuiltinsLookup {
 
     PythonModule populateBuiltins(PythonContext context);
 
+    /**
+     * Returns true if a builtin module of that name exists, without materializing it.
+     */
+    boolean hasModule(String name);
+
     PythonModule lookupModule(String name);
 
     PythonBuiltinClass lookupType(Class<? extends PythonBuiltinObject> clazz);
@@ -25,12 +25,10 @@
 package edu.uci.python.runtime.datatype;
 
 import java.util.*;
-import java.util.Map.Entry;
-
-import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import edu.uci.python.runtime.*;
 import edu.uci.python.runtime.builtin.*;
+import edu.uci.python.runtime.datatype.storage.*;
 import edu.uci.python.runtime.exception.*;
 import edu.uci.python.runtime.iterator.*;
 import edu.uci.python.runtime.sequence.*;
@@ -38,26 +36,18 @@ import edu.uci.python.runtime.standardtype.*;
 
 public final class PDict extends PythonBuiltinObject implements PIterable {
 
-    public static final PythonBuiltinClass __class__ = PythonContext.getBuiltinTypeFor(PDict.class);
-
-    private final Map<Object, Object> map;
+    private DictStorage store;
 
     public PDict() {
-        map = new TreeMap<>();
-    }
-
-    public PDict(Map<Object, Object> map) {
-        this();
-        addAll(map);
+        store = EmptyDictStorage.INSTANCE;
     }
 
-    @TruffleBoundary
-    private void addAll(Map<Object, Object> mapToAdd) {
-        this.map.putAll(mapToAdd);
+    public PDict(DictStorage store) {
+        this.store = store;
     }
 
     public PDict(PIterator iter) {
-        map = new TreeMap<>();
+        store = EmptyDictStorage.INSTANCE;
 
         try {
             while (true) {
@@ -70,67 +60,86 @@ public final class PDict extends PythonBuiltinObject implements PIterable {
 
     private void unpackKeyValuePair(Object obj) {
         if (obj instanceof PSequence && ((PSequence) obj).len() == 2) {
-            map.put(((PSequence) obj).getItem(0), ((PSequence) obj).getItem(1));
+            setItem(((PSequence) obj).getItem(0), ((PSequence) obj).getItem(1));
         } else {
             throw new RuntimeException("invalid args for dict()");
         }
     }
 
     @Override
-    public PythonBuiltinClass __class__() {
-        return __class__;
+    public PythonBuiltinClass __class__(PythonContext context) {
+        return context.getBuiltinType(PDict.class);
+    }
+
+    public DictStorage getStorage() {
+        return store;
     }
 
     public Object getItem(Object key) {
-        return map.get(key);
+        return store.getItem(key);
     }
 
-    public void setItem(Object key, Object value) {
-        map.put(key, value);
+    public void setItem(Object rawKey, Object value) {
+        // Ropes and string views are stored flattened so that string keys keep their specialized storage.
+        final Object key = PStringRope.flattenString(rawKey);
+
+        try {
+            store.setItem(key, value);
+        } catch (DictStoreException e) {
+            store = store.generalizeFor(key);
+
+            try {
+                store.setItem(key, value);
+            } catch (DictStoreException ex) {
+                throw new IllegalStateException();
+            }
+        }
     }
 
-    public void delItem(Object key) {
-        map.remove(key);
+    public Object delItem(Object key) {
+        return store.delItem(key);
     }
 
-    public Collection<Object> items() {
-        return map.values();
+    public Iterable<Object> keys() {
+        return new Iterable<Object>() {
+            public Iterator<Object> iterator() {
+                return store.keyIterator();
+            }
+        };
     }
 
-    public Collection<Object> keys() {
-        return map.keySet();
+    public boolean hasKey(Object key) {
+        return store.hasKey(key);
     }
 
-    public Map<Object, Object> getMap() {
-        return map;
+    public PDict copy() {
+        return new PDict(store.copy());
     }
 
-    public boolean hasKey(Object key) {
-        return this.map.containsKey(key);
+    public void clear() {
+        store = EmptyDictStorage.INSTANCE;
     }
 
     public PIterator __iter__() {
-        return new PDictIterator(map.keySet().iterator());
+        return new PDictIterator(store.keyIterator());
     }
 
     public PIterator values() {
-        return new PDictIterator(map.values().iterator());
+        return new PDictIterator(store.valueIterator());
     }
 
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder("{");
-        int length = map.size();
-        int i = 0;
+        int i = store.nextEntry(0);
 
-        for (Entry<?, ?> entry : map.entrySet()) {
-            buf.append(entry.getKey() + ": " + entry.getValue());
+        while (i >= 0) {
+            buf.append(store.getKeyAt(i) + ": " + store.getValueAt(i));
+            i = store.nextEntry(i + 1);
 
-            if (i < length - 1) {
+            if (i >= 0) {
                 buf.append(", ");
             }
-
-            i++;
         }
 
         buf.append("}");
@@ -139,7 +148,7 @@ public final class PDict extends PythonBuiltinObject implements PIterable {
 
     @Override
     public int len() {
-        return map.size();
+        return store.length();
     }
 
     @Override
@@ -149,7 +158,7 @@ public final class PDict extends PythonBuiltinObject implements PIterable {
         }
 
         PDict otherDict = (PDict) other;
-        return map.equals(otherDict.getMap());
+        return store.equals(otherDict.getStorage());
     }
 
     @Override
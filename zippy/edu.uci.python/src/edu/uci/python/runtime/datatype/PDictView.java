@@ -24,9 +24,7 @@
  */
 package edu.uci.python.runtime.datatype;
 
-import java.util.*;
-import java.util.Map.Entry;
-
+import edu.uci.python.runtime.datatype.storage.*;
 import edu.uci.python.runtime.exception.*;
 import edu.uci.python.runtime.iterator.*;
 import edu.uci.python.runtime.sequence.*;
@@ -68,17 +66,20 @@ public class PDictView {
 
     public static final class PDictViewItemsIterator implements PIterator {
 
-        private final Iterator<Entry<Object, Object>> iterator;
+        private final DictStorage store;
+        private int index;
 
         public PDictViewItemsIterator(PDict dict) {
-            iterator = dict.getMap().entrySet().iterator();
+            store = dict.getStorage();
+            index = store.nextEntry(0);
         }
 
         @Override
         public Object __next__() throws StopIterationException {
-            if (iterator.hasNext()) {
-                Entry<Object, Object> entry = iterator.next();
-                return new PTuple(new Object[]{entry.getKey(), entry.getValue()});
+            if (index >= 0) {
+                final int current = index;
+                index = store.nextEntry(current + 1);
+                return new PTuple(new Object[]{store.getKeyAt(current), store.getValueAt(current)});
             }
 
             throw StopIterationException.INSTANCE;
@@ -0,0 +1,602 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import org.python.core.*;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.builtin.*;
+import edu.uci.python.runtime.exception.*;
+import edu.uci.python.runtime.iterator.*;
+import edu.uci.python.runtime.sequence.*;
+import edu.uci.python.runtime.sequence.storage.*;
+import edu.uci.python.runtime.standardtype.*;
+
+/**
+ * A file object returned by the native open(), reading and writing a {@link FileChannel} through
+ * direct buffers.
+ * <p>
+ * Lines are found by scanning the read buffer for the newline byte and decoded straight out of the
+ * buffer, so a line costs one decode and one String. The buffer grows when a line does not fit.
+ * Text mode needs an encoding in which the newline is the single byte '\n', and reads "\r\n" as
+ * "\n". Files open for reading or writing but not both, and do not seek.
+ * <p>
+ * A file opened with mmap=True maps the whole file read-only and uses the mapping as its read
+ * buffer. Lines and reads in binary mode are then {@link PBytes} views of the mapping, so scanning a
+ * large file copies nothing into the heap. Views stay valid after the file is closed.
+ */
+public final class PFile extends PythonBuiltinObject implements PIterator {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CHUNK_SIZE = 8 * 1024;
+
+    private final PythonContext context;
+    private final String name;
+    private final String mode;
+    private final boolean binary;
+    private final boolean writable;
+    private final boolean mapped;
+    private final FileChannel channel;
+    private final Charset charset;
+    private final CharsetDecoder decoder;
+    private final CharsetEncoder encoder;
+
+    /**
+     * Unread bytes are between position and limit.
+     */
+    private ByteBuffer readBuffer;
+    private final ByteBuffer writeBuffer;
+    private CharBuffer lineChars;
+    private boolean eof;
+    private boolean closed;
+
+    private PFile(PythonContext context, String name, String mode, boolean binary, boolean writable, boolean mapped, FileChannel channel, Charset charset) {
+        this.context = context;
+        this.name = name;
+        this.mode = mode;
+        this.binary = binary;
+        this.writable = writable;
+        this.mapped = mapped;
+        this.channel = channel;
+        this.charset = charset;
+        this.decoder = charset.newDecoder();
+        this.encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        if (writable) {
+            this.readBuffer = null;
+            this.writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        } else if (mapped) {
+            this.readBuffer = map(channel, name);
+            this.writeBuffer = null;
+            this.eof = true;
+        } else {
+            this.readBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            this.readBuffer.limit(0);
+            this.writeBuffer = null;
+        }
+    }
+
+    /**
+     * Opens a file with one of the modes r, w, a or x, optionally with b or t. Files the script
+     * does not close are closed with the context, flushing any buffered writes.
+     */
+    @TruffleBoundary
+    public static PFile open(PythonContext context, String name, String mode, String encoding, boolean mmap) {
+        Set<OpenOption> options = new HashSet<>();
+        boolean binary = false;
+        boolean writable = false;
+
+        for (int i = 0; i < mode.length(); i++) {
+            switch (mode.charAt(i)) {
+                case 'r':
+                    options.add(StandardOpenOption.READ);
+                    break;
+                case 'w':
+                    options.addAll(Arrays.asList(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+                    writable = true;
+                    break;
+                case 'a':
+                    options.addAll(Arrays.asList(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+                    writable = true;
+                    break;
+                case 'x':
+                    options.addAll(Arrays.asList(StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW));
+                    writable = true;
+                    break;
+                case 'b':
+                    binary = true;
+                    break;
+                case 't':
+                    break;
+                case '+':
+                    throw Py.ValueError("mode '" + mode + "' is not supported");
+                default:
+                    throw Py.ValueError("invalid mode: '" + mode + "'");
+            }
+        }
+
+        if (options.isEmpty() || (writable && options.contains(StandardOpenOption.READ))) {
+            throw Py.ValueError("invalid mode: '" + mode + "'");
+        }
+
+        if (mmap && writable) {
+            throw Py.ValueError("mmap is only supported for reading");
+        }
+
+        if (binary && encoding != null) {
+            throw Py.ValueError("binary mode doesn't take an encoding argument");
+        }
+
+        Charset charset = Charset.defaultCharset();
+        if (encoding != null) {
+            try {
+                charset = Charset.forName(encoding);
+            } catch (IllegalArgumentException e) {
+                throw Py.LookupError("unknown encoding: " + encoding);
+            }
+        }
+
+        if (!binary && !Arrays.equals("\n".getBytes(charset), new byte[]{'\n'})) {
+            throw Py.ValueError("encoding " + charset.name() + " is not supported");
+        }
+
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(context.getPythonOptions().resolvePath(name), options);
+        } catch (NoSuchFileException e) {
+            throw Py.IOError("[Errno 2] No such file or directory: '" + name + "'");
+        } catch (FileAlreadyExistsException e) {
+            throw Py.IOError("[Errno 17] File exists: '" + name + "'");
+        } catch (IOException | InvalidPathException e) {
+            throw Py.IOError(e.getMessage());
+        }
+
+        PFile file;
+        try {
+            file = new PFile(context, name, mode, binary, writable, mmap, channel, charset);
+        } catch (RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException ioe) {
+                // pass through
+            }
+            throw e;
+        }
+
+        context.registerOpenFile(file);
+        if (writable) {
+            ModuleLocationIndex.invalidateCaches();
+        }
+
+        return file;
+    }
+
+    @Override
+    public PythonBuiltinClass __class__(PythonContext context) {
+        return context.getBuiltinType(PFile.class);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the next line including its newline, or null at the end of the file.
+     */
+    @TruffleBoundary
+    public Object readLine() {
+        checkReadable();
+        int scanned = readBuffer.position();
+
+        while (true) {
+            for (int i = scanned; i < readBuffer.limit(); i++) {
+                if (readBuffer.get(i) == '\n') {
+                    return takeLine(i + 1);
+                }
+            }
+
+            scanned = readBuffer.limit() - readBuffer.position();
+            if (!fill()) {
+                return readBuffer.hasRemaining() ? takeLine(readBuffer.limit()) : null;
+            }
+        }
+    }
+
+    @Override
+    public Object __next__() throws StopIterationException {
+        Object line = readLine();
+
+        if (line == null) {
+            throw StopIterationException.INSTANCE;
+        }
+
+        return line;
+    }
+
+    @TruffleBoundary
+    public PList readLines() {
+        List<Object> lines = new ArrayList<>();
+        Object line;
+
+        while ((line = readLine()) != null) {
+            lines.add(line);
+        }
+
+        return new PList(SequenceStorageFactory.createStorage(lines.toArray()));
+    }
+
+    /**
+     * Reads up to size characters, or bytes in binary mode, or everything that is left if size is
+     * negative.
+     */
+    @TruffleBoundary
+    public Object read(int size) {
+        checkReadable();
+
+        if (binary && mapped) {
+            int start = readBuffer.position();
+            int end = size < 0 ? readBuffer.limit() : Math.min(readBuffer.limit(), start + size);
+            readBuffer.position(end);
+            return new PBytes(viewOf(start, end));
+        }
+
+        return binary ? new PBytes(readBytes(size)) : readText(size);
+    }
+
+    @TruffleBoundary
+    public int write(String text) {
+        checkWritable();
+        if (binary) {
+            throw Py.TypeError("a bytes-like object is required, not 'str'");
+        }
+
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (encoder.encode(chars, writeBuffer, false).isOverflow()) {
+            drainWriteBuffer();
+        }
+
+        return text.length();
+    }
+
+    @TruffleBoundary
+    public int write(PBytes bytes) {
+        checkWritable();
+        if (!binary) {
+            throw Py.TypeError("must be str, not bytes");
+        }
+
+        ByteBuffer data = bytes.getBuffer();
+        int length = data.remaining();
+        if (length > writeBuffer.remaining()) {
+            drainWriteBuffer();
+        }
+
+        if (length >= writeBuffer.capacity()) {
+            writeFully(data);
+        } else {
+            writeBuffer.put(data);
+        }
+
+        return length;
+    }
+
+    @TruffleBoundary
+    public void flush() {
+        checkOpen();
+        if (writable) {
+            drainWriteBuffer();
+        }
+    }
+
+    @TruffleBoundary
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        try {
+            if (writable) {
+                drainWriteBuffer();
+            }
+        } finally {
+            context.unregisterOpenFile(this);
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // pass through
+            }
+        }
+    }
+
+    private Object takeLine(int end) {
+        int start = readBuffer.position();
+        Object line;
+
+        if (binary && mapped) {
+            readBuffer.position(end);
+            return new PBytes(viewOf(start, end));
+        } else if (binary) {
+            byte[] bytes = new byte[end - start];
+            readBuffer.get(bytes);
+            return new PBytes(bytes);
+        }
+
+        ByteBuffer bytes = readBuffer.duplicate();
+        if (end - start >= 2 && readBuffer.get(end - 2) == '\r' && readBuffer.get(end - 1) == '\n') {
+            bytes.limit(end - 2);
+            line = decodeLine(bytes, true);
+        } else {
+            bytes.limit(end);
+            line = decodeLine(bytes, false);
+        }
+
+        readBuffer.position(end);
+        return line;
+    }
+
+    private String decodeLine(ByteBuffer bytes, boolean appendNewline) {
+        int capacity = (int) (bytes.remaining() * decoder.maxCharsPerByte()) + 1;
+        if (lineChars == null || lineChars.capacity() < capacity) {
+            lineChars = CharBuffer.allocate(Math.max(capacity, CHUNK_SIZE));
+        }
+
+        lineChars.clear();
+        decoder.reset();
+        CoderResult result = decoder.decode(bytes, lineChars, true);
+        if (result.isError()) {
+            throw decodeError();
+        }
+
+        decoder.flush(lineChars);
+        if (appendNewline) {
+            lineChars.put('\n');
+        }
+
+        lineChars.flip();
+        return lineChars.toString();
+    }
+
+    private byte[] readBytes(int size) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[CHUNK_SIZE];
+
+        while (size < 0 || bytes.size() < size) {
+            if (!readBuffer.hasRemaining() && !fill()) {
+                break;
+            }
+
+            int n = Math.min(readBuffer.remaining(), chunk.length);
+            if (size >= 0) {
+                n = Math.min(n, size - bytes.size());
+            }
+
+            readBuffer.get(chunk, 0, n);
+            bytes.write(chunk, 0, n);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes up to size characters, translating "\r\n" to "\n" while decoding so that size
+     * counts the characters returned, as readLine does.
+     */
+    private String readText(int size) {
+        StringBuilder text = new StringBuilder();
+        CharBuffer chunk = CharBuffer.allocate(CHUNK_SIZE);
+        decoder.reset();
+
+        while (size < 0 || text.length() < size) {
+            chunk.clear();
+            if (size >= 0) {
+                chunk.limit(Math.min(chunk.capacity(), size - text.length()));
+            }
+
+            CoderResult result = decoder.decode(readBuffer, chunk, eof);
+            if (result.isError()) {
+                throw decodeError();
+            }
+
+            chunk.flip();
+            appendTranslated(text, chunk);
+
+            if (result.isUnderflow()) {
+                if (eof) {
+                    break;
+                }
+
+                fill();
+            }
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * Appends the decoded characters with "\r\n" as "\n". A '\r' that ends the chunk is pending
+     * until the next byte shows whether a '\n' follows it.
+     */
+    private void appendTranslated(StringBuilder text, CharBuffer chars) {
+        int start = 0;
+        int end = chars.limit();
+
+        for (int i = 0; i < end; i++) {
+            if (chars.get(i) != '\r') {
+                continue;
+            }
+
+            text.append(chars, start, i);
+            boolean newline = i + 1 < end ? chars.get(i + 1) == '\n' : skipNewlineByte();
+            if (newline) {
+                text.append('\n');
+                i++;
+            } else {
+                text.append('\r');
+            }
+
+            start = i + 1;
+        }
+
+        text.append(chars, Math.min(start, end), end);
+    }
+
+    /**
+     * Consumes the next byte if it is a '\n', the way readLine recognizes "\r\n".
+     */
+    private boolean skipNewlineByte() {
+        if (!readBuffer.hasRemaining()) {
+            fill();
+        }
+
+        if (readBuffer.hasRemaining() && readBuffer.get(readBuffer.position()) == '\n') {
+            readBuffer.position(readBuffer.position() + 1);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer, growing it if they fill it, and reads more.
+     * Returns false at the end of the file.
+     */
+    private boolean fill() {
+        if (eof) {
+            return false;
+        }
+
+        readBuffer.compact();
+        if (!readBuffer.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(readBuffer.capacity() * 2);
+            readBuffer.flip();
+            larger.put(readBuffer);
+            readBuffer = larger;
+        }
+
+        int n;
+        try {
+            n = channel.read(readBuffer);
+        } catch (IOException e) {
+            throw Py.IOError(e.getMessage());
+        } finally {
+            readBuffer.flip();
+        }
+
+        if (n < 0) {
+            eof = true;
+        }
+
+        return n > 0;
+    }
+
+    private ByteBuffer viewOf(int start, int end) {
+        ByteBuffer view = readBuffer.duplicate();
+        view.position(start);
+        view.limit(end);
+        return view;
+    }
+
+    /**
+     * The mapping outlives the channel, so the channel is closed as soon as the file is mapped.
+     */
+    private static ByteBuffer map(FileChannel channel, String name) {
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw Py.OverflowError("cannot mmap " + name + ", it is larger than 2 GB");
+            }
+
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        } catch (IOException e) {
+            throw Py.IOError(e.getMessage());
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // pass through
+            }
+        }
+    }
+
+    private void drainWriteBuffer() {
+        writeBuffer.flip();
+        writeFully(writeBuffer);
+        writeBuffer.clear();
+    }
+
+    private void writeFully(ByteBuffer bytes) {
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            throw Py.IOError(e.getMessage());
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw Py.ValueError("I/O operation on closed file.");
+        }
+    }
+
+    private void checkReadable() {
+        checkOpen();
+        if (writable) {
+            throw Py.IOError("File not open for reading");
+        }
+    }
+
+    private void checkWritable() {
+        checkOpen();
+        if (!writable) {
+            throw Py.IOError("File not open for writing");
+        }
+    }
+
+    private PyException decodeError() {
+        return Py.ValueError("'" + charset.name() + "' codec can't decode a line of " + name);
+    }
+
+    @Override
+    public String toString() {
+        return "<file name='" + name + "' mode='" + mode + "'>";
+    }
+
+}
@@ -30,8 +30,6 @@ import edu.uci.python.runtime.standardtype.*;
 
 public class PFloat extends PythonBuiltinObject {
 
-    public static final PythonBuiltinClass __class__ = PythonContext.getBuiltinTypeFor(PFloat.class);
-
     private final double value;
 
     public PFloat(double value) {
@@ -39,8 +37,8 @@ public class PFloat extends PythonBuiltinObject {
     }
 
     @Override
-    public PythonBuiltinClass __class__() {
-        return __class__;
+    public PythonBuiltinClass __class__(PythonContext context) {
+        return context.getBuiltinType(PFloat.class);
     }
 
     public double getValue() {
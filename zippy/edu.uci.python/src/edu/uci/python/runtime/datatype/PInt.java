@@ -32,8 +32,6 @@ import edu.uci.python.runtime.standardtype.*;
 
 public final class PInt extends PythonBuiltinObject {
 
-    public static final PythonBuiltinClass __class__ = PythonContext.getBuiltinTypeFor(PInt.class);
-
     private final BigInteger value;
 
     public PInt(int value) {
@@ -49,8 +47,8 @@ public final class PInt extends PythonBuiltinObject {
     }
 
     @Override
-    public PythonBuiltinClass __class__() {
-        return __class__;
+    public PythonBuiltinClass __class__(PythonContext context) {
+        return context.getBuiltinType(PInt.class);
     }
 
     public BigInteger getValue() {
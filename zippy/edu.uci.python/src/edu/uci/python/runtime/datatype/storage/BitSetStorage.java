@@ -0,0 +1,307 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype.storage;
+
+import java.io.*;
+import java.util.*;
+
+import edu.uci.python.runtime.*;
+
+/**
+ * Dense bitmap set storage for small non-negative ints, the common case of sets of indices, node
+ * ids or digits. Membership is a single word test and the set algebra works a word at a time.
+ * Iteration yields elements in ascending order.
+ */
+public final class BitSetStorage extends SetStorage {
+
+    /**
+     * Elements must lie in {@code [0, LIMIT)}, which caps the bitmap at 512 bytes.
+     */
+    public static final int LIMIT = 4096;
+
+    private long[] words;
+    private int size;
+
+    public BitSetStorage() {
+        this.words = new long[1];
+    }
+
+    private BitSetStorage(long[] words, int size) {
+        this.words = words;
+        this.size = size;
+    }
+
+    public static boolean fits(int element) {
+        return element >= 0 && element < LIMIT;
+    }
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    @Override
+    public BitSetStorage copy() {
+        return new BitSetStorage(words.clone(), size);
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return IntSetStorage.isIntElement(element) && containsInt(IntSetStorage.toInt(element));
+    }
+
+    @Override
+    public boolean containsInt(int element) {
+        final int word = element >> 6;
+        return element >= 0 && word < words.length && (words[word] & (1L << element)) != 0;
+    }
+
+    @Override
+    public boolean add(Object element) throws SetStoreException {
+        if (element instanceof Integer && fits((int) element)) {
+            return addInt((int) element);
+        }
+
+        throw SetStoreException.INSTANCE;
+    }
+
+    /**
+     * The caller guarantees {@link #fits(int)}.
+     */
+    public boolean addInt(int element) {
+        final int word = element >> 6;
+
+        if (word >= words.length) {
+            words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+        }
+
+        final long bit = 1L << element;
+
+        if ((words[word] & bit) != 0) {
+            return false;
+        }
+
+        words[word] |= bit;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        if (!contains(element)) {
+            return false;
+        }
+
+        final int value = IntSetStorage.toInt(element);
+        words[value >> 6] &= ~(1L << value);
+        size--;
+        return true;
+    }
+
+    @Override
+    public int nextElement(int from) {
+        int word = from >> 6;
+
+        if (word >= words.length) {
+            return -1;
+        }
+
+        long bits = words[word] & (-1L << from);
+
+        while (true) {
+            if (bits != 0) {
+                return (word << 6) + Long.numberOfTrailingZeros(bits);
+            }
+
+            if (++word == words.length) {
+                return -1;
+            }
+
+            bits = words[word];
+        }
+    }
+
+    @Override
+    public Object getElementAt(int slot) {
+        return slot;
+    }
+
+    @Override
+    public boolean addAll(SetStorage other) throws SetStoreException {
+        if (!(other instanceof BitSetStorage)) {
+            throw SetStoreException.INSTANCE;
+        }
+
+        final long[] otherWords = ((BitSetStorage) other).words;
+
+        if (otherWords.length > words.length) {
+            words = Arrays.copyOf(words, otherWords.length);
+        }
+
+        int newSize = 0;
+
+        for (int i = 0; i < words.length; i++) {
+            if (i < otherWords.length) {
+                words[i] |= otherWords[i];
+            }
+
+            newSize += Long.bitCount(words[i]);
+        }
+
+        final boolean changed = newSize != size;
+        size = newSize;
+        return changed;
+    }
+
+    @Override
+    public SetStorage intersection(SetStorage other) {
+        if (other instanceof BitSetStorage) {
+            final long[] otherWords = ((BitSetStorage) other).words;
+            final long[] result = new long[Math.min(words.length, otherWords.length)];
+            int resultSize = 0;
+
+            for (int i = 0; i < result.length; i++) {
+                result[i] = words[i] & otherWords[i];
+                resultSize += Long.bitCount(result[i]);
+            }
+
+            return new BitSetStorage(result, resultSize);
+        }
+
+        final long[] result = new long[words.length];
+        int resultSize = 0;
+
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            if (other.containsInt(i)) {
+                result[i >> 6] |= 1L << i;
+                resultSize++;
+            }
+        }
+
+        return new BitSetStorage(result, resultSize);
+    }
+
+    @Override
+    public SetStorage difference(SetStorage other) {
+        final long[] result = words.clone();
+        int resultSize = 0;
+
+        if (other instanceof BitSetStorage) {
+            final long[] otherWords = ((BitSetStorage) other).words;
+
+            for (int i = 0; i < result.length; i++) {
+                if (i < otherWords.length) {
+                    result[i] &= ~otherWords[i];
+                }
+
+                resultSize += Long.bitCount(result[i]);
+            }
+
+            return new BitSetStorage(result, resultSize);
+        }
+
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            if (other.containsInt(i)) {
+                result[i >> 6] &= ~(1L << i);
+            } else {
+                resultSize++;
+            }
+        }
+
+        return new BitSetStorage(result, resultSize);
+    }
+
+    @Override
+    public boolean isSubsetOf(SetStorage other) {
+        if (other instanceof BitSetStorage) {
+            final long[] otherWords = ((BitSetStorage) other).words;
+
+            for (int i = 0; i < words.length; i++) {
+                final long otherWord = i < otherWords.length ? otherWords[i] : 0;
+
+                if ((words[i] & ~otherWord) != 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            if (!other.containsInt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isDisjointWith(SetStorage other) {
+        if (other instanceof BitSetStorage) {
+            final long[] otherWords = ((BitSetStorage) other).words;
+            final int common = Math.min(words.length, otherWords.length);
+
+            for (int i = 0; i < common; i++) {
+                if ((words[i] & otherWords[i]) != 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            if (other.containsInt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public IntSetStorage toIntStorage() {
+        final IntSetStorage generalized = new IntSetStorage(size);
+
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            generalized.addInt(i);
+        }
+
+        return generalized;
+    }
+
+    @Override
+    public SetStorage generalizeFor(Object element) {
+        final SetStorage generalized = element instanceof Integer ? toIntStorage() : toObjectStorage();
+
+        if (PythonOptions.TraceSetStorageGeneralization) {
+            PrintStream ps = System.out;
+            ps.println("[ZipPy]" + this + " generalizing to " + generalized);
+        }
+
+        return generalized;
+    }
+
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype.storage;
+
+import java.util.*;
+
+/**
+ * Key type specialized dict storages, generalized on the first key the current storage cannot
+ * hold, like {@code SequenceStorage}.
+ * <p>
+ * The non-empty storages share CPython's compact dict layout: a sparse, power of two sized
+ * {@code indices} table maps hash slots to positions in dense arrays that hold the entries in
+ * insertion order. A deleted entry leaves a {@code null} value behind and is squeezed out on the
+ * next resize.
+ */
+public abstract class DictStorage {
+
+    protected static final int FREE = -1;
+    protected static final int DUMMY = -2;
+
+    public abstract int length();
+
+    public abstract DictStorage copy();
+
+    /**
+     * @return the value mapped to the key, or null if the key is absent.
+     */
+    public abstract Object getItem(Object key);
+
+    public abstract void setItem(Object key, Object value) throws DictStoreException;
+
+    /**
+     * @return the removed value, or null if the key was absent.
+     */
+    public abstract Object delItem(Object key);
+
+    public abstract boolean hasKey(Object key);
+
+    /**
+     * Dense position iteration, used as {@code for (int i = nextEntry(0); i >= 0; i = nextEntry(i + 1))}.
+     *
+     * @return the first live entry at or after {@code from}, or -1 when exhausted.
+     */
+    public abstract int nextEntry(int from);
+
+    public abstract Object getKeyAt(int index);
+
+    public abstract Object getValueAt(int index);
+
+    public abstract DictStorage generalizeFor(Object key);
+
+    public Iterator<Object> keyIterator() {
+        return new EntryIterator(this, true);
+    }
+
+    public Iterator<Object> valueIterator() {
+        return new EntryIterator(this, false);
+    }
+
+    /**
+     * Order insensitive comparison, as Python's dict equality.
+     */
+    public boolean equals(DictStorage other) {
+        if (length() != other.length()) {
+            return false;
+        }
+
+        for (int i = nextEntry(0); i >= 0; i = nextEntry(i + 1)) {
+            final Object otherValue = other.getItem(getKeyAt(i));
+
+            if (otherValue == null || !getValueAt(i).equals(otherValue)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    protected static int tableSizeFor(int expectedSize) {
+        return HashingUtil.tableSizeFor(expectedSize);
+    }
+
+    protected static int usableFor(int tableSize) {
+        return HashingUtil.usableFor(tableSize);
+    }
+
+    protected static int nextSlot(int slot, int perturb, int mask) {
+        return HashingUtil.nextSlot(slot, perturb, mask);
+    }
+
+    protected static int[] newIndices(int tableSize) {
+        final int[] indices = new int[tableSize];
+        Arrays.fill(indices, FREE);
+        return indices;
+    }
+
+    /**
+     * Finds an unused slot for a key known to be absent. Slots of deleted entries are recycled.
+     */
+    protected static int findEmptySlot(int[] indices, int hash) {
+        final int mask = indices.length - 1;
+        int slot = hash & mask;
+        int perturb = hash;
+
+        while (indices[slot] >= 0) {
+            perturb >>>= 5;
+            slot = nextSlot(slot, perturb, mask);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Copies all entries, in insertion order, into a storage that accepts any key.
+     */
+    protected ObjectDictStorage toObjectStorage() {
+        final ObjectDictStorage generalized = new ObjectDictStorage(length());
+
+        for (int i = nextEntry(0); i >= 0; i = nextEntry(i + 1)) {
+            generalized.setObjectItem(getKeyAt(i), getValueAt(i));
+        }
+
+        return generalized;
+    }
+
+    private static final class EntryIterator implements Iterator<Object> {
+
+        private final DictStorage store;
+        private final boolean yieldKeys;
+        private int next;
+
+        EntryIterator(DictStorage store, boolean yieldKeys) {
+            this.store = store;
+            this.yieldKeys = yieldKeys;
+            this.next = store.nextEntry(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public Object next() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+
+            final int current = next;
+            next = store.nextEntry(current + 1);
+            return yieldKeys ? store.getKeyAt(current) : store.getValueAt(current);
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype.storage;
+
+import java.math.*;
+
+import edu.uci.python.runtime.sequence.*;
+
+/**
+ * Hashing, key equality and table sizing shared by the hash based dict and set storages.
+ * <p>
+ * Python requires numerically equal keys to be interchangeable, so {@code 1}, {@code 1L},
+ * {@code 1.0} and {@code True} must hash alike and compare equal. Java's boxed types do not agree
+ * on that, hence the normalization here.
+ */
+public final class HashingUtil {
+
+    public static final int MIN_TABLE_SIZE = 8;
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    private HashingUtil() {
+    }
+
+    public static int hash(Object key) {
+        if (key instanceof Integer) {
+            return hashLong((int) key);
+        } else if (key instanceof String) {
+            return key.hashCode();
+        } else if (key instanceof Long) {
+            return hashLong((long) key);
+        } else if (key instanceof Boolean) {
+            return (boolean) key ? 1 : 0;
+        } else if (key instanceof Double) {
+            return hashDouble((double) key);
+        } else if (key instanceof BigInteger) {
+            return hashBigInteger((BigInteger) key);
+        } else if (key instanceof PString) {
+            return ((PString) key).getValue().hashCode();
+        } else if (key instanceof PStringRope) {
+            return key.toString().hashCode();
+        }
+
+        return key.hashCode();
+    }
+
+    public static int hashLong(long value) {
+        return (int) (value ^ (value >>> 32));
+    }
+
+    public static int hashDouble(double value) {
+        final long asLong = (long) value;
+
+        if (asLong == value) {
+            return hashLong(asLong);
+        }
+
+        return Double.hashCode(value);
+    }
+
+    private static int hashBigInteger(BigInteger value) {
+        if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) {
+            return hashLong(value.longValue());
+        }
+
+        return value.hashCode();
+    }
+
+    /**
+     * @return the smallest power of two table that fits {@code expectedSize} entries within a 2/3
+     *         load factor.
+     */
+    public static int tableSizeFor(int expectedSize) {
+        int tableSize = MIN_TABLE_SIZE;
+
+        while (usableFor(tableSize) < expectedSize) {
+            tableSize <<= 1;
+        }
+
+        return tableSize;
+    }
+
+    public static int usableFor(int tableSize) {
+        return (tableSize << 1) / 3;
+    }
+
+    /**
+     * CPython's probe sequence. Mixing in the shifted {@code perturb} makes every hash bit matter,
+     * and once it drops to zero the recurrence visits every slot of a power of two table.
+     */
+    public static int nextSlot(int slot, int perturb, int mask) {
+        return (slot * 5 + perturb + 1) & mask;
+    }
+
+    public static boolean keyEquals(Object left, Object right) {
+        if (left == right) {
+            return true;
+        }
+
+        if (left instanceof String && right instanceof String) {
+            return left.equals(right);
+        }
+
+        if (isNumeric(left) && isNumeric(right)) {
+            return numericEquals(left, right);
+        }
+
+        return asKey(left).equals(asKey(right));
+    }
+
+    private static Object asKey(Object key) {
+        if (key instanceof PString) {
+            return ((PString) key).getValue();
+        } else if (key instanceof PStringRope) {
+            return key.toString();
+        }
+
+        return key;
+    }
+
+    private static boolean isNumeric(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Boolean || value instanceof Double || value instanceof BigInteger;
+    }
+
+    private static boolean numericEquals(Object left, Object right) {
+        if (left instanceof Double || right instanceof Double) {
+            return toDouble(left) == toDouble(right);
+        }
+
+        if (left instanceof BigInteger || right instanceof BigInteger) {
+            return toBigInteger(left).equals(toBigInteger(right));
+        }
+
+        return toLong(left) == toLong(right);
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Boolean) {
+            return (boolean) value ? 1 : 0;
+        }
+
+        return ((Number) value).longValue();
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Boolean) {
+            return (boolean) value ? 1 : 0;
+        }
+
+        return ((Number) value).doubleValue();
+    }
+
+    private static BigInteger toBigInteger(Object value) {
+        if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        }
+
+        return BigInteger.valueOf(toLong(value));
+    }
+
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype.storage;
+
+import java.io.*;
+
+import edu.uci.python.runtime.*;
+
+/**
+ * Dict storage for {@code int} keys, kept unboxed in an {@code int[]}.
+ */
+public final class IntDictStorage extends DictStorage {
+
+    private int[] indices;
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int filled;
+
+    public IntDictStorage() {
+        this(0);
+    }
+
+    public IntDictStorage(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private IntDictStorage(IntDictStorage other) {
+        this.indices = other.indices.clone();
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.size = other.size;
+        this.filled = other.filled;
+    }
+
+    private void allocate(int tableSize) {
+        final int usable = usableFor(tableSize);
+        indices = newIndices(tableSize);
+        keys = new int[usable];
+        values = new Object[usable];
+    }
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    @Override
+    public IntDictStorage copy() {
+        return new IntDictStorage(this);
+    }
+
+    private int findSlot(int key) {
+        final int hash = HashingUtil.hashLong(key);
+        final int mask = indices.length - 1;
+        int slot = hash & mask;
+        int perturb = hash;
+
+        while (true) {
+            final int index = indices[slot];
+
+            if (index == FREE) {
+                return -1;
+            }
+
+            if (index >= 0 && keys[index] == key) {
+                return slot;
+            }
+
+            perturb >>>= 5;
+            slot = nextSlot(slot, perturb, mask);
+        }
+    }
+
+    /**
+     * Keys numerically equal to an int, e.g. {@code True} or {@code 2.0}, find int entries too.
+     */
+    private static boolean isIntKey(Object key) {
+        if (key instanceof Integer || key instanceof Boolean) {
+            return true;
+        } else if (key instanceof Long) {
+            final long value = (long) key;
+            return value == (int) value;
+        } else if (key instanceof Double) {
+            final double value = (double) key;
+            return value == (int) value;
+        }
+
+        return false;
+    }
+
+    private static int toIntKey(Object key) {
+        if (key instanceof Boolean) {
+            return (boolean) key ? 1 : 0;
+        }
+
+        return ((Number) key).intValue();
+    }
+
+    @Override
+    public boolean hasKey(Object key) {
+        return isIntKey(key) && findSlot(toIntKey(key)) >= 0;
+    }
+
+    public boolean hasIntKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    @Override
+    public Object getItem(Object key) {
+        return isIntKey(key) ? getIntItem(toIntKey(key)) : null;
+    }
+
+    public Object getIntItem(int key) {
+        final int slot = findSlot(key);
+        return slot < 0 ? null : values[indices[slot]];
+    }
+
+    @Override
+    public void setItem(Object key, Object value) throws DictStoreException {
+        if (key instanceof Integer) {
+            setIntItem((int) key, value);
+        } else {
+            throw DictStoreException.INSTANCE;
+        }
+    }
+
+    public void setIntItem(int key, Object value) {
+        final int slot = findSlot(key);
+
+        if (slot >= 0) {
+            values[indices[slot]] = value;
+            return;
+        }
+
+        if (filled == keys.length) {
+            resize();
+        }
+
+        final int entry = filled++;
+        keys[entry] = key;
+        values[entry] = value;
+        indices[findEmptySlot(indices, HashingUtil.hashLong(key))] = entry;
+        size++;
+    }
+
+    @Override
+    public Object delItem(Object key) {
+        final int slot = isIntKey(key) ? findSlot(toIntKey(key)) : -1;
+
+        if (slot < 0) {
+            return null;
+        }
+
+        final int index = indices[slot];
+        final Object value = values[index];
+        indices[slot] = DUMMY;
+        values[index] = null;
+        size--;
+        return value;
+    }
+
+    private void resize() {
+        final int[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int oldFilled = filled;
+
+        allocate(tableSizeFor(size * 2 + 1));
+        int entry = 0;
+
+        for (int i = 0; i < oldFilled; i++) {
+            if (oldValues[i] != null) {
+                keys[entry] = oldKeys[i];
+                values[entry] = oldValues[i];
+                indices[findEmptySlot(indices, HashingUtil.hashLong(oldKeys[i]))] = entry;
+                entry++;
+            }
+        }
+
+        filled = entry;
+    }
+
+    @Override
+    public int nextEntry(int from) {
+        for (int i = from; i < filled; i++) {
+            if (values[i] != null) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public Object getKeyAt(int index) {
+        return keys[index];
+    }
+
+    public int getIntKeyAt(int index) {
+        return keys[index];
+    }
+
+    @Override
+    public Object getValueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    public DictStorage generalizeFor(Object key) {
+        if (PythonOptions.TraceDictStorageGeneralization) {
+            PrintStream ps = System.out;
+            ps.println("[ZipPy]" + this + " generalizing to ObjectDictStorage");
+        }
+
+        return toObjectStorage();
+    }
+
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype.storage;
+
+import java.io.*;
+
+import edu.uci.python.runtime.*;
+
+/**
+ * Set storage for {@code int} elements, kept unboxed in an {@code int[]} table with a parallel
+ * slot state array.
+ */
+public final class IntSetStorage extends SetStorage {
+
+    private static final byte FREE = 0;
+    private static final byte FULL = 1;
+    private static final byte DELETED = 2;
+
+    private int[] table;
+    private byte[] states;
+    private int size;
+    private int used;
+
+    public IntSetStorage() {
+        this(0);
+    }
+
+    public IntSetStorage(int expectedSize) {
+        allocate(HashingUtil.tableSizeFor(expectedSize));
+    }
+
+    private IntSetStorage(IntSetStorage other) {
+        this.table = other.table.clone();
+        this.states = other.states.clone();
+        this.size = other.size;
+        this.used = other.used;
+    }
+
+    private void allocate(int tableSize) {
+        table = new int[tableSize];
+        states = new byte[tableSize];
+        used = 0;
+    }
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    @Override
+    public IntSetStorage copy() {
+        return new IntSetStorage(this);
+    }
+
+    private int findSlot(int element) {
+        final int hash = HashingUtil.hashLong(element);
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        int perturb = hash;
+
+        while (true) {
+            final byte state = states[slot];
+
+            if (state == FREE) {
+                return -1;
+            }
+
+            if (state == FULL && table[slot] == element) {
+                return slot;
+            }
+
+            perturb >>>= 5;
+            slot = HashingUtil.nextSlot(slot, perturb, mask);
+        }
+    }
+
+    private static int findInsertSlot(byte[] states, int hash) {
+        final int mask = states.length - 1;
+        int slot = hash & mask;
+        int perturb = hash;
+
+        while (states[slot] == FULL) {
+            perturb >>>= 5;
+            slot = HashingUtil.nextSlot(slot, perturb, mask);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Elements numerically equal to an int, e.g. {@code True} or {@code 2.0}, match int elements.
+     */
+    static boolean isIntElement(Object element) {
+        if (element instanceof Integer || element instanceof Boolean) {
+            return true;
+        } else if (element instanceof Long) {
+            final long value = (long) element;
+            return value == (int) value;
+        } else if (element instanceof Double) {
+            final double value = (double) element;
+            return value == (int) value;
+        }
+
+        return false;
+    }
+
+    static int toInt(Object element) {
+        if (element instanceof Boolean) {
+            return (boolean) element ? 1 : 0;
+        }
+
+        return ((Number) element).intValue();
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return isIntElement(element) && findSlot(toInt(element)) >= 0;
+    }
+
+    @Override
+    public boolean containsInt(int element) {
+        return findSlot(element) >= 0;
+    }
+
+    @Override
+    public boolean add(Object element) throws SetStoreException {
+        if (element instanceof Integer) {
+            return addInt((int) element);
+        }
+
+        throw SetStoreException.INSTANCE;
+    }
+
+    public boolean addInt(int element) {
+        if (findSlot(element) >= 0) {
+            return false;
+        }
+
+        if (used + 1 > HashingUtil.usableFor(table.length)) {
+            resize();
+        }
+
+        final int slot = findInsertSlot(states, HashingUtil.hashLong(element));
+
+        if (states[slot] == FREE) {
+            used++;
+        }
+
+        table[slot] = element;
+        states[slot] = FULL;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        return isIntElement(element) && removeInt(toInt(element));
+    }
+
+    public boolean removeInt(int element) {
+        final int slot = findSlot(element);
+
+        if (slot < 0) {
+            return false;
+        }
+
+        states[slot] = DELETED;
+        size--;
+        return true;
+    }
+
+    private void resize() {
+        final int[] oldTable = table;
+        final byte[] oldStates = states;
+
+        allocate(HashingUtil.tableSizeFor(size * 2 + 1));
+
+        for (int i = 0; i < oldTable.length; i++) {
+            if (oldStates[i] == FULL) {
+                final int slot = findInsertSlot(states, HashingUtil.hashLong(oldTable[i]));
+                table[slot] = oldTable[i];
+                states[slot] = FULL;
+                used++;
+            }
+        }
+    }
+
+    @Override
+    public boolean addAll(SetStorage other) throws SetStoreException {
+        final int oldSize = size;
+
+        if (other instanceof IntSetStorage) {
+            final IntSetStorage ints = (IntSetStorage) other;
+
+            for (int i = 0; i < ints.table.length; i++) {
+                if (ints.states[i] == FULL) {
+                    addInt(ints.table[i]);
+                }
+            }
+        } else if (other instanceof BitSetStorage) {
+            for (int i = other.nextElement(0); i >= 0; i = other.nextElement(i + 1)) {
+                addInt(i);
+            }
+        } else {
+            throw SetStoreException.INSTANCE;
+        }
+
+        return size != oldSize;
+    }
+
+    @Override
+    public IntSetStorage intersection(SetStorage other) {
+        final IntSetStorage result = new IntSetStorage();
+
+        for (int i = 0; i < table.length; i++) {
+            if (states[i] == FULL && other.containsInt(table[i])) {
+                result.addInt(table[i]);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public IntSetStorage difference(SetStorage other) {
+        final IntSetStorage result = new IntSetStorage(size);
+
+        for (int i = 0; i < table.length; i++) {
+            if (states[i] == FULL && !other.containsInt(table[i])) {
+                result.addInt(table[i]);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean isSubsetOf(SetStorage other) {
+        for (int i = 0; i < table.length; i++) {
+            if (states[i] == FULL && !other.containsInt(table[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean isDisjointWith(SetStorage other) {
+        for (int i = 0; i < table.length; i++) {
+            if (states[i] == FULL && other.containsInt(table[i])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int nextElement(int from) {
+        for (int i = from; i < states.length; i++) {
+            if (states[i] == FULL) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public Object getElementAt(int slot) {
+        return table[slot];
+    }
+
+    public int getIntElementAt(int slot) {
+        return table[slot];
+    }
+
+    @Override
+    public SetStorage generalizeFor(Object element) {
+        if (PythonOptions.TraceSetStorageGeneralization) {
+            PrintStream ps = System.out;
+            ps.println("[ZipPy]" + this + " generalizing to ObjectSetStorage");
+        }
+
+        return toObjectStorage();
+    }
+
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype.storage;
+
+/**
+ * Generic dict storage accepting any hashable key, with the key hashes cached next to the entries.
+ */
+public final class ObjectDictStorage extends DictStorage {
+
+    private int[] indices;
+    private int[] hashes;
+    private Object[] keys;
+    private Object[] values;
+
+    /**
+     * Number of live entries.
+     */
+    private int size;
+
+    /**
+     * Number of dense entries in use, including deleted ones.
+     */
+    private int filled;
+
+    public ObjectDictStorage() {
+        this(0);
+    }
+
+    public ObjectDictStorage(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private ObjectDictStorage(ObjectDictStorage other) {
+        this.indices = other.indices.clone();
+        this.hashes = other.hashes.clone();
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.size = other.size;
+        this.filled = other.filled;
+    }
+
+    private void allocate(int tableSize) {
+        final int usable = usableFor(tableSize);
+        indices = newIndices(tableSize);
+        hashes = new int[usable];
+        keys = new Object[usable];
+        values = new Object[usable];
+    }
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    @Override
+    public ObjectDictStorage copy() {
+        return new ObjectDictStorage(this);
+    }
+
+    /**
+     * @return the slot in {@code indices} referring to the key, or -1 if the key is absent.
+     */
+    private int findSlot(Object key, int hash) {
+        final int mask = indices.length - 1;
+        int slot = hash & mask;
+        int perturb = hash;
+
+        while (true) {
+            final int index = indices[slot];
+
+            if (index == FREE) {
+                return -1;
+            }
+
+            if (index >= 0 && hashes[index] == hash && HashingUtil.keyEquals(keys[index], key)) {
+                return slot;
+            }
+
+            perturb >>>= 5;
+            slot = nextSlot(slot, perturb, mask);
+        }
+    }
+
+    private int findEntry(Object key, int hash) {
+        final int slot = findSlot(key, hash);
+        return slot < 0 ? -1 : indices[slot];
+    }
+
+    @Override
+    public boolean hasKey(Object key) {
+        return findEntry(key, HashingUtil.hash(key)) >= 0;
+    }
+
+    @Override
+    public Object getItem(Object key) {
+        final int index = findEntry(key, HashingUtil.hash(key));
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public void setItem(Object key, Object value) {
+        setObjectItem(key, value);
+    }
+
+    public void setObjectItem(Object key, Object value) {
+        final int hash = HashingUtil.hash(key);
+        final int index = findEntry(key, hash);
+
+        if (index >= 0) {
+            values[index] = value;
+            return;
+        }
+
+        if (filled == keys.length) {
+            resize();
+        }
+
+        final int entry = filled++;
+        hashes[entry] = hash;
+        keys[entry] = key;
+        values[entry] = value;
+        indices[findEmptySlot(indices, hash)] = entry;
+        size++;
+    }
+
+    @Override
+    public Object delItem(Object key) {
+        final int slot = findSlot(key, HashingUtil.hash(key));
+
+        if (slot < 0) {
+            return null;
+        }
+
+        final int index = indices[slot];
+        final Object value = values[index];
+        indices[slot] = DUMMY;
+        keys[index] = null;
+        values[index] = null;
+        size--;
+        return value;
+    }
+
+    /**
+     * Rebuilds the table sized for the live entries, dropping deleted ones.
+     */
+    private void resize() {
+        final int[] oldHashes = hashes;
+        final Object[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int oldFilled = filled;
+
+        allocate(tableSizeFor(size * 2 + 1));
+        int entry = 0;
+
+        for (int i = 0; i < oldFilled; i++) {
+            if (oldValues[i] != null) {
+                hashes[entry] = oldHashes[i];
+                keys[entry] = oldKeys[i];
+                values[entry] = oldValues[i];
+                indices[findEmptySlot(indices, oldHashes[i])] = entry;
+                entry++;
+            }
+        }
+
+        filled = entry;
+    }
+
+    @Override
+    public int nextEntry(int from) {
+        for (int i = from; i < filled; i++) {
+            if (values[i] != null) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public Object getKeyAt(int index) {
+        return keys[index];
+    }
+
+    @Override
+    public Object getValueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    public DictStorage generalizeFor(Object key) {
+        return this;
+    }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype.storage;
+
+/**
+ * Generic set storage accepting any hashable element, with the element hashes cached next to the
+ * table.
+ */
+public final class ObjectSetStorage extends SetStorage {
+
+    private static final Object DELETED = new Object();
+
+    private Object[] table;
+    private int[] hashes;
+
+    /**
+     * Number of live elements.
+     */
+    private int size;
+
+    /**
+     * Number of occupied slots, including deleted ones.
+     */
+    private int used;
+
+    public ObjectSetStorage() {
+        this(0);
+    }
+
+    public ObjectSetStorage(int expectedSize) {
+        allocate(HashingUtil.tableSizeFor(expectedSize));
+    }
+
+    private ObjectSetStorage(ObjectSetStorage other) {
+        this.table = other.table.clone();
+        this.hashes = other.hashes.clone();
+        this.size = other.size;
+        this.used = other.used;
+    }
+
+    private void allocate(int tableSize) {
+        table = new Object[tableSize];
+        hashes = new int[tableSize];
+        used = 0;
+    }
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    @Override
+    public ObjectSetStorage copy() {
+        return new ObjectSetStorage(this);
+    }
+
+    private int findSlot(Object element, int hash) {
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        int perturb = hash;
+
+        while (true) {
+            final Object candidate = table[slot];
+
+            if (candidate == null) {
+                return -1;
+            }
+
+            if (candidate != DELETED && hashes[slot] == hash && HashingUtil.keyEquals(candidate, element)) {
+                return slot;
+            }
+
+            perturb >>>= 5;
+            slot = HashingUtil.nextSlot(slot, perturb, mask);
+        }
+    }
+
+    private static int findInsertSlot(Object[] table, int hash) {
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        int perturb = hash;
+
+        while (table[slot] != null && table[slot] != DELETED) {
+            perturb >>>= 5;
+            slot = HashingUtil.nextSlot(slot, perturb, mask);
+        }
+
+        return slot;
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        return findSlot(element, HashingUtil.hash(element)) >= 0;
+    }
+
+    @Override
+    public boolean add(Object element) {
+        final int hash = HashingUtil.hash(element);
+
+        if (findSlot(element, hash) >= 0) {
+            return false;
+        }
+
+        if (used + 1 > HashingUtil.usableFor(table.length)) {
+            resize();
+        }
+
+        final int slot = findInsertSlot(table, hash);
+
+        if (table[slot] == null) {
+            used++;
+        }
+
+        table[slot] = element;
+        hashes[slot] = hash;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        final int slot = findSlot(element, HashingUtil.hash(element));
+
+        if (slot < 0) {
+            return false;
+        }
+
+        table[slot] = DELETED;
+        size--;
+        return true;
+    }
+
+    private void resize() {
+        final Object[] oldTable = table;
+        final int[] oldHashes = hashes;
+
+        allocate(HashingUtil.tableSizeFor(size * 2 + 1));
+
+        for (int i = 0; i < oldTable.length; i++) {
+            final Object element = oldTable[i];
+
+            if (element != null && element != DELETED) {
+                final int slot = findInsertSlot(table, oldHashes[i]);
+                table[slot] = element;
+                hashes[slot] = oldHashes[i];
+                used++;
+            }
+        }
+    }
+
+    @Override
+    public boolean addAll(SetStorage other) {
+        final int oldSize = size;
+
+        for (int i = other.nextElement(0); i >= 0; i = other.nextElement(i + 1)) {
+            add(other.getElementAt(i));
+        }
+
+        return size != oldSize;
+    }
+
+    @Override
+    public ObjectSetStorage intersection(SetStorage other) {
+        final ObjectSetStorage result = new ObjectSetStorage();
+
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            if (other.contains(table[i])) {
+                result.add(table[i]);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public ObjectSetStorage difference(SetStorage other) {
+        final ObjectSetStorage result = new ObjectSetStorage(size);
+
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            if (!other.contains(table[i])) {
+                result.add(table[i]);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int nextElement(int from) {
+        for (int i = from; i < table.length; i++) {
+            final Object element = table[i];
+
+            if (element != null && element != DELETED) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public Object getElementAt(int slot) {
+        return table[slot];
+    }
+
+    @Override
+    public SetStorage generalizeFor(Object element) {
+        return this;
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype.storage;
+
+import java.util.*;
+
+/**
+ * Element type specialized set storages, generalized on the first element the current storage
+ * cannot hold, like {@code SequenceStorage}.
+ * <p>
+ * The non-empty storages are open addressing hash tables using the same probe sequence as the
+ * dict storages. Unlike dicts, sets are unordered, so iteration simply walks the table.
+ */
+public abstract class SetStorage {
+
+    public abstract int length();
+
+    public abstract SetStorage copy();
+
+    public abstract boolean contains(Object element);
+
+    /**
+     * Unboxed membership test, overridden by the int storages.
+     */
+    public boolean containsInt(int element) {
+        return contains(element);
+    }
+
+    /**
+     * @return true if the element was not already present.
+     */
+    public abstract boolean add(Object element) throws SetStoreException;
+
+    /**
+     * @return true if the element was present.
+     */
+    public abstract boolean remove(Object element);
+
+    /**
+     * Table slot iteration, used as {@code for (int i = nextElement(0); i >= 0; i = nextElement(i + 1))}.
+     *
+     * @return the first occupied slot at or after {@code from}, or -1 when exhausted.
+     */
+    public abstract int nextElement(int from);
+
+    public abstract Object getElementAt(int slot);
+
+    public abstract SetStorage generalizeFor(Object element);
+
+    /**
+     * Bulk union into this storage, without boxing where both storages are primitive.
+     *
+     * @return true if any element was added.
+     * @throws SetStoreException if this storage cannot take the other's elements wholesale; the
+     *             caller then adds them one by one, generalizing as needed.
+     */
+    @SuppressWarnings("unused")
+    public boolean addAll(SetStorage other) throws SetStoreException {
+        throw SetStoreException.INSTANCE;
+    }
+
+    /**
+     * The elements of this storage also in {@code other}, as a new storage of this kind. A subset
+     * of this storage always fits its kind, so no generalization is needed. Callers iterate the
+     * smaller operand.
+     */
+    public abstract SetStorage intersection(SetStorage other);
+
+    /**
+     * The elements of this storage not in {@code other}, as a new storage of this kind.
+     */
+    public abstract SetStorage difference(SetStorage other);
+
+    public boolean isSubsetOf(SetStorage other) {
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            if (!other.contains(getElementAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public boolean isDisjointWith(SetStorage other) {
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            if (other.contains(getElementAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public Iterator<Object> iterator() {
+        return new ElementIterator(this);
+    }
+
+    public Object[] toArray() {
+        final Object[] array = new Object[length()];
+        int j = 0;
+
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            array[j++] = getElementAt(i);
+        }
+
+        return array;
+    }
+
+    public boolean equals(SetStorage other) {
+        if (length() != other.length()) {
+            return false;
+        }
+
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            if (!other.contains(getElementAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Copies all elements into a storage that accepts any hashable element.
+     */
+    protected ObjectSetStorage toObjectStorage() {
+        final ObjectSetStorage generalized = new ObjectSetStorage(length());
+
+        for (int i = nextElement(0); i >= 0; i = nextElement(i + 1)) {
+            generalized.add(getElementAt(i));
+        }
+
+        return generalized;
+    }
+
+    private static final class ElementIterator implements Iterator<Object> {
+
+        private final SetStorage store;
+        private int next;
+
+        ElementIterator(SetStorage store) {
+            this.store = store;
+            this.next = store.nextElement(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public Object next() {
+            if (next < 0) {
+                throw new NoSuchElementException();
+            }
+
+            final int current = next;
+            next = store.nextElement(current + 1);
+            return store.getElementAt(current);
+        }
+    }
+
+}
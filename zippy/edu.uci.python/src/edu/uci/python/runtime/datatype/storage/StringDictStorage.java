@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype.storage;
+
+import java.io.*;
+
+import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.sequence.*;
+
+/**
+ * Dict storage for {@code str} keys. Java strings cache their hash code, so no separate hash
+ * array is kept, and key comparison never goes through {@link HashingUtil}.
+ */
+public final class StringDictStorage extends DictStorage {
+
+    private int[] indices;
+    private String[] keys;
+    private Object[] values;
+    private int size;
+    private int filled;
+
+    public StringDictStorage() {
+        this(0);
+    }
+
+    public StringDictStorage(int expectedSize) {
+        allocate(tableSizeFor(expectedSize));
+    }
+
+    private StringDictStorage(StringDictStorage other) {
+        this.indices = other.indices.clone();
+        this.keys = other.keys.clone();
+        this.values = other.values.clone();
+        this.size = other.size;
+        this.filled = other.filled;
+    }
+
+    private void allocate(int tableSize) {
+        final int usable = usableFor(tableSize);
+        indices = newIndices(tableSize);
+        keys = new String[usable];
+        values = new Object[usable];
+    }
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    @Override
+    public StringDictStorage copy() {
+        return new StringDictStorage(this);
+    }
+
+    private int findSlot(String key) {
+        final int hash = key.hashCode();
+        final int mask = indices.length - 1;
+        int slot = hash & mask;
+        int perturb = hash;
+
+        while (true) {
+            final int index = indices[slot];
+
+            if (index == FREE) {
+                return -1;
+            }
+
+            if (index >= 0) {
+                final String candidate = keys[index];
+
+                if (candidate == key || (candidate.hashCode() == hash && candidate.equals(key))) {
+                    return slot;
+                }
+            }
+
+            perturb >>>= 5;
+            slot = nextSlot(slot, perturb, mask);
+        }
+    }
+
+    private static String asStringKey(Object key) {
+        if (key instanceof String) {
+            return (String) key;
+        } else if (key instanceof PString) {
+            return ((PString) key).getValue();
+        } else if (key instanceof PStringRope) {
+            return key.toString();
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean hasKey(Object key) {
+        final String stringKey = asStringKey(key);
+        return stringKey != null && findSlot(stringKey) >= 0;
+    }
+
+    @Override
+    public Object getItem(Object key) {
+        final String stringKey = asStringKey(key);
+        return stringKey == null ? null : getStringItem(stringKey);
+    }
+
+    public Object getStringItem(String key) {
+        final int slot = findSlot(key);
+        return slot < 0 ? null : values[indices[slot]];
+    }
+
+    @Override
+    public void setItem(Object key, Object value) throws DictStoreException {
+        if (key instanceof String) {
+            setStringItem((String) key, value);
+        } else {
+            throw DictStoreException.INSTANCE;
+        }
+    }
+
+    public void setStringItem(String key, Object value) {
+        final int slot = findSlot(key);
+
+        if (slot >= 0) {
+            values[indices[slot]] = value;
+            return;
+        }
+
+        if (filled == keys.length) {
+            resize();
+        }
+
+        final int entry = filled++;
+        keys[entry] = key;
+        values[entry] = value;
+        indices[findEmptySlot(indices, key.hashCode())] = entry;
+        size++;
+    }
+
+    @Override
+    public Object delItem(Object key) {
+        final String stringKey = asStringKey(key);
+        final int slot = stringKey == null ? -1 : findSlot(stringKey);
+
+        if (slot < 0) {
+            return null;
+        }
+
+        final int index = indices[slot];
+        final Object value = values[index];
+        indices[slot] = DUMMY;
+        keys[index] = null;
+        values[index] = null;
+        size--;
+        return value;
+    }
+
+    private void resize() {
+        final String[] oldKeys = keys;
+        final Object[] oldValues = values;
+        final int oldFilled = filled;
+
+        allocate(tableSizeFor(size * 2 + 1));
+        int entry = 0;
+
+        for (int i = 0; i < oldFilled; i++) {
+            if (oldValues[i] != null) {
+                keys[entry] = oldKeys[i];
+                values[entry] = oldValues[i];
+                indices[findEmptySlot(indices, oldKeys[i].hashCode())] = entry;
+                entry++;
+            }
+        }
+
+        filled = entry;
+    }
+
+    @Override
+    public int nextEntry(int from) {
+        for (int i = from; i < filled; i++) {
+            if (values[i] != null) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public String getKeyAt(int index) {
+        return keys[index];
+    }
+
+    @Override
+    public Object getValueAt(int index) {
+        return values[index];
+    }
+
+    @Override
+    public DictStorage generalizeFor(Object key) {
+        if (PythonOptions.TraceDictStorageGeneralization) {
+            PrintStream ps = System.out;
+            ps.println("[ZipPy]" + this + " generalizing to ObjectDictStorage");
+        }
+
+        return toObjectStorage();
+    }
+
+}
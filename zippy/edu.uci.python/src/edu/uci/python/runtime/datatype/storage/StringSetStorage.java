@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.datatype.storage;
+
+import java.io.*;
+
+import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.sequence.*;
+
+/**
+ * Set storage for {@code str} elements. Java strings cache their hash code, so no separate hash
+ * array is kept.
+ */
+public final class StringSetStorage extends SetStorage {
+
+    private static final String DELETED = new String("<deleted>");
+
+    private String[] table;
+    private int size;
+    private int used;
+
+    public StringSetStorage() {
+        this(0);
+    }
+
+    public StringSetStorage(int expectedSize) {
+        allocate(HashingUtil.tableSizeFor(expectedSize));
+    }
+
+    private StringSetStorage(StringSetStorage other) {
+        this.table = other.table.clone();
+        this.size = other.size;
+        this.used = other.used;
+    }
+
+    private void allocate(int tableSize) {
+        table = new String[tableSize];
+        used = 0;
+    }
+
+    @Override
+    public int length() {
+        return size;
+    }
+
+    @Override
+    public StringSetStorage copy() {
+        return new StringSetStorage(this);
+    }
+
+    private int findSlot(String element) {
+        final int hash = element.hashCode();
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        int perturb = hash;
+
+        while (true) {
+            final String candidate = table[slot];
+
+            if (candidate == null) {
+                return -1;
+            }
+
+            if (candidate != DELETED && (candidate == element || (candidate.hashCode() == hash && candidate.equals(element)))) {
+                return slot;
+            }
+
+            perturb >>>= 5;
+            slot = HashingUtil.nextSlot(slot, perturb, mask);
+        }
+    }
+
+    private static int findInsertSlot(String[] table, int hash) {
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        int perturb = hash;
+
+        while (table[slot] != null && table[slot] != DELETED) {
+            perturb >>>= 5;
+            slot = HashingUtil.nextSlot(slot, perturb, mask);
+        }
+
+        return slot;
+    }
+
+    private static String asString(Object element) {
+        if (element instanceof String) {
+            return (String) element;
+        } else if (element instanceof PString) {
+            return ((PString) element).getValue();
+        } else if (element instanceof PStringRope) {
+            return element.toString();
+        }
+
+        return null;
+    }
+
+    @Override
+    public boolean contains(Object element) {
+        final String string = asString(element);
+        return string != null && findSlot(string) >= 0;
+    }
+
+    public boolean containsString(String element) {
+        return findSlot(element) >= 0;
+    }
+
+    @Override
+    public boolean add(Object element) throws SetStoreException {
+        if (element instanceof String) {
+            return addString((String) element);
+        }
+
+        throw SetStoreException.INSTANCE;
+    }
+
+    public boolean addString(String element) {
+        if (findSlot(element) >= 0) {
+            return false;
+        }
+
+        if (used + 1 > HashingUtil.usableFor(table.length)) {
+            resize();
+        }
+
+        final int slot = findInsertSlot(table, element.hashCode());
+
+        if (table[slot] == null) {
+            used++;
+        }
+
+        table[slot] = element;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object element) {
+        final String string = asString(element);
+        final int slot = string == null ? -1 : findSlot(string);
+
+        if (slot < 0) {
+            return false;
+        }
+
+        table[slot] = DELETED;
+        size--;
+        return true;
+    }
+
+    private void resize() {
+        final String[] oldTable = table;
+
+        allocate(HashingUtil.tableSizeFor(size * 2 + 1));
+
+        for (String element : oldTable) {
+            if (element != null && element != DELETED) {
+                table[findInsertSlot(table, element.hashCode())] = element;
+                used++;
+            }
+        }
+    }
+
+    @Override
+    public boolean addAll(SetStorage other) throws SetStoreException {
+        if (!(other instanceof StringSetStorage)) {
+            throw SetStoreException.INSTANCE;
+        }
+
+        final int oldSize = size;
+
+        for (String element : ((StringSetStorage) other).table) {
+            if (element != null && element != DELETED) {
+                addString(element);
+            }
+        }
+
+        return size != oldSize;
+    }
+
+    @Override
+    public StringSetStorage intersection(SetStorage other) {
+        final StringSetStorage result = new StringSetStorage();
+
+        for (String element : table) {
+            if (element != null && element != DELETED && other.contains(element)) {
+                result.addString(element);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public StringSetStorage difference(SetStorage other) {
+        final StringSetStorage result = new StringSetStorage(size);
+
+        for (String element : table) {
+            if (element != null && element != DELETED && !other.contains(element)) {
+                result.addString(element);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public int nextElement(int from) {
+        for (int i = from; i < table.length; i++) {
+            final String element = table[i];
+
+            if (element != null && element != DELETED) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    @Override
+    public String getElementAt(int slot) {
+        return table[slot];
+    }
+
+    @Override
+    public SetStorage generalizeFor(Object element) {
+        if (PythonOptions.TraceSetStorageGeneralization) {
+            PrintStream ps = System.out;
+            ps.println("[ZipPy]" + this + " generalizing to ObjectSetStorage");
+        }
+
+        return toObjectStorage();
+    }
+
+}
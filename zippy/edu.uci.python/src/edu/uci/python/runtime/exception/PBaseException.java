@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.exception;
+
+import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.builtin.*;
+import edu.uci.python.runtime.sequence.*;
+import edu.uci.python.runtime.standardtype.*;
+
+/**
+ * Instance of a built-in Python exception class such as <code>ValueError</code>. Unlike Jython's
+ * PyException it is a plain Python object; raising it wraps it in a {@link PException}.
+ */
+public final class PBaseException extends PythonBuiltinObject {
+
+    private final PythonBuiltinClass type;
+    private final PTuple args;
+
+    public PBaseException(PythonBuiltinClass type, PTuple args) {
+        this.type = type;
+        this.args = args;
+    }
+
+    public PBaseException(PythonBuiltinClass type, Object... args) {
+        this(type, new PTuple(args));
+    }
+
+    @Override
+    public PythonBuiltinClass __class__() {
+        return type;
+    }
+
+    @Override
+    public PythonBuiltinClass __class__(PythonContext context) {
+        return type;
+    }
+
+    public PythonBuiltinClass getType() {
+        return type;
+    }
+
+    public PTuple getArgs() {
+        return args;
+    }
+
+    /**
+     * Formats an exception the way Jython's PyException does, e.g.
+     * <code>IndexError: list index out of range</code>.
+     */
+    public static String format(PythonClass type, PTuple args) {
+        if (args == null || args.len() == 0) {
+            return type.getName();
+        } else if (args.len() == 1) {
+            return type.getName() + ": " + args.getItem(0);
+        } else {
+            return type.getName() + ": " + args;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return format(type, args) + "\n";
+    }
+
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.exception;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+import com.oracle.truffle.api.nodes.*;
+import com.oracle.truffle.api.source.*;
+
+import edu.uci.python.nodes.function.*;
+import edu.uci.python.runtime.object.*;
+import edu.uci.python.runtime.sequence.*;
+import edu.uci.python.runtime.standardtype.*;
+
+/**
+ * Carries a raised Python exception object across Java frames.
+ * <p>
+ * It does not fill in a Java stack trace, so raising it from compiled code is just an allocation and
+ * a throw. The Python traceback is only materialized from the raising node when it is asked for.
+ */
+public final class PException extends RuntimeException {
+
+    private static final long serialVersionUID = -6437116280384996361L;
+
+    private final Object exception;
+    private final Node location;
+    private String traceback;
+
+    public PException(Object exception, Node location) {
+        super(null, null, false, false);
+        assert exception instanceof PBaseException || exception instanceof PythonObject;
+        this.exception = exception;
+        this.location = location;
+    }
+
+    public Object getExceptionObject() {
+        return exception;
+    }
+
+    public PythonClass getType() {
+        if (exception instanceof PBaseException) {
+            return ((PBaseException) exception).getType();
+        }
+
+        return ((PythonObject) exception).getPythonClass();
+    }
+
+    @TruffleBoundary
+    public String getTraceback() {
+        if (traceback == null) {
+            StringBuilder sb = new StringBuilder("Traceback (most recent call last):\n");
+            SourceSection section = location == null ? null : location.getSourceSection();
+
+            if (section != null) {
+                RootNode root = location.getRootNode();
+                sb.append("  File \"").append(section.getSource().getName()).append("\", line ").append(section.getStartLine());
+                sb.append(", in ").append(root instanceof FunctionRootNode ? ((FunctionRootNode) root).getFunctionName() : "<module>").append('\n');
+            }
+
+            traceback = sb.toString();
+        }
+
+        return traceback;
+    }
+
+    @TruffleBoundary
+    @Override
+    public String getMessage() {
+        PTuple args = null;
+
+        if (exception instanceof PBaseException) {
+            args = ((PBaseException) exception).getArgs();
+        } else {
+            Object value = ((PythonObject) exception).getAttribute("args");
+            if (value instanceof PTuple) {
+                args = (PTuple) value;
+            }
+        }
+
+        return PBaseException.format(getType(), args);
+    }
+
+    @Override
+    public String toString() {
+        return getMessage() + "\n";
+    }
+
+}
@@ -25,6 +25,7 @@
 package edu.uci.python.runtime.iterator;
 
 import edu.uci.python.runtime.exception.*;
+import edu.uci.python.runtime.sequence.*;
 
 public final class PStringIterator implements PIterator {
 
@@ -35,10 +36,25 @@ public final class PStringIterator implements PIterator {
         this.value = value;
     }
 
+    public String getValue() {
+        return value;
+    }
+
+    public boolean hasNext() {
+        return index < value.length();
+    }
+
+    /**
+     * The caller checks {@link #hasNext()} first.
+     */
+    public String nextChar() {
+        return PString.charToString(value.charAt(index++));
+    }
+
     @Override
     public Object __next__() throws StopIterationException {
         if (index < value.length()) {
-            return Character.toString(value.charAt(index++));
+            return PString.charToString(value.charAt(index++));
         }
 
         throw StopIterationException.INSTANCE;
@@ -165,4 +165,18 @@ public class FastMathUtil {
         return left.divide(right);
     }
 
+    /**
+     * Python's floor division, rounding towards negative infinity.
+     */
+    @TruffleBoundary
+    public static BigInteger slowPathFloorDivide(BigInteger left, BigInteger right) {
+        final BigInteger[] quotientAndRemainder = left.divideAndRemainder(right);
+
+        if (quotientAndRemainder[1].signum() != 0 && quotientAndRemainder[1].signum() != right.signum()) {
+            return quotientAndRemainder[0].subtract(BigInteger.ONE);
+        }
+
+        return quotientAndRemainder[0];
+    }
+
 }
@@ -34,6 +34,7 @@ import com.oracle.truffle.api.*;
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.sequence.*;
 
 public class JavaTypeConversions {
 
@@ -67,6 +68,8 @@ public class JavaTypeConversions {
         } else if (arg instanceof String) {
             String stringArg = (String) arg;
             return !(stringArg.isEmpty());
+        } else if (arg instanceof PStringRope) {
+            return ((PStringRope) arg).length() != 0;
         } else if (arg instanceof PIterable) {
             PIterable iterable = (PIterable) arg;
             return iterable.len() != 0;
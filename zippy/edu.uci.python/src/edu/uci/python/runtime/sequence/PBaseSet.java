@@ -24,68 +24,96 @@
  */
 package edu.uci.python.runtime.sequence;
 
-import java.util.*;
-
 import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
 
 import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.datatype.storage.*;
 import edu.uci.python.runtime.exception.*;
 import edu.uci.python.runtime.iterator.*;
 import edu.uci.python.runtime.standardtype.*;
 
 public abstract class PBaseSet extends PythonBuiltinObject implements PIterable {
 
-    protected final TreeSet<Object> set;
+    protected SetStorage store;
 
     public PBaseSet() {
-        this.set = new TreeSet<>();
+        this.store = EmptySetStorage.INSTANCE;
     }
 
-    public PBaseSet(TreeSet<Object> elements) {
-        this.set = elements;
+    public PBaseSet(SetStorage store) {
+        this.store = store;
     }
 
     public PBaseSet(PIterator iter) {
         this();
-        try {
-            while (true) {
-                this.set.add(iter.__next__());
-            }
-        } catch (StopIterationException e) {
-            // fall through
-        }
+        updateInternal(iter);
     }
 
     public PBaseSet(PBaseSet baseSet) {
-        this();
-        addAll(baseSet);
+        this.store = baseSet.store.copy();
     }
 
-    @TruffleBoundary
-    private void addAll(PBaseSet baseSet) {
-        this.set.addAll(baseSet.set);
+    public SetStorage getStorage() {
+        return store;
     }
 
-    public Set<Object> getSet() {
-        return set;
+    public Object[] toArray() {
+        return store.toArray();
     }
 
     public PIterator __iter__() {
-        return new PBaseSetIterator(set.iterator());
+        return new PBaseSetIterator(store.iterator());
     }
 
     public final boolean contains(Object o) {
-        return this.set.contains(o);
+        return store.contains(o);
+    }
+
+    protected final boolean addElement(Object element) {
+        final Object o = PStringRope.flattenString(element);
+
+        try {
+            return store.add(o);
+        } catch (SetStoreException e) {
+            store = store.generalizeFor(o);
+
+            try {
+                return store.add(o);
+            } catch (SetStoreException ex) {
+                throw new IllegalStateException();
+            }
+        }
     }
 
+    protected final boolean removeElement(Object o) {
+        return store.remove(o);
+    }
+
+    /*
+     * The binary operations below hand whole storages to the SetStorage kernels, which work on
+     * unboxed ints and bitmap words where both operands allow it. The PIterator variants stream
+     * the other operand instead of packing it into a temporary PSet first.
+     */
+
     // disjoint
     public boolean isDisjoint(PBaseSet other) {
-        return Collections.disjoint(this.set, other.set);
+        final SetStorage smaller = len() <= other.len() ? store : other.store;
+        final SetStorage larger = smaller == store ? other.store : store;
+        return smaller.isDisjointWith(larger);
     }
 
-    @SuppressWarnings("unused")
     public boolean isDisjoint(PIterator other) {
-        throw new UnsupportedOperationException();
+        try {
+            while (true) {
+                if (contains(other.__next__())) {
+                    return false;
+                }
+            }
+        } catch (StopIterationException e) {
+            // fall through
+        }
+
+        return true;
     }
 
     // subset
@@ -94,16 +122,35 @@ public abstract class PBaseSet extends PythonBuiltinObject implements PIterable
             return false;
         }
 
-        for (Object p : this.set) {
-            if (!other.set.contains(p)) {
-                return false;
-            }
-        }
-        return true;
+        return store.isSubsetOf(other.store);
     }
 
+    /**
+     * Counts the distinct elements of this set seen in the iterator, stopping as soon as all of
+     * them have been, so only a set bounded by this one is allocated.
+     */
     public boolean isSubset(PIterator other) {
-        return this.isSubset(new PSet(other)); // pack the iterable into a PSet
+        final int length = len();
+
+        if (length == 0) {
+            return true;
+        }
+
+        final PSet seen = new PSet();
+
+        try {
+            while (true) {
+                final Object element = other.__next__();
+
+                if (contains(element) && seen.add(element) && seen.len() == length) {
+                    return true;
+                }
+            }
+        } catch (StopIterationException e) {
+            // fall through
+        }
+
+        return false;
     }
 
     public boolean isProperSubset(PBaseSet other) {
@@ -117,7 +164,17 @@ public abstract class PBaseSet extends PythonBuiltinObject implements PIterable
     }
 
     public boolean isSuperset(PIterator other) {
-        return this.isSuperset(new PSet(other));
+        try {
+            while (true) {
+                if (!contains(other.__next__())) {
+                    return false;
+                }
+            }
+        } catch (StopIterationException e) {
+            // fall through
+        }
+
+        return true;
     }
 
     public boolean isProperSuperset(PBaseSet other) { // is proper superset
@@ -127,35 +184,62 @@ public abstract class PBaseSet extends PythonBuiltinObject implements PIterable
     // union
     public PBaseSet union(PBaseSet other) {
         PBaseSet newSet = cloneThisSet();
-        newSet.set.addAll(other.set);
+        newSet.updateInternal(other);
         return newSet;
     }
 
     public PBaseSet union(PIterator other) {
-        return this.union(new PSet(other));
+        PBaseSet newSet = cloneThisSet();
+        newSet.updateInternal(other);
+        return newSet;
     }
 
     // intersection
     public PBaseSet intersection(PBaseSet other) {
-        boolean set1IsLarger = set.size() > other.set.size();
-        PBaseSet cloneSet = (set1IsLarger ? other.cloneThisSet() : this.cloneThisSet());
-        cloneSet.set.retainAll(set1IsLarger ? this.set : other.set);
-        return cloneSet;
+        final SetStorage smaller = len() <= other.len() ? store : other.store;
+        final SetStorage larger = smaller == store ? other.store : store;
+        final PBaseSet newSet = createEmptySet();
+        newSet.store = smaller.intersection(larger);
+        return newSet;
     }
 
     public PBaseSet intersection(PIterator other) {
-        return this.intersection(new PSet(other));
+        final PBaseSet newSet = createEmptySet();
+
+        try {
+            while (true) {
+                final Object element = other.__next__();
+
+                if (contains(element)) {
+                    newSet.addElement(element);
+                }
+            }
+        } catch (StopIterationException e) {
+            // fall through
+        }
+
+        return newSet;
     }
 
     // difference
     public PBaseSet difference(PBaseSet other) {
-        PBaseSet newSet = cloneThisSet();
-        newSet.set.removeAll(other.set);
+        final PBaseSet newSet = createEmptySet();
+        newSet.store = store.difference(other.store);
         return newSet;
     }
 
     public PBaseSet difference(PIterator other) {
-        return this.intersection(new PSet(other));
+        final PBaseSet newSet = cloneThisSet();
+
+        try {
+            while (true) {
+                newSet.removeElement(other.__next__());
+            }
+        } catch (StopIterationException e) {
+            // fall through
+        }
+
+        return newSet;
     }
 
     // symmetric_difference
@@ -209,6 +293,11 @@ public abstract class PBaseSet extends PythonBuiltinObject implements PIterable
 
     protected abstract PBaseSet cloneThisSet();
 
+    /**
+     * An empty set of the same type as this one, to hold the result of a binary operation.
+     */
+    protected abstract PBaseSet createEmptySet();
+
     // update methods needed for updating both sets and frozen sets, internally
     // "Binary operations that mix set instances with frozenset return
     // the type of the first operand.
@@ -223,14 +312,26 @@ public abstract class PBaseSet extends PythonBuiltinObject implements PIterable
     }
 
     protected void updateInternal(PBaseSet data) {
-        // Skip the iteration if both are sets
-        set.addAll(data.set);
+        final SetStorage other = data.store;
+
+        if (store.length() == 0) {
+            store = other.copy();
+            return;
+        }
+
+        try {
+            store.addAll(other);
+        } catch (SetStoreException e) {
+            for (int i = other.nextElement(0); i >= 0; i = other.nextElement(i + 1)) {
+                addElement(other.getElementAt(i));
+            }
+        }
     }
 
     protected void updateInternal(PIterator iterator) {
         try {
             while (true) {
-                set.add(iterator.__next__());
+                addElement(iterator.__next__());
             }
         } catch (StopIterationException e) {
             // fall through
@@ -239,32 +340,59 @@ public abstract class PBaseSet extends PythonBuiltinObject implements PIterable
 
     @Override
     public Object getMax() {
-        return this.set.last();
+        Object max = null;
+
+        for (int i = store.nextElement(0); i >= 0; i = store.nextElement(i + 1)) {
+            final Object element = store.getElementAt(i);
+
+            if (max == null || compare(element, max) > 0) {
+                max = element;
+            }
+        }
+
+        return max;
     }
 
     @Override
     public Object getMin() {
-        return this.set.first();
+        Object min = null;
+
+        for (int i = store.nextElement(0); i >= 0; i = store.nextElement(i + 1)) {
+            final Object element = store.getElementAt(i);
+
+            if (min == null || compare(element, min) < 0) {
+                min = element;
+            }
+        }
+
+        return min;
+    }
+
+    @SuppressWarnings("unchecked")
+    @TruffleBoundary
+    private static int compare(Object left, Object right) {
+        return ((Comparable<Object>) left).compareTo(right);
     }
 
     @Override
     public int len() {
-        return this.set.size();
+        return store.length();
     }
 
     @Override
     public String toString() {
-        if (set.size() == 0) {
+        if (store.length() == 0) {
             return "set()";
         }
 
         StringBuilder buf = new StringBuilder().append("{");
+        int i = store.nextElement(0);
 
-        for (Iterator<Object> i = set.iterator(); i.hasNext();) {
-            String str = PSequence.toString(i.next());
-            buf.append(str);
+        while (i >= 0) {
+            buf.append(PSequence.toString(store.getElementAt(i)));
+            i = store.nextElement(i + 1);
 
-            if (i.hasNext()) {
+            if (i >= 0) {
                 buf.append(", ");
             }
         }
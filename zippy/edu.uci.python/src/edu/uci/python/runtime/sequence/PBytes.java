@@ -24,69 +24,157 @@
  */
 package edu.uci.python.runtime.sequence;
 
-import java.util.*;
+import java.nio.*;
 
+import org.python.core.*;
+
+import com.oracle.truffle.api.*;
+
+import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.builtin.*;
 import edu.uci.python.runtime.datatype.*;
 import edu.uci.python.runtime.sequence.storage.*;
 
+/**
+ * Immutable bytes over a {@link ByteBuffer}, either a wrapped array or a region of a memory-mapped
+ * file. Contiguous slices are views sharing the buffer, so slicing a mapped file copies nothing.
+ */
 public final class PBytes extends PImmutableSequence {
 
-    private final byte[] bytes;
+    /**
+     * Position is always 0 and limit the length.
+     */
+    private final ByteBuffer buffer;
 
     public PBytes() {
-        bytes = new byte[0];
+        this(new byte[0]);
     }
 
     public PBytes(byte[] bytes) {
-        this.bytes = bytes;
+        this.buffer = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * A view of the remaining bytes of the buffer.
+     */
+    public PBytes(ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+
+    @Override
+    public PythonBuiltinClass __class__(PythonContext context) {
+        return context.getBuiltinType(PBytes.class);
     }
 
     public int len() {
-        return bytes.length;
+        return buffer.limit();
+    }
+
+    /**
+     * A read-only duplicate of the underlying bytes, positioned at the start.
+     */
+    public ByteBuffer getBuffer() {
+        return buffer.asReadOnlyBuffer();
+    }
+
+    public int getByte(int idx) {
+        return buffer.get(idx) & 0xff;
     }
 
     public Object getMax() {
-        byte[] copy = Arrays.copyOf(bytes, bytes.length);
-        Arrays.sort(copy);
-        return copy[0];
+        if (len() == 0) {
+            throw Py.ValueError("max() arg is an empty sequence");
+        }
+
+        int max = 0;
+        for (int i = 0; i < len(); i++) {
+            max = Math.max(max, getByte(i));
+        }
+        return max;
     }
 
     public Object getMin() {
-        byte[] copy = Arrays.copyOf(bytes, bytes.length);
-        Arrays.sort(copy);
-        return copy[bytes.length - 1];
+        if (len() == 0) {
+            throw Py.ValueError("min() arg is an empty sequence");
+        }
+
+        int min = 0xff;
+        for (int i = 0; i < len(); i++) {
+            min = Math.min(min, getByte(i));
+        }
+        return min;
     }
 
     @Override
     public Object getItem(int idx) {
-        int checkedIdx = idx;
+        return getItemNormalized(SequenceUtil.normalizeIndex(idx, len()));
+    }
 
-        if (idx < 0) {
-            checkedIdx += bytes.length;
+    public int getItemNormalized(int index) {
+        try {
+            return getByte(index);
+        } catch (IndexOutOfBoundsException e) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            throw Py.IndexError("index out of range");
         }
-
-        return bytes[checkedIdx];
     }
 
     @Override
     public Object getSlice(PSlice slice) {
-        int length = slice.computeActualIndices(bytes.length);
+        int length = slice.computeActualIndices(len());
         return getSlice(slice.getStart(), slice.getStop(), slice.getStep(), length);
     }
 
     @Override
     public Object getSlice(int start, int stop, int step, int length) {
-        byte[] newBytes = new byte[length];
         if (step == 1) {
-            System.arraycopy(bytes, start, newBytes, 0, stop - start);
-            return new PBytes(newBytes);
+            return view(start, start + Math.max(length, 0));
         }
+
+        byte[] newBytes = new byte[length];
         for (int i = start, j = 0; j < length; i += step, j++) {
-            newBytes[j] = bytes[i];
+            newBytes[j] = buffer.get(i);
         }
         return new PBytes(newBytes);
     }
 
+    public PBytes view(int start, int stop) {
+        ByteBuffer region = buffer.duplicate();
+        region.position(start);
+        region.limit(stop);
+        return new PBytes(region);
+    }
+
+    /**
+     * Index of the first occurrence of sub in [start, end), or -1.
+     */
+    public int find(PBytes sub, int start, int end) {
+        int subLength = sub.len();
+        int last = Math.min(end, len()) - subLength;
+
+        if (subLength == 0) {
+            return start <= len() ? start : -1;
+        }
+
+        int first = sub.buffer.get(0);
+        for (int i = Math.max(start, 0); i <= last; i++) {
+            if (buffer.get(i) != first) {
+                continue;
+            }
+
+            int j = 1;
+            while (j < subLength && buffer.get(i + j) == sub.buffer.get(j)) {
+                j++;
+            }
+
+            if (j == subLength) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
     @Override
     public int index(Object value) {
         throw new UnsupportedOperationException();
@@ -102,4 +190,28 @@ public final class PBytes extends PImmutableSequence {
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("b'");
+
+        for (int i = 0; i < len(); i++) {
+            int b = getByte(i);
+            if (b == '\\' || b == '\'') {
+                sb.append('\\').append((char) b);
+            } else if (b == '\n') {
+                sb.append("\\n");
+            } else if (b == '\r') {
+                sb.append("\\r");
+            } else if (b == '\t') {
+                sb.append("\\t");
+            } else if (b < 0x20 || b >= 0x7f) {
+                sb.append(String.format("\\x%02x", b));
+            } else {
+                sb.append((char) b);
+            }
+        }
+
+        return sb.append('\'').toString();
+    }
+
 }
@@ -35,13 +35,12 @@ import edu.uci.python.runtime.*;
 import edu.uci.python.runtime.builtin.*;
 import edu.uci.python.runtime.datatype.*;
 import edu.uci.python.runtime.exception.*;
+import edu.uci.python.runtime.function.*;
 import edu.uci.python.runtime.iterator.*;
 import edu.uci.python.runtime.sequence.storage.*;
 
 public class PList extends PSequence {
 
-    public static final PythonBuiltinClass __class__ = PythonContext.getBuiltinTypeFor(PList.class);
-
     @CompilationFinal private SequenceStorage store;
 
     public PList() {
@@ -65,8 +64,8 @@ public class PList extends PSequence {
     }
 
     @Override
-    public final PythonBuiltinClass __class__() {
-        return __class__;
+    public final PythonBuiltinClass __class__(PythonContext context) {
+        return context.getBuiltinType(PList.class);
     }
 
     @Override
@@ -76,7 +75,7 @@ public class PList extends PSequence {
                 return new PIntegerSequenceIterator((IntSequenceStorage) store);
             } else if (store instanceof LongSequenceStorage) {
                 return new PLongSequenceIterator((LongSequenceStorage) store);
-            } else if (store instanceof DoubleSequenceStorage) {
+            } else if (store instanceof DoubleSequenceStorage && !((DoubleSequenceStorage) store).hasIntegralElements()) {
                 return new PDoubleSequenceIterator((DoubleSequenceStorage) store);
             }
         }
@@ -89,6 +88,10 @@ public class PList extends PSequence {
         return store;
     }
 
+    public final void setStorage(SequenceStorage store) {
+        this.store = store;
+    }
+
     @Override
     public final Object getItem(int idx) {
         int index = SequenceUtil.normalizeIndex(idx, store.length());
@@ -201,6 +204,10 @@ public class PList extends PSequence {
         store.sort();
     }
 
+    public final void sort(PythonCallable key, boolean reverse) {
+        SortUtil.sort(this, key, reverse);
+    }
+
     @Override
     public final int len() {
         return store.length();
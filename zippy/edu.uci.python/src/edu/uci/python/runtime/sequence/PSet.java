@@ -24,22 +24,19 @@
  */
 package edu.uci.python.runtime.sequence;
 
-import java.util.*;
-
 import edu.uci.python.runtime.*;
 import edu.uci.python.runtime.builtin.*;
+import edu.uci.python.runtime.datatype.storage.*;
 import edu.uci.python.runtime.iterator.*;
 
 public final class PSet extends PBaseSet {
 
-    public static final PythonBuiltinClass __class__ = PythonContext.getBuiltinTypeFor(PSet.class);
-
     public PSet() {
         super();
     }
 
-    public PSet(TreeSet<Object> elements) {
-        super(elements);
+    public PSet(SetStorage store) {
+        super(store);
     }
 
     public PSet(PIterator iterator) {
@@ -51,8 +48,8 @@ public final class PSet extends PBaseSet {
     }
 
     @Override
-    public PythonBuiltinClass __class__() {
-        return __class__;
+    public PythonBuiltinClass __class__(PythonContext context) {
+        return context.getBuiltinType(PSet.class);
     }
 
     // update
@@ -71,9 +68,14 @@ public final class PSet extends PBaseSet {
         return new PSet(this);
     }
 
+    @Override
+    protected PBaseSet createEmptySet() {
+        return new PSet();
+    }
+
     // add
     public boolean add(Object o) {
-        return set.add(o);
+        return addElement(o);
     }
 
     // remove
@@ -96,7 +98,7 @@ public final class PSet extends PBaseSet {
 
     // clear
     public void clear() {
-        set.clear();
+        store = EmptySetStorage.INSTANCE;
     }
 
 }
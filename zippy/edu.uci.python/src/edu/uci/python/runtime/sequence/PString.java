@@ -24,6 +24,9 @@
  */
 package edu.uci.python.runtime.sequence;
 
+import com.oracle.truffle.api.CompilerDirectives.CompilationFinal;
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
 import edu.uci.python.runtime.*;
 import edu.uci.python.runtime.builtin.*;
 import edu.uci.python.runtime.datatype.*;
@@ -31,41 +34,193 @@ import edu.uci.python.runtime.sequence.storage.*;
 
 public final class PString extends PImmutableSequence {
 
-    public static final PythonBuiltinClass __class__ = PythonContext.getBuiltinTypeFor(PString.class);
+    private static final int LATIN1_LIMIT = 256;
+
+    /**
+     * A contiguous slice shorter than this fraction of its backing store is copied, so a short
+     * slice does not keep a large source alive.
+     */
+    private static final int VIEW_FRACTION = 4;
+
+    @CompilationFinal(dimensions = 1) private static final String[] LATIN1_STRINGS = new String[LATIN1_LIMIT];
+
+    static {
+        for (int i = 0; i < LATIN1_LIMIT; i++) {
+            LATIN1_STRINGS[i] = String.valueOf((char) i).intern();
+        }
+    }
+
+    /**
+     * Value of a string created from a {@link String}. A slice view builds it on first use and
+     * keeps it, so repeated {@link #getValue()} calls do not allocate.
+     */
+    private String value;
 
-    private final String value;
+    /**
+     * Compact storage, created on the first slice. Exactly one of {@link #latin1} and
+     * {@link #chars} is set; slices share it with their source and only differ in the window.
+     */
+    private byte[] latin1;
+    private char[] chars;
+    private final int offset;
+    private final int length;
 
     public PString(String value) {
         this.value = value;
+        this.offset = 0;
+        this.length = value.length();
+    }
+
+    private PString(byte[] latin1, char[] chars, int offset, int length) {
+        this.latin1 = latin1;
+        this.chars = chars;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * @return a shared single character string. Latin-1 characters never allocate.
+     */
+    public static String charToString(char value) {
+        if (value < LATIN1_LIMIT) {
+            return LATIN1_STRINGS[value];
+        }
+
+        return String.valueOf(value);
     }
 
     @Override
-    public PythonBuiltinClass __class__() {
-        return __class__;
+    public PythonBuiltinClass __class__(PythonContext context) {
+        return context.getBuiltinType(PString.class);
     }
 
     public String getValue() {
-        return value;
+        String result = value;
+
+        if (result == null) {
+            result = materialize();
+            value = result;
+        }
+
+        return result;
+    }
+
+    @TruffleBoundary
+    private String materialize() {
+        if (latin1 != null) {
+            final char[] result = new char[length];
+
+            for (int i = 0; i < length; i++) {
+                result[i] = (char) (latin1[offset + i] & 0xFF);
+            }
+
+            return new String(result);
+        }
+
+        return new String(chars, offset, length);
+    }
+
+    public boolean isLatin1() {
+        makeCompact();
+        return latin1 != null;
+    }
+
+    /**
+     * Encodes the characters into a byte per character if they all fit Latin-1, otherwise keeps a
+     * char array. Happens at most once per backing store; {@link #value} is kept.
+     */
+    @TruffleBoundary
+    private void makeCompact() {
+        if (latin1 != null || chars != null) {
+            return;
+        }
+
+        final byte[] bytes = new byte[length];
+
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+
+            if (c >= LATIN1_LIMIT) {
+                chars = value.toCharArray();
+                return;
+            }
+
+            bytes[i] = (byte) c;
+        }
+
+        latin1 = bytes;
+    }
+
+    public char charAt(int idx) {
+        final String string = value;
+
+        if (string != null) {
+            return string.charAt(idx);
+        }
+
+        if (idx < 0 || idx >= length) {
+            throw new StringIndexOutOfBoundsException(idx);
+        }
+
+        if (latin1 != null) {
+            return (char) (latin1[offset + idx] & 0xFF);
+        }
+
+        return chars[offset + idx];
     }
 
     @Override
     public int len() {
-        return value.length();
+        return length;
     }
 
     @Override
     public Object getItem(int idx) {
-        return value.charAt(idx);
+        return charToString(charAt(idx));
     }
 
     @Override
-    public Object getSlice(int start, int stop, int step, int length) {
-        throw new UnsupportedOperationException();
+    public Object getSlice(PSlice slice) {
+        final int sliceLength = slice.computeActualIndices(length);
+        return getSlice(slice.getStart(), slice.getStop(), slice.getStep(), sliceLength);
     }
 
+    /**
+     * Contiguous slices are views sharing the compact storage; stepped and short slices copy.
+     */
     @Override
-    public Object getSlice(PSlice slice) {
-        throw new UnsupportedOperationException();
+    public Object getSlice(int start, int stop, int step, int sliceLength) {
+        if (sliceLength <= 0) {
+            return new PString("");
+        }
+
+        makeCompact();
+
+        if (step == 1) {
+            final int backingLength = latin1 != null ? latin1.length : chars.length;
+
+            if (sliceLength * VIEW_FRACTION >= backingLength) {
+                return new PString(latin1, chars, offset + start, sliceLength);
+            }
+        }
+
+        if (latin1 != null) {
+            final byte[] bytes = new byte[sliceLength];
+
+            for (int i = start, j = 0; j < sliceLength; i += step, j++) {
+                bytes[j] = latin1[offset + i];
+            }
+
+            return new PString(bytes, null, 0, sliceLength);
+        }
+
+        final char[] newChars = new char[sliceLength];
+
+        for (int i = start, j = 0; j < sliceLength; i += step, j++) {
+            newChars[j] = chars[offset + i];
+        }
+
+        return new PString(null, newChars, 0, sliceLength);
     }
 
     @Override
@@ -75,7 +230,7 @@ public final class PString extends PImmutableSequence {
 
     @Override
     public String toString() {
-        return value;
+        return getValue();
     }
 
     @Override
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.sequence;
+
+import java.util.*;
+
+import com.oracle.truffle.api.CompilerDirectives.TruffleBoundary;
+
+/**
+ * Lazy concatenation of two strings. {@code s += piece} in a loop used to copy the whole
+ * accumulated string on every iteration; building a rope instead keeps the loop linear and the
+ * characters are copied exactly once, when the rope is first flattened.
+ * <p>
+ * A rope is a {@code str} as far as Python code is concerned. {@code PythonTypes} implicitly casts
+ * it to {@link String}, so indexing, hashing, printing and the string builtins all see the
+ * flattened value. The flattened string is cached and the children are dropped afterwards.
+ * <p>
+ * Ropes only live in locals while a string is being built. Storing one into a list, tuple, dict or
+ * set flattens it first, see {@link #flattenString(Object)}, so containers only ever hold plain
+ * {@link String}s and Java level hashing and equality agree with {@code str}.
+ */
+public final class PStringRope implements CharSequence {
+
+    /**
+     * Concatenations producing less than this many characters are done eagerly. Short strings are
+     * cheaper to copy than to keep as a tree.
+     */
+    public static final int MIN_ROPE_LENGTH = 64;
+
+    private CharSequence left;
+    private CharSequence right;
+    private final int length;
+    private String flattened;
+
+    private PStringRope(CharSequence left, CharSequence right, int length) {
+        this.left = left;
+        this.right = right;
+        this.length = length;
+    }
+
+    /**
+     * @return a plain {@link String} if the result is short, a {@link PStringRope} otherwise.
+     */
+    public static Object concat(CharSequence left, CharSequence right) {
+        final int leftLength = left.length();
+        final int rightLength = right.length();
+
+        if (leftLength == 0) {
+            return right;
+        } else if (rightLength == 0) {
+            return left;
+        }
+
+        final int length = leftLength + rightLength;
+
+        if (length < 0) {
+            throw new OutOfMemoryError("string too long");
+        }
+
+        if (length < MIN_ROPE_LENGTH) {
+            return concatString(left, right);
+        }
+
+        return new PStringRope(left, right, length);
+    }
+
+    @TruffleBoundary
+    private static String concatString(CharSequence left, CharSequence right) {
+        return left.toString().concat(right.toString());
+    }
+
+    /**
+     * @return the plain {@link String} if {@code value} is a rope or a {@link PString} view,
+     *         {@code value} otherwise.
+     */
+    public static Object flattenString(Object value) {
+        if (value instanceof PStringRope) {
+            return value.toString();
+        } else if (value instanceof PString) {
+            return ((PString) value).getValue();
+        }
+
+        return value;
+    }
+
+    public boolean isFlattened() {
+        return flattened != null;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return toString().charAt(index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    @Override
+    public String toString() {
+        if (flattened == null) {
+            flattened = flatten();
+            left = null;
+            right = null;
+        }
+
+        return flattened;
+    }
+
+    /**
+     * Fills the result back to front with an explicit stack. {@code s += piece} builds a left deep
+     * tree whose depth equals the number of concatenations, far too deep for recursion.
+     */
+    @TruffleBoundary
+    private String flatten() {
+        final char[] chars = new char[length];
+        final ArrayList<CharSequence> stack = new ArrayList<>();
+        int end = length;
+        stack.add(left);
+        stack.add(right);
+
+        while (!stack.isEmpty()) {
+            final CharSequence part = stack.remove(stack.size() - 1);
+
+            if (part instanceof PStringRope && !((PStringRope) part).isFlattened()) {
+                final PStringRope rope = (PStringRope) part;
+                stack.add(rope.left);
+                stack.add(rope.right);
+            } else {
+                final String string = part.toString();
+                end -= string.length();
+                string.getChars(0, string.length(), chars, end);
+            }
+        }
+
+        assert end == 0;
+        return new String(chars);
+    }
+
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof PStringRope) {
+            return toString().equals(other.toString());
+        }
+
+        return false;
+    }
+
+}
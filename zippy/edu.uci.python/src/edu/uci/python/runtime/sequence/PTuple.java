@@ -31,16 +31,14 @@ import org.python.core.*;
 import com.oracle.truffle.api.*;
 
 import edu.uci.python.runtime.*;
-import edu.uci.python.runtime.builtin.*;
 import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.datatype.storage.*;
 import edu.uci.python.runtime.exception.*;
 import edu.uci.python.runtime.iterator.*;
 import edu.uci.python.runtime.sequence.storage.*;
 
 public final class PTuple extends PImmutableSequence implements Comparable<Object> {
 
-    public static final PythonBuiltinClass __class__ = PythonContext.getBuiltinTypeFor(PTuple.class);
-
     private final Object[] array;
 
     public PTuple() {
@@ -49,6 +47,11 @@ public final class PTuple extends PImmutableSequence implements Comparable<Objec
 
     public PTuple(Object[] elements) {
         assert elements != null;
+
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = PStringRope.flattenString(elements[i]);
+        }
+
         array = elements;
     }
 
@@ -195,10 +198,12 @@ public final class PTuple extends PImmutableSequence implements Comparable<Objec
 
     @Override
     public int index(Object value) {
+        final Object item = PStringRope.flattenString(value);
+
         for (int i = 0; i < array.length; i++) {
             Object val = array[i];
 
-            if (val.equals(value)) {
+            if (val.equals(item)) {
                 return i;
             }
         }
@@ -222,7 +227,13 @@ public final class PTuple extends PImmutableSequence implements Comparable<Objec
 
     @Override
     public int hashCode() {
-        return super.hashCode();
+        int hash = 1;
+
+        for (Object item : array) {
+            hash = 31 * hash + HashingUtil.hash(item);
+        }
+
+        return hash;
     }
 
 }
@@ -0,0 +1,393 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.runtime.sequence;
+
+import java.math.*;
+import java.util.*;
+
+import org.python.core.*;
+
+import edu.uci.python.nodes.truffle.*;
+import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.function.*;
+import edu.uci.python.runtime.misc.*;
+import edu.uci.python.runtime.object.*;
+import edu.uci.python.runtime.sequence.storage.*;
+
+/**
+ * Native implementation of {@code list.sort} and {@code sorted}.
+ * <p>
+ * Sorting without a key is delegated to the storage, which sorts primitive storages in place. With
+ * a key the list is decorated, sorted and undecorated. Int keys are packed together with their
+ * position into a {@code long[]} and sorted as primitives, the other keys sort an index array with
+ * a stable merge sort. {@code reverse=True} keeps equal elements in their original order, as
+ * CPython does.
+ * <p>
+ * Like CPython the sort only asks whether one element is less than another, see
+ * {@link #lessThan(Object, Object)}. {@code -0.0} and {@code 0.0} keep their relative order and a
+ * NaN, which is never less than anything, does not move past its neighbours.
+ */
+public final class SortUtil {
+
+    /**
+     * From this length on primitive arrays are sorted with {@link Arrays#parallelSort}.
+     */
+    public static final int PARALLEL_SORT_THRESHOLD = 1 << 16;
+
+    private SortUtil() {
+    }
+
+    public static void sort(PList list, PythonCallable key, boolean reverse) {
+        if (key == null) {
+            sortWithoutKey(list.getStorage(), reverse);
+            return;
+        }
+
+        final SequenceStorage store = list.getStorage();
+        final int length = store.length();
+        final Object[] items = store.getCopyOfInternalArray();
+        final Object[] keys = new Object[length];
+
+        for (int i = 0; i < length; i++) {
+            keys[i] = key.call(PArguments.createWithUserArguments(items[i]));
+        }
+
+        if (reverse) {
+            reverse(items);
+            reverse(keys);
+        }
+
+        final int[] order = sortIndices(keys);
+        final Object[] sorted = new Object[length];
+
+        for (int i = 0; i < length; i++) {
+            sorted[i] = items[order[i]];
+        }
+
+        if (reverse) {
+            reverse(sorted);
+        }
+
+        list.setStorage(SequenceStorageFactory.createStorage(sorted));
+    }
+
+    /**
+     * Sorts with the {@code key} and {@code reverse} keyword arguments of a {@code sort} call.
+     */
+    public static void sort(PList list, Object[] keywords) {
+        PythonCallable key = null;
+        boolean reverse = false;
+
+        if (keywords != null) {
+            for (int i = 0; i < keywords.length; i++) {
+                PKeyword keyword = (PKeyword) keywords[i];
+                Object value = keyword.getValue();
+
+                if (keyword.getName().equals("key")) {
+                    if (value instanceof PythonCallable) {
+                        key = (PythonCallable) value;
+                    } else if (!(value instanceof PNone)) {
+                        throw Py.TypeError("'" + PythonTypesUtil.getPythonTypeName(value) + "' object is not callable");
+                    }
+                } else if (keyword.getName().equals("reverse")) {
+                    reverse = JavaTypeConversions.toBoolean(value);
+                } else {
+                    throw Py.TypeError("'" + keyword.getName() + "' is an invalid keyword argument for this function");
+                }
+            }
+        }
+
+        sort(list, key, reverse);
+    }
+
+    private static void sortWithoutKey(SequenceStorage store, boolean reverse) {
+        if (!reverse) {
+            store.sort();
+        } else if (hasIndistinguishableElements(store)) {
+            store.sort();
+            store.reverse();
+        } else {
+            store.reverse();
+            store.sort();
+            store.reverse();
+        }
+    }
+
+    /**
+     * Equal elements of these storages cannot be told apart, so stability does not matter.
+     */
+    private static boolean hasIndistinguishableElements(SequenceStorage store) {
+        return store instanceof IntSequenceStorage || store instanceof LongSequenceStorage || store instanceof BoolSequenceStorage ||
+                        (store instanceof DoubleSequenceStorage && !((DoubleSequenceStorage) store).needsStableSort());
+    }
+
+    /**
+     * Stably sorts the first {@code length} elements of {@code values} in place.
+     */
+    public static void sort(Object[] values, int length) {
+        final Object[] keys = Arrays.copyOf(values, length);
+        final int[] order = sortIndices(keys);
+
+        for (int i = 0; i < length; i++) {
+            values[i] = keys[order[i]];
+        }
+    }
+
+    /**
+     * Returns the positions of the first {@code length} doubles in stably sorted order.
+     */
+    public static int[] sortIndices(final double[] keys, int length) {
+        return mergeSort(length, new IndexComparator() {
+
+            @Override
+            boolean lessThan(int left, int right) {
+                return keys[left] < keys[right];
+            }
+        });
+    }
+
+    /**
+     * Returns the positions of {@code keys} in stably sorted order.
+     */
+    public static int[] sortIndices(Object[] keys) {
+        if (allInstancesOf(keys, Integer.class)) {
+            return sortIntKeys(keys);
+        } else if (allInstancesOf(keys, Double.class)) {
+            final double[] doubles = new double[keys.length];
+
+            for (int i = 0; i < keys.length; i++) {
+                doubles[i] = (double) keys[i];
+            }
+
+            return sortIndices(doubles, keys.length);
+        } else if (allInstancesOf(keys, String.class)) {
+            return mergeSort(keys.length, new IndexComparator() {
+
+                @Override
+                boolean lessThan(int left, int right) {
+                    return ((String) keys[left]).compareTo((String) keys[right]) < 0;
+                }
+            });
+        } else {
+            return mergeSort(keys.length, new IndexComparator() {
+
+                @Override
+                boolean lessThan(int left, int right) {
+                    return SortUtil.lessThan(keys[left], keys[right]);
+                }
+            });
+        }
+    }
+
+    private static boolean allInstancesOf(Object[] keys, Class<?> clazz) {
+        for (Object key : keys) {
+            if (key == null || key.getClass() != clazz) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * The key goes into the high and the position into the low half of a long. Sorting those longs
+     * orders by key first and position second, which makes the primitive sort stable.
+     */
+    private static int[] sortIntKeys(Object[] keys) {
+        final int length = keys.length;
+        final long[] packed = new long[length];
+
+        for (int i = 0; i < length; i++) {
+            packed[i] = ((long) (int) keys[i] << 32) | i;
+        }
+
+        if (length >= PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(packed);
+        } else {
+            Arrays.sort(packed);
+        }
+
+        final int[] order = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            order[i] = (int) packed[i];
+        }
+
+        return order;
+    }
+
+    private abstract static class IndexComparator {
+
+        abstract boolean lessThan(int left, int right);
+    }
+
+    private static int[] mergeSort(int length, IndexComparator comparator) {
+        int[] order = new int[length];
+        int[] buffer = new int[length];
+
+        for (int i = 0; i < length; i++) {
+            order[i] = i;
+        }
+
+        for (int width = 1; width < length; width *= 2) {
+            for (int low = 0; low < length; low += 2 * width) {
+                final int middle = Math.min(low + width, length);
+                final int high = Math.min(low + 2 * width, length);
+                int left = low;
+                int right = middle;
+
+                for (int i = low; i < high; i++) {
+                    if (left < middle && (right >= high || !comparator.lessThan(order[right], order[left]))) {
+                        buffer[i] = order[left++];
+                    } else {
+                        buffer[i] = order[right++];
+                    }
+                }
+            }
+
+            final int[] temp = order;
+            order = buffer;
+            buffer = temp;
+        }
+
+        return order;
+    }
+
+    private static void reverse(Object[] array) {
+        for (int head = 0, tail = array.length - 1; head < tail; head++, tail--) {
+            final Object temp = array[head];
+            array[head] = array[tail];
+            array[tail] = temp;
+        }
+    }
+
+    /**
+     * Python's {@code left < right}. Numbers of any representation compare by value, strings by
+     * code unit, lists and tuples lexicographically and user objects through {@code __lt__}, or
+     * the reflected {@code __gt__} of the right operand.
+     */
+    public static boolean lessThan(Object left, Object right) {
+        if (left instanceof Integer && right instanceof Integer) {
+            return (int) left < (int) right;
+        } else if (left instanceof String && right instanceof String) {
+            return ((String) left).compareTo((String) right) < 0;
+        } else if (isNumber(left) && isNumber(right)) {
+            return compareNumbers(left, right) < 0;
+        } else if (left instanceof CharSequence && right instanceof CharSequence) {
+            return left.toString().compareTo(right.toString()) < 0;
+        } else if ((left instanceof PList && right instanceof PList) || (left instanceof PTuple && right instanceof PTuple)) {
+            return compareSequences((PSequence) left, (PSequence) right) < 0;
+        } else if (left instanceof PythonObject && hasComparison((PythonObject) left, "__lt__")) {
+            return callComparison((PythonObject) left, "__lt__", right);
+        } else if (right instanceof PythonObject && hasComparison((PythonObject) right, "__gt__")) {
+            return callComparison((PythonObject) right, "__gt__", left);
+        } else if (left instanceof Comparable && left.getClass() == right.getClass()) {
+            @SuppressWarnings("unchecked")
+            final Comparable<Object> comparable = (Comparable<Object>) left;
+            return comparable.compareTo(right) < 0;
+        }
+
+        throw Py.TypeError("unorderable types: " + PythonTypesUtil.getPythonTypeName(left) + "() < " + PythonTypesUtil.getPythonTypeName(right) + "()");
+    }
+
+    /**
+     * Three way comparison built from {@link #lessThan(Object, Object)}. Elements neither less nor
+     * greater than each other, such as {@code -0.0} and {@code 0.0} or NaN and anything, are equal.
+     */
+    public static int compare(Object left, Object right) {
+        if (lessThan(left, right)) {
+            return -1;
+        } else if (lessThan(right, left)) {
+            return 1;
+        }
+
+        return 0;
+    }
+
+    private static boolean hasComparison(PythonObject object, String name) {
+        return object.getAttribute(name) instanceof PythonCallable;
+    }
+
+    private static boolean callComparison(PythonObject object, String name, Object other) {
+        final PythonCallable callable = (PythonCallable) object.getAttribute(name);
+        return JavaTypeConversions.toBoolean(callable.call(PArguments.createWithUserArguments(object, other)));
+    }
+
+    private static boolean isNumber(Object value) {
+        return value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof BigInteger || value instanceof Boolean;
+    }
+
+    private static int compareNumbers(Object left, Object right) {
+        if (left instanceof Double || right instanceof Double) {
+            final double leftDouble = toDouble(left);
+            final double rightDouble = toDouble(right);
+            return leftDouble < rightDouble ? -1 : (rightDouble < leftDouble ? 1 : 0);
+        } else if (left instanceof BigInteger || right instanceof BigInteger) {
+            return toBigInteger(left).compareTo(toBigInteger(right));
+        }
+
+        return Long.compare(toLong(left), toLong(right));
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Boolean) {
+            return (boolean) value ? 1 : 0;
+        }
+
+        return ((Number) value).longValue();
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Boolean) {
+            return (boolean) value ? 1 : 0;
+        }
+
+        return ((Number) value).doubleValue();
+    }
+
+    private static BigInteger toBigInteger(Object value) {
+        if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        }
+
+        return BigInteger.valueOf(toLong(value));
+    }
+
+    private static int compareSequences(PSequence left, PSequence right) {
+        final int leftLength = left.len();
+        final int rightLength = right.len();
+
+        for (int i = 0; i < leftLength && i < rightLength; i++) {
+            final int result = compare(left.getItem(i), right.getItem(i));
+
+            if (result != 0) {
+                return result;
+            }
+        }
+
+        return Integer.compare(leftLength, rightLength);
+    }
+
+}
@@ -24,6 +24,8 @@
  */
 package edu.uci.python.runtime.sequence.storage;
 
+import edu.uci.python.runtime.sequence.*;
+
 public abstract class BasicSequenceStorage extends SequenceStorage {
 
     // nominated storage length
@@ -64,8 +66,10 @@ public abstract class BasicSequenceStorage extends SequenceStorage {
 
     @Override
     public int index(Object value) {
+        final Object item = PStringRope.flattenString(value);
+
         for (int i = 0; i < length; i++) {
-            if (getItemNormalized(i).equals(value)) {
+            if (getItemNormalized(i).equals(item)) {
                 return i;
             }
         }
@@ -30,40 +30,83 @@ import java.util.Arrays;
 import org.python.core.Py;
 
 import com.oracle.truffle.api.CompilerDirectives;
-import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 import edu.uci.python.runtime.PythonOptions;
 import edu.uci.python.runtime.sequence.SequenceUtil;
 
+/**
+ * Bit packed bool storage, 64 elements per {@code long}.
+ */
 public final class BoolSequenceStorage extends BasicSequenceStorage {
 
-    private boolean[] values;
+    private long[] words;
 
     public BoolSequenceStorage() {
-        values = new boolean[]{};
+        words = new long[]{};
     }
 
     public BoolSequenceStorage(boolean[] elements) {
-        this.values = elements;
-        capacity = values.length;
+        words = new long[wordsFor(elements.length)];
+        capacity = words.length << 6;
         length = elements.length;
+
+        for (int i = 0; i < elements.length; i++) {
+            if (elements[i]) {
+                words[i >> 6] |= 1L << i;
+            }
+        }
+    }
+
+    private BoolSequenceStorage(long[] words, int length) {
+        this.words = words;
+        this.capacity = words.length << 6;
+        this.length = length;
+    }
+
+    private static int wordsFor(int bits) {
+        return (bits + 63) >> 6;
+    }
+
+    private boolean get(int idx) {
+        return (words[idx >> 6] & (1L << idx)) != 0;
+    }
+
+    private void set(int idx, boolean value) {
+        if (value) {
+            words[idx >> 6] |= 1L << idx;
+        } else {
+            words[idx >> 6] &= ~(1L << idx);
+        }
+    }
+
+    private void checkBounds(int idx, String message) {
+        if (idx < 0 || idx >= length) {
+            CompilerDirectives.transferToInterpreterAndInvalidate();
+            throw Py.IndexError(message);
+        }
     }
 
     @Override
     protected void increaseCapacityExactWithCopy(int newCapacity) {
-        values = Arrays.copyOf(values, newCapacity);
-        capacity = values.length;
+        words = Arrays.copyOf(words, wordsFor(newCapacity));
+        capacity = words.length << 6;
     }
 
     @Override
     protected void increaseCapacityExact(int newCapacity) {
-        values = new boolean[newCapacity];
-        capacity = values.length;
+        words = new long[wordsFor(newCapacity)];
+        capacity = words.length << 6;
+    }
+
+    @Override
+    protected void minimizeCapacity() {
+        words = Arrays.copyOf(words, wordsFor(length));
+        capacity = words.length << 6;
     }
 
     @Override
     public SequenceStorage copy() {
-        return new BoolSequenceStorage(Arrays.copyOf(values, length));
+        return new BoolSequenceStorage(Arrays.copyOf(words, wordsFor(length)), length);
     }
 
     @Override
@@ -74,14 +117,20 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
         Object[] boxed = new Object[length];
 
         for (int i = 0; i < length; i++) {
-            boxed[i] = values[i];
+            boxed[i] = get(i);
         }
 
         return boxed;
     }
 
     public boolean[] getInternalBoolArray() {
-        return values;
+        boolean[] unpacked = new boolean[length];
+
+        for (int i = 0; i < length; i++) {
+            unpacked[i] = get(i);
+        }
+
+        return unpacked;
     }
 
     @Override
@@ -95,12 +144,8 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
     }
 
     public boolean getBoolItemNormalized(int idx) {
-        try {
-            return values[idx];
-        } catch (ArrayIndexOutOfBoundsException e) {
-            CompilerDirectives.transferToInterpreterAndInvalidate();
-            throw Py.IndexError("list index out of range");
-        }
+        checkBounds(idx, "list index out of range");
+        return get(idx);
     }
 
     @Override
@@ -113,12 +158,8 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
     }
 
     public void setBoolItemNormalized(int idx, boolean value) {
-        try {
-            values[idx] = value;
-        } catch (ArrayIndexOutOfBoundsException e) {
-            CompilerDirectives.transferToInterpreterAndInvalidate();
-            throw Py.IndexError("list assignment index out of range");
-        }
+        checkBounds(idx, "list assignment index out of range");
+        set(idx, value);
     }
 
     @Override
@@ -134,28 +175,25 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
         ensureCapacity(length + 1);
 
         // shifting tail to the right by one slot
-        for (int i = values.length - 1; i > idx; i--) {
-            values[i] = values[i - 1];
+        for (int i = length; i > idx; i--) {
+            set(i, get(i - 1));
         }
 
-        values[idx] = value;
+        set(idx, value);
         length++;
     }
 
     @Override
     public SequenceStorage getSliceInBound(int start, int stop, int step, int sliceLength) {
-        boolean[] newArray = new boolean[sliceLength];
-
-        if (step == 1) {
-            System.arraycopy(values, start, newArray, 0, sliceLength);
-            return new BoolSequenceStorage(newArray);
-        }
+        final long[] newWords = new long[wordsFor(sliceLength)];
 
         for (int i = start, j = 0; j < sliceLength; i += step, j++) {
-            newArray[j] = values[i];
+            if (get(i)) {
+                newWords[j >> 6] |= 1L << j;
+            }
         }
 
-        return new BoolSequenceStorage(newArray);
+        return new BoolSequenceStorage(newWords, sliceLength);
     }
 
     @Override
@@ -172,7 +210,7 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
 
         // range is the whole sequence?
         if (start == 0 && stop == length) {
-            values = Arrays.copyOf(sequence.values, otherLength);
+            words = Arrays.copyOf(sequence.words, wordsFor(otherLength));
             length = otherLength;
             minimizeCapacity();
             return;
@@ -181,7 +219,7 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
         ensureCapacity(stop);
 
         for (int i = start, j = 0; i < stop; i += step, j++) {
-            values[i] = sequence.values[j];
+            set(i, sequence.get(j));
         }
 
         length = length > stop ? length : stop;
@@ -196,7 +234,7 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public void delItemInBound(int idx) {
-        if (values.length - 1 == idx) {
+        if (length - 1 == idx) {
             popBool();
         } else {
             popInBound(idx);
@@ -205,10 +243,10 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public Object popInBound(int idx) {
-        boolean pop = values[idx];
+        boolean pop = get(idx);
 
-        for (int i = idx; i < values.length - 1; i++) {
-            values[i] = values[i + 1];
+        for (int i = idx; i < length - 1; i++) {
+            set(i, get(i + 1));
         }
 
         length--;
@@ -216,7 +254,7 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
     }
 
     public boolean popBool() {
-        boolean pop = values[capacity - 1];
+        boolean pop = get(length - 1);
         length--;
         return pop;
     }
@@ -231,11 +269,16 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
 
     }
 
-    @ExplodeLoop
+    /**
+     * Scans a word at a time for the first matching bit.
+     */
     public int indexOfBool(boolean value) {
-        for (int i = 0; i < length; i++) {
-            if (values[i] == value) {
-                return i;
+        for (int w = 0; w < wordsFor(length); w++) {
+            final long word = value ? words[w] : ~words[w];
+
+            if (word != 0) {
+                final int idx = (w << 6) + Long.numberOfTrailingZeros(word);
+                return idx < length ? idx : -1;
             }
         }
 
@@ -253,7 +296,7 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
 
     public void appendBool(boolean value) {
         ensureCapacity(length + 1);
-        values[length] = value;
+        set(length, value);
         length++;
     }
 
@@ -266,20 +309,17 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
         }
     }
 
-// @ExplodeLoop
     public void extendWithBoolStorage(BoolSequenceStorage other) {
         int extendedLength = length + other.length();
         ensureCapacity(extendedLength);
-        boolean[] otherValues = other.values;
 
         for (int i = length, j = 0; i < extendedLength; i++, j++) {
-            values[i] = otherValues[j];
+            set(i, other.get(j));
         }
 
         length = extendedLength;
     }
 
-    @ExplodeLoop
     @Override
     public void reverse() {
         int head = 0;
@@ -287,30 +327,33 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
         int middle = (length - 1) / 2;
 
         for (; head <= middle; head++, tail--) {
-            boolean temp = values[head];
-            values[head] = values[tail];
-            values[tail] = temp;
+            boolean temp = get(head);
+            set(head, get(tail));
+            set(tail, temp);
         }
     }
 
-    // TODO: Should use Collection for sorting boolean
-    @ExplodeLoop
+    /**
+     * Counting sort: all the {@code False}s followed by the {@code True}s.
+     */
     @Override
     public void sort() {
-        boolean[] copy = Arrays.copyOf(values, length);
-        int count = 0;
-        for (boolean b : copy) {
-            if (!b)
-                count++;
-        }
+        int trueCount = 0;
+
         for (int i = 0; i < length; i++) {
-            if (count != 0) {
-                copy[i] = false;
-                count--;
-            } else
-                copy[i] = true;
+            if (get(i)) {
+                trueCount++;
+            }
         }
-        values = copy;
+
+        final long[] sorted = new long[wordsFor(length)];
+        final BoolSequenceStorage result = new BoolSequenceStorage(sorted, length);
+
+        for (int i = length - trueCount; i < length; i++) {
+            result.set(i, true);
+        }
+
+        words = sorted;
         minimizeCapacity();
     }
 
@@ -326,19 +369,18 @@ public final class BoolSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public Object getIndicativeValue() {
-        return 0;
+        return false;
     }
 
-    @ExplodeLoop
     @Override
     public boolean equals(SequenceStorage other) {
         if (other.length() != length() || !(other instanceof BoolSequenceStorage)) {
             return false;
         }
 
-        boolean[] otherArray = ((BoolSequenceStorage) other).getInternalBoolArray();
+        BoolSequenceStorage otherBools = (BoolSequenceStorage) other;
         for (int i = 0; i < length(); i++) {
-            if (values[i] != otherArray[i]) {
+            if (get(i) != otherBools.get(i)) {
                 return false;
             }
         }
@@ -32,20 +32,143 @@ import com.oracle.truffle.api.*;
 
 import edu.uci.python.runtime.sequence.*;
 
+/**
+ * Unboxed {@code double} storage.
+ * <p>
+ * An int or long list that receives a float widens to this storage instead of boxing every element.
+ * Python can tell {@code 1} and {@code 1.0} apart, so integral elements are tagged in a bit set
+ * and boxed back to ints when read generically. The bit set stays {@code null} for lists that only
+ * ever held floats, and only those are seen by the unboxed double fast paths (see
+ * {@link #hasIntegralElements()}).
+ */
 public final class DoubleSequenceStorage extends BasicSequenceStorage {
 
+    /**
+     * Every int of magnitude up to 2^53 has an exact double representation.
+     */
+    private static final long MAX_EXACT_INTEGRAL = 1L << 53;
+
+    private static final long NEGATIVE_ZERO_BITS = Double.doubleToRawLongBits(-0.0);
+
     private double[] values;
 
+    private long[] integral;
+    private int integralCount;
+
     public DoubleSequenceStorage() {
         values = new double[]{};
     }
 
+    public DoubleSequenceStorage(int capacity) {
+        values = new double[capacity];
+        this.capacity = capacity;
+    }
+
     public DoubleSequenceStorage(double[] elements) {
         this.values = elements;
         length = elements.length;
         capacity = elements.length;
     }
 
+    public static DoubleSequenceStorage fromIntStorage(IntSequenceStorage store) {
+        final int length = store.length();
+        final int[] ints = store.getInternalIntArray();
+        final DoubleSequenceStorage widened = new DoubleSequenceStorage(new double[length]);
+
+        for (int i = 0; i < length; i++) {
+            widened.values[i] = ints[i];
+            widened.setIntegral(i, true);
+        }
+
+        return widened;
+    }
+
+    /**
+     * @return null if some element has no exact double representation.
+     */
+    public static DoubleSequenceStorage fromLongStorage(LongSequenceStorage store) {
+        final int length = store.length();
+        final long[] longs = store.getInternalLongArray();
+        final DoubleSequenceStorage widened = new DoubleSequenceStorage(new double[length]);
+
+        for (int i = 0; i < length; i++) {
+            if (!isExactIntegral(longs[i])) {
+                return null;
+            }
+
+            widened.values[i] = longs[i];
+            widened.setIntegral(i, true);
+        }
+
+        return widened;
+    }
+
+    public static boolean isExactIntegral(long value) {
+        return -MAX_EXACT_INTEGRAL <= value && value <= MAX_EXACT_INTEGRAL;
+    }
+
+    public boolean hasIntegralElements() {
+        return integralCount != 0;
+    }
+
+    private boolean isIntegral(int idx) {
+        return integral != null && (idx >> 6) < integral.length && (integral[idx >> 6] & (1L << idx)) != 0;
+    }
+
+    private void setIntegral(int idx, boolean value) {
+        if (value) {
+            if (integral == null) {
+                integral = new long[(values.length >> 6) + 1];
+            } else if ((idx >> 6) >= integral.length) {
+                integral = Arrays.copyOf(integral, (values.length >> 6) + 1);
+            }
+
+            if ((integral[idx >> 6] & (1L << idx)) == 0) {
+                integral[idx >> 6] |= 1L << idx;
+                integralCount++;
+            }
+        } else if (isIntegral(idx)) {
+            integral[idx >> 6] &= ~(1L << idx);
+
+            if (--integralCount == 0) {
+                integral = null;
+            }
+        }
+    }
+
+    /**
+     * Drops the tags of slots past {@link #length}, they no longer hold elements.
+     */
+    private void truncateIntegral(int oldLength) {
+        if (integral != null) {
+            for (int i = length; i < oldLength; i++) {
+                setIntegral(i, false);
+            }
+        }
+    }
+
+    private Object boxItem(int idx) {
+        final double value = values[idx];
+
+        if (isIntegral(idx)) {
+            final long asLong = (long) value;
+            return (int) asLong == asLong ? (Object) (int) asLong : (Object) asLong;
+        }
+
+        return value;
+    }
+
+    /**
+     * @return true if {@code value} is a Python int this storage can hold exactly.
+     */
+    private static boolean isStorableIntegral(Object value) {
+        return value instanceof Integer || (value instanceof Long && isExactIntegral((long) value));
+    }
+
+    private static double integralValue(Object value) {
+        return value instanceof Integer ? (int) value : (long) value;
+    }
+
     @Override
     protected void increaseCapacityExactWithCopy(int newCapacity) {
         values = Arrays.copyOf(values, newCapacity);
@@ -56,11 +179,20 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
     protected void increaseCapacityExact(int newCapacity) {
         values = new double[newCapacity];
         capacity = values.length;
+        integral = null;
+        integralCount = 0;
     }
 
     @Override
     public SequenceStorage copy() {
-        return new DoubleSequenceStorage(Arrays.copyOf(values, length));
+        final DoubleSequenceStorage copy = new DoubleSequenceStorage(Arrays.copyOf(values, length));
+
+        if (integral != null) {
+            copy.integral = Arrays.copyOf(integral, integral.length);
+            copy.integralCount = integralCount;
+        }
+
+        return copy;
     }
 
     @Override
@@ -71,7 +203,7 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
         Object[] boxed = new Object[length];
 
         for (int i = 0; i < length; i++) {
-            boxed[i] = values[i];
+            boxed[i] = boxItem(i);
         }
 
         return boxed;
@@ -88,6 +220,15 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public Object getItemNormalized(int idx) {
+        if (integral != null) {
+            if (idx < 0 || idx >= length) {
+                CompilerDirectives.transferToInterpreterAndInvalidate();
+                throw Py.IndexError("list index out of range");
+            }
+
+            return boxItem(idx);
+        }
+
         return getDoubleItemNormalized(idx);
     }
 
@@ -104,6 +245,9 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
     public void setItemNormalized(int idx, Object value) throws SequenceStoreException {
         if (value instanceof Double) {
             setDoubleItemNormalized(idx, (double) value);
+        } else if (isStorableIntegral(value)) {
+            setDoubleItemNormalized(idx, integralValue(value));
+            setIntegral(idx, true);
         } else {
             throw SequenceStoreException.INSTANCE;
         }
@@ -116,12 +260,19 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
             CompilerDirectives.transferToInterpreterAndInvalidate();
             throw Py.IndexError("list assignment index out of range");
         }
+
+        if (integral != null) {
+            setIntegral(idx, false);
+        }
     }
 
     @Override
     public void insertItem(int idx, Object value) throws SequenceStoreException {
         if (value instanceof Double) {
             insertDoubleItem(idx, (double) value);
+        } else if (isStorableIntegral(value)) {
+            insertDoubleItem(idx, integralValue(value));
+            setIntegral(idx, true);
         } else {
             throw SequenceStoreException.INSTANCE;
         }
@@ -135,6 +286,14 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
             values[i] = values[i - 1];
         }
 
+        if (integral != null) {
+            for (int i = length; i > idx; i--) {
+                setIntegral(i, isIntegral(i - 1));
+            }
+
+            setIntegral(idx, false);
+        }
+
         values[idx] = value;
         length++;
     }
@@ -142,17 +301,28 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
     @Override
     public SequenceStorage getSliceInBound(int start, int stop, int step, int sliceLength) {
         double[] newArray = new double[sliceLength];
+        DoubleSequenceStorage slice;
 
         if (step == 1) {
             System.arraycopy(values, start, newArray, 0, sliceLength);
-            return new DoubleSequenceStorage(newArray);
+            slice = new DoubleSequenceStorage(newArray);
+        } else {
+            for (int i = start, j = 0; j < sliceLength; i += step, j++) {
+                newArray[j] = values[i];
+            }
+
+            slice = new DoubleSequenceStorage(newArray);
         }
 
-        for (int i = start, j = 0; j < sliceLength; i += step, j++) {
-            newArray[j] = values[i];
+        if (integral != null) {
+            for (int i = start, j = 0; j < sliceLength; i += step, j++) {
+                if (isIntegral(i)) {
+                    slice.setIntegral(j, true);
+                }
+            }
         }
 
-        return new DoubleSequenceStorage(newArray);
+        return slice;
     }
 
     @Override
@@ -170,6 +340,8 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
         // range is the whole sequence?
         if (start == 0 && stop == length) {
             values = Arrays.copyOf(sequence.values, otherLength);
+            integral = sequence.integral == null ? null : Arrays.copyOf(sequence.integral, sequence.integral.length);
+            integralCount = sequence.integralCount;
             length = otherLength;
             minimizeCapacity();
             return;
@@ -179,6 +351,7 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
 
         for (int i = start, j = 0; i < stop; i += step, j++) {
             values[i] = sequence.values[j];
+            setIntegral(i, sequence.isIntegral(j));
         }
 
         length = length > stop ? length : stop;
@@ -187,7 +360,9 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
     @Override
     public void delSlice(int start, int stop) {
         if (stop == SequenceUtil.MISSING_INDEX) {
+            final int oldLength = length;
             length = start;
+            truncateIntegral(oldLength);
         }
     }
 
@@ -198,13 +373,20 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public Object popInBound(int idx) {
-        double pop = values[idx];
+        Object pop = boxItem(idx);
 
         for (int i = idx; i < values.length - 1; i++) {
             values[i] = values[i + 1];
         }
 
+        if (integral != null) {
+            for (int i = idx; i < length - 1; i++) {
+                setIntegral(i, isIntegral(i + 1));
+            }
+        }
+
         length--;
+        truncateIntegral(length + 1);
         return pop;
     }
 
@@ -218,6 +400,8 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
     public int index(Object value) {
         if (value instanceof Double) {
             return indexOfDouble((double) value);
+        } else if (isStorableIntegral(value)) {
+            return indexOfDouble(integralValue(value));
         } else {
             return super.index(value);
         }
@@ -238,6 +422,9 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
     public void append(Object value) throws SequenceStoreException {
         if (value instanceof Double) {
             appendDouble((double) value);
+        } else if (isStorableIntegral(value)) {
+            appendDouble(integralValue(value));
+            setIntegral(length - 1, true);
         } else {
             throw SequenceStoreException.INSTANCE;
         }
@@ -246,6 +433,11 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
     public void appendDouble(double value) {
         ensureCapacity(length + 1);
         values[length] = value;
+
+        if (integral != null) {
+            setIntegral(length, false);
+        }
+
         length++;
     }
 
@@ -253,6 +445,16 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
     public void extend(SequenceStorage other) throws SequenceStoreException {
         if (other instanceof DoubleSequenceStorage) {
             extendWithIntStorage((DoubleSequenceStorage) other);
+        } else if (other instanceof IntSequenceStorage) {
+            extendWithIntStorage(fromIntStorage((IntSequenceStorage) other));
+        } else if (other instanceof LongSequenceStorage) {
+            DoubleSequenceStorage widened = fromLongStorage((LongSequenceStorage) other);
+
+            if (widened == null) {
+                throw SequenceStoreException.INSTANCE;
+            }
+
+            extendWithIntStorage(widened);
         } else {
             throw SequenceStoreException.INSTANCE;
         }
@@ -265,6 +467,10 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
 
         for (int i = length, j = 0; i < extendedLength; i++, j++) {
             values[i] = otherValues[j];
+
+            if (other.integral != null) {
+                setIntegral(i, other.isIntegral(j));
+            }
         }
 
         length = extendedLength;
@@ -280,15 +486,74 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
             double temp = values[head];
             values[head] = values[tail];
             values[tail] = temp;
+
+            if (integral != null) {
+                boolean tempIntegral = isIntegral(head);
+                setIntegral(head, isIntegral(tail));
+                setIntegral(tail, tempIntegral);
+            }
         }
     }
 
+    /**
+     * Python's {@code <} does not order {@code -0.0} before {@code 0.0} and never orders a NaN, so
+     * a primitive sort would reorder elements that compare equal. Integral tags need the same
+     * stable sort.
+     */
+    public boolean needsStableSort() {
+        if (integral != null) {
+            return true;
+        }
+
+        for (int i = 0; i < length; i++) {
+            final double value = values[i];
+
+            if (value != value || Double.doubleToRawLongBits(value) == NEGATIVE_ZERO_BITS) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public void sort() {
-        double[] copy = Arrays.copyOf(values, length);
-        Arrays.sort(copy);
-        values = copy;
+        if (needsStableSort()) {
+            sortStable();
+            return;
+        }
+
+        if (length >= SortUtil.PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(values, 0, length);
+        } else {
+            Arrays.sort(values, 0, length);
+        }
+    }
+
+    /**
+     * Sorts elements together with their tags. The sort is stable, so {@code 1} and {@code 1.0}
+     * keep their relative order like in CPython.
+     */
+    private void sortStable() {
+        final int[] order = SortUtil.sortIndices(values, length);
+        final double[] sorted = new double[length];
+        final boolean[] sortedIntegral = new boolean[length];
+
+        for (int i = 0; i < length; i++) {
+            sorted[i] = values[order[i]];
+            sortedIntegral[i] = isIntegral(order[i]);
+        }
+
+        values = sorted;
+        integral = null;
+        integralCount = 0;
         minimizeCapacity();
+
+        for (int i = 0; i < length; i++) {
+            if (sortedIntegral[i]) {
+                setIntegral(i, true);
+            }
+        }
     }
 
     @Override
@@ -303,7 +568,7 @@ public final class DoubleSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public boolean equals(SequenceStorage other) {
-        if (other.length() != length()) {
+        if (other.length() != length() || !(other instanceof DoubleSequenceStorage)) {
             return false;
         }
 
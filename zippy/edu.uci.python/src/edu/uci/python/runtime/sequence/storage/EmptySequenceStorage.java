@@ -50,6 +50,8 @@ public final class EmptySequenceStorage extends SequenceStorage {
             generalized = new LongSequenceStorage();
         } else if (value instanceof Double) {
             generalized = new DoubleSequenceStorage();
+        } else if (value instanceof Boolean) {
+            generalized = new BoolSequenceStorage();
         } else if (value instanceof PList) {
             generalized = new ListSequenceStorage(((PList) value).getStorage());
         } else if (value instanceof PTuple) {
@@ -25,6 +25,7 @@
 package edu.uci.python.runtime.sequence.storage;
 
 import java.io.PrintStream;
+import java.math.BigInteger;
 import java.util.Arrays;
 
 import org.python.core.Py;
@@ -34,6 +35,7 @@ import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 import edu.uci.python.runtime.PythonOptions;
 import edu.uci.python.runtime.sequence.SequenceUtil;
+import edu.uci.python.runtime.sequence.SortUtil;
 
 public final class IntSequenceStorage extends BasicSequenceStorage {
 
@@ -43,6 +45,11 @@ public final class IntSequenceStorage extends BasicSequenceStorage {
         values = new int[]{};
     }
 
+    public IntSequenceStorage(int capacity) {
+        values = new int[capacity];
+        this.capacity = capacity;
+    }
+
     public IntSequenceStorage(int[] elements) {
         this.values = elements;
         capacity = values.length;
@@ -293,23 +300,47 @@ public final class IntSequenceStorage extends BasicSequenceStorage {
         }
     }
 
-    @ExplodeLoop
     @Override
     public void sort() {
-        int[] copy = Arrays.copyOf(values, length);
-        Arrays.sort(copy);
-        values = copy;
-        minimizeCapacity();
+        if (length >= SortUtil.PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(values, 0, length);
+        } else {
+            Arrays.sort(values, 0, length);
+        }
     }
 
+    /**
+     * Widens along int -> long -> double and only boxes for non numeric values. Bools box as well,
+     * {@code True} and {@code 1} print differently.
+     */
     @Override
     public SequenceStorage generalizeFor(Object value) {
+        final SequenceStorage generalized;
+
+        if (value instanceof Long || (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE)) {
+            generalized = toLongStorage();
+        } else if (value instanceof Double) {
+            generalized = DoubleSequenceStorage.fromIntStorage(this);
+        } else {
+            generalized = new ObjectSequenceStorage(getInternalArray());
+        }
+
         if (PythonOptions.TraceSequenceStorageGeneralization) {
             PrintStream ps = System.out;
-            ps.println("[ZipPy]" + this + " generalizing to ObjectSequenceStorage");
+            ps.println("[ZipPy]" + this + " generalizing to " + generalized);
+        }
+
+        return generalized;
+    }
+
+    public LongSequenceStorage toLongStorage() {
+        final long[] longs = new long[length];
+
+        for (int i = 0; i < length; i++) {
+            longs[i] = values[i];
         }
 
-        return new ObjectSequenceStorage(getInternalArray());
+        return new LongSequenceStorage(longs);
     }
 
     @Override
@@ -35,6 +35,7 @@ import com.oracle.truffle.api.nodes.ExplodeLoop;
 
 import edu.uci.python.runtime.PythonOptions;
 import edu.uci.python.runtime.sequence.SequenceUtil;
+import edu.uci.python.runtime.sequence.SortUtil;
 
 public final class LongSequenceStorage extends BasicSequenceStorage {
 
@@ -44,6 +45,11 @@ public final class LongSequenceStorage extends BasicSequenceStorage {
         values = new long[]{};
     }
 
+    public LongSequenceStorage(int capacity) {
+        values = new long[capacity];
+        this.capacity = capacity;
+    }
+
     public LongSequenceStorage(long[] elements) {
         this.values = elements;
         capacity = values.length;
@@ -62,6 +68,19 @@ public final class LongSequenceStorage extends BasicSequenceStorage {
         capacity = values.length;
     }
 
+    /**
+     * Ints widen, BigIntegers only if they fit. A wider BigInteger must not be truncated.
+     */
+    private static Object toLong(Object value) {
+        if (value instanceof Integer) {
+            return (long) (int) value;
+        } else if (value instanceof BigInteger && ((BigInteger) value).bitLength() < Long.SIZE) {
+            return ((BigInteger) value).longValue();
+        }
+
+        return value;
+    }
+
     @Override
     public SequenceStorage copy() {
         return new LongSequenceStorage(Arrays.copyOf(values, length));
@@ -106,8 +125,7 @@ public final class LongSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public void setItemNormalized(int idx, Object val) throws SequenceStoreException {
-        Object value = (val instanceof Integer) ? BigInteger.valueOf((int) val).longValue() : val;
-        value = (val instanceof BigInteger) ? ((BigInteger) val).longValue() : value;
+        Object value = toLong(val);
         if (value instanceof Long) {
             setLongItemNormalized(idx, (long) value);
         } else {
@@ -126,8 +144,7 @@ public final class LongSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public void insertItem(int idx, Object val) throws SequenceStoreException {
-        Object value = (val instanceof Integer) ? BigInteger.valueOf((int) val).longValue() : val;
-        value = (val instanceof BigInteger) ? ((BigInteger) val).longValue() : value;
+        Object value = toLong(val);
         if (value instanceof Long) {
             insertLongItem(idx, (long) value);
         } else {
@@ -228,8 +245,7 @@ public final class LongSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public int index(Object val) {
-        Object value = (val instanceof Integer) ? BigInteger.valueOf((int) val).longValue() : val;
-        value = (val instanceof BigInteger) ? ((BigInteger) val).longValue() : value;
+        Object value = toLong(val);
 
         if (value instanceof Long) {
             return indexOfLong((long) value);
@@ -252,8 +268,7 @@ public final class LongSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public void append(Object val) throws SequenceStoreException {
-        Object value = (val instanceof Integer) ? BigInteger.valueOf((int) val).longValue() : val;
-        value = (val instanceof BigInteger) ? ((BigInteger) val).longValue() : value;
+        Object value = toLong(val);
 
         if (value instanceof Long) {
             appendLong((long) value);
@@ -272,6 +287,8 @@ public final class LongSequenceStorage extends BasicSequenceStorage {
     public void extend(SequenceStorage other) throws SequenceStoreException {
         if (other instanceof LongSequenceStorage) {
             extendWithLongStorage((LongSequenceStorage) other);
+        } else if (other instanceof IntSequenceStorage) {
+            extendWithIntStorage((IntSequenceStorage) other);
         } else {
             throw SequenceStoreException.INSTANCE;
         }
@@ -289,6 +306,18 @@ public final class LongSequenceStorage extends BasicSequenceStorage {
         length = extendedLength;
     }
 
+    public void extendWithIntStorage(IntSequenceStorage other) {
+        int extendedLength = length + other.length();
+        ensureCapacity(extendedLength);
+        int[] otherValues = other.getInternalIntArray();
+
+        for (int i = length, j = 0; i < extendedLength; i++, j++) {
+            values[i] = otherValues[j];
+        }
+
+        length = extendedLength;
+    }
+
     @ExplodeLoop
     @Override
     public void reverse() {
@@ -303,28 +332,38 @@ public final class LongSequenceStorage extends BasicSequenceStorage {
         }
     }
 
-    @ExplodeLoop
     @Override
     public void sort() {
-        long[] copy = Arrays.copyOf(values, length);
-        Arrays.sort(copy);
-        values = copy;
-        minimizeCapacity();
+        if (length >= SortUtil.PARALLEL_SORT_THRESHOLD) {
+            Arrays.parallelSort(values, 0, length);
+        } else {
+            Arrays.sort(values, 0, length);
+        }
     }
 
     @Override
     public SequenceStorage generalizeFor(Object value) {
+        SequenceStorage generalized = null;
+
+        if (value instanceof Double) {
+            generalized = DoubleSequenceStorage.fromLongStorage(this);
+        }
+
+        if (generalized == null) {
+            generalized = new ObjectSequenceStorage(getInternalArray());
+        }
+
         if (PythonOptions.TraceSequenceStorageGeneralization) {
             PrintStream ps = System.out;
-            ps.println("[ZipPy]" + this + " generalizing to ObjectSequenceStorage");
+            ps.println("[ZipPy]" + this + " generalizing to " + generalized);
         }
 
-        return new ObjectSequenceStorage(getInternalArray());
+        return generalized;
     }
 
     @Override
     public Object getIndicativeValue() {
-        return 0;
+        return 0L;
     }
 
     @ExplodeLoop
@@ -41,7 +41,16 @@ public final class ObjectSequenceStorage extends BasicSequenceStorage {
         values = new Object[]{};
     }
 
+    public ObjectSequenceStorage(int capacity) {
+        values = new Object[capacity];
+        this.capacity = capacity;
+    }
+
     public ObjectSequenceStorage(Object[] elements) {
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = PStringRope.flattenString(elements[i]);
+        }
+
         this.values = elements;
         length = elements.length;
         capacity = elements.length;
@@ -60,7 +69,7 @@ public final class ObjectSequenceStorage extends BasicSequenceStorage {
     @Override
     public void setItemNormalized(int idx, Object value) {
         try {
-            values[idx] = value;
+            values[idx] = PStringRope.flattenString(value);
         } catch (ArrayIndexOutOfBoundsException e) {
             CompilerDirectives.transferToInterpreterAndInvalidate();
             throw Py.IndexError("list assignment index out of range");
@@ -76,7 +85,7 @@ public final class ObjectSequenceStorage extends BasicSequenceStorage {
             values[i] = values[i - 1];
         }
 
-        values[idx] = value;
+        values[idx] = PStringRope.flattenString(value);
         length++;
     }
 
@@ -159,7 +168,7 @@ public final class ObjectSequenceStorage extends BasicSequenceStorage {
     @Override
     public void append(Object value) {
         ensureCapacity(length + 1);
-        values[length] = value;
+        values[length] = PStringRope.flattenString(value);
         length++;
     }
 
@@ -209,10 +218,7 @@ public final class ObjectSequenceStorage extends BasicSequenceStorage {
 
     @Override
     public void sort() {
-        Object[] copy = getCopyOfInternalArray();
-        Arrays.sort(copy);
-        values = copy;
-        minimizeCapacity();
+        SortUtil.sort(values, length);
     }
 
     @Override
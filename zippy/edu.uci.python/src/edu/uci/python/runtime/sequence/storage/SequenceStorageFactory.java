@@ -24,8 +24,6 @@
  */
 package edu.uci.python.runtime.sequence.storage;
 
-import java.math.BigInteger;
-
 import edu.uci.python.runtime.*;
 import edu.uci.python.runtime.sequence.*;
 
@@ -67,6 +65,23 @@ public class SequenceStorageFactory {
         }
     }
 
+    /**
+     * Empty storage of a profiled kind with room for {@code capacity} elements.
+     */
+    public static SequenceStorage createEmptyStorage(Class<? extends SequenceStorage> kind, int capacity) {
+        if (kind == IntSequenceStorage.class) {
+            return new IntSequenceStorage(capacity);
+        } else if (kind == LongSequenceStorage.class) {
+            return new LongSequenceStorage(capacity);
+        } else if (kind == DoubleSequenceStorage.class) {
+            return new DoubleSequenceStorage(capacity);
+        } else if (kind == ObjectSequenceStorage.class) {
+            return new ObjectSequenceStorage(capacity);
+        }
+
+        return EmptySequenceStorage.INSTANCE;
+    }
+
     public static boolean canSpecializeToInt(Object[] values) {
         if (!(values[0] instanceof Integer)) {
             return false;
@@ -91,17 +106,12 @@ public class SequenceStorageFactory {
         return intVals;
     }
 
+    /**
+     * Ints mixed with longs widen to long.
+     */
     public static boolean canSpecializeToLong(Object[] values) {
-        Object val = values[0];
-        val = (val instanceof Integer) ? BigInteger.valueOf((int) val).longValue() : val;
-        if (!(values[0] instanceof Long)) {
-            return false;
-        }
-
         for (Object item : values) {
-            val = item;
-            val = (val instanceof Integer) ? BigInteger.valueOf((int) val).longValue() : val;
-            if (!(item instanceof Long)) {
+            if (!(item instanceof Long || item instanceof Integer)) {
                 return false;
             }
         }
@@ -112,7 +122,7 @@ public class SequenceStorageFactory {
     public static long[] specializeToLong(Object[] values) {
         final long[] intVals = new long[values.length];
         for (int i = 0; i < values.length; i++) {
-            long value = (values[i] instanceof Integer) ? BigInteger.valueOf((int) values[i]).longValue() : (long) values[i];
+            long value = (values[i] instanceof Integer) ? (long) (int) values[i] : (long) values[i];
             intVals[i] = value;
         }
 
@@ -39,10 +39,15 @@ import edu.uci.python.runtime.builtin.*;
  */
 public abstract class PythonBuiltinObject {
 
-    private static final PythonBuiltinClass __class__ = PythonContext.getBuiltinTypeFor(PythonBuiltinObject.class);
-
     public PythonBuiltinClass __class__() {
-        return __class__;
+        return __class__(PythonContext.getTypeContext());
+    }
+
+    /**
+     * The type of this object in the given context, for callers that know the context they run in.
+     */
+    public PythonBuiltinClass __class__(PythonContext context) {
+        return context.getBuiltinType(PythonBuiltinObject.class);
     }
 
     public Object __getattribute__(String name) {
@@ -99,6 +99,16 @@ public class PythonClass extends FixedPythonObjectStorage implements PythonCalla
         return methodResolutionOrder;
     }
 
+    public boolean isSubClassOf(PythonClass other) {
+        for (PythonClass clazz : methodResolutionOrder) {
+            if (clazz == other) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public String getName() {
         return className;
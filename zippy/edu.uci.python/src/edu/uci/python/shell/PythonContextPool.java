@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.shell;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import edu.uci.python.builtins.*;
+import edu.uci.python.parser.*;
+import edu.uci.python.runtime.*;
+
+/**
+ * A fixed set of pre-initialized {@link PythonContext}s for embedders that run many short scripts.
+ * Builtins are populated once per context when the pool is created; {@link PythonScript} keeps its
+ * translated module per context, so a context taken from the pool runs a script it has seen before
+ * without parsing or translating it again. A context a script failed on may be left in an arbitrary
+ * state, it is discarded and replaced by a fresh one.
+ */
+public final class PythonContextPool {
+
+    private final BlockingQueue<PythonContext> idle;
+    private final int size;
+    private final OutputStream out;
+    private final OutputStream err;
+
+    public PythonContextPool(int size) {
+        this(size, System.out, System.err);
+    }
+
+    public PythonContextPool(int size, OutputStream out, OutputStream err) {
+        if (size < 1) {
+            throw new IllegalArgumentException("pool size must be positive");
+        }
+
+        this.size = size;
+        this.out = out;
+        this.err = err;
+        this.idle = new ArrayBlockingQueue<>(size);
+
+        for (int i = 0; i < size; i++) {
+            idle.add(createContext());
+        }
+    }
+
+    private PythonContext createContext() {
+        PythonOptions opts = new PythonOptions();
+        opts.setStandardOut(out);
+        opts.setStandardErr(err);
+        return new PythonContext(null, opts, new PythonDefaultBuiltinsLookup(), new PythonParserImpl());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Takes a context out of the pool, waiting for one to be released if all are in use.
+     */
+    public PythonContext acquire() throws InterruptedException {
+        return idle.take();
+    }
+
+    public void release(PythonContext context) {
+        idle.add(context);
+    }
+
+    /**
+     * Drops an acquired context instead of releasing it, and puts a fresh one into the pool.
+     */
+    public void discard(PythonContext context) {
+        context.closeOpenFiles();
+        idle.add(createContext());
+    }
+
+    /**
+     * Runs the script on a pooled context, see {@link PythonScript#run(PythonContext, Map, String)}.
+     */
+    public Object run(PythonScript script, Map<String, Object> inputs, String result) throws InterruptedException {
+        PythonContext context = acquire();
+        boolean completed = false;
+
+        try {
+            Object value = script.run(context, inputs, result);
+            completed = true;
+            return value;
+        } finally {
+            if (completed) {
+                release(context);
+            } else {
+                discard(context);
+            }
+        }
+    }
+
+}
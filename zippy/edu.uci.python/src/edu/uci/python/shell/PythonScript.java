@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.shell;
+
+import java.io.*;
+import java.util.*;
+
+import org.python.antlr.base.*;
+
+import com.oracle.truffle.api.*;
+import com.oracle.truffle.api.source.*;
+import com.oracle.truffle.api.source.Source.Builder;
+
+import edu.uci.python.PythonLanguage;
+import edu.uci.python.parser.*;
+import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.function.*;
+import edu.uci.python.runtime.standardtype.*;
+
+/**
+ * A script compiled once and run many times, typically on contexts drawn from a
+ * {@link PythonContextPool}.
+ * <p>
+ * The source is parsed once. Translated nodes belong to a single context, so each context
+ * translates the script the first time it runs it and keeps the resulting module and call target
+ * for later runs, as embedder state of the context that goes away with the context or this script.
+ * <p>
+ * The module is reused as well, since the translated nodes refer to it. Before every run the
+ * globals an earlier run defined are deleted, so each run starts from fresh globals. Deleting them
+ * changes the module's object layout, which costs compiled code that reads globals a
+ * recompilation; scripts that may see earlier runs can opt out with
+ * {@link #withPersistentGlobals()}, and then only the inputs are rebound before a run.
+ */
+public final class PythonScript {
+
+    private static final class Loaded {
+
+        private final PythonModule module;
+        private final RootCallTarget callTarget;
+
+        /**
+         * The attributes the module has before the script first runs.
+         */
+        private final Set<String> initialGlobals;
+
+        private Loaded(PythonModule module, RootCallTarget callTarget, Set<String> initialGlobals) {
+            this.module = module;
+            this.callTarget = callTarget;
+            this.initialGlobals = initialGlobals;
+        }
+
+        private void resetGlobals() {
+            for (String name : module.getAttributeNames()) {
+                if (!initialGlobals.contains(name)) {
+                    module.deleteAttribute(name);
+                }
+            }
+        }
+
+    }
+
+    private final Source source;
+
+    /**
+     * The parsed module in {@link AstCodec} form, decoded for every translation because translation
+     * rewrites the tree. Null if the tree uses nodes the codec does not cover.
+     */
+    private final byte[] encodedTree;
+
+    private final boolean persistentGlobals;
+
+    private PythonScript(Source source, byte[] encodedTree, boolean persistentGlobals) {
+        this.source = source;
+        this.encodedTree = encodedTree;
+        this.persistentGlobals = persistentGlobals;
+    }
+
+    public static PythonScript compile(Source source) {
+        mod tree = new PythonParserImpl().parseTree(source);
+        byte[] encoded;
+
+        try {
+            encoded = AstCodec.encode(tree);
+        } catch (AstCodec.UnsupportedNodeException | IOException e) {
+            encoded = null;
+        }
+
+        return new PythonScript(source, encoded, false);
+    }
+
+    public static PythonScript compile(String code, String name) {
+        Builder<RuntimeException, MissingMIMETypeException, MissingNameException> builder = Source.newBuilder(code);
+        builder.name(name);
+        builder.mimeType(PythonLanguage.MIME_TYPE);
+
+        try {
+            return compile(builder.build());
+        } catch (MissingMIMETypeException | MissingNameException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * The same script, but globals a run defines stay bound in later runs on the same context.
+     */
+    public PythonScript withPersistentGlobals() {
+        return persistentGlobals ? this : new PythonScript(source, encodedTree, true);
+    }
+
+    public boolean hasPersistentGlobals() {
+        return persistentGlobals;
+    }
+
+    /**
+     * Drops the globals of earlier runs unless they persist, binds the inputs as module globals,
+     * runs the script on the calling thread and returns the value of the global named result, or
+     * null if result is null.
+     */
+    public Object run(PythonContext context, Map<String, Object> inputs, String result) {
+        PythonContext previous = context.enter();
+
+        try {
+            Loaded script = load(context);
+
+            if (!persistentGlobals) {
+                script.resetGlobals();
+            }
+
+            if (inputs != null) {
+                for (Map.Entry<String, Object> input : inputs.entrySet()) {
+                    script.module.setAttribute(input.getKey(), input.getValue());
+                }
+            }
+
+            script.callTarget.call(PArguments.empty());
+            return result == null ? null : script.module.getAttribute(result);
+        } finally {
+            context.getStandardOutput().flush();
+            context.leave(previous);
+        }
+    }
+
+    private Loaded load(PythonContext context) {
+        Loaded loaded = (Loaded) context.getEmbedderState(this);
+        if (loaded != null) {
+            return loaded;
+        }
+
+        PythonModule module = context.createMainModule(source.getPath());
+        Set<String> initialGlobals = new HashSet<>(module.getAttributeNames());
+        PythonParseResult parsed;
+
+        if (encodedTree != null && context.getParser() instanceof PythonParserImpl) {
+            try {
+                parsed = ((PythonParserImpl) context.getParser()).translate(context, module, source, AstCodec.decode(encodedTree));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        } else {
+            parsed = context.getParser().parse(context, module, source);
+        }
+
+        loaded = new Loaded(module, Truffle.getRuntime().createCallTarget(parsed.getModuleRoot()), initialGlobals);
+        context.setEmbedderState(this, loaded);
+        return loaded;
+    }
+
+}
@@ -49,7 +49,7 @@ public class RunScript {
             try {
                 interp.execfile(source, null, out, err);
             } catch (Throwable t) {
-                ZipPyConsole.dispose(interp, t, false);
+                ZipPyConsole.dispose(t, false);
             }
         }
     }
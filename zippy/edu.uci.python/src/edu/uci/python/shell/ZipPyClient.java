@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.shell;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+/**
+ * Thin client of {@link ZipPyDaemon}. Forwards its arguments, working directory and standard
+ * streams to a running daemon and exits with the script's status. Only depends on the JDK so it
+ * starts quickly; it exits with status 3 if no daemon is running.
+ * <p>
+ * Frames are a tag byte followed by a length and the payload, or by the status for {@link #EXIT}.
+ * An empty {@link #STDIN} frame marks the end of input.
+ */
+public final class ZipPyClient {
+
+    static final int STDIN = 0;
+    static final int STDOUT = 1;
+    static final int STDERR = 2;
+    static final int EXIT = 3;
+
+    private ZipPyClient() {
+    }
+
+    public static Path stateFile() {
+        return Paths.get(System.getProperty("user.home"), ".zippy", "daemon");
+    }
+
+    public static void main(String[] args) {
+        System.exit(run(args, System.in, System.out, System.err));
+    }
+
+    public static int run(String[] args, final InputStream stdin, OutputStream stdout, OutputStream stderr) {
+        String[] state;
+        try {
+            state = new String(Files.readAllBytes(stateFile()), StandardCharsets.UTF_8).trim().split(" ");
+        } catch (IOException e) {
+            return noDaemon(stderr);
+        }
+
+        try {
+            return run(Integer.parseInt(state[0]), state[1], args, stdin, stdout, stderr);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            return noDaemon(stderr);
+        }
+    }
+
+    public static int run(int port, String token, String[] args, final InputStream stdin, OutputStream stdout, OutputStream stderr) {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+
+            out.writeUTF(token);
+            out.writeUTF(System.getProperty("user.dir"));
+            out.writeInt(args.length);
+            for (String arg : args) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+
+            Thread input = new Thread(new Runnable() {
+
+                public void run() {
+                    forwardInput(stdin, out);
+                }
+
+            }, "zippy-client-stdin");
+            input.setDaemon(true);
+            input.start();
+
+            byte[] buffer = new byte[8192];
+            while (true) {
+                int tag = in.readByte();
+                if (tag == EXIT) {
+                    stdout.flush();
+                    stderr.flush();
+                    return in.readInt();
+                }
+
+                OutputStream target = tag == STDERR ? stderr : stdout;
+                int length = in.readInt();
+                while (length > 0) {
+                    int n = in.read(buffer, 0, Math.min(length, buffer.length));
+                    if (n < 0) {
+                        throw new EOFException();
+                    }
+
+                    target.write(buffer, 0, n);
+                    length -= n;
+                }
+
+                if (tag == STDERR) {
+                    stderr.flush();
+                }
+            }
+        } catch (ConnectException e) {
+            return noDaemon(stderr);
+        } catch (IOException e) {
+            new PrintStream(stderr, true).println("zippy daemon connection lost: " + e);
+            return 3;
+        }
+    }
+
+    private static void forwardInput(InputStream stdin, DataOutputStream out) {
+        byte[] buffer = new byte[8192];
+        try {
+            int n;
+            while ((n = stdin.read(buffer)) > 0) {
+                synchronized (out) {
+                    out.writeByte(STDIN);
+                    out.writeInt(n);
+                    out.write(buffer, 0, n);
+                    out.flush();
+                }
+            }
+
+            synchronized (out) {
+                out.writeByte(STDIN);
+                out.writeInt(0);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // the run finished and the connection is closed
+        }
+    }
+
+    private static int noDaemon(OutputStream stderr) {
+        new PrintStream(stderr, true).println("no zippy daemon is running, start one with 'ZipPyMain --daemon'");
+        return 3;
+    }
+
+}
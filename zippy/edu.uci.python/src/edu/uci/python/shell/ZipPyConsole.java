@@ -29,17 +29,12 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.lang.reflect.Field;
-import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.python.core.Py;
 import org.python.core.PyException;
-import org.python.core.PyList;
-import org.python.core.PyString;
 import org.python.core.PySystemState;
-import org.python.core.PyTuple;
-import org.python.util.InteractiveConsole;
-import org.python.util.JLineConsole;
 
 import com.oracle.truffle.api.RootCallTarget;
 import com.oracle.truffle.api.Truffle;
@@ -51,16 +46,36 @@ import edu.uci.python.PythonLanguage;
 import edu.uci.python.builtins.PythonDefaultBuiltinsLookup;
 import edu.uci.python.nodes.ModuleNode;
 import edu.uci.python.parser.PythonParserImpl;
+import edu.uci.python.runtime.JythonRuntime;
 import edu.uci.python.runtime.PythonContext;
 import edu.uci.python.runtime.PythonOptions;
 import edu.uci.python.runtime.PythonParseResult;
+import edu.uci.python.runtime.exception.PException;
 import edu.uci.python.runtime.function.PArguments;
 import edu.uci.python.runtime.standardtype.PythonModule;
 
-public class ZipPyConsole extends InteractiveConsole {
+/**
+ * Runs scripts on a {@link PolyglotEngine}. The Jython runtime is only configured here and started
+ * by {@link JythonRuntime} on first use.
+ */
+public class ZipPyConsole {
+
+    private final Map<String, Object> config = new HashMap<>();
+
+    /**
+     * Sets an engine configuration value for later runs, see the CONFIG keys of
+     * {@link PythonLanguage}.
+     */
+    public void setConfig(String key, Object value) {
+        config.put(key, value);
+    }
 
     public void execfile(Source source, InputStream in, OutputStream out, OutputStream err) {
         Builder builder = PolyglotEngine.newBuilder();
+        for (Map.Entry<String, Object> entry : config.entrySet()) {
+            builder.config(PythonLanguage.MIME_TYPE, entry.getKey(), entry.getValue());
+        }
+
         if (in != null)
             builder.setIn(in);
 
@@ -71,16 +86,19 @@ public class ZipPyConsole extends InteractiveConsole {
             builder.setErr(err);
 
         PolyglotEngine engine = builder.build();
-        engine.eval(source);
-        engine.dispose();
+        try {
+            engine.eval(source);
+        } finally {
+            // Flushes buffered output, also when the script failed.
+            engine.dispose();
+        }
     }
 
     public void execfile(Source source) {
         execfile(source, null, null, null);
     }
 
-    @Override
-    public void execfile(java.io.InputStream s, String name) {
+    public void execfile(String name) {
         try {
             execfile(Source.newBuilder(new File(name)).mimeType(PythonLanguage.MIME_TYPE).build(), null, null, null);
         } catch (IOException e) {
@@ -88,38 +106,8 @@ public class ZipPyConsole extends InteractiveConsole {
         }
     }
 
-    /**
-     * Returns a new python interpreter using the InteractiveConsole subclass from the
-     * <tt>python.console</tt> registry key.
-     * <p>
-     *
-     * When stdin is interactive the default is {@link JLineConsole}. Otherwise the featureless
-     * {@link InteractiveConsole} is always used as alternative consoles cause unexpected behavior
-     * with the std file streams.
-     */
-    public static InteractiveConsole newInterpreter(String[] args, String workingDir, boolean interactiveStdin) {
-        PySystemState systemState = createPySystemState(args);
-        InteractiveConsole console = null;
-        if (!interactiveStdin) {
-            console = new InteractiveConsole();
-        } else {
-            String interpClass = PySystemState.registry.getProperty("python.console", "");
-            if (interpClass.length() > 0) {
-                try {
-                    console = (InteractiveConsole) Class.forName(interpClass).newInstance();
-                } catch (Throwable t) {
-                    // fall through
-                }
-            }
-            console = (console == null) ? new ZipPyConsole() : console;
-        }
-
-        setPySystemState(console, systemState, workingDir);
-        return console;
-    }
-
     public void init(String[] args, String workingDir) {
-        setPySystemState(this, createPySystemState(args), workingDir);
+        JythonRuntime.configure(args, workingDir);
     }
 
     /**
@@ -134,7 +122,12 @@ public class ZipPyConsole extends InteractiveConsole {
         PythonParseResult ast = testZipPyAST(source, out, err);
         ModuleNode root = (ModuleNode) ast.getModuleRoot();
         RootCallTarget moduleCallTarget = Truffle.getRuntime().createCallTarget(root);
-        moduleCallTarget.call(PArguments.empty());
+        try {
+            moduleCallTarget.call(PArguments.empty());
+        } finally {
+            ast.getContext().getStandardOutput().flush();
+            ast.getContext().closeOpenFiles();
+        }
         return ast;
     }
 
@@ -143,79 +136,18 @@ public class ZipPyConsole extends InteractiveConsole {
         opts.setStandardOut(out);
         opts.setStandardErr(err);
         PythonContext context = new PythonContext(null, opts, new PythonDefaultBuiltinsLookup(), new PythonParserImpl());
-        PythonModule module = context.createMainModule(source.getPath());
-        return context.getParser().parse(context, module, source);
-    }
-
-    /**
-     ***************************************************
-     * Jython front-end parser preparation and cleanup *
-     ***************************************************
-     */
-
-    private static PyList passArgs(String[] args) {
-        PyList argv = new PyList();
-        if (args != null) {
-            for (String arg : args) {
-                argv.append(Py.newStringOrUnicode(arg));
-            }
-        }
-        return argv;
-    }
-
-    private static PySystemState createPySystemState(String[] args) {
-
-        // Setup the basic python system state from these options
-        PySystemState systemState = null;
-        if (args.length > 0) {
-            Py.setSystemState(new PySystemState()).argv = passArgs(args);
-            Py.getSystemState().argv = passArgs(args);
-            systemState = Py.getSystemState();
-        } else {
-            PySystemState.initialize(PySystemState.getBaseProperties(), PySystemState.getBaseProperties(), args);
-            systemState = Py.getSystemState();
-        }
-
-        return systemState;
-    }
-
-    private static void setPySystemState(InteractiveConsole console, PySystemState systemState, String workingDir) {
-
-        systemState.__setattr__("_jy_interpreter", Py.java2py(console));
-
+        PythonContext previous = context.enter();
         try {
-            // Modify verion info in Jython runtime
-            Field field = PySystemState.class.getField("version_info");
-            field.setAccessible(true);
-
-            Field modifiersField = Field.class.getDeclaredField("modifiers");
-            modifiersField.setAccessible(true);
-            modifiersField.setInt(field, field.getModifiers() & ~Modifier.FINAL);
-
-            field.set(null, new PyTuple(Py.newInteger(3), Py.newInteger(5), Py.newInteger(0), Py.newString("zippy"), Py.newInteger(0)));
-            modifiersField.setInt(field, field.getModifiers() & Modifier.FINAL);
-        } catch (Exception e) {
-            // pass through
-        }
-
-        String workingPath = System.getProperty("user.dir");
-        systemState.path.insert(0, new PyString(workingPath));
-        systemState.setCurrentWorkingDir(workingPath);
-        Py.getSystemState().path.insert(0, new PyString(workingPath));
-        Py.getSystemState().setCurrentWorkingDir(workingPath);
-        if (workingDir != null) {
-            workingPath = workingDir;
-            PyString path = new PyString(workingPath);
-            systemState.path.insert(0, path);
-            systemState.setCurrentWorkingDir(workingPath);
-            Py.getSystemState().path.insert(0, path);
-            Py.getSystemState().setCurrentWorkingDir(workingPath);
+            PythonModule module = context.createMainModule(source.getPath());
+            return context.getParser().parse(context, module, source);
+        } finally {
+            context.leave(previous);
         }
     }
 
-    public static void dispose(InteractiveConsole console, Throwable t, boolean exit) {
+    public static void dispose(Throwable t, boolean exit) {
         if (t != null) {
-            if (t instanceof PyException && ((PyException) t).match(org.python.modules._systemrestart.SystemRestart)) {
+            if (JythonRuntime.isInitialized() && t instanceof PyException && ((PyException) t).match(org.python.modules._systemrestart.SystemRestart)) {
                 /**
                  * Run any finalizations on the current interpreter in preparation for a
                  * SytemRestart.
@@ -230,13 +162,24 @@ public class ZipPyConsole extends InteractiveConsole {
                 } catch (PyException pye) {
                     // continue
                 }
-                console.cleanup();
+                JythonRuntime.cleanup();
                 // ..reset the state...
                 Py.setSystemState(new PySystemState());
                 // ...and start again
+            } else if (t instanceof PException) {
+                PException pe = (PException) t;
+                System.err.print(pe.getTraceback() + pe);
+                JythonRuntime.cleanup();
+                if (exit) {
+                    System.exit(-1);
+                }
             } else {
-                Py.printException(t);
-                console.cleanup();
+                if (JythonRuntime.isInitialized() || t instanceof PyException) {
+                    Py.printException(t);
+                } else {
+                    t.printStackTrace();
+                }
+                JythonRuntime.cleanup();
                 if (exit) {
                     System.exit(-1);
                 }
@@ -0,0 +1,519 @@
+/*
+ * Copyright (c) 2015, Regents of the University of California
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package edu.uci.python.shell;
+
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.security.*;
+import java.util.*;
+
+import org.python.core.*;
+
+import com.oracle.truffle.api.source.*;
+
+import edu.uci.python.*;
+import edu.uci.python.builtins.*;
+import edu.uci.python.parser.*;
+import edu.uci.python.runtime.*;
+import edu.uci.python.runtime.datatype.*;
+import edu.uci.python.runtime.exception.*;
+
+import static edu.uci.python.shell.ZipPyClient.*;
+
+/**
+ * A long-lived ZipPy process that runs scripts on behalf of {@link ZipPyClient}, so repeated short
+ * runs execute in a JVM whose compiled code and parse caches are already warm.
+ * <p>
+ * The daemon listens on an ephemeral loopback port and publishes the port together with a random
+ * token in {@link ZipPyClient#stateFile()}, readable by the owner only. A client connects, sends the token, its
+ * working directory and its arguments, then streams its standard input. The daemon answers with
+ * standard output and error frames and a final exit status, the code of SystemExit if the script
+ * raised it. Clients are served concurrently; Jython's sys.argv, sys.path and working directory
+ * are process wide, so overlapping runs that fall back to Jython share them, see
+ * {@link JythonRuntime#enterRun}.
+ * <p>
+ * A script is compiled once per path and working directory and kept as long as its modification
+ * time and size stay the same, together with the contexts that ran it. Truffle trees belong to
+ * their context, so a run takes an idle context that has translated the script already and runs
+ * it there with fresh module globals, see {@link PythonScript}. Modules the script imported stay
+ * imported in that context, as they do across runs of an embedded script.
+ */
+public final class ZipPyDaemon {
+
+    private static final int CACHED_SCRIPTS = 32;
+    private static final int IDLE_CONTEXTS_PER_SCRIPT = 4;
+
+    /**
+     * Modification times may only have a resolution of seconds, so a file changed within this
+     * window before it was compiled may change again unnoticed and is compiled on every run.
+     */
+    private static final long MODIFIED_RESOLUTION_MILLIS = 2000;
+
+    private final ServerSocket server;
+    private final String token;
+
+    /**
+     * Keyed by the script's path and the client's working directory.
+     */
+    @SuppressWarnings("serial") private final Map<List<String>, CachedScript> scripts = new LinkedHashMap<List<String>, CachedScript>(16, 0.75f, true) {
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<String>, CachedScript> eldest) {
+            return size() > CACHED_SCRIPTS;
+        }
+
+    };
+
+    public ZipPyDaemon(int port) throws IOException {
+        this.server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.token = newToken();
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Publishes the state file and accepts clients until the daemon is closed.
+     */
+    public void serve() throws IOException {
+        writeStateFile();
+
+        try {
+            acceptClients();
+        } finally {
+            Files.deleteIfExists(stateFile());
+        }
+    }
+
+    /**
+     * Accepts clients without publishing the state file, for callers that hand out the port and
+     * token themselves.
+     */
+    public void acceptClients() {
+        while (!server.isClosed()) {
+            final Socket socket;
+            try {
+                socket = server.accept();
+            } catch (IOException e) {
+                // closed
+                break;
+            }
+
+            Thread handler = new Thread(new Runnable() {
+
+                public void run() {
+                    handle(socket);
+                }
+
+            }, "zippy-daemon-client");
+            handler.setDaemon(true);
+            handler.start();
+        }
+    }
+
+    public void close() throws IOException {
+        server.close();
+    }
+
+    private void writeStateFile() throws IOException {
+        Path state = stateFile();
+        Files.createDirectories(state.getParent());
+        Path temp = Files.createTempFile(state.getParent(), "daemon", ".tmp");
+
+        try {
+            Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system
+        }
+
+        Files.write(temp, (getPort() + " " + token + "\n").getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, state, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void handle(Socket socket) {
+        try (Socket s = socket) {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+
+            if (!token.equals(in.readUTF())) {
+                return;
+            }
+
+            String workingDir = in.readUTF();
+            String[] args = new String[in.readInt()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = in.readUTF();
+            }
+
+            discardInput(in);
+            OutputStream stdout = new FrameOutputStream(out, STDOUT);
+            OutputStream stderr = new FrameOutputStream(out, STDERR);
+            int status = run(args, workingDir, stdout, stderr);
+
+            synchronized (out) {
+                out.writeByte(EXIT);
+                out.writeInt(status);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    private int run(String[] args, String workingDir, OutputStream out, OutputStream err) {
+        PrintStream errStream = new PrintStream(err, true);
+
+        if (args.length < 1) {
+            errStream.println("usage: zippy-client script.py [args...]");
+            return 2;
+        }
+
+        File script = new File(args[0]);
+        if (!script.isAbsolute()) {
+            script = new File(workingDir, args[0]);
+        }
+
+        if (!script.isFile()) {
+            errStream.println("can't open file '" + args[0] + "'");
+            return 2;
+        }
+
+        CachedScript cached = null;
+        DaemonContext context = null;
+        boolean failed = true;
+        JythonRuntime.enterRun(args, workingDir);
+
+        try {
+            cached = lookup(script, workingDir);
+            context = cached.acquire(workingDir);
+            context.out.setTarget(out);
+            context.err.setTarget(err);
+            cached.script.run(context.context, null, null);
+            failed = false;
+            return 0;
+        } catch (Throwable t) {
+            Object exitCode = findSystemExitCode(t);
+            if (exitCode != NOT_EXITED) {
+                return exitStatus(exitCode, errStream);
+            }
+
+            PException pe = findPException(t);
+            if (pe != null) {
+                errStream.print(pe.getTraceback() + pe);
+            } else {
+                t.printStackTrace(errStream);
+            }
+
+            return 1;
+        } finally {
+            errStream.flush();
+            JythonRuntime.flushLine();
+            JythonRuntime.leaveRun();
+
+            if (context != null) {
+                context.context.closeOpenFiles();
+                context.out.setTarget(null);
+                context.err.setTarget(null);
+
+                // A context the script failed in may be left in an arbitrary state.
+                if (!failed) {
+                    cached.release(context);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the compiled script, compiling it again if the file changed since it was cached.
+     */
+    private CachedScript lookup(File file, String workingDir) throws IOException {
+        Path path = file.toPath().toAbsolutePath();
+        long now = System.currentTimeMillis();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        List<String> key = Arrays.asList(path.toString(), workingDir);
+
+        synchronized (scripts) {
+            CachedScript cached = scripts.get(key);
+            if (cached != null && cached.isCurrent(attributes)) {
+                return cached;
+            }
+        }
+
+        Source source = Source.newBuilder(path.toFile()).mimeType(PythonLanguage.MIME_TYPE).build();
+        CachedScript compiled = new CachedScript(PythonScript.compile(source), attributes, now);
+
+        synchronized (scripts) {
+            scripts.put(key, compiled);
+        }
+
+        return compiled;
+    }
+
+    private static final Object NOT_EXITED = new Object();
+
+    /**
+     * Returns the code of the SystemExit that ended the script, null for a bare exit, or
+     * {@link #NOT_EXITED} if the script failed with another exception.
+     */
+    private static Object findSystemExitCode(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PyException && ((PyException) cause).match(Py.SystemExit)) {
+                PyObject value = ((PyException) cause).value;
+                PyObject code = value == null ? null : value.__findattr__("code");
+                return code == null || code == Py.None ? null : code;
+            }
+
+            if (cause instanceof PException && ((PException) cause).getType().getName().equals("SystemExit")) {
+                Object exception = ((PException) cause).getExceptionObject();
+                if (exception instanceof PBaseException && ((PBaseException) exception).getArgs().len() > 0) {
+                    Object code = ((PBaseException) exception).getArgs().getItem(0);
+                    return code == PNone.NONE ? null : code;
+                }
+
+                return null;
+            }
+        }
+
+        return NOT_EXITED;
+    }
+
+    /**
+     * Maps a SystemExit code to a process exit status the way CPython does: None is success,
+     * integers are the status, anything else is printed and fails.
+     */
+    private static int exitStatus(Object code, PrintStream err) {
+        if (code == null) {
+            return 0;
+        } else if (code instanceof Integer) {
+            return (int) code;
+        } else if (code instanceof PyInteger || code instanceof PyLong) {
+            return ((PyObject) code).asInt();
+        }
+
+        err.println(code);
+        return 1;
+    }
+
+    private static PException findPException(Throwable t) {
+        for (Throwable cause = t; cause != null; cause = cause.getCause()) {
+            if (cause instanceof PException) {
+                return (PException) cause;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Reads and drops {@link #STDIN} frames from the client, which scripts do not read yet, so
+     * that a client writing its standard input is not blocked.
+     */
+    private static void discardInput(final DataInputStream in) {
+        Thread pump = new Thread(new Runnable() {
+
+            public void run() {
+                try {
+                    while (in.readByte() == STDIN) {
+                        int length = in.readInt();
+                        if (length == 0) {
+                            break;
+                        }
+
+                        while (length > 0) {
+                            int n = in.skipBytes(length);
+                            if (n == 0) {
+                                in.readByte();
+                                n = 1;
+                            }
+
+                            length -= n;
+                        }
+                    }
+                } catch (IOException e) {
+                    // end of input
+                }
+            }
+
+        }, "zippy-daemon-stdin");
+        pump.setDaemon(true);
+        pump.start();
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b & 0xff));
+        }
+
+        return hex.toString();
+    }
+
+    private static final class CachedScript {
+
+        private final PythonScript script;
+        private final FileTime modified;
+        private final long size;
+        private final long compiled;
+        private final Deque<DaemonContext> idle = new ArrayDeque<>();
+
+        private CachedScript(PythonScript script, BasicFileAttributes attributes, long compiled) {
+            this.script = script;
+            this.modified = attributes.lastModifiedTime();
+            this.size = attributes.size();
+            this.compiled = compiled;
+        }
+
+        private boolean isCurrent(BasicFileAttributes attributes) {
+            return modified.equals(attributes.lastModifiedTime()) && size == attributes.size() && modified.toMillis() + MODIFIED_RESOLUTION_MILLIS < compiled;
+        }
+
+        /**
+         * Takes an idle context that ran this script before, or creates one if all are in use.
+         */
+        private DaemonContext acquire(String workingDir) {
+            synchronized (idle) {
+                DaemonContext context = idle.pollFirst();
+                if (context != null) {
+                    return context;
+                }
+            }
+
+            return new DaemonContext(workingDir);
+        }
+
+        private void release(DaemonContext context) {
+            synchronized (idle) {
+                if (idle.size() < IDLE_CONTEXTS_PER_SCRIPT) {
+                    idle.addFirst(context);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * A context whose standard output and error go to the client it currently runs for.
+     */
+    private static final class DaemonContext {
+
+        private final PythonContext context;
+        private final ClientOutputStream out = new ClientOutputStream();
+        private final ClientOutputStream err = new ClientOutputStream();
+
+        private DaemonContext(String workingDir) {
+            PythonOptions opts = new PythonOptions();
+            opts.setStandardOut(out);
+            opts.setStandardErr(err);
+            opts.setWorkingDirectory(workingDir);
+            this.context = new PythonContext(null, opts, new PythonDefaultBuiltinsLookup(), new PythonParserImpl(true));
+        }
+
+    }
+
+    /**
+     * Forwards to the stream of the current client and drops output while there is none.
+     */
+    private static final class ClientOutputStream extends OutputStream {
+
+        private volatile OutputStream target;
+
+        void setTarget(OutputStream target) {
+            this.target = target;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            OutputStream current = target;
+            if (current != null) {
+                current.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            OutputStream current = target;
+            if (current != null) {
+                current.flush();
+            }
+        }
+
+    }
+
+    /**
+     * Wraps writes into frames of the given tag; frames from several streams share one connection.
+     */
+    static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final int tag;
+
+        FrameOutputStream(DataOutputStream out, int tag) {
+            this.out = out;
+            this.tag = tag;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return;
+            }
+
+            synchronized (out) {
+                out.writeByte(tag);
+                out.writeInt(len);
+                out.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+
+    }
+
+}
@@ -25,16 +25,8 @@
 package edu.uci.python.shell;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 
-import org.python.core.Py;
-import org.python.core.PyFile;
-import org.python.core.util.RelativeFile;
-import org.python.modules.posix.PosixModule;
-import org.python.util.InteractiveConsole;
-
 public class ZipPyMain {
 
     public static void main(String[] args) {
@@ -42,40 +34,23 @@ public class ZipPyMain {
             System.out.println("Please run 'mx python --help' for more information.");
             if (args.length == 0)
                 System.out.println("Interactive shell is not supported yet.");
+        } else if (args[0].equals("--daemon")) {
+            try {
+                new ZipPyDaemon(args.length > 1 ? Integer.parseInt(args[1]) : 0).serve();
+            } catch (IOException e) {
+                System.err.println("cannot start zippy daemon: " + e.getMessage());
+                System.exit(-1);
+            }
         } else {
             String scriptName = args[0];
             File script = new File(scriptName);
             if (script.isFile()) {
-                @SuppressWarnings("unused")
-                String path = null;
+                ZipPyConsole interp = new ZipPyConsole();
+                interp.init(args, null);
                 try {
-                    path = script.getCanonicalFile().getParent();
-                } catch (IOException ioe) {
-                    path = script.getAbsoluteFile().getParent();
-                }
-
-                InteractiveConsole interp = ZipPyConsole.newInterpreter(args, null, true);
-                try {
-                    FileInputStream file;
-
-                    try {
-                        file = new FileInputStream(new RelativeFile(scriptName));
-                    } catch (FileNotFoundException e) {
-                        throw Py.IOError(e);
-                    }
-
-                    try {
-                        if (PosixModule.getPOSIX().isatty(file.getFD())) {
-                            interp.interact(null, new PyFile(file));
-                            return;
-                        } else {
-                            interp.execfile(file, scriptName);
-                        }
-                    } finally {
-                        file.close();
-                    }
+                    interp.execfile(scriptName);
                 } catch (Throwable t) {
-                    ZipPyConsole.dispose(interp, t, true);
+                    ZipPyConsole.dispose(t, true);
                 }
             }
         }